@@ -6,6 +6,7 @@ import java.sql.SQLException;
 import java.util.Date;
 
 import org.openstreetmap.osmosis.core.database.RowMapperListener;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
 import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
 import org.springframework.jdbc.core.RowCallbackHandler;
@@ -18,6 +19,7 @@ public class EntityDataRowMapper implements RowCallbackHandler {
 	
 	private RowMapperListener<CommonEntityData> listener;
 	private boolean readAllUsers;
+	private StringDictionary dictionary;
 	
 	
 	/**
@@ -31,6 +33,8 @@ public class EntityDataRowMapper implements RowCallbackHandler {
 	public EntityDataRowMapper(RowMapperListener<CommonEntityData> listener, boolean readAllUsers) {
 		this.listener = listener;
 		this.readAllUsers = readAllUsers;
+		
+		dictionary = new StringDictionary(StringDictionary.DEFAULT_CAPACITY);
 	}
 
 
@@ -55,7 +59,7 @@ public class EntityDataRowMapper implements RowCallbackHandler {
             if (userName == null) {
                 correctedUserName = "";
             } else {
-                correctedUserName = userName;
+                correctedUserName = dictionary.intern(userName);
             }
 
             return new OsmUser(userId, correctedUserName);
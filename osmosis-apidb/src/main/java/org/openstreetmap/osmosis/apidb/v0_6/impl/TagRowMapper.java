@@ -5,6 +5,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import org.openstreetmap.osmosis.core.database.RowMapperListener;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.springframework.jdbc.core.RowCallbackHandler;
 
@@ -15,6 +16,7 @@ import org.springframework.jdbc.core.RowCallbackHandler;
 public class TagRowMapper implements RowCallbackHandler {
 	
 	private RowMapperListener<Tag> listener;
+	private StringDictionary dictionary;
 	
 	
 	/**
@@ -25,6 +27,8 @@ public class TagRowMapper implements RowCallbackHandler {
 	 */
 	public TagRowMapper(RowMapperListener<Tag> listener) {
 		this.listener = listener;
+		
+		dictionary = new StringDictionary(StringDictionary.DEFAULT_CAPACITY);
 	}
 	
 
@@ -37,8 +41,8 @@ public class TagRowMapper implements RowCallbackHandler {
         String value;
         Tag tag;
         
-		key = resultSet.getString("k");
-		value = resultSet.getString("v");
+		key = dictionary.intern(resultSet.getString("k"));
+		value = dictionary.intern(resultSet.getString("v"));
 		
 		tag = new Tag(key, value);
 		
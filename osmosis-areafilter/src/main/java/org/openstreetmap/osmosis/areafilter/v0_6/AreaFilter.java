@@ -572,8 +572,11 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
 			availableNodes.setAll(requiredNodes);
 			availableWays.setAll(requiredWays);
 			availableRelations.setAll(requiredRelations);
+			requiredNodes.close();
 			requiredNodes = null;
+			requiredWays.close();
 			requiredWays = null;
+			requiredRelations.close();
 			requiredRelations = null;
 			
 			if (completeRelations) {
@@ -612,6 +615,12 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
 		if (allRelations != null) {
 			allRelations.close();
 		}
+		for (IdTracker idTracker : new IdTracker[] {
+				availableNodes, requiredNodes, availableWays, requiredWays, availableRelations, requiredRelations}) {
+			if (idTracker != null) {
+				idTracker.close();
+			}
+		}
 		sink.close();
 	}
 	
@@ -13,6 +13,7 @@ import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
  * @author Brett Henderson
  */
 public abstract class AreaFilterTaskManagerFactory extends TaskManagerFactory {
+	private static final String ARG_ID_TRACKER_TYPE = "idTrackerType";
 	private static final IdTrackerType DEFAULT_ID_TRACKER_TYPE = IdTrackerType.Dynamic;
 
 
@@ -26,6 +27,9 @@ public abstract class AreaFilterTaskManagerFactory extends TaskManagerFactory {
 	 * @return The entity identifier tracker type.
 	 */
 	protected IdTrackerType getIdTrackerType(TaskConfiguration taskConfig) {
-		return DEFAULT_ID_TRACKER_TYPE;
+		return Enum.valueOf(
+			IdTrackerType.class,
+			getStringArgument(taskConfig, ARG_ID_TRACKER_TYPE, DEFAULT_ID_TRACKER_TYPE.name())
+		);
 	}
 }
@@ -0,0 +1,121 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.areafilter.v0_6;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.benchmarks.v0_6.EntityGenerator;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.filter.common.IdTrackerType;
+
+
+/**
+ * Measures the point in polygon test of the polygon filter. The polygon is a
+ * star shape so that the test can't be satisfied by the bounding box alone,
+ * and the nodes are spread over a square slightly larger than the polygon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PolygonFilterBenchmark {
+	private static final int NODE_COUNT = 100000;
+
+	/**
+	 * The number of vertices in the polygon.
+	 */
+	@Param({"16", "1024"})
+	public int vertexCount;
+
+	private File polygonFile;
+	private PolygonFilter filter;
+	private Node[] nodes;
+
+
+	/**
+	 * Writes the polygon file and generates nodes.
+	 *
+	 * @throws IOException
+	 *             if the polygon file can't be written.
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		EntityGenerator generator;
+
+		polygonFile = File.createTempFile("benchmark", ".poly");
+		try (PrintWriter writer = new PrintWriter(polygonFile, StandardCharsets.UTF_8.name())) {
+			writer.println("benchmark");
+			writer.println("1");
+			for (int i = 0; i <= vertexCount; i++) {
+				double angle;
+				double radius;
+
+				// Alternate between an outer and inner radius to form a star.
+				angle = 2 * Math.PI * i / vertexCount;
+				radius = 1 - 0.5 * (i % 2);
+				writer.println(String.format(Locale.ROOT, "   %.7E   %.7E",
+						radius * Math.cos(angle), radius * Math.sin(angle)));
+			}
+			writer.println("END");
+			writer.println("END");
+		}
+
+		filter = new PolygonFilter(IdTrackerType.Dynamic, polygonFile, false, false, false, false);
+
+		generator = new EntityGenerator(-1.1, -1.1, 2.2);
+		nodes = new Node[NODE_COUNT];
+		for (int i = 0; i < NODE_COUNT; i++) {
+			nodes[i] = generator.createNode(i + 1);
+		}
+
+		// The polygon is loaded lazily on first use.
+		filter.isNodeWithinArea(nodes[0]);
+	}
+
+
+	/**
+	 * Removes the polygon file.
+	 */
+	@TearDown
+	public void tearDown() {
+		if (!polygonFile.delete()) {
+			throw new OsmosisRuntimeException("Unable to delete file " + polygonFile + ".");
+		}
+	}
+
+
+	/**
+	 * Tests all nodes against the polygon. The reported time is per node.
+	 *
+	 * @param blackhole
+	 *            Consumes the results.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(NODE_COUNT)
+	public void isNodeWithinArea(Blackhole blackhole) {
+		for (Node node : nodes) {
+			blackhole.consume(filter.isNodeWithinArea(node));
+		}
+	}
+}
@@ -0,0 +1,76 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.benchmarks.v0_6;
+
+import java.util.Map;
+
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+
+/**
+ * A sink passing all received entities to a JMH blackhole so that the work
+ * producing them can't be optimised away.
+ */
+public class BlackholeSink implements Sink {
+	private Blackhole blackhole;
+	private long count;
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param blackhole
+	 *            The blackhole to consume entities.
+	 */
+	public BlackholeSink(Blackhole blackhole) {
+		this.blackhole = blackhole;
+	}
+
+
+	/**
+	 * Returns the number of entities received.
+	 *
+	 * @return The entity count.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void initialize(Map<String, Object> metaData) {
+		blackhole.consume(metaData);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void process(EntityContainer entityContainer) {
+		count++;
+		blackhole.consume(entityContainer);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void complete() {
+		blackhole.consume(count);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		// Nothing to release.
+	}
+}
@@ -0,0 +1,211 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.benchmarks.v0_6;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+
+
+/**
+ * Generates synthetic OSM data for benchmarks. The data is loosely modelled on
+ * real data, most nodes are untagged, ways reference nearby nodes and tags are
+ * drawn from a small vocabulary. A fixed seed makes the data identical on every
+ * run so that results are comparable between runs.
+ */
+public class EntityGenerator {
+	private static final long SEED = 20240101L;
+	private static final long BASE_TIME = 1700000000000L;
+	private static final String[][] TAGS = {
+		{"highway", "residential"},
+		{"highway", "primary"},
+		{"building", "yes"},
+		{"name", "Main Street"},
+		{"name", "High Street"},
+		{"amenity", "parking"},
+		{"surface", "asphalt"},
+		{"source", "survey"},
+		{"landuse", "residential"},
+		{"natural", "tree"}
+	};
+	private static final OsmUser[] USERS = {
+		new OsmUser(1, "alice"),
+		new OsmUser(2, "bob"),
+		new OsmUser(3, "carol")
+	};
+
+	private Random random;
+	private double minLatitude;
+	private double minLongitude;
+	private double extent;
+
+
+	/**
+	 * Creates a new instance placing nodes within a one degree square south
+	 * west of the origin.
+	 */
+	public EntityGenerator() {
+		this(-1, -1, 1);
+	}
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param minLatitude
+	 *            The minimum latitude of generated nodes.
+	 * @param minLongitude
+	 *            The minimum longitude of generated nodes.
+	 * @param extent
+	 *            The size in degrees of the square containing generated nodes.
+	 */
+	public EntityGenerator(double minLatitude, double minLongitude, double extent) {
+		this.minLatitude = minLatitude;
+		this.minLongitude = minLongitude;
+		this.extent = extent;
+
+		random = new Random(SEED);
+	}
+
+
+	private CommonEntityData buildEntityData(long id, int maxTags) {
+		CommonEntityData entityData;
+		int tagCount;
+
+		entityData = new CommonEntityData(
+				id,
+				1 + random.nextInt(5),
+				new Date(BASE_TIME + random.nextInt(Integer.MAX_VALUE)),
+				USERS[random.nextInt(USERS.length)],
+				random.nextInt(1000000));
+
+		tagCount = random.nextInt(maxTags + 1);
+		for (int i = 0; i < tagCount; i++) {
+			String[] tag = TAGS[random.nextInt(TAGS.length)];
+			entityData.getTags().add(new Tag(tag[0], tag[1]));
+		}
+
+		return entityData;
+	}
+
+
+	/**
+	 * Creates a node.
+	 *
+	 * @param id
+	 *            The node identifier.
+	 * @return The node.
+	 */
+	public Node createNode(long id) {
+		int maxTags;
+
+		// Roughly one node in eight carries tags.
+		maxTags = 0;
+		if (random.nextInt(8) == 0) {
+			maxTags = 3;
+		}
+
+		return new Node(
+				buildEntityData(id, maxTags),
+				minLatitude + random.nextDouble() * extent,
+				minLongitude + random.nextDouble() * extent);
+	}
+
+
+	/**
+	 * Creates a way referencing a run of consecutive nodes.
+	 *
+	 * @param id
+	 *            The way identifier.
+	 * @param nodeCount
+	 *            The number of nodes that exist, they are assumed to have
+	 *            identifiers from 1 to nodeCount.
+	 * @return The way.
+	 */
+	public Way createWay(long id, int nodeCount) {
+		Way way;
+		int wayNodeCount;
+		long firstNode;
+
+		way = new Way(buildEntityData(id, 4));
+
+		wayNodeCount = Math.min(nodeCount, 2 + random.nextInt(15));
+		firstNode = 1 + random.nextInt(nodeCount - wayNodeCount + 1);
+		for (int i = 0; i < wayNodeCount; i++) {
+			way.getWayNodes().add(new WayNode(firstNode + i));
+		}
+
+		return way;
+	}
+
+
+	/**
+	 * Creates a relation with members drawn from existing ways.
+	 *
+	 * @param id
+	 *            The relation identifier.
+	 * @param wayCount
+	 *            The number of ways that exist, they are assumed to have
+	 *            identifiers from 1 to wayCount.
+	 * @return The relation.
+	 */
+	public Relation createRelation(long id, int wayCount) {
+		Relation relation;
+		int memberCount;
+
+		relation = new Relation(buildEntityData(id, 4));
+
+		memberCount = 1 + random.nextInt(10);
+		relation.getMembers().add(new RelationMember(1 + random.nextInt(wayCount), EntityType.Way, "outer"));
+		for (int i = 1; i < memberCount; i++) {
+			relation.getMembers().add(new RelationMember(1 + random.nextInt(wayCount), EntityType.Way, "inner"));
+		}
+
+		return relation;
+	}
+
+
+	/**
+	 * Creates a complete data set sorted by type then identifier as produced
+	 * by a typical OSM extract.
+	 *
+	 * @param nodeCount
+	 *            The number of nodes to create.
+	 * @param wayCount
+	 *            The number of ways to create.
+	 * @param relationCount
+	 *            The number of relations to create.
+	 * @return The entities.
+	 */
+	public List<EntityContainer> createDataSet(int nodeCount, int wayCount, int relationCount) {
+		List<EntityContainer> entities;
+
+		entities = new ArrayList<EntityContainer>(nodeCount + wayCount + relationCount);
+
+		for (int i = 1; i <= nodeCount; i++) {
+			entities.add(new NodeContainer(createNode(i)));
+		}
+		for (int i = 1; i <= wayCount; i++) {
+			entities.add(new WayContainer(createWay(i, nodeCount)));
+		}
+		for (int i = 1; i <= relationCount; i++) {
+			entities.add(new RelationContainer(createRelation(i, wayCount)));
+		}
+
+		return entities;
+	}
+}
@@ -0,0 +1,128 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Measures each id tracker implementation. Identifiers are ascending with
+ * random gaps as they are when tracking the entities of a sorted stream, and
+ * lookups are a mix of tracked and untracked identifiers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class IdTrackerBenchmark {
+	private static final int ID_COUNT = 1000000;
+
+	/**
+	 * The id tracker implementation.
+	 */
+	@Param({"BitSet", "IdList", "Dynamic", "Roaring", "Concurrent", "Mapped"})
+	public IdTrackerType idTrackerType;
+
+	private long[] ids;
+	private long[] lookups;
+	private IdTracker populatedTracker;
+
+
+	/**
+	 * Generates identifiers and a populated tracker for the lookup benchmarks.
+	 */
+	@Setup
+	public void setUp() {
+		Random random;
+		long id;
+
+		random = new Random(1);
+
+		ids = new long[ID_COUNT];
+		id = 0;
+		for (int i = 0; i < ID_COUNT; i++) {
+			id += 1 + random.nextInt(4);
+			ids[i] = id;
+		}
+
+		lookups = new long[ID_COUNT];
+		for (int i = 0; i < ID_COUNT; i++) {
+			lookups[i] = 1 + (long) (random.nextDouble() * id);
+		}
+
+		populatedTracker = IdTrackerFactory.createInstance(idTrackerType);
+		for (long trackedId : ids) {
+			populatedTracker.set(trackedId);
+		}
+		// Some implementations optimise their internal structures on first access.
+		populatedTracker.get(1);
+	}
+
+
+	/**
+	 * Adds identifiers to an empty tracker. The reported time is per
+	 * identifier.
+	 *
+	 * @param blackhole
+	 *            Consumes the results.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(ID_COUNT)
+	public void set(Blackhole blackhole) {
+		IdTracker tracker;
+
+		tracker = IdTrackerFactory.createInstance(idTrackerType);
+		for (long id : ids) {
+			tracker.set(id);
+		}
+
+		blackhole.consume(tracker);
+	}
+
+
+	/**
+	 * Looks up random identifiers. The reported time is per lookup.
+	 *
+	 * @param blackhole
+	 *            Consumes the results.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(ID_COUNT)
+	public void get(Blackhole blackhole) {
+		for (long id : lookups) {
+			blackhole.consume(populatedTracker.get(id));
+		}
+	}
+
+
+	/**
+	 * Iterates over all tracked identifiers. The reported time is per
+	 * identifier.
+	 *
+	 * @param blackhole
+	 *            Consumes the results.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(ID_COUNT)
+	public void iterate(Blackhole blackhole) {
+		for (Long id : populatedTracker) {
+			blackhole.consume(id.longValue());
+		}
+	}
+}
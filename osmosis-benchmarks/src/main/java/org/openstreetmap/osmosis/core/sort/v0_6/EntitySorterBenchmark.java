@@ -0,0 +1,80 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.sort.v0_6;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.benchmarks.v0_6.BlackholeSink;
+import org.openstreetmap.osmosis.benchmarks.v0_6.EntityGenerator;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+
+
+/**
+ * Measures sorting of an unordered entity stream. The data set is larger than
+ * the in-memory sort limit so the file based merge sort is exercised.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class EntitySorterBenchmark {
+
+	/**
+	 * Whether temporary files are compressed.
+	 */
+	@Param({"false", "true"})
+	public boolean useCompression;
+
+	private List<EntityContainer> entities;
+
+
+	/**
+	 * Generates the synthetic data set in random order.
+	 */
+	@Setup
+	public void setUp() {
+		entities = new EntityGenerator().createDataSet(80000, 10000, 1000);
+		Collections.shuffle(entities, new Random(1));
+	}
+
+
+	/**
+	 * Sorts the complete data set by type then identifier.
+	 *
+	 * @param blackhole
+	 *            Consumes the results.
+	 */
+	@Benchmark
+	public void sort(Blackhole blackhole) {
+		EntitySorter sorter;
+
+		sorter = new EntitySorter(
+				new EntityContainerComparator(new EntityByTypeThenIdComparator()), useCompression);
+		sorter.setSink(new BlackholeSink(blackhole));
+		try {
+			sorter.initialize(Collections.<String, Object>emptyMap());
+			for (EntityContainer entityContainer : entities) {
+				sorter.process(entityContainer);
+			}
+			sorter.complete();
+		} finally {
+			sorter.close();
+		}
+	}
+}
@@ -0,0 +1,112 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.benchmarks.v0_6.EntityGenerator;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskRunner;
+
+
+/**
+ * Measures the hand off of entities between two threads as performed by the
+ * buffer tasks. The benchmark thread consumes while a separate thread produces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DataPostboxBenchmark {
+	private static final int ENTITY_COUNT = 100000;
+
+	/**
+	 * The postbox implementation.
+	 */
+	@Param({"Locking", "RingBuffer"})
+	public PostboxType postboxType;
+
+	/**
+	 * The postbox capacity.
+	 */
+	@Param({"20", "1000"})
+	public int capacity;
+
+	private List<EntityContainer> entities;
+
+
+	/**
+	 * Generates the entities to be passed between threads.
+	 */
+	@Setup
+	public void setUp() {
+		entities = new EntityGenerator().createDataSet(ENTITY_COUNT, 0, 0);
+	}
+
+
+	/**
+	 * Passes all entities from a producer thread to the benchmark thread. The
+	 * reported time is per entity.
+	 *
+	 * @param blackhole
+	 *            Consumes the results.
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the producer.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(ENTITY_COUNT)
+	public void handOff(Blackhole blackhole) throws InterruptedException {
+		final Postbox<EntityContainer> postbox;
+		TaskRunner producer;
+
+		postbox = PostboxFactory.createInstance(postboxType, capacity);
+
+		producer = new TaskRunner(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					postbox.initialize(Collections.<String, Object>emptyMap());
+					for (EntityContainer entityContainer : entities) {
+						postbox.put(entityContainer);
+					}
+					postbox.complete();
+				} finally {
+					postbox.close();
+				}
+			}
+		}, "Producer");
+		producer.start();
+
+		try {
+			blackhole.consume(postbox.outputInitialize());
+			while (postbox.hasNext()) {
+				blackhole.consume(postbox.getNext());
+			}
+			postbox.outputComplete();
+		} finally {
+			postbox.outputRelease();
+		}
+
+		producer.join();
+		if (!producer.isSuccessful()) {
+			throw new OsmosisRuntimeException("The producer thread failed.", producer.getException());
+		}
+	}
+}
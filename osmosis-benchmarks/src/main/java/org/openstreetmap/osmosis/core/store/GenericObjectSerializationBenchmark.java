@@ -0,0 +1,111 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.benchmarks.v0_6.EntityGenerator;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+
+
+/**
+ * Measures serialization of entities with the generic object writer and reader
+ * as used by the file based stores and sort.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GenericObjectSerializationBenchmark {
+	private static final int NODE_COUNT = 80000;
+	private static final int WAY_COUNT = 10000;
+	private static final int RELATION_COUNT = 1000;
+	private static final int ENTITY_COUNT = NODE_COUNT + WAY_COUNT + RELATION_COUNT;
+
+	private List<EntityContainer> entities;
+	private byte[] serializedData;
+	private StoreClassRegister readClassRegister;
+
+
+	/**
+	 * Generates the entities and a serialized copy for the read benchmark.
+	 */
+	@Setup
+	public void setUp() {
+		ByteArrayOutputStream outputStream;
+
+		entities = new EntityGenerator().createDataSet(NODE_COUNT, WAY_COUNT, RELATION_COUNT);
+
+		outputStream = new ByteArrayOutputStream();
+		readClassRegister = new DynamicStoreClassRegister();
+		writeAll(outputStream, readClassRegister);
+		serializedData = outputStream.toByteArray();
+	}
+
+
+	private void writeAll(ByteArrayOutputStream outputStream, StoreClassRegister classRegister) {
+		GenericObjectWriter writer;
+
+		writer = new GenericObjectWriter(
+				new DataOutputStoreWriter(new DataOutputStream(outputStream)), classRegister);
+		for (EntityContainer entityContainer : entities) {
+			writer.writeObject(entityContainer);
+		}
+	}
+
+
+	/**
+	 * Serializes all entities. The reported time is per entity.
+	 *
+	 * @param blackhole
+	 *            Consumes the results.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(ENTITY_COUNT)
+	public void write(Blackhole blackhole) {
+		ByteArrayOutputStream outputStream;
+
+		outputStream = new ByteArrayOutputStream(serializedData.length);
+		writeAll(outputStream, new DynamicStoreClassRegister());
+
+		blackhole.consume(outputStream);
+	}
+
+
+	/**
+	 * Deserializes all entities. The reported time is per entity.
+	 *
+	 * @param blackhole
+	 *            Consumes the results.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(ENTITY_COUNT)
+	public void read(Blackhole blackhole) {
+		GenericObjectReader reader;
+
+		reader = new GenericObjectReader(
+				new DataInputStoreReader(new DataInputStream(new ByteArrayInputStream(serializedData))),
+				readClassRegister);
+		for (int i = 0; i < ENTITY_COUNT; i++) {
+			blackhole.consume(reader.readObject());
+		}
+	}
+}
@@ -0,0 +1,131 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pbf2.v0_6.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.benchmarks.v0_6.EntityGenerator;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import crosby.binary.Fileformat;
+import crosby.binary.file.BlockOutputStream;
+import crosby.binary.osmosis.OsmosisSerializer;
+
+
+/**
+ * Measures decoding of PBF data blocks. The synthetic data set is written by
+ * the PBF writer and split into raw blobs during setup, each operation decodes
+ * every data blob in the set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PbfBlobDecoderBenchmark {
+	private static final String DATA_BLOB_TYPE = "OSMData";
+
+	private List<RawBlob> rawBlobs;
+	private List<Fileformat.Blob> blobs;
+	private BlobDecompressor decompressor;
+
+
+	/**
+	 * Writes the synthetic data set to PBF and splits it into blobs.
+	 */
+	@Setup
+	public void setUp() {
+		ByteArrayOutputStream pbfData;
+		OsmosisSerializer serializer;
+
+		pbfData = new ByteArrayOutputStream();
+		serializer = new OsmosisSerializer(new BlockOutputStream(pbfData));
+		serializer.initialize(Collections.<String, Object>emptyMap());
+		for (EntityContainer entityContainer : new EntityGenerator().createDataSet(64000, 8000, 800)) {
+			serializer.process(entityContainer);
+		}
+		serializer.complete();
+		serializer.close();
+
+		rawBlobs = new ArrayList<RawBlob>();
+		blobs = new ArrayList<Fileformat.Blob>();
+		try (StreamSplitter splitter =
+				new StreamSplitter(new DataInputStream(new ByteArrayInputStream(pbfData.toByteArray())))) {
+			while (splitter.hasNext()) {
+				RawBlob rawBlob = splitter.next();
+
+				if (DATA_BLOB_TYPE.equals(rawBlob.getType())) {
+					rawBlobs.add(rawBlob);
+					blobs.add(Fileformat.Blob.parseFrom(rawBlob.getData()));
+				}
+			}
+		} catch (InvalidProtocolBufferException e) {
+			throw new OsmosisRuntimeException("Unable to parse generated PBF blob.", e);
+		}
+
+		decompressor = new BlobDecompressor();
+	}
+
+
+	/**
+	 * Fully decodes all data blobs into entities.
+	 *
+	 * @param blackhole
+	 *            Consumes the results.
+	 */
+	@Benchmark
+	public void decodeBlobs(final Blackhole blackhole) {
+		PbfBlobDecoderListener listener;
+
+		listener = new PbfBlobDecoderListener() {
+			@Override
+			public void complete(List<EntityContainer> decodedEntities) {
+				blackhole.consume(decodedEntities);
+			}
+
+
+			@Override
+			public void error() {
+				throw new OsmosisRuntimeException("Decoding of a generated PBF blob failed.");
+			}
+		};
+
+		for (RawBlob rawBlob : rawBlobs) {
+			new PbfBlobDecoder(rawBlob, listener).run();
+		}
+	}
+
+
+	/**
+	 * Decompresses all data blobs without decoding their contents.
+	 *
+	 * @param blackhole
+	 *            Consumes the results.
+	 */
+	@Benchmark
+	public void decompressBlobs(Blackhole blackhole) {
+		for (Fileformat.Blob blob : blobs) {
+			blackhole.consume(decompressor.apply(blob));
+		}
+	}
+}
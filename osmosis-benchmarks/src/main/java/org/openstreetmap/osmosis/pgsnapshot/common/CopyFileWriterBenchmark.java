@@ -0,0 +1,158 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pgsnapshot.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.osmosis.benchmarks.v0_6.EntityGenerator;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.hstore.PGHStore;
+
+
+/**
+ * Measures formatting of node and way records in the PostgreSQL COPY format,
+ * writing the same fields as the pgsnapshot dump task. A new file is written
+ * for each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CopyFileWriterBenchmark {
+	private static final int NODE_COUNT = 50000;
+	private static final int WAY_COUNT = 10000;
+
+	private Node[] nodes;
+	private Way[] ways;
+	private PointBuilder pointBuilder;
+	private File file;
+	private CopyFileWriter writer;
+
+
+	/**
+	 * Generates the entities to be written.
+	 */
+	@Setup
+	public void setUp() {
+		EntityGenerator generator;
+
+		generator = new EntityGenerator();
+		nodes = new Node[NODE_COUNT];
+		for (int i = 0; i < NODE_COUNT; i++) {
+			nodes[i] = generator.createNode(i + 1);
+		}
+		ways = new Way[WAY_COUNT];
+		for (int i = 0; i < WAY_COUNT; i++) {
+			ways[i] = generator.createWay(i + 1, NODE_COUNT);
+		}
+
+		pointBuilder = new PointBuilder();
+	}
+
+
+	/**
+	 * Opens a new output file.
+	 *
+	 * @throws IOException
+	 *             if the file can't be created.
+	 */
+	@Setup(Level.Iteration)
+	public void openFile() throws IOException {
+		file = File.createTempFile("benchmark", ".txt");
+		writer = new CopyFileWriter(file);
+	}
+
+
+	/**
+	 * Closes and removes the output file.
+	 */
+	@TearDown(Level.Iteration)
+	public void closeFile() {
+		writer.complete();
+		writer.close();
+
+		if (!file.delete()) {
+			throw new OsmosisRuntimeException("Unable to delete file " + file + ".");
+		}
+	}
+
+
+	private static PGHStore buildTags(Collection<Tag> tags) {
+		PGHStore hstore;
+
+		hstore = new PGHStore();
+		for (Tag tag : tags) {
+			hstore.put(tag.getKey(), tag.getValue());
+		}
+
+		return hstore;
+	}
+
+
+	/**
+	 * Writes node records. The reported time is per record.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(NODE_COUNT)
+	public void writeNodes() {
+		for (Node node : nodes) {
+			writer.writeField(node.getId());
+			writer.writeField(node.getVersion());
+			writer.writeField(node.getUser().getId());
+			writer.writeField(node.getTimestamp());
+			writer.writeField(node.getChangesetId());
+			writer.writeField(buildTags(node.getTags()));
+			writer.writeField(pointBuilder.createPoint(node.getLatitude(), node.getLongitude()));
+			writer.endRecord();
+		}
+	}
+
+
+	/**
+	 * Writes way records. The reported time is per record.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(WAY_COUNT)
+	public void writeWays() {
+		for (Way way : ways) {
+			List<Long> nodeIds;
+
+			nodeIds = new ArrayList<Long>(way.getWayNodes().size());
+			for (WayNode wayNode : way.getWayNodes()) {
+				nodeIds.add(wayNode.getNodeId());
+			}
+
+			writer.writeField(way.getId());
+			writer.writeField(way.getVersion());
+			writer.writeField(way.getUser().getId());
+			writer.writeField(way.getTimestamp());
+			writer.writeField(way.getChangesetId());
+			writer.writeField(buildTags(way.getTags()));
+			writer.writeField(nodeIds);
+			writer.endRecord();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.xml.v0_6;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.osmosis.benchmarks.v0_6.EntityGenerator;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+
+
+/**
+ * Measures formatting of entities as OSM XML. Output is discarded so that only
+ * the formatting cost is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class XmlWriterBenchmark {
+	private List<EntityContainer> entities;
+
+
+	/**
+	 * Generates the synthetic data set.
+	 */
+	@Setup
+	public void setUp() {
+		entities = new EntityGenerator().createDataSet(32000, 4000, 400);
+	}
+
+
+	/**
+	 * Writes the complete data set.
+	 *
+	 * @throws IOException
+	 *             if the output can't be flushed.
+	 */
+	@Benchmark
+	public void write() throws IOException {
+		try (BufferedWriter writer = new BufferedWriter(Writer.nullWriter())) {
+			XmlWriter xmlWriter;
+
+			xmlWriter = new XmlWriter(writer);
+			xmlWriter.initialize(Collections.<String, Object>emptyMap());
+			for (EntityContainer entityContainer : entities) {
+				xmlWriter.process(entityContainer);
+			}
+			xmlWriter.complete();
+			xmlWriter.close();
+		}
+	}
+}
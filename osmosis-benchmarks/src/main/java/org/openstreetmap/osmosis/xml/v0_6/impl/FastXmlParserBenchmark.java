@@ -0,0 +1,109 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.xml.v0_6.impl;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.benchmarks.v0_6.BlackholeSink;
+import org.openstreetmap.osmosis.benchmarks.v0_6.EntityGenerator;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.xml.v0_6.XmlWriter;
+
+
+/**
+ * Measures parsing of OSM XML by the fast XML parser. The synthetic data set is
+ * written to an in-memory XML document during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FastXmlParserBenchmark {
+
+	/**
+	 * Whether entity timestamps are parsed into dates.
+	 */
+	@Param({"true", "false"})
+	public boolean enableDateParsing;
+
+	private byte[] xmlData;
+	private XMLInputFactory factory;
+
+
+	/**
+	 * Writes the synthetic data set to XML.
+	 *
+	 * @throws IOException
+	 *             if the XML can't be written.
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		ByteArrayOutputStream xmlStream;
+
+		xmlStream = new ByteArrayOutputStream();
+		try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(xmlStream, StandardCharsets.UTF_8))) {
+			XmlWriter xmlWriter;
+
+			xmlWriter = new XmlWriter(writer);
+			xmlWriter.initialize(Collections.<String, Object>emptyMap());
+			for (EntityContainer entityContainer : new EntityGenerator().createDataSet(32000, 4000, 400)) {
+				xmlWriter.process(entityContainer);
+			}
+			xmlWriter.complete();
+			xmlWriter.close();
+		}
+
+		xmlData = xmlStream.toByteArray();
+
+		// Configure the factory in the same way as the fast XML reader.
+		factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+	}
+
+
+	/**
+	 * Parses the complete document.
+	 *
+	 * @param blackhole
+	 *            Consumes the results.
+	 * @throws XMLStreamException
+	 *             if the document can't be parsed.
+	 */
+	@Benchmark
+	public void parse(Blackhole blackhole) throws XMLStreamException {
+		XMLStreamReader reader;
+
+		reader = factory.createXMLStreamReader(new ByteArrayInputStream(xmlData));
+		try {
+			new FastXmlParser(new BlackholeSink(blackhole), reader, enableDateParsing).readOsm();
+		} finally {
+			reader.close();
+		}
+	}
+}
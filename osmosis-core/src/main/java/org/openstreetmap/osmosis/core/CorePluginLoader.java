@@ -12,6 +12,7 @@ import org.openstreetmap.osmosis.core.misc.v0_6.EmptyChangeReaderFactory;
 import org.openstreetmap.osmosis.core.misc.v0_6.EmptyReaderFactory;
 import org.openstreetmap.osmosis.core.misc.v0_6.NullChangeWriterFactory;
 import org.openstreetmap.osmosis.core.misc.v0_6.NullWriterFactory;
+import org.openstreetmap.osmosis.core.parallel.v0_6.ParallelTaskManagerFactory;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
 import org.openstreetmap.osmosis.core.plugin.PluginLoader;
 import org.openstreetmap.osmosis.core.progress.v0_6.ChangeProgressLoggerFactory;
@@ -81,6 +82,8 @@ public class CorePluginLoader implements PluginLoader {
 		factoryMap.put("t", new EntityTeeFactory());
 		factoryMap.put("tee-change", new ChangeTeeFactory());
 		factoryMap.put("tc", new ChangeTeeFactory());
+		factoryMap.put("parallel", new ParallelTaskManagerFactory());
+		factoryMap.put("par", new ParallelTaskManagerFactory());
 		factoryMap.put("read-empty", new EmptyReaderFactory());
 		factoryMap.put("rem", new EmptyReaderFactory());
 		factoryMap.put("read-empty-change", new EmptyChangeReaderFactory());
@@ -103,6 +106,7 @@ public class CorePluginLoader implements PluginLoader {
 		factoryMap.put("log-progress-change-0.6", new ChangeProgressLoggerFactory());
 		factoryMap.put("tee-0.6", new EntityTeeFactory());
 		factoryMap.put("tee-change-0.6", new ChangeTeeFactory());
+		factoryMap.put("parallel-0.6", new ParallelTaskManagerFactory());
 		factoryMap.put("read-empty-0.6", new EmptyReaderFactory());
 		factoryMap.put("read-empty-change-0.6", new EmptyChangeReaderFactory());
 		factoryMap.put("tag-sort-0.6", new TagSorterFactory());
@@ -1,6 +1,7 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core; 
 
+import java.io.File;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -8,6 +9,10 @@ import java.util.logging.Logger;
 
 import org.openstreetmap.osmosis.core.cli.CommandLineParser;
 import org.openstreetmap.osmosis.core.pipeline.common.Pipeline;
+import org.openstreetmap.osmosis.core.pipeline.common.PipelineMetrics;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskRunner;
+import org.openstreetmap.osmosis.core.store.RandomAccessObjectStore;
+import org.openstreetmap.osmosis.core.store.StoreCompression;
 
 
 /**
@@ -76,11 +81,18 @@ public final class Osmosis {
 		// Configure the new logging level.
 		configureLoggingLevel(commandLineParser.getLogLevelIndex());
 		
+		// Select the type of thread that active tasks will run on.
+		TaskRunner.setDefaultThreadType(commandLineParser.getThreadType());
+		
+		// Select the compression used by temporary store files.
+		StoreCompression.setDefault(commandLineParser.getStoreCompression());
+		RandomAccessObjectStore.setTempFileMappingEnabled(commandLineParser.isStoreMappingEnabled());
+		
 		LOG.info("Osmosis Version " + OsmosisConstants.VERSION);
 		taskRegistrar = new TaskRegistrar();
 		taskRegistrar.initialize(commandLineParser.getPlugins());
 		
-		pipeline = new Pipeline(taskRegistrar.getFactoryRegister());
+		pipeline = new Pipeline(taskRegistrar.getFactoryRegister(), createMetrics(commandLineParser));
 		
 		LOG.info("Preparing pipeline.");
 		pipeline.prepare(commandLineParser.getTaskInfoList());
@@ -99,6 +111,35 @@ public final class Osmosis {
 	}
 	
 	
+	/**
+	 * Creates the pipeline metrics requested on the command line.
+	 * 
+	 * @param commandLineParser
+	 *            The parsed command line.
+	 * @return The metrics, or null if metrics are disabled.
+	 */
+	private static PipelineMetrics createMetrics(CommandLineParser commandLineParser) {
+		File metricsFile;
+		File profileFile;
+		
+		if (!commandLineParser.isMetricsEnabled()) {
+			return null;
+		}
+		
+		metricsFile = null;
+		if (commandLineParser.getMetricsFile() != null) {
+			metricsFile = new File(commandLineParser.getMetricsFile());
+		}
+		profileFile = null;
+		if (commandLineParser.getProfileFile() != null) {
+			profileFile = new File(commandLineParser.getProfileFile());
+		}
+		
+		return new PipelineMetrics(
+				metricsFile, commandLineParser.getMetricsPort(), commandLineParser.isProfilingEnabled(), profileFile);
+	}
+	
+	
 	/**
 	 * Configures logging to write all output to the console.
 	 */
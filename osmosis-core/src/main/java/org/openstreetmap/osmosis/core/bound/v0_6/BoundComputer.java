@@ -12,6 +12,7 @@ import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
 import org.openstreetmap.osmosis.core.domain.v0_6.Node;
 import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.store.CompactObjectSerializationFactory;
 import org.openstreetmap.osmosis.core.store.GenericObjectSerializationFactory;
 import org.openstreetmap.osmosis.core.store.SimpleObjectStore;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
@@ -52,7 +53,8 @@ public class BoundComputer implements SinkSource, EntityProcessor {
 	 */
 
 	public BoundComputer(String origin) {
-		objects = new SimpleObjectStore<EntityContainer>(new GenericObjectSerializationFactory(), "cbbo", true);
+		objects = new SimpleObjectStore<EntityContainer>(
+				new CompactObjectSerializationFactory(new GenericObjectSerializationFactory()), "cbbo", true);
 		bottom = 0;
 		top = 0;
 		left = 0;
@@ -4,7 +4,11 @@ package org.openstreetmap.osmosis.core.buffer.v0_6;
 import java.util.Map;
 
 import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainer;
-import org.openstreetmap.osmosis.core.store.DataPostbox;
+import org.openstreetmap.osmosis.core.pipeline.common.Metered;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskMetrics;
+import org.openstreetmap.osmosis.core.store.Postbox;
+import org.openstreetmap.osmosis.core.store.PostboxFactory;
+import org.openstreetmap.osmosis.core.store.PostboxType;
 import org.openstreetmap.osmosis.core.task.v0_6.ChangeSink;
 import org.openstreetmap.osmosis.core.task.v0_6.ChangeSinkRunnableChangeSource;
 
@@ -17,9 +21,9 @@ import org.openstreetmap.osmosis.core.task.v0_6.ChangeSinkRunnableChangeSource;
  * 
  * @author Brett Henderson
  */
-public class ChangeBuffer implements ChangeSinkRunnableChangeSource {
+public class ChangeBuffer implements ChangeSinkRunnableChangeSource, Metered {
 	private ChangeSink changeSink;
-	private DataPostbox<ChangeContainer> buffer;
+	private Postbox<ChangeContainer> buffer;
 	
 	
 	/**
@@ -29,7 +33,41 @@ public class ChangeBuffer implements ChangeSinkRunnableChangeSource {
 	 *            The size of the buffer to use.
 	 */
 	public ChangeBuffer(int bufferCapacity) {
-		buffer = new DataPostbox<ChangeContainer>(bufferCapacity);
+		this(bufferCapacity, PostboxType.Locking);
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param bufferCapacity
+	 *            The size of the buffer to use.
+	 * @param bufferType
+	 *            The type of postbox used to pass data between threads.
+	 */
+	public ChangeBuffer(int bufferCapacity, PostboxType bufferType) {
+		this(PostboxFactory.<ChangeContainer>createInstance(bufferType, bufferCapacity));
+	}
+	
+	
+	/**
+	 * Creates a new instance using the provided postbox. This allows buffers
+	 * sized by memory rather than object count to be used.
+	 * 
+	 * @param buffer
+	 *            The postbox used to pass data between threads.
+	 */
+	public ChangeBuffer(Postbox<ChangeContainer> buffer) {
+		this.buffer = buffer;
+	}
+
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setTaskMetrics(TaskMetrics metrics) {
+		metrics.addPostbox(buffer);
 	}
 
 
@@ -1,10 +1,17 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.buffer.v0_6;
 
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainerSizeEstimator;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
 import org.openstreetmap.osmosis.core.pipeline.v0_6.ChangeSinkRunnableChangeSourceManager;
+import org.openstreetmap.osmosis.core.store.DataPostbox;
+import org.openstreetmap.osmosis.core.store.Postbox;
+import org.openstreetmap.osmosis.core.store.PostboxFactory;
+import org.openstreetmap.osmosis.core.store.PostboxType;
 
 
 /**
@@ -14,7 +21,12 @@ import org.openstreetmap.osmosis.core.pipeline.v0_6.ChangeSinkRunnableChangeSour
  */
 public class ChangeBufferFactory extends TaskManagerFactory {
 	private static final String ARG_BUFFER_CAPACITY = "bufferCapacity";
+	private static final String ARG_BUFFER_TYPE = "bufferType";
+	private static final String ARG_BUFFER_MEMORY = "bufferMemory";
 	private static final int DEFAULT_BUFFER_CAPACITY = 20;
+	private static final String DEFAULT_BUFFER_TYPE = "Locking";
+	private static final int DEFAULT_BUFFER_MEMORY = 0;
+	private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
 	
 	
 	/**
@@ -23,6 +35,9 @@ public class ChangeBufferFactory extends TaskManagerFactory {
 	@Override
 	protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
 		int bufferCapacity;
+		PostboxType bufferType;
+		int bufferMemory;
+		Postbox<ChangeContainer> buffer;
 		
 		// Get the task arguments.
 		bufferCapacity = getIntegerArgument(
@@ -30,10 +45,28 @@ public class ChangeBufferFactory extends TaskManagerFactory {
 			ARG_BUFFER_CAPACITY,
 			getDefaultIntegerArgument(taskConfig, DEFAULT_BUFFER_CAPACITY)
 		);
+		bufferType = Enum.valueOf(
+			PostboxType.class,
+			getStringArgument(taskConfig, ARG_BUFFER_TYPE, DEFAULT_BUFFER_TYPE)
+		);
+		bufferMemory = getIntegerArgument(taskConfig, ARG_BUFFER_MEMORY, DEFAULT_BUFFER_MEMORY);
+		
+		// A memory budget replaces the fixed capacity, only the locking postbox
+		// supports sizing by memory.
+		if (bufferMemory > 0) {
+			if (!PostboxType.Locking.equals(bufferType)) {
+				throw new OsmosisRuntimeException(
+						"Argument " + ARG_BUFFER_MEMORY + " is only supported by the Locking buffer type.");
+			}
+			buffer = new DataPostbox<ChangeContainer>(
+					bufferMemory * BYTES_PER_MEGABYTE, new ChangeContainerSizeEstimator());
+		} else {
+			buffer = PostboxFactory.createInstance(bufferType, bufferCapacity);
+		}
 		
 		return new ChangeSinkRunnableChangeSourceManager(
 			taskConfig.getId(),
-			new ChangeBuffer(bufferCapacity),
+			new ChangeBuffer(buffer),
 			taskConfig.getPipeArgs()
 		);
 	}
@@ -1,10 +1,17 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.buffer.v0_6;
 
+import java.util.List;
 import java.util.Map;
 
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
-import org.openstreetmap.osmosis.core.store.DataPostbox;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityBatcher;
+import org.openstreetmap.osmosis.core.pipeline.common.Metered;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskMetrics;
+import org.openstreetmap.osmosis.core.store.Postbox;
+import org.openstreetmap.osmosis.core.store.PostboxFactory;
+import org.openstreetmap.osmosis.core.store.PostboxType;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkRunnableSource;
 
@@ -17,9 +24,9 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkRunnableSource;
  * 
  * @author Brett Henderson
  */
-public class EntityBuffer implements SinkRunnableSource {
+public class EntityBuffer implements SinkRunnableSource, BatchSink, Metered {
 	private Sink sink;
-	private DataPostbox<EntityContainer> buffer;
+	private Postbox<EntityContainer> buffer;
 	
 	
 	/**
@@ -29,7 +36,41 @@ public class EntityBuffer implements SinkRunnableSource {
 	 *            The size of the buffer to use.
 	 */
 	public EntityBuffer(int bufferCapacity) {
-		buffer = new DataPostbox<EntityContainer>(bufferCapacity);
+		this(bufferCapacity, PostboxType.Locking);
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param bufferCapacity
+	 *            The size of the buffer to use.
+	 * @param bufferType
+	 *            The type of postbox used to pass data between threads.
+	 */
+	public EntityBuffer(int bufferCapacity, PostboxType bufferType) {
+		this(PostboxFactory.<EntityContainer>createInstance(bufferType, bufferCapacity));
+	}
+	
+	
+	/**
+	 * Creates a new instance using the provided postbox. This allows buffers
+	 * sized by memory rather than object count to be used.
+	 * 
+	 * @param buffer
+	 *            The postbox used to pass data between threads.
+	 */
+	public EntityBuffer(Postbox<EntityContainer> buffer) {
+		this.buffer = buffer;
+	}
+
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setTaskMetrics(TaskMetrics metrics) {
+		metrics.addPostbox(buffer);
 	}
 
 
@@ -49,6 +90,16 @@ public class EntityBuffer implements SinkRunnableSource {
 	}
 	
 	
+	/**
+	 * {@inheritDoc}
+	 */
+	public void processBatch(List<EntityContainer> entityContainers) {
+		for (EntityContainer entityContainer : entityContainers) {
+			buffer.put(entityContainer);
+		}
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -78,10 +129,18 @@ public class EntityBuffer implements SinkRunnableSource {
 	 */
 	public void run() {
 		try {
+			EntityBatcher batcher;
+			
 			sink.initialize(buffer.outputInitialize());
 			
+			// Send data downstream in batches. A batch is sent as soon as the
+			// buffer runs dry so that data isn't held back waiting for input.
+			batcher = new EntityBatcher(sink);
 			while (buffer.hasNext()) {
-				sink.process(buffer.getNext());
+				do {
+					batcher.add(buffer.getNext());
+				} while (buffer.isDataAvailable());
+				batcher.flush();
 			}
 			
 			sink.complete();
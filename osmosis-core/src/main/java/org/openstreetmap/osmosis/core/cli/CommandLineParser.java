@@ -9,6 +9,8 @@ import java.util.Map;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.pipeline.common.PipelineConstants;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
+import org.openstreetmap.osmosis.core.pipeline.common.ThreadType;
+import org.openstreetmap.osmosis.core.store.StoreCompression;
 
 
 /**
@@ -27,6 +29,22 @@ public class CommandLineParser {
 	private static final String OPTION_VERBOSE_LONG = "verbose";
 	private static final String OPTION_PLUGIN_SHORT = "p";
 	private static final String OPTION_PLUGIN_LONG = "plugin";
+	private static final String OPTION_THREADS_SHORT = "t";
+	private static final String OPTION_THREADS_LONG = "threads";
+	private static final String OPTION_STORE_COMPRESSION_SHORT = "sc";
+	private static final String OPTION_STORE_COMPRESSION_LONG = "store-compression";
+	private static final String OPTION_STORE_MMAP_SHORT = "smm";
+	private static final String OPTION_STORE_MMAP_LONG = "store-mmap";
+	private static final String OPTION_METRICS_SHORT = "m";
+	private static final String OPTION_METRICS_LONG = "metrics";
+	private static final String OPTION_METRICS_FILE_SHORT = "mf";
+	private static final String OPTION_METRICS_FILE_LONG = "metrics-file";
+	private static final String OPTION_METRICS_PORT_SHORT = "mp";
+	private static final String OPTION_METRICS_PORT_LONG = "metrics-port";
+	private static final String OPTION_PROFILE_SHORT = "pr";
+	private static final String OPTION_PROFILE_LONG = "profile";
+	private static final String OPTION_PROFILE_FILE_SHORT = "prf";
+	private static final String OPTION_PROFILE_FILE_LONG = "profile-file";
 	
 	
 	/**
@@ -39,6 +57,14 @@ public class CommandLineParser {
 	private int quietValue;
 	private int verboseValue;
 	private List<String> plugins;
+	private ThreadType threadType;
+	private StoreCompression storeCompression;
+	private boolean storeMappingEnabled;
+	private boolean metricsEnabled;
+	private String metricsFile;
+	private int metricsPort;
+	private boolean profilingEnabled;
+	private String profileFile;
 	
 	
 	/**
@@ -50,6 +76,14 @@ public class CommandLineParser {
 		quietValue = 0;
 		verboseValue = 0;
 		plugins = new ArrayList<String>();
+		threadType = ThreadType.Platform;
+		storeCompression = StoreCompression.getDefault();
+		storeMappingEnabled = false;
+		metricsEnabled = false;
+		metricsFile = null;
+		metricsPort = 0;
+		profilingEnabled = false;
+		profileFile = null;
 	}
 	
 	
@@ -88,6 +122,32 @@ public class CommandLineParser {
 				verboseValue = parseOptionIntegerWithDefault(globalOption, 0) + 1;
 			} else if (isArgumentForOption(OPTION_PLUGIN_SHORT, OPTION_PLUGIN_LONG, globalOption.name)) {
 				plugins.add(parseOptionString(globalOption));
+			} else if (isArgumentForOption(OPTION_THREADS_SHORT, OPTION_THREADS_LONG, globalOption.name)) {
+				threadType = parseOptionThreadType(globalOption);
+			} else if (isArgumentForOption(
+					OPTION_STORE_COMPRESSION_SHORT, OPTION_STORE_COMPRESSION_LONG, globalOption.name)) {
+				storeCompression = parseOptionStoreCompression(globalOption);
+			} else if (isArgumentForOption(OPTION_STORE_MMAP_SHORT, OPTION_STORE_MMAP_LONG, globalOption.name)) {
+				storeMappingEnabled = true;
+			} else if (isArgumentForOption(OPTION_METRICS_SHORT, OPTION_METRICS_LONG, globalOption.name)) {
+				metricsEnabled = true;
+			} else if (isArgumentForOption(OPTION_METRICS_FILE_SHORT, OPTION_METRICS_FILE_LONG, globalOption.name)) {
+				metricsEnabled = true;
+				metricsFile = parseOptionString(globalOption);
+			} else if (isArgumentForOption(OPTION_METRICS_PORT_SHORT, OPTION_METRICS_PORT_LONG, globalOption.name)) {
+				metricsEnabled = true;
+				metricsPort = parseOptionIntegerWithDefault(globalOption, 0);
+				if (metricsPort <= 0) {
+					throw new OsmosisRuntimeException(
+							"Expected argument " + (globalOption.offset + 2) + " to contain a port number.");
+				}
+			} else if (isArgumentForOption(OPTION_PROFILE_SHORT, OPTION_PROFILE_LONG, globalOption.name)) {
+				metricsEnabled = true;
+				profilingEnabled = true;
+			} else if (isArgumentForOption(OPTION_PROFILE_FILE_SHORT, OPTION_PROFILE_FILE_LONG, globalOption.name)) {
+				metricsEnabled = true;
+				profilingEnabled = true;
+				profileFile = parseOptionString(globalOption);
 			} else {
 				throw new OsmosisRuntimeException("Argument " + (globalOption.offset + 1)
 						+ " specifies an unrecognised option \"" + GLOBAL_ARGUMENT_PREFIX + globalOption.name
@@ -190,6 +250,52 @@ public class CommandLineParser {
 	}
 	
 	
+	/**
+	 * Parses a command line option into a thread type. The thread type name is
+	 * matched without regard to case.
+	 * 
+	 * @param globalOption
+	 *            The global option to be parsed.
+	 * @return The thread type.
+	 */
+	private ThreadType parseOptionThreadType(GlobalOptionConfiguration globalOption) {
+		String value;
+		
+		value = parseOptionString(globalOption);
+		
+		for (ThreadType candidate : ThreadType.values()) {
+			if (candidate.name().equalsIgnoreCase(value)) {
+				return candidate;
+			}
+		}
+		
+		throw new OsmosisRuntimeException(
+				"Expected argument " + (globalOption.offset + 2) + " to contain a thread type of platform or virtual.");
+	}
+	
+	
+	/**
+	 * Parses a command line option into a store compression method. The
+	 * method name is matched without regard to case.
+	 * 
+	 * @param globalOption
+	 *            The global option to be parsed.
+	 * @return The store compression method.
+	 */
+	private StoreCompression parseOptionStoreCompression(GlobalOptionConfiguration globalOption) {
+		String value;
+		
+		value = parseOptionString(globalOption);
+		
+		try {
+			return StoreCompression.parse(value);
+		} catch (OsmosisRuntimeException e) {
+			throw new OsmosisRuntimeException("Expected argument " + (globalOption.offset + 2)
+					+ " to contain a compression of none, deflate or lz.", e);
+		}
+	}
+	
+	
 	/**
 	 * Parses the details of a single option.
 	 * 
@@ -355,6 +461,90 @@ public class CommandLineParser {
 	}
 	
 	
+	/**
+	 * Returns the type of thread that active tasks should be run on.
+	 * 
+	 * @return The thread type.
+	 */
+	public ThreadType getThreadType() {
+		return threadType;
+	}
+	
+	
+	/**
+	 * Returns the compression method used for temporary store files.
+	 * 
+	 * @return The store compression method.
+	 */
+	public StoreCompression getStoreCompression() {
+		return storeCompression;
+	}
+	
+	
+	/**
+	 * Indicates if temporary store files should be memory-mapped for reading.
+	 * 
+	 * @return True if mapping is enabled.
+	 */
+	public boolean isStoreMappingEnabled() {
+		return storeMappingEnabled;
+	}
+	
+	
+	/**
+	 * Indicates if pipeline metrics should be collected and published via JMX.
+	 * 
+	 * @return True if metrics are enabled.
+	 */
+	public boolean isMetricsEnabled() {
+		return metricsEnabled;
+	}
+	
+	
+	/**
+	 * Returns the file that metrics should be written to in Prometheus text
+	 * format.
+	 * 
+	 * @return The file name, or null if metrics should not be written to file.
+	 */
+	public String getMetricsFile() {
+		return metricsFile;
+	}
+	
+	
+	/**
+	 * Returns the local port that metrics should be served on in Prometheus
+	 * text format.
+	 * 
+	 * @return The port, or 0 if metrics should not be served.
+	 */
+	public int getMetricsPort() {
+		return metricsPort;
+	}
+	
+	
+	/**
+	 * Indicates if the CPU time and allocations of each task should be
+	 * reported on completion.
+	 * 
+	 * @return True if profiling is enabled.
+	 */
+	public boolean isProfilingEnabled() {
+		return profilingEnabled;
+	}
+	
+	
+	/**
+	 * Returns the file that the task profile should be written to in JSON
+	 * format.
+	 * 
+	 * @return The file name, or null if the profile should only be logged.
+	 */
+	public String getProfileFile() {
+		return profileFile;
+	}
+	
+	
 	/**
 	 * A data storage class holding information relating to a global option
 	 * during parsing.
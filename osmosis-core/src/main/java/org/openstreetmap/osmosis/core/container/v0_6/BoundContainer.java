@@ -5,6 +5,7 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
 import org.openstreetmap.osmosis.core.store.StoreClassRegister;
 import org.openstreetmap.osmosis.core.store.StoreReader;
 import org.openstreetmap.osmosis.core.store.StoreWriter;
+import org.openstreetmap.osmosis.core.store.StoreableFactoryRegister;
 
 
 /**
@@ -17,6 +18,11 @@ public class BoundContainer extends EntityContainer {
 	private Bound bound;
 
 
+	static {
+		StoreableFactoryRegister.register(BoundContainer.class, BoundContainer::new);
+	}
+	
+	
 	/**
 	 * Creates a new instance.
 	 * 
@@ -7,6 +7,7 @@ import org.openstreetmap.osmosis.core.store.StoreClassRegister;
 import org.openstreetmap.osmosis.core.store.StoreReader;
 import org.openstreetmap.osmosis.core.store.StoreWriter;
 import org.openstreetmap.osmosis.core.store.Storeable;
+import org.openstreetmap.osmosis.core.store.StoreableFactoryRegister;
 import org.openstreetmap.osmosis.core.task.common.ChangeAction;
 
 
@@ -21,6 +22,11 @@ public class ChangeContainer implements Storeable {
 	private ChangeAction action;
 	
 	
+	static {
+		StoreableFactoryRegister.register(ChangeContainer.class, ChangeContainer::new);
+	}
+	
+	
 	/**
 	 * Creates a new instance.
 	 * 
@@ -0,0 +1,25 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.container.v0_6;
+
+import org.openstreetmap.osmosis.core.store.ObjectSizeEstimator;
+
+
+/**
+ * Estimates the heap memory retained by a change container.
+ * 
+ * @see EntityContainerSizeEstimator
+ */
+public class ChangeContainerSizeEstimator implements ObjectSizeEstimator<ChangeContainer> {
+	// The change container itself, the action is a shared enum constant.
+	private static final int CHANGE_OVERHEAD = 16;
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long estimateSize(ChangeContainer change) {
+		return CHANGE_OVERHEAD
+				+ EntityContainerSizeEstimator.estimateEntitySize(change.getEntityContainer().getEntity());
+	}
+}
@@ -5,6 +5,8 @@ import org.openstreetmap.osmosis.core.domain.v0_6.EntityBuilder;
 import org.openstreetmap.osmosis.core.domain.v0_6.NodeBuilder;
 import org.openstreetmap.osmosis.core.domain.v0_6.RelationBuilder;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayBuilder;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityRecycler;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityReuse;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.Source;
 
@@ -12,7 +14,8 @@ import org.openstreetmap.osmosis.core.task.v0_6.Source;
 /**
  * Provides a mechanism to manipulate entities without directly manipulating and instantiating their
  * containers. This class does nothing by default, sub-classes must override methods to add their
- * own functionality
+ * own functionality. Modified entities are taken from an {@link EntityRecycler} so that they can be
+ * re-used if the sink supports it.
  * 
  * @author Brett Henderson
  * 
@@ -25,6 +28,7 @@ public class EntityContainerBuilder implements EntityProcessor, Source {
 	private NodeBuilder nodeBuilder;
 	private WayBuilder wayBuilder;
 	private RelationBuilder relationBuilder;
+	private EntityRecycler recycler;
 
 	/**
 	 * Creates a new instance.
@@ -35,6 +39,21 @@ public class EntityContainerBuilder implements EntityProcessor, Source {
 		relationBuilder = new RelationBuilder();
 	}
 
+	/**
+	 * Gets the recycler supplying modified entities. Support for re-use can
+	 * only be queried once the pipeline is connected so the recycler is
+	 * created when first required.
+	 * 
+	 * @return The recycler.
+	 */
+	private EntityRecycler getRecycler() {
+		if (recycler == null) {
+			recycler = new EntityRecycler(EntityReuse.isSupported(sink));
+		}
+		
+		return recycler;
+	}
+
 	/**
 	 * Performs generic entity processing. This should be overridden by
 	 * implementations wishing to perform generic entity processing.
@@ -109,7 +128,15 @@ public class EntityContainerBuilder implements EntityProcessor, Source {
 		modified = modified || processNode(nodeBuilder);
 		
 		if (modified) {
-			sink.process(new NodeContainer(nodeBuilder.buildEntity()));
+			NodeContainer modifiedContainer;
+			
+			modifiedContainer = getRecycler().nextNode(nodeBuilder.getId(), nodeBuilder.getVersion(),
+					nodeBuilder.getTimestampContainer(), nodeBuilder.getUser(), nodeBuilder.getChangesetId(),
+					nodeBuilder.getLatitude(), nodeBuilder.getLongitude());
+			modifiedContainer.getEntity().getTags().addAll(nodeBuilder.getTags());
+			
+			sink.process(modifiedContainer);
+			recycler.release();
 		} else {
 			sink.process(nodeContainer);
 		}
@@ -129,7 +156,15 @@ public class EntityContainerBuilder implements EntityProcessor, Source {
 		modified = modified || processWay(wayBuilder);
 		
 		if (modified) {
-			sink.process(new WayContainer(wayBuilder.buildEntity()));
+			WayContainer modifiedContainer;
+			
+			modifiedContainer = getRecycler().nextWay(wayBuilder.getId(), wayBuilder.getVersion(),
+					wayBuilder.getTimestampContainer(), wayBuilder.getUser(), wayBuilder.getChangesetId());
+			modifiedContainer.getEntity().getTags().addAll(wayBuilder.getTags());
+			modifiedContainer.getEntity().getWayNodes().addAll(wayBuilder.getWayNodes());
+			
+			sink.process(modifiedContainer);
+			recycler.release();
 		} else {
 			sink.process(wayContainer);
 		}
@@ -149,7 +184,16 @@ public class EntityContainerBuilder implements EntityProcessor, Source {
 		modified = modified || processRelation(relationBuilder);
 		
 		if (modified) {
-			sink.process(new RelationContainer(relationBuilder.buildEntity()));
+			RelationContainer modifiedContainer;
+			
+			modifiedContainer = getRecycler().nextRelation(relationBuilder.getId(), relationBuilder.getVersion(),
+					relationBuilder.getTimestampContainer(), relationBuilder.getUser(),
+					relationBuilder.getChangesetId());
+			modifiedContainer.getEntity().getTags().addAll(relationBuilder.getTags());
+			modifiedContainer.getEntity().getMembers().addAll(relationBuilder.getMembers());
+			
+			sink.process(modifiedContainer);
+			recycler.release();
 		} else {
 			sink.process(relationContainer);
 		}
@@ -161,5 +205,6 @@ public class EntityContainerBuilder implements EntityProcessor, Source {
 	@Override
 	public void setSink(Sink sink) {
 		this.sink = sink;
+		recycler = null;
 	}
 }
@@ -0,0 +1,65 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.container.v0_6;
+
+import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.store.ObjectSizeEstimator;
+
+
+/**
+ * Estimates the heap memory retained by an entity container. The estimate
+ * assumes a 64-bit JVM with compressed object pointers and compact strings,
+ * it counts the objects making up the entity but not objects such as users
+ * which are typically shared between entities.
+ */
+public class EntityContainerSizeEstimator implements ObjectSizeEstimator<EntityContainer> {
+	// The container, entity, common entity data, timestamp and tag collection.
+	private static final int ENTITY_OVERHEAD = 16 + 24 + 48 + 40 + 40;
+	// A reference in the backing list and the object header of a way node.
+	private static final int WAY_NODE_SIZE = 4 + 40;
+	// A reference in the backing list and the object header of a member.
+	private static final int RELATION_MEMBER_SIZE = 4 + 32;
+	// A reference in the backing list, the tag itself and two strings.
+	private static final int TAG_OVERHEAD = 4 + 24 + 2 * 40;
+	private static final int STRING_OVERHEAD = 40;
+	
+	
+	/**
+	 * Estimates the size of a single entity.
+	 * 
+	 * @param entity
+	 *            The entity to be measured.
+	 * @return The approximate size in bytes.
+	 */
+	public static long estimateEntitySize(Entity entity) {
+		long size;
+		
+		size = ENTITY_OVERHEAD;
+		
+		for (Tag tag : entity.getTags()) {
+			size += TAG_OVERHEAD + tag.getKey().length() + tag.getValue().length();
+		}
+		
+		if (entity instanceof Way) {
+			size += (long) WAY_NODE_SIZE * ((Way) entity).getWayNodes().size();
+		} else if (entity instanceof Relation) {
+			for (RelationMember member : ((Relation) entity).getMembers()) {
+				size += RELATION_MEMBER_SIZE + STRING_OVERHEAD + member.getMemberRole().length();
+			}
+		}
+		
+		return size;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long estimateSize(EntityContainer entityContainer) {
+		return estimateEntitySize(entityContainer.getEntity());
+	}
+}
@@ -5,6 +5,7 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
 import org.openstreetmap.osmosis.core.store.StoreClassRegister;
 import org.openstreetmap.osmosis.core.store.StoreReader;
 import org.openstreetmap.osmosis.core.store.StoreWriter;
+import org.openstreetmap.osmosis.core.store.StoreableFactoryRegister;
 
 
 /**
@@ -17,6 +18,11 @@ public class RelationContainer extends EntityContainer {
 	private Relation relation;
 	
 	
+	static {
+		StoreableFactoryRegister.register(RelationContainer.class, RelationContainer::new);
+	}
+	
+	
 	/**
 	 * Creates a new instance.
 	 * 
@@ -5,6 +5,7 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Way;
 import org.openstreetmap.osmosis.core.store.StoreClassRegister;
 import org.openstreetmap.osmosis.core.store.StoreReader;
 import org.openstreetmap.osmosis.core.store.StoreWriter;
+import org.openstreetmap.osmosis.core.store.StoreableFactoryRegister;
 
 
 /**
@@ -17,6 +18,11 @@ public class WayContainer extends EntityContainer {
 	private Way way;
 	
 	
+	static {
+		StoreableFactoryRegister.register(WayContainer.class, WayContainer::new);
+	}
+	
+	
 	/**
 	 * Creates a new instance.
 	 * 
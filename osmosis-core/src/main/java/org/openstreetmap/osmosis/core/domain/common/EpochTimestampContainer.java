@@ -0,0 +1,54 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.domain.common;
+
+import java.util.Date;
+
+
+/**
+ * A timestamp container implementation that holds a timestamp as the number of
+ * milliseconds since the epoch. This avoids the need to create date objects for
+ * timestamps that are only passed between readers and writers.
+ */
+public class EpochTimestampContainer implements TimestampContainer {
+	
+	private long epochMillis;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param epochMillis
+	 *            The number of milliseconds since the epoch.
+	 */
+	public EpochTimestampContainer(long epochMillis) {
+		this.epochMillis = epochMillis;
+	}
+	
+	
+	/**
+	 * Gets the timestamp without creating a date object.
+	 * 
+	 * @return The number of milliseconds since the epoch.
+	 */
+	public long getEpochMillis() {
+		return epochMillis;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getFormattedTimestamp(TimestampFormat timestampFormat) {
+		return timestampFormat.formatTimestamp(epochMillis);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Date getTimestamp() {
+		return new Date(epochMillis);
+	}
+}
@@ -0,0 +1,129 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.domain.common;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Shares instances of frequently repeated strings such as tag keys, tag values
+ * and user names. A small number of distinct strings make up the bulk of most
+ * data sets so sharing them significantly reduces the memory consumed by
+ * entities held in memory.
+ * <p>
+ * The dictionary is a fixed size hash table where each slot holds the most
+ * recently seen string hashing to it. This bounds memory usage regardless of
+ * input and allows it to be used concurrently without locking, at worst a
+ * race between threads results in a string not being shared.
+ * <p>
+ * A single dictionary is created for each pipeline and is passed to its tasks
+ * via their task configuration. Components created outside a pipeline
+ * allocate their own.
+ */
+public final class StringDictionary {
+	/**
+	 * The default number of slots in the dictionary.
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	/**
+	 * Strings longer than this are not shared, long strings are rarely
+	 * repeated and would unnecessarily pin memory.
+	 */
+	public static final int MAX_LENGTH = 64;
+
+	private String[] slots;
+	private int mask;
+	private LongAdder hits;
+	private LongAdder misses;
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param capacity
+	 *            The number of slots in the dictionary, rounded up to the next
+	 *            power of two.
+	 */
+	public StringDictionary(int capacity) {
+		int size;
+
+		size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+
+		slots = new String[size];
+		mask = size - 1;
+		hits = new LongAdder();
+		misses = new LongAdder();
+	}
+
+
+	/**
+	 * Returns a shared instance of the specified string.
+	 *
+	 * @param value
+	 *            The string to be shared, may be null.
+	 * @return The shared instance which is equal to the original string.
+	 */
+	public String intern(String value) {
+		int slot;
+		String existing;
+
+		if (value == null || value.length() > MAX_LENGTH) {
+			return value;
+		}
+
+		// Spread the high bits into the index to avoid clustering of similar strings.
+		slot = value.hashCode();
+		slot = (slot ^ (slot >>> 16)) & mask;
+
+		existing = slots[slot];
+		if (value.equals(existing)) {
+			hits.increment();
+			return existing;
+		}
+
+		// Strings are immutable so publishing them without synchronisation is safe.
+		slots[slot] = value;
+		misses.increment();
+
+		return value;
+	}
+
+
+	/**
+	 * Gets the number of lookups that returned an existing string.
+	 *
+	 * @return The hit count.
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+
+	/**
+	 * Gets the number of lookups that added a new string.
+	 *
+	 * @return The miss count.
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+
+	/**
+	 * Gets the proportion of lookups that returned an existing string.
+	 *
+	 * @return The hit rate between 0 and 1.
+	 */
+	public double getHitRate() {
+		long hitCount;
+		long total;
+
+		hitCount = getHitCount();
+		total = hitCount + getMissCount();
+		if (total == 0) {
+			return 0;
+		}
+
+		return (double) hitCount / total;
+	}
+}
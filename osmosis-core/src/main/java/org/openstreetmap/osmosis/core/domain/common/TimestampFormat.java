@@ -37,6 +37,34 @@ public abstract class TimestampFormat {
 	public abstract Date parseTimestamp(String timestamp);
 	
 	
+	/**
+	 * Formats a timestamp held as milliseconds since the epoch into string
+	 * form. Implementations able to format without creating a date object
+	 * should override this method.
+	 * 
+	 * @param epochMillis
+	 *            The number of milliseconds since the epoch.
+	 * @return The formatted date string.
+	 */
+	public String formatTimestamp(long epochMillis) {
+		return formatTimestamp(new Date(epochMillis));
+	}
+	
+	
+	/**
+	 * Parses a date string into milliseconds since the epoch. Implementations
+	 * able to parse without creating a date object should override this
+	 * method.
+	 * 
+	 * @param timestamp
+	 *            The date string to be parsed.
+	 * @return The number of milliseconds since the epoch.
+	 */
+	public long parseTimestampMillis(String timestamp) {
+		return parseTimestamp(timestamp).getTime();
+	}
+	
+	
 	/**
 	 * Indicates if the specified date format object supports the same date
 	 * format as this object.
@@ -15,7 +15,8 @@ public class UnparsedTimestampContainer implements TimestampContainer {
 	
 	private TimestampFormat managedTimestampFormat;
 	private String timestampString;
-	private Date timestamp;
+	private long epochMillis;
+	private boolean parsed;
 	
 	
 	/**
@@ -46,25 +47,38 @@ public class UnparsedTimestampContainer implements TimestampContainer {
 		}
 		
 		// Ensure the timestamp has been parsed.
-		getTimestamp();
+		parse();
 		
-		if (timestamp != null) {
-			return timestampFormat.formatTimestamp(timestamp);
+		if (parsed) {
+			return timestampFormat.formatTimestamp(epochMillis);
 		} else {
 			return "";
 		}
 	}
 	
 	
+	/**
+	 * Parses the timestamp string if it hasn't already been parsed.
+	 */
+	private void parse() {
+		if (!parsed && timestampString != null && timestampString.length() > 0) {
+			epochMillis = managedTimestampFormat.parseTimestampMillis(timestampString);
+			parsed = true;
+		}
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public Date getTimestamp() {
-		if (timestamp == null && timestampString != null && timestampString.length() > 0) {
-			timestamp = managedTimestampFormat.parseTimestamp(timestampString);
-		}
+		parse();
 		
-		return timestamp;
+		if (parsed) {
+			return new Date(epochMillis);
+		} else {
+			return null;
+		}
 	}
 }
@@ -10,9 +10,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.domain.common.EpochTimestampContainer;
 import org.openstreetmap.osmosis.core.domain.common.SimpleTimestampContainer;
 import org.openstreetmap.osmosis.core.domain.common.TimestampContainer;
 import org.openstreetmap.osmosis.core.domain.common.TimestampFormat;
+import org.openstreetmap.osmosis.core.store.DeltaChannel;
 import org.openstreetmap.osmosis.core.store.StoreClassRegister;
 import org.openstreetmap.osmosis.core.store.StoreReader;
 import org.openstreetmap.osmosis.core.store.StoreWriter;
@@ -24,12 +26,19 @@ import org.openstreetmap.osmosis.core.util.LongAsInt;
 /**
  * Contains data common to all entity types. This is separated from the entity class to allow it to
  * be instantiated before all the data required for a full entity is available.
+ * <p>
+ * Most entities in a typical data set are untagged so the tag and meta tag collections are only
+ * allocated when first required, and timestamps supplied in date form are held as primitive values.
  */
 public class CommonEntityData implements Storeable {
 	
+	private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+	private static final TagCollection EMPTY_TAGS = new UnmodifiableTagCollection(new TagCollectionImpl());
+	
 	private long id;
 	private int version;
 	private int changesetId;
+	private long timestamp;
 	private TimestampContainer timestampContainer;
 	private OsmUser user;
 	private TagCollection tags;
@@ -75,8 +84,6 @@ public class CommonEntityData implements Storeable {
 	public CommonEntityData(
 			long id, int version, TimestampContainer timestampContainer, OsmUser user, long changesetId) {
 		init(id, timestampContainer, user, version, changesetId);
-		tags = new TagCollectionImpl();
-		metaTags = new LazyHashMap<String, Object>();
 	}
 	
 	
@@ -123,8 +130,9 @@ public class CommonEntityData implements Storeable {
 	public CommonEntityData(long id, int version, TimestampContainer timestampContainer, OsmUser user, long changesetId,
 			Collection<Tag> tags) {
 		init(id, timestampContainer, user, version, changesetId);
-		this.tags = new TagCollectionImpl(tags);
-		metaTags = new LazyHashMap<String, Object>();
+		if (!tags.isEmpty()) {
+			this.tags = new TagCollectionImpl(tags);
+		}
 	}
 
 
@@ -145,7 +153,7 @@ public class CommonEntityData implements Storeable {
 	private void init(long newId, TimestampContainer newTimestampContainer, OsmUser newUser, int newVersion,
 			long newChangesetId) {
 		this.id = newId;
-		this.timestampContainer = newTimestampContainer;
+		updateTimestamp(newTimestampContainer);
 		this.user = newUser;
 		this.version = newVersion;
 		this.changesetId = LongAsInt.longToInt(newChangesetId);
@@ -154,7 +162,7 @@ public class CommonEntityData implements Storeable {
 	
 	private static TimestampContainer readTimestampContainer(StoreReader sr, StoreClassRegister scr) {
 		if (sr.readBoolean()) {
-			return new SimpleTimestampContainer(new Date(sr.readLong()));
+			return new SimpleTimestampContainer(new Date(sr.readDeltaLong(DeltaChannel.Timestamp)));
 		} else {
 			return null;
 		}
@@ -190,7 +198,7 @@ public class CommonEntityData implements Storeable {
 	 */
 	public CommonEntityData(StoreReader sr, StoreClassRegister scr) {
 		this(
-			sr.readLong(),
+			sr.readDeltaLong(DeltaChannel.EntityId),
 			sr.readInteger(),
 			readTimestampContainer(sr, scr),
 			readOsmUser(sr, scr),
@@ -201,9 +209,37 @@ public class CommonEntityData implements Storeable {
 		int metaTagCount;
 		
 		metaTagCount = sr.readInteger();
-		metaTags = new LazyHashMap<String, Object>();
 		for (int i = 0; i < metaTagCount; i++) {
-			metaTags.put(sr.readString(), sr.readString());
+			getMetaTags().put(sr.readString(), sr.readString());
+		}
+	}
+	
+	
+	/**
+	 * Updates the timestamp fields. Timestamps held in date form are stored as
+	 * a primitive value, other representations are retained as is to avoid
+	 * unnecessary parsing.
+	 * 
+	 * @param newTimestampContainer
+	 *            The container holding the timestamp.
+	 */
+	private void updateTimestamp(TimestampContainer newTimestampContainer) {
+		long newTimestamp;
+		
+		newTimestamp = NO_TIMESTAMP;
+		if (newTimestampContainer instanceof EpochTimestampContainer) {
+			newTimestamp = ((EpochTimestampContainer) newTimestampContainer).getEpochMillis();
+		} else if (newTimestampContainer instanceof SimpleTimestampContainer
+				&& newTimestampContainer.getTimestamp() != null) {
+			newTimestamp = newTimestampContainer.getTimestamp().getTime();
+		}
+		
+		if (newTimestamp != NO_TIMESTAMP) {
+			timestamp = newTimestamp;
+			timestampContainer = null;
+		} else {
+			timestamp = NO_TIMESTAMP;
+			timestampContainer = newTimestampContainer;
 		}
 	}
 	
@@ -212,27 +248,48 @@ public class CommonEntityData implements Storeable {
 	 * {@inheritDoc}
 	 */
 	public void store(StoreWriter sw, StoreClassRegister scr) {
-		sw.writeLong(id);
+		sw.writeDeltaLong(DeltaChannel.EntityId, id);
 		
 		sw.writeInteger(version);
 		
-		if (getTimestamp() != null) {
+		// Write the primitive timestamp directly to avoid allocating dates.
+		if (timestamp != NO_TIMESTAMP) {
 			sw.writeBoolean(true);
-			sw.writeLong(timestampContainer.getTimestamp().getTime());
+			sw.writeDeltaLong(DeltaChannel.Timestamp, timestamp);
 		} else {
-			sw.writeBoolean(false);
+			Date containerTimestamp;
+			
+			containerTimestamp = null;
+			if (timestampContainer != null) {
+				containerTimestamp = timestampContainer.getTimestamp();
+			}
+			
+			if (containerTimestamp != null) {
+				sw.writeBoolean(true);
+				sw.writeDeltaLong(DeltaChannel.Timestamp, containerTimestamp.getTime());
+			} else {
+				sw.writeBoolean(false);
+			}
 		}
 		
 		user.store(sw, scr);
 		
 		sw.writeInteger(changesetId);
 		
-		tags.store(sw, scr);
+		if (tags != null) {
+			tags.store(sw, scr);
+		} else {
+			EMPTY_TAGS.store(sw, scr);
+		}
 		
-		sw.writeInteger(metaTags.size());
-		for (Entry<String, Object> tag : metaTags.entrySet()) {
-			sw.writeString(tag.getKey());
-			sw.writeString(tag.getValue().toString());
+		if (metaTags != null) {
+			sw.writeInteger(metaTags.size());
+			for (Entry<String, Object> tag : metaTags.entrySet()) {
+				sw.writeString(tag.getKey());
+				sw.writeString(tag.getValue().toString());
+			}
+		} else {
+			sw.writeInteger(0);
 		}
 	}
 	
@@ -250,7 +307,7 @@ public class CommonEntityData implements Storeable {
 		List<Tag> tags1;
 		List<Tag> tags2;
 		
-		tags1 = new ArrayList<Tag>(tags);
+		tags1 = new ArrayList<Tag>(getTags());
 		tags2 = new ArrayList<Tag>(comparisonTags);
 		
 		Collections.sort(tags1);
@@ -328,7 +385,13 @@ public class CommonEntityData implements Storeable {
 	 * @return The timestamp.
 	 */
 	public Date getTimestamp() {
-		return timestampContainer.getTimestamp();
+		if (timestamp != NO_TIMESTAMP) {
+			return new Date(timestamp);
+		} else if (timestampContainer != null) {
+			return timestampContainer.getTimestamp();
+		} else {
+			return null;
+		}
 	}
 
 
@@ -341,7 +404,7 @@ public class CommonEntityData implements Storeable {
 	public void setTimestamp(Date timestamp) {
 		assertWriteable();
 		
-		timestampContainer = new SimpleTimestampContainer(timestamp);
+		updateTimestamp(new SimpleTimestampContainer(timestamp));
 	}
 	
 	
@@ -354,7 +417,11 @@ public class CommonEntityData implements Storeable {
 	 * @return The timestamp container.
 	 */
 	public TimestampContainer getTimestampContainer() {
-		return timestampContainer;
+		if (timestamp != NO_TIMESTAMP) {
+			return new EpochTimestampContainer(timestamp);
+		} else {
+			return timestampContainer;
+		}
 	}
 	
 	
@@ -369,7 +436,7 @@ public class CommonEntityData implements Storeable {
 	public void setTimestampContainer(TimestampContainer timestampContainer) {
 		assertWriteable();
 		
-		this.timestampContainer = timestampContainer;
+		updateTimestamp(timestampContainer);
 	}
 	
 	
@@ -384,7 +451,11 @@ public class CommonEntityData implements Storeable {
 	 * @return The timestamp string.
 	 */
 	public String getFormattedTimestamp(TimestampFormat timestampFormat) {
-		return timestampContainer.getFormattedTimestamp(timestampFormat);
+		if (timestamp != NO_TIMESTAMP) {
+			return timestampFormat.formatTimestamp(timestamp);
+		} else {
+			return timestampContainer.getFormattedTimestamp(timestampFormat);
+		}
 	}
 	
 	
@@ -441,10 +512,32 @@ public class CommonEntityData implements Storeable {
 	 * @return The tags.
 	 */
 	public Collection<Tag> getTags() {
+		if (tags == null) {
+			if (readOnly) {
+				return EMPTY_TAGS;
+			}
+			tags = new TagCollectionImpl();
+		}
+		
 		return tags;
 	}
 
 
+	/**
+	 * Replaces the attached tags. Unlike the constructors the collection is
+	 * used directly rather than copied, this allows readers to supply
+	 * collections that decode their tags on demand.
+	 * 
+	 * @param tags
+	 *            The new tags.
+	 */
+	public void setTags(TagCollection tags) {
+		assertWriteable();
+
+		this.tags = tags;
+	}
+
+
 	/**
 	 * Returns the attached meta tags. If the class is read-only, the collection will
 	 * be read-only.
@@ -452,6 +545,13 @@ public class CommonEntityData implements Storeable {
 	 * @return The metaTags.
 	 */
 	public Map<String, Object> getMetaTags() {
+		if (metaTags == null) {
+			if (readOnly) {
+				return Collections.emptyMap();
+			}
+			metaTags = new LazyHashMap<String, Object>();
+		}
+		
 		return metaTags;
 	}
 
@@ -488,8 +588,17 @@ public class CommonEntityData implements Storeable {
 	 */
 	public void makeReadOnly() {
 		if (!readOnly) {
-			tags = new UnmodifiableTagCollection(tags);
-			metaTags = Collections.unmodifiableMap(metaTags);
+			// Empty collections are released, the getters return shared empty instances instead.
+			if (tags != null && !tags.isEmpty()) {
+				tags = new UnmodifiableTagCollection(tags);
+			} else {
+				tags = null;
+			}
+			if (metaTags != null && !metaTags.isEmpty()) {
+				metaTags = Collections.unmodifiableMap(metaTags);
+			} else {
+				metaTags = null;
+			}
 			
 			readOnly = true;
 		}
@@ -504,7 +613,7 @@ public class CommonEntityData implements Storeable {
 	 */
 	public CommonEntityData getWriteableInstance() {
 		if (isReadOnly()) {
-			return new CommonEntityData(id, version, timestampContainer, user, changesetId, tags);
+			return new CommonEntityData(id, version, getTimestampContainer(), user, changesetId, getTags());
 		} else {
 			return this;
 		}
@@ -339,6 +339,18 @@ public abstract class Entity implements Storeable {
 	}
 
 
+	/**
+	 * Replaces the attached tags. The collection is used directly rather than
+	 * copied.
+	 *
+	 * @param tags
+	 *            The new tags.
+	 */
+	public void setTags(TagCollection tags) {
+		entityData.setTags(tags);
+	}
+
+
 	/**
 	 * Returns the attached meta tags. If the class is read-only, the collection will
 	 * be read-only.
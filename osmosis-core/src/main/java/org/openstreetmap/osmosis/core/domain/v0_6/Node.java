@@ -6,6 +6,7 @@ import java.util.Date;
 
 import org.openstreetmap.osmosis.core.domain.common.SimpleTimestampContainer;
 import org.openstreetmap.osmosis.core.domain.common.TimestampContainer;
+import org.openstreetmap.osmosis.core.store.DeltaChannel;
 import org.openstreetmap.osmosis.core.store.StoreClassRegister;
 import org.openstreetmap.osmosis.core.store.StoreReader;
 import org.openstreetmap.osmosis.core.store.StoreWriter;
@@ -14,13 +15,28 @@ import org.openstreetmap.osmosis.core.util.FixedPrecisionCoordinateConvertor;
 
 /**
  * A data class representing a single OSM node.
+ * <p>
+ * Coordinates are held in the same fixed precision form used when storing
+ * nodes which halves their footprint. Coordinates with more precision than
+ * can be represented in that form are additionally kept in their original
+ * form so no information is lost.
  * 
  * @author Brett Henderson
  */
 public class Node extends Entity implements Comparable<Node> {
 
-	private double latitude;
-	private double longitude;
+	/**
+	 * Coordinates within this distance in degrees of their fixed precision
+	 * form are considered identical to it. Coordinates decoded from other
+	 * fixed precision encodings such as PBF carry a few ulps of floating
+	 * point error which would otherwise force the original values to be
+	 * retained.
+	 */
+	private static final double EXACT_TOLERANCE = 0.000000000001;
+
+	private int fixedLatitude;
+	private int fixedLongitude;
+	private double[] exactCoordinates;
 
 
 	/**
@@ -163,7 +179,9 @@ public class Node extends Entity implements Comparable<Node> {
 	private Node(Node originalNode) {
 		super(originalNode);
 		
-		init(originalNode.latitude, originalNode.longitude);
+		fixedLatitude = originalNode.fixedLatitude;
+		fixedLongitude = originalNode.fixedLongitude;
+		exactCoordinates = originalNode.exactCoordinates;
 	}
 
 
@@ -176,8 +194,22 @@ public class Node extends Entity implements Comparable<Node> {
 	 *            The geographic longitude.
 	 */
 	private void init(double newLatitude, double newLongitude) {
-		this.latitude = newLatitude;
-		this.longitude = newLongitude;
+		fixedLatitude = FixedPrecisionCoordinateConvertor.convertToFixed(newLatitude);
+		fixedLongitude = FixedPrecisionCoordinateConvertor.convertToFixed(newLongitude);
+		
+		// Only retain the original values if the fixed form can't reproduce them.
+		if (isExact(fixedLatitude, newLatitude) && isExact(fixedLongitude, newLongitude)) {
+			exactCoordinates = null;
+		} else {
+			exactCoordinates = new double[] {newLatitude, newLongitude};
+		}
+	}
+	
+	
+	private static boolean isExact(int fixedCoordinate, double coordinate) {
+		// NaN and out of range values fail this test and are retained as is.
+		return Math.abs(FixedPrecisionCoordinateConvertor.convertToDouble(fixedCoordinate) - coordinate)
+				<= EXACT_TOLERANCE;
 	}
 
 
@@ -192,8 +224,8 @@ public class Node extends Entity implements Comparable<Node> {
 	public Node(StoreReader sr, StoreClassRegister scr) {
 		super(sr, scr);
 
-		this.latitude = FixedPrecisionCoordinateConvertor.convertToDouble(sr.readInteger());
-		this.longitude = FixedPrecisionCoordinateConvertor.convertToDouble(sr.readInteger());
+		this.fixedLatitude = sr.readDeltaInteger(DeltaChannel.Latitude);
+		this.fixedLongitude = sr.readDeltaInteger(DeltaChannel.Longitude);
 	}
 
 
@@ -204,8 +236,8 @@ public class Node extends Entity implements Comparable<Node> {
 	public void store(StoreWriter sw, StoreClassRegister scr) {
 		super.store(sw, scr);
 
-		sw.writeInteger(FixedPrecisionCoordinateConvertor.convertToFixed(latitude));
-		sw.writeInteger(FixedPrecisionCoordinateConvertor.convertToFixed(longitude));
+		sw.writeDeltaInteger(DeltaChannel.Latitude, fixedLatitude);
+		sw.writeDeltaInteger(DeltaChannel.Longitude, fixedLongitude);
 	}
 
 
@@ -272,19 +304,19 @@ public class Node extends Entity implements Comparable<Node> {
 			return 1;
 		}
 
-		if (this.latitude < comparisonNode.latitude) {
+		if (this.getLatitude() < comparisonNode.getLatitude()) {
 			return -1;
 		}
 
-		if (this.latitude > comparisonNode.latitude) {
+		if (this.getLatitude() > comparisonNode.getLatitude()) {
 			return 1;
 		}
 
-		if (this.longitude < comparisonNode.longitude) {
+		if (this.getLongitude() < comparisonNode.getLongitude()) {
 			return -1;
 		}
 
-		if (this.longitude > comparisonNode.longitude) {
+		if (this.getLongitude() > comparisonNode.getLongitude()) {
 			return 1;
 		}
 
@@ -314,7 +346,11 @@ public class Node extends Entity implements Comparable<Node> {
 	 * @return The latitude.
 	 */
 	public double getLatitude() {
-		return latitude;
+		if (exactCoordinates != null) {
+			return exactCoordinates[0];
+		}
+		
+		return FixedPrecisionCoordinateConvertor.convertToDouble(fixedLatitude);
 	}
 
 
@@ -327,7 +363,7 @@ public class Node extends Entity implements Comparable<Node> {
 	public void setLatitude(double latitude) {
 		assertWriteable();
 
-		this.latitude = latitude;
+		init(latitude, getLongitude());
 	}
 
 
@@ -337,7 +373,11 @@ public class Node extends Entity implements Comparable<Node> {
 	 * @return The longitude.
 	 */
 	public double getLongitude() {
-		return longitude;
+		if (exactCoordinates != null) {
+			return exactCoordinates[1];
+		}
+		
+		return FixedPrecisionCoordinateConvertor.convertToDouble(fixedLongitude);
 	}
 
 
@@ -350,7 +390,7 @@ public class Node extends Entity implements Comparable<Node> {
 	public void setLongitude(double longitude) {
 		assertWriteable();
 
-		this.longitude = longitude;
+		init(getLatitude(), longitude);
 	}
 
 
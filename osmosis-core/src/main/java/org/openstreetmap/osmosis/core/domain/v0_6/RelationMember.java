@@ -1,6 +1,7 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.domain.v0_6;
 
+import org.openstreetmap.osmosis.core.store.DeltaChannel;
 import org.openstreetmap.osmosis.core.store.StoreClassRegister;
 import org.openstreetmap.osmosis.core.store.StoreReader;
 import org.openstreetmap.osmosis.core.store.StoreWriter;
@@ -53,7 +54,7 @@ public class RelationMember implements Comparable<RelationMember>, Storeable {
 	 */
 	public RelationMember(StoreReader sr, StoreClassRegister scr) {
 		this(
-			sr.readLong(),
+			sr.readDeltaLong(DeltaChannel.MemberId),
 			EntityType.valueOf(sr.readString()),
 			sr.readString()
 		);
@@ -64,7 +65,7 @@ public class RelationMember implements Comparable<RelationMember>, Storeable {
 	 * {@inheritDoc}
 	 */
 	public void store(StoreWriter sw, StoreClassRegister scr) {
-		sw.writeLong(memberId);
+		sw.writeDeltaLong(DeltaChannel.MemberId, memberId);
 		sw.writeString(memberType.toString());
 		sw.writeString(memberRole);
 	}
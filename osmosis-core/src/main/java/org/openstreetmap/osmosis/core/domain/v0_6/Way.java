@@ -1,9 +1,7 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.domain.v0_6;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -22,7 +20,7 @@ import org.openstreetmap.osmosis.core.store.StoreWriter;
  */
 public class Way extends Entity implements Comparable<Way> {
 
-	private List<WayNode> wayNodes;
+	private WayNodeList wayNodes;
 	
 	
 	/**
@@ -67,7 +65,7 @@ public class Way extends Entity implements Comparable<Way> {
 	public Way(long id, int version, TimestampContainer timestampContainer, OsmUser user, long changesetId) {
 		super(id, version, timestampContainer, user, changesetId);
 		
-		this.wayNodes = new ArrayList<WayNode>();
+		this.wayNodes = new WayNodeList();
 	}
 	
 	
@@ -80,7 +78,7 @@ public class Way extends Entity implements Comparable<Way> {
 	public Way(CommonEntityData entityData) {
 		super(entityData);
 		
-		this.wayNodes = new ArrayList<WayNode>();
+		this.wayNodes = new WayNodeList();
 	}
 	
 	
@@ -137,7 +135,7 @@ public class Way extends Entity implements Comparable<Way> {
 			Collection<Tag> tags, List<WayNode> wayNodes) {
 		super(id, version, timestampContainer, user, changesetId, tags);
 		
-		this.wayNodes = new ArrayList<WayNode>(wayNodes);
+		this.wayNodes = new WayNodeList(wayNodes);
 	}
 	
 	
@@ -153,7 +151,7 @@ public class Way extends Entity implements Comparable<Way> {
 			CommonEntityData entityData, List<WayNode> wayNodes) {
 		super(entityData);
 		
-		this.wayNodes = new ArrayList<WayNode>(wayNodes);
+		this.wayNodes = new WayNodeList(wayNodes);
 	}
 	
 	
@@ -166,7 +164,7 @@ public class Way extends Entity implements Comparable<Way> {
 	private Way(Way originalWay) {
 		super(originalWay);
 		
-		this.wayNodes = new ArrayList<WayNode>(originalWay.wayNodes);
+		this.wayNodes = new WayNodeList(originalWay.wayNodes);
 	}
 	
 	
@@ -186,7 +184,7 @@ public class Way extends Entity implements Comparable<Way> {
 		
 		featureCount = sr.readInteger();
 		
-		wayNodes = new ArrayList<WayNode>();
+		wayNodes = new WayNodeList();
 		for (int i = 0; i < featureCount; i++) {
 			wayNodes.add(new WayNode(sr, scr));
 		}
@@ -338,7 +336,7 @@ public class Way extends Entity implements Comparable<Way> {
 	@Override
 	public void makeReadOnly() {
 		if (!isReadOnly()) {
-			wayNodes = Collections.unmodifiableList(wayNodes);
+			wayNodes.makeReadOnly();
 		}
 		
 		super.makeReadOnly();
@@ -1,6 +1,7 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.domain.v0_6;
 
+import org.openstreetmap.osmosis.core.store.DeltaChannel;
 import org.openstreetmap.osmosis.core.store.StoreClassRegister;
 import org.openstreetmap.osmosis.core.store.StoreReader;
 import org.openstreetmap.osmosis.core.store.StoreWriter;
@@ -60,7 +61,7 @@ public class WayNode implements Comparable<WayNode>, Storeable {
 	 *            within the store.
 	 */
 	public WayNode(StoreReader sr, StoreClassRegister scr) {
-		this(sr.readLong(), sr.readDouble(), sr.readDouble());
+		this(sr.readDeltaLong(DeltaChannel.WayNodeId), sr.readDouble(), sr.readDouble());
 	}
 	
 	
@@ -68,7 +69,7 @@ public class WayNode implements Comparable<WayNode>, Storeable {
 	 * {@inheritDoc}
 	 */
 	public void store(StoreWriter sw, StoreClassRegister scr) {
-		sw.writeLong(nodeId);
+		sw.writeDeltaLong(DeltaChannel.WayNodeId, nodeId);
 		sw.writeDouble(latitude);
 		sw.writeDouble(longitude);
 	}
@@ -0,0 +1,228 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.domain.v0_6;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+
+/**
+ * A list of way nodes held in primitive arrays rather than as individual
+ * objects. Node identifiers are held in a long array, coordinates are only
+ * held if way nodes with location information are added. Way node objects are
+ * created on demand when elements are retrieved so they should be treated as
+ * values rather than compared by identity.
+ */
+public class WayNodeList extends AbstractList<WayNode> implements RandomAccess {
+
+	private static final int DEFAULT_CAPACITY = 8;
+
+	private long[] nodeIds;
+	private double[] coordinates;
+	private int size;
+	private boolean readOnly;
+
+
+	/**
+	 * Creates a new empty instance.
+	 */
+	public WayNodeList() {
+		nodeIds = new long[DEFAULT_CAPACITY];
+	}
+
+
+	/**
+	 * Creates a new instance containing the specified way nodes.
+	 *
+	 * @param wayNodes
+	 *            The initial way nodes.
+	 */
+	public WayNodeList(Collection<WayNode> wayNodes) {
+		if (wayNodes instanceof WayNodeList) {
+			WayNodeList source = (WayNodeList) wayNodes;
+
+			size = source.size;
+			nodeIds = Arrays.copyOf(source.nodeIds, size);
+			if (source.coordinates != null) {
+				coordinates = Arrays.copyOf(source.coordinates, size * 2);
+			}
+		} else {
+			nodeIds = new long[wayNodes.size()];
+			for (WayNode wayNode : wayNodes) {
+				add(wayNode);
+			}
+		}
+	}
+
+
+	/**
+	 * Creates a new instance containing way nodes without location
+	 * information. This allows readers already holding node identifiers in
+	 * array form to avoid creating intermediate way node objects.
+	 *
+	 * @param nodeIds
+	 *            The node identifiers. The array is copied.
+	 */
+	public WayNodeList(long[] nodeIds) {
+		this.nodeIds = Arrays.copyOf(nodeIds, nodeIds.length);
+		size = nodeIds.length;
+	}
+
+
+	/**
+	 * Gets the node identifier at the specified position without creating a
+	 * way node object.
+	 *
+	 * @param index
+	 *            The position within the list.
+	 * @return The node identifier.
+	 */
+	public long getNodeId(int index) {
+		checkIndex(index, size);
+
+		return nodeIds[index];
+	}
+
+
+	/**
+	 * Configures the list to be read-only, all subsequent updates will fail.
+	 */
+	public void makeReadOnly() {
+		readOnly = true;
+	}
+
+
+	private void assertWriteable() {
+		if (readOnly) {
+			throw new UnsupportedOperationException("The way node list is read-only.");
+		}
+	}
+
+
+	private static void checkIndex(int index, int limit) {
+		if (index < 0 || index >= limit) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of range for size " + limit + ".");
+		}
+	}
+
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > nodeIds.length) {
+			int newCapacity;
+
+			newCapacity = Math.max(capacity, Math.max(DEFAULT_CAPACITY, nodeIds.length + (nodeIds.length >> 1)));
+			nodeIds = Arrays.copyOf(nodeIds, newCapacity);
+			if (coordinates != null) {
+				coordinates = Arrays.copyOf(coordinates, newCapacity * 2);
+			}
+		}
+	}
+
+
+	private void setElement(int index, WayNode wayNode) {
+		nodeIds[index] = wayNode.getNodeId();
+
+		// Coordinate storage is only allocated once a node with a location is encountered.
+		if (coordinates == null && (wayNode.getLatitude() != 0 || wayNode.getLongitude() != 0)) {
+			coordinates = new double[nodeIds.length * 2];
+		}
+		if (coordinates != null) {
+			coordinates[index * 2] = wayNode.getLatitude();
+			coordinates[index * 2 + 1] = wayNode.getLongitude();
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public WayNode get(int index) {
+		checkIndex(index, size);
+
+		if (coordinates != null) {
+			return new WayNode(nodeIds[index], coordinates[index * 2], coordinates[index * 2 + 1]);
+		} else {
+			return new WayNode(nodeIds[index]);
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public WayNode set(int index, WayNode wayNode) {
+		WayNode previous;
+
+		assertWriteable();
+
+		previous = get(index);
+		setElement(index, wayNode);
+
+		return previous;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(int index, WayNode wayNode) {
+		assertWriteable();
+		checkIndex(index, size + 1);
+
+		ensureCapacity(size + 1);
+		System.arraycopy(nodeIds, index, nodeIds, index + 1, size - index);
+		if (coordinates != null) {
+			System.arraycopy(coordinates, index * 2, coordinates, index * 2 + 2, (size - index) * 2);
+		}
+		setElement(index, wayNode);
+		size++;
+		modCount++;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public WayNode remove(int index) {
+		WayNode previous;
+
+		assertWriteable();
+
+		previous = get(index);
+		System.arraycopy(nodeIds, index + 1, nodeIds, index, size - index - 1);
+		if (coordinates != null) {
+			System.arraycopy(coordinates, index * 2 + 2, coordinates, index * 2, (size - index - 1) * 2);
+		}
+		size--;
+		modCount++;
+
+		return previous;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clear() {
+		assertWriteable();
+
+		size = 0;
+		coordinates = null;
+		modCount++;
+	}
+}
@@ -0,0 +1,376 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * Implements the IdTracker interface in a thread safe manner allowing
+ * parallel workers to mark ids without a global lock. Ids between zero and
+ * 2<sup>36</sup> are held as bits in atomic word arrays. The bits are
+ * grouped into pages of 4096 ids which are allocated on first use through a
+ * two level directory, so only regions of the id space in use consume memory.
+ * Negative ids and ids beyond the paged range are rare and held in a
+ * concurrent sorted set.
+ * <p>
+ * Reads never block or retry. Writes use compare and swap operations and
+ * only retry when another thread modifies the same word concurrently.
+ * Iteration is weakly consistent, ids set during iteration may or may not be
+ * returned.
+ */
+public class ConcurrentIdTracker implements IdTracker {
+	private static final int PAGE_BITS = 12;
+	private static final int DIRECTORY_BITS = 12;
+	private static final int ROOT_BITS = 12;
+	private static final int WORDS_PER_PAGE = (1 << PAGE_BITS) / 64;
+	private static final int DIRECTORY_SIZE = 1 << DIRECTORY_BITS;
+	private static final long PAGED_ID_LIMIT = 1L << (PAGE_BITS + DIRECTORY_BITS + ROOT_BITS);
+
+	private AtomicReferenceArray<AtomicReferenceArray<AtomicLongArray>> root;
+	private ConcurrentSkipListSet<Long> overflow;
+
+
+	/**
+	 * Creates a new instance.
+	 */
+	public ConcurrentIdTracker() {
+		root = new AtomicReferenceArray<AtomicReferenceArray<AtomicLongArray>>(1 << ROOT_BITS);
+		overflow = new ConcurrentSkipListSet<Long>();
+	}
+
+
+	private static boolean isPaged(long id) {
+		return id >= 0 && id < PAGED_ID_LIMIT;
+	}
+
+
+	/**
+	 * Gets the page holding the specified page number.
+	 *
+	 * @param pageNumber
+	 *            The id divided by the page size.
+	 * @param create
+	 *            If true, the page is created if it doesn't exist.
+	 * @return The page, or null if it doesn't exist and create is false.
+	 */
+	private AtomicLongArray getPage(long pageNumber, boolean create) {
+		int rootIndex;
+		int directoryIndex;
+		AtomicReferenceArray<AtomicLongArray> directory;
+		AtomicLongArray page;
+
+		rootIndex = (int) (pageNumber >>> DIRECTORY_BITS);
+		directoryIndex = (int) (pageNumber & (DIRECTORY_SIZE - 1));
+
+		directory = root.get(rootIndex);
+		if (directory == null) {
+			if (!create) {
+				return null;
+			}
+
+			// If another thread wins the race to create the directory, use
+			// theirs.
+			root.compareAndSet(rootIndex, null, new AtomicReferenceArray<AtomicLongArray>(DIRECTORY_SIZE));
+			directory = root.get(rootIndex);
+		}
+
+		page = directory.get(directoryIndex);
+		if (page == null && create) {
+			directory.compareAndSet(directoryIndex, null, new AtomicLongArray(WORDS_PER_PAGE));
+			page = directory.get(directoryIndex);
+		}
+
+		return page;
+	}
+
+
+	/**
+	 * Sets a bit within a page.
+	 */
+	private static void setBit(AtomicLongArray page, long id) {
+		int wordIndex;
+		long mask;
+		long word;
+
+		wordIndex = (int) ((id >>> 6) & (WORDS_PER_PAGE - 1));
+		mask = 1L << id;
+
+		word = page.get(wordIndex);
+		while ((word & mask) == 0) {
+			if (page.compareAndSet(wordIndex, word, word | mask)) {
+				return;
+			}
+			word = page.get(wordIndex);
+		}
+	}
+
+
+	/**
+	 * Combines bits into a word within a page.
+	 */
+	private static void orWord(AtomicLongArray page, int wordIndex, long bits) {
+		long word;
+
+		word = page.get(wordIndex);
+		while ((word | bits) != word) {
+			if (page.compareAndSet(wordIndex, word, word | bits)) {
+				return;
+			}
+			word = page.get(wordIndex);
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void set(long id) {
+		if (isPaged(id)) {
+			setBit(getPage(id >>> PAGE_BITS, true), id);
+		} else {
+			overflow.add(id);
+		}
+	}
+
+
+	/**
+	 * Marks a batch of ids as active. This is more efficient than setting ids
+	 * individually when consecutive ids are close together because the page
+	 * lookup is shared.
+	 *
+	 * @param ids
+	 *            The array containing the ids.
+	 * @param offset
+	 *            The index of the first id in the array.
+	 * @param length
+	 *            The number of ids to set.
+	 */
+	public void set(long[] ids, int offset, int length) {
+		long currentPageNumber;
+		AtomicLongArray currentPage;
+
+		currentPageNumber = -1;
+		currentPage = null;
+		for (int i = offset; i < offset + length; i++) {
+			long id;
+
+			id = ids[i];
+			if (isPaged(id)) {
+				long pageNumber;
+
+				pageNumber = id >>> PAGE_BITS;
+				if (pageNumber != currentPageNumber) {
+					currentPage = getPage(pageNumber, true);
+					currentPageNumber = pageNumber;
+				}
+
+				setBit(currentPage, id);
+			} else {
+				overflow.add(id);
+			}
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean get(long id) {
+		if (isPaged(id)) {
+			AtomicLongArray page;
+
+			page = getPage(id >>> PAGE_BITS, false);
+			if (page == null) {
+				return false;
+			}
+
+			return (page.get((int) ((id >>> 6) & (WORDS_PER_PAGE - 1))) & (1L << id)) != 0;
+		} else {
+			return overflow.contains(id);
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setAll(IdTracker idTracker) {
+		if (idTracker instanceof ConcurrentIdTracker) {
+			ConcurrentIdTracker other;
+
+			other = (ConcurrentIdTracker) idTracker;
+
+			// Combine whole words at a time, skipping pages that don't exist.
+			for (int rootIndex = 0; rootIndex < root.length(); rootIndex++) {
+				AtomicReferenceArray<AtomicLongArray> otherDirectory;
+
+				otherDirectory = other.root.get(rootIndex);
+				if (otherDirectory == null) {
+					continue;
+				}
+
+				for (int directoryIndex = 0; directoryIndex < DIRECTORY_SIZE; directoryIndex++) {
+					AtomicLongArray otherPage;
+					AtomicLongArray page;
+
+					otherPage = otherDirectory.get(directoryIndex);
+					if (otherPage == null) {
+						continue;
+					}
+
+					page = null;
+					for (int i = 0; i < WORDS_PER_PAGE; i++) {
+						long bits;
+
+						bits = otherPage.get(i);
+						if (bits != 0) {
+							if (page == null) {
+								page = getPage(((long) rootIndex << DIRECTORY_BITS) | directoryIndex, true);
+							}
+							orWord(page, i, bits);
+						}
+					}
+				}
+			}
+
+			overflow.addAll(other.overflow);
+
+		} else {
+			for (Long id : idTracker) {
+				set(id);
+			}
+		}
+	}
+
+
+	/**
+	 * Finds the smallest paged id set that is greater than or equal to the
+	 * specified id.
+	 *
+	 * @param from
+	 *            The id to search from.
+	 * @return The next id, or -1 if no more paged ids are set.
+	 */
+	private long nextPagedId(long from) {
+		long id;
+
+		id = from;
+		while (id < PAGED_ID_LIMIT) {
+			long pageNumber;
+			AtomicLongArray page;
+
+			pageNumber = id >>> PAGE_BITS;
+
+			// Skip entire directories that don't exist.
+			if (root.get((int) (pageNumber >>> DIRECTORY_BITS)) == null) {
+				id = ((pageNumber >>> DIRECTORY_BITS) + 1) << (DIRECTORY_BITS + PAGE_BITS);
+				continue;
+			}
+
+			page = getPage(pageNumber, false);
+			if (page != null) {
+				int startWord;
+
+				startWord = (int) ((id >>> 6) & (WORDS_PER_PAGE - 1));
+				for (int i = startWord; i < WORDS_PER_PAGE; i++) {
+					long word;
+
+					word = page.get(i);
+					if (i == startWord) {
+						// Ignore ids before the starting id.
+						word &= -1L << id;
+					}
+
+					if (word != 0) {
+						return (pageNumber << PAGE_BITS) + (i << 6) + Long.numberOfTrailingZeros(word);
+					}
+				}
+			}
+
+			id = (pageNumber + 1) << PAGE_BITS;
+		}
+
+		return -1;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<Long> iterator() {
+		return new IdIterator();
+	}
+
+
+	/**
+	 * Returns negative overflow ids, then paged ids, then large overflow ids,
+	 * all in ascending order.
+	 */
+	private class IdIterator implements Iterator<Long> {
+		private Iterator<Long> negativeIds;
+		private Iterator<Long> largeIds;
+		private long nextPagedId;
+
+
+		/**
+		 * Creates a new instance.
+		 */
+		IdIterator() {
+			negativeIds = overflow.headSet(0L).iterator();
+			largeIds = overflow.tailSet(PAGED_ID_LIMIT).iterator();
+			nextPagedId = nextPagedId(0);
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean hasNext() {
+			return negativeIds.hasNext() || nextPagedId >= 0 || largeIds.hasNext();
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Long next() {
+			if (negativeIds.hasNext()) {
+				return negativeIds.next();
+			}
+
+			if (nextPagedId >= 0) {
+				long id;
+
+				id = nextPagedId;
+				nextPagedId = nextPagedId(id + 1);
+
+				return id;
+			}
+
+			if (largeIds.hasNext()) {
+				return largeIds.next();
+			}
+
+			throw new NoSuchElementException();
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
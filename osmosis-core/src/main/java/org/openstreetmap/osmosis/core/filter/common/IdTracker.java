@@ -1,15 +1,19 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.filter.common;
 
+import org.openstreetmap.osmosis.core.lifecycle.Closeable;
+
 
 /**
  * Defines the interface for all class implementations allowing a set of ids to
  * be marked as in use. This is used in filter tasks for tracking which entities
- * have been selected. Implementations support negative numbers.
+ * have been selected. Implementations support negative numbers. Trackers
+ * should be closed once no longer required so that implementations holding
+ * resources outside the Java heap can release them.
  * 
  * @author Brett Henderson
  */
-public interface IdTracker extends Iterable<Long> {
+public interface IdTracker extends Iterable<Long>, Closeable {
 	/**
 	 * Marks the specified id as active.
 	 * 
@@ -36,4 +40,14 @@ public interface IdTracker extends Iterable<Long> {
 	 *            The id tracker containing the ids to set.
 	 */
 	void setAll(IdTracker idTracker);
+	
+	
+	/**
+	 * {@inheritDoc} Most implementations only use heap memory so this does
+	 * nothing by default.
+	 */
+	@Override
+	default void close() {
+		// Do nothing by default.
+	}
 }
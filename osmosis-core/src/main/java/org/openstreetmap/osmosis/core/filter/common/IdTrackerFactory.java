@@ -33,6 +33,12 @@ public final class IdTrackerFactory {
 			return new ListIdTracker();
 		} else if (IdTrackerType.Dynamic.equals(idTrackerType)) {
 			return new DynamicIdTracker();
+		} else if (IdTrackerType.Roaring.equals(idTrackerType)) {
+			return new RoaringIdTracker();
+		} else if (IdTrackerType.Concurrent.equals(idTrackerType)) {
+			return new ConcurrentIdTracker();
+		} else if (IdTrackerType.Mapped.equals(idTrackerType)) {
+			return new MappedIdTracker();
 		} else {
 			throw new OsmosisRuntimeException("The IdTrackerType " + idTrackerType + " is not recognised.");
 		}
@@ -28,5 +28,25 @@ public enum IdTrackerType {
 	 * either one of the two other id list implementations depending on the number of ids to be
 	 * managed.
 	 */
-	Dynamic
+	Dynamic,
+	/**
+	 * The roaring implementation divides the full 64 bit id range into chunks of 65536 ids and
+	 * stores each chunk in use as a sorted array, a bitmap or a list of runs, whichever is
+	 * smallest. This remains compact for sparse, medium density and contiguous selections, and
+	 * supports fast merging of trackers.
+	 */
+	Roaring,
+	/**
+	 * The concurrent implementation stores ids as bits in atomic pages allocated on demand and
+	 * may be updated and read by multiple threads without locking. It should be used when ids
+	 * are tracked by parallel workers.
+	 */
+	Concurrent,
+	/**
+	 * The mapped implementation stores ids as bits in a sparse memory-mapped temporary file
+	 * instead of the Java heap. Only the regions of the id range in use are allocated on disk.
+	 * This should be used when tracking large portions of planet sized datasets on a JVM with a
+	 * modest heap.
+	 */
+	Mapped
 }
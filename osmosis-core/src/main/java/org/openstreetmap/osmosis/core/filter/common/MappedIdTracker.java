@@ -0,0 +1,331 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+
+/**
+ * Implements the IdTracker interface using a bitmap held outside the Java heap
+ * in a memory-mapped temporary file. The file is mapped in segments as ids
+ * are set, so its size follows the maximum id seen. The file is sparse and
+ * the operating system only allocates the pages that have bits set, allowing
+ * planet sized id ranges to be tracked with a small, constant heap.
+ * <p>
+ * Negative ids and ids too large to map are rare and are held on the heap in
+ * a {@link RoaringIdTracker}. The temporary file is deleted when the tracker
+ * is closed.
+ */
+public class MappedIdTracker implements IdTracker {
+
+	private static final Logger LOG = Logger.getLogger(MappedIdTracker.class.getName());
+
+	/**
+	 * The number of bits of the id selecting a bit within a segment.
+	 */
+	private static final int SEGMENT_ID_BITS = 30;
+	/**
+	 * The number of ids covered by each mapped segment.
+	 */
+	private static final long SEGMENT_IDS = 1L << SEGMENT_ID_BITS;
+	/**
+	 * The maximum number of segments, limiting the file to 128 GB.
+	 */
+	private static final int MAX_SEGMENTS = 1024;
+	private static final long MAPPED_ID_LIMIT = SEGMENT_IDS * MAX_SEGMENTS;
+
+	private File file;
+	private RandomAccessFile randomAccessFile;
+	private FileChannel channel;
+	private MappedByteBuffer[] segments;
+	private RoaringIdTracker overflow;
+
+
+	/**
+	 * Creates a new instance.
+	 */
+	public MappedIdTracker() {
+		segments = new MappedByteBuffer[0];
+		overflow = new RoaringIdTracker();
+	}
+
+
+	private static boolean isMapped(long id) {
+		return id >= 0 && id < MAPPED_ID_LIMIT;
+	}
+
+
+	private static int getWordOffset(long id) {
+		return (int) ((id & (SEGMENT_IDS - 1)) >>> 6) * 8;
+	}
+
+
+	/**
+	 * Creates the temporary file on first use.
+	 */
+	private void initialize() throws IOException {
+		if (channel == null) {
+			file = File.createTempFile("idt", null);
+			// Ensure trackers that are never closed don't leave files behind.
+			file.deleteOnExit();
+			randomAccessFile = new RandomAccessFile(file, "rw");
+			channel = randomAccessFile.getChannel();
+		}
+	}
+
+
+	/**
+	 * Gets the segment holding the specified id.
+	 *
+	 * @param id
+	 *            The id within the mapped range.
+	 * @param create
+	 *            If true, the segment is mapped if it doesn't exist.
+	 * @return The segment, or null if it doesn't exist and create is false.
+	 */
+	private MappedByteBuffer getSegment(long id, boolean create) {
+		int segmentIndex;
+
+		segmentIndex = (int) (id >>> SEGMENT_ID_BITS);
+
+		if (segmentIndex < segments.length && segments[segmentIndex] != null) {
+			return segments[segmentIndex];
+		}
+		if (!create) {
+			return null;
+		}
+
+		if (segmentIndex >= segments.length) {
+			segments = Arrays.copyOf(segments, segmentIndex + 1);
+		}
+
+		// Mapping beyond the end of the file extends it without allocating
+		// disk space for the unused pages.
+		try {
+			initialize();
+			segments[segmentIndex] = channel.map(
+					FileChannel.MapMode.READ_WRITE, segmentIndex * (SEGMENT_IDS / 8), SEGMENT_IDS / 8);
+		} catch (IOException e) {
+			throw new OsmosisRuntimeException("Unable to map id tracker file " + file + ".", e);
+		}
+
+		return segments[segmentIndex];
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void set(long id) {
+		if (isMapped(id)) {
+			MappedByteBuffer segment;
+			int offset;
+			long word;
+
+			segment = getSegment(id, true);
+			offset = getWordOffset(id);
+
+			word = segment.getLong(offset);
+			if ((word & (1L << id)) == 0) {
+				segment.putLong(offset, word | (1L << id));
+			}
+		} else {
+			overflow.set(id);
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean get(long id) {
+		if (isMapped(id)) {
+			MappedByteBuffer segment;
+
+			segment = getSegment(id, false);
+			if (segment == null) {
+				return false;
+			}
+
+			return (segment.getLong(getWordOffset(id)) & (1L << id)) != 0;
+		} else {
+			return overflow.get(id);
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setAll(IdTracker idTracker) {
+		for (Long id : idTracker) {
+			set(id);
+		}
+	}
+
+
+	/**
+	 * Finds the smallest mapped id set that is greater than or equal to the
+	 * specified id.
+	 *
+	 * @param from
+	 *            The id to search from.
+	 * @return The next id, or -1 if no more mapped ids are set.
+	 */
+	private long nextMappedId(long from) {
+		long id;
+
+		id = from;
+		while (id < (long) segments.length * SEGMENT_IDS) {
+			MappedByteBuffer segment;
+
+			segment = segments[(int) (id >>> SEGMENT_ID_BITS)];
+			if (segment != null) {
+				long segmentBase;
+				int startOffset;
+
+				segmentBase = id & ~(SEGMENT_IDS - 1);
+				startOffset = getWordOffset(id);
+				for (int offset = startOffset; offset < SEGMENT_IDS / 8; offset += 8) {
+					long word;
+
+					word = segment.getLong(offset);
+					if (offset == startOffset) {
+						// Ignore ids before the starting id.
+						word &= -1L << id;
+					}
+
+					if (word != 0) {
+						return segmentBase + offset * 8L + Long.numberOfTrailingZeros(word);
+					}
+				}
+			}
+
+			id = ((id >>> SEGMENT_ID_BITS) + 1) << SEGMENT_ID_BITS;
+		}
+
+		return -1;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<Long> iterator() {
+		return new IdIterator();
+	}
+
+
+	/**
+	 * Closes and deletes the temporary file. Mapped segments are released by
+	 * the garbage collector, some platforms don't allow the file to be deleted
+	 * until this occurs in which case it is deleted on exit. The tracker is
+	 * empty after closing.
+	 */
+	@Override
+	public void close() {
+		segments = new MappedByteBuffer[0];
+		overflow = new RoaringIdTracker();
+
+		if (randomAccessFile != null) {
+			try {
+				randomAccessFile.close();
+			} catch (IOException e) {
+				// We cannot throw an exception within a close statement.
+				LOG.log(Level.WARNING, "Unable to close id tracker file " + file + ".", e);
+			}
+			randomAccessFile = null;
+			channel = null;
+		}
+
+		if (file != null) {
+			if (!file.delete()) {
+				LOG.fine("Unable to delete id tracker file " + file + " while mapped, deleting on exit.");
+				file.deleteOnExit();
+			}
+			file = null;
+		}
+	}
+
+
+	/**
+	 * Merges the ascending overflow ids with the ascending mapped ids.
+	 */
+	private class IdIterator implements Iterator<Long> {
+		private Iterator<Long> overflowIds;
+		private Long nextOverflowId;
+		private long nextMappedId;
+
+
+		/**
+		 * Creates a new instance.
+		 */
+		IdIterator() {
+			overflowIds = overflow.iterator();
+			nextOverflowId = null;
+			if (overflowIds.hasNext()) {
+				nextOverflowId = overflowIds.next();
+			}
+			nextMappedId = nextMappedId(0);
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean hasNext() {
+			return nextOverflowId != null || nextMappedId >= 0;
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Long next() {
+			long id;
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			// Overflow ids are either below or above all mapped ids.
+			if (nextMappedId < 0 || (nextOverflowId != null && nextOverflowId < nextMappedId)) {
+				id = nextOverflowId;
+				nextOverflowId = null;
+				if (overflowIds.hasNext()) {
+					nextOverflowId = overflowIds.next();
+				}
+			} else {
+				id = nextMappedId;
+				nextMappedId = nextMappedId(id + 1);
+			}
+
+			return id;
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
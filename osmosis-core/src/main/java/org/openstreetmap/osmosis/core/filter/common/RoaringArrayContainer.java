@@ -0,0 +1,236 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.Arrays;
+
+
+/**
+ * A roaring container holding a sorted array of values. This is the most
+ * compact representation for chunks with few values.
+ */
+/* package */ class RoaringArrayContainer extends RoaringContainer {
+	private static final int INITIAL_CAPACITY = 4;
+
+	private char[] values;
+	private int cardinality;
+
+
+	/**
+	 * Creates a new empty instance.
+	 */
+	RoaringArrayContainer() {
+		this(INITIAL_CAPACITY);
+	}
+
+
+	/**
+	 * Creates a new empty instance.
+	 *
+	 * @param capacity
+	 *            The number of values to allocate space for.
+	 */
+	RoaringArrayContainer(int capacity) {
+		values = new char[Math.max(capacity, 1)];
+		cardinality = 0;
+	}
+
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > values.length) {
+			int newCapacity;
+
+			newCapacity = Math.min(Math.max(capacity, values.length + (values.length >> 1)), MAX_ARRAY_CARDINALITY);
+			values = Arrays.copyOf(values, newCapacity);
+		}
+	}
+
+
+	/**
+	 * Adds a value greater than all values already held.
+	 *
+	 * @param value
+	 *            The value between 0 and 65535.
+	 */
+	/* package */ void append(int value) {
+		ensureCapacity(cardinality + 1);
+		values[cardinality++] = (char) value;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	boolean get(int value) {
+		return Arrays.binarySearch(values, 0, cardinality, (char) value) >= 0;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	RoaringContainer set(int value) {
+		int index;
+
+		// Ids usually arrive in ascending order so check the end first.
+		if (cardinality == 0 || values[cardinality - 1] < value) {
+			index = -(cardinality + 1);
+		} else {
+			index = Arrays.binarySearch(values, 0, cardinality, (char) value);
+		}
+
+		if (index >= 0) {
+			return this;
+		}
+
+		if (cardinality >= MAX_ARRAY_CARDINALITY) {
+			RoaringBitmapContainer bitmap;
+
+			bitmap = toBitmap();
+			bitmap.add(value);
+
+			return bitmap;
+		}
+
+		index = -(index + 1);
+		ensureCapacity(cardinality + 1);
+		System.arraycopy(values, index, values, index + 1, cardinality - index);
+		values[index] = (char) value;
+		cardinality++;
+
+		return this;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	int getCardinality() {
+		return cardinality;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	int nextValue(int from) {
+		int index;
+
+		if (from >= CHUNK_SIZE) {
+			return -1;
+		}
+
+		index = Arrays.binarySearch(values, 0, cardinality, (char) from);
+		if (index < 0) {
+			index = -(index + 1);
+		}
+
+		if (index < cardinality) {
+			return values[index];
+		} else {
+			return -1;
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	int countRuns() {
+		int runs;
+
+		runs = 0;
+		for (int i = 0; i < cardinality; i++) {
+			if (i == 0 || values[i] != values[i - 1] + 1) {
+				runs++;
+			}
+		}
+
+		return runs;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void addTo(RoaringBitmapContainer bitmap) {
+		for (int i = 0; i < cardinality; i++) {
+			bitmap.add(values[i]);
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	RoaringContainer copy() {
+		RoaringArrayContainer result;
+
+		result = new RoaringArrayContainer(cardinality);
+		System.arraycopy(values, 0, result.values, 0, cardinality);
+		result.cardinality = cardinality;
+
+		return result;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	long getMemoryUsage() {
+		return OBJECT_OVERHEAD + 2L * values.length;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	RoaringArrayContainer toArrayContainer() {
+		return this;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	RoaringContainer or(RoaringContainer other) {
+		RoaringArrayContainer otherArray;
+		RoaringArrayContainer result;
+		int i;
+		int j;
+
+		if (!(other instanceof RoaringArrayContainer)) {
+			return super.or(other);
+		}
+		otherArray = (RoaringArrayContainer) other;
+		if (cardinality + otherArray.cardinality > MAX_ARRAY_CARDINALITY) {
+			return super.or(other);
+		}
+
+		// Merge the two sorted arrays.
+		result = new RoaringArrayContainer(cardinality + otherArray.cardinality);
+		i = 0;
+		j = 0;
+		while (i < cardinality || j < otherArray.cardinality) {
+			if (j >= otherArray.cardinality || (i < cardinality && values[i] < otherArray.values[j])) {
+				result.append(values[i++]);
+			} else if (i >= cardinality || otherArray.values[j] < values[i]) {
+				result.append(otherArray.values[j++]);
+			} else {
+				result.append(values[i++]);
+				j++;
+			}
+		}
+
+		return result.optimize();
+	}
+}
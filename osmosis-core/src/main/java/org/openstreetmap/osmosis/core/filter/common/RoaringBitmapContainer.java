@@ -0,0 +1,207 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+
+/**
+ * A roaring container holding a bit for every value in the chunk. This is the
+ * most compact representation for chunks with many scattered values.
+ */
+/* package */ class RoaringBitmapContainer extends RoaringContainer {
+	private static final int WORD_COUNT = CHUNK_SIZE / 64;
+
+	private long[] words;
+	private int cardinality;
+
+
+	/**
+	 * Creates a new empty instance.
+	 */
+	RoaringBitmapContainer() {
+		words = new long[WORD_COUNT];
+		cardinality = 0;
+	}
+
+
+	/**
+	 * Sets the specified value without changing the container type.
+	 *
+	 * @param value
+	 *            The value between 0 and 65535.
+	 */
+	/* package */ void add(int value) {
+		long before;
+
+		before = words[value >>> 6];
+		words[value >>> 6] = before | (1L << value);
+
+		if (before != words[value >>> 6]) {
+			cardinality++;
+		}
+	}
+
+
+	/**
+	 * Sets all values within the specified inclusive range.
+	 *
+	 * @param start
+	 *            The first value to set.
+	 * @param end
+	 *            The last value to set.
+	 */
+	/* package */ void addRange(int start, int end) {
+		int firstWord;
+		int lastWord;
+
+		firstWord = start >>> 6;
+		lastWord = end >>> 6;
+
+		for (int i = firstWord; i <= lastWord; i++) {
+			long mask;
+			long before;
+
+			mask = -1L;
+			if (i == firstWord) {
+				mask &= -1L << start;
+			}
+			if (i == lastWord) {
+				mask &= -1L >>> (63 - (end & 63));
+			}
+
+			before = words[i];
+			words[i] = before | mask;
+			cardinality += Long.bitCount(words[i]) - Long.bitCount(before);
+		}
+	}
+
+
+	/**
+	 * Sets all values set in another bitmap container.
+	 *
+	 * @param other
+	 *            The container holding the values to set.
+	 */
+	/* package */ void addAll(RoaringBitmapContainer other) {
+		cardinality = 0;
+		for (int i = 0; i < WORD_COUNT; i++) {
+			words[i] |= other.words[i];
+			cardinality += Long.bitCount(words[i]);
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	boolean get(int value) {
+		return (words[value >>> 6] & (1L << value)) != 0;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	RoaringContainer set(int value) {
+		add(value);
+
+		return this;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	int getCardinality() {
+		return cardinality;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	int nextValue(int from) {
+		int wordIndex;
+		long word;
+
+		if (from >= CHUNK_SIZE) {
+			return -1;
+		}
+
+		wordIndex = from >>> 6;
+		word = words[wordIndex] & (-1L << from);
+
+		while (word == 0) {
+			wordIndex++;
+			if (wordIndex >= WORD_COUNT) {
+				return -1;
+			}
+			word = words[wordIndex];
+		}
+
+		return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	int countRuns() {
+		int runs;
+		long previousTopBit;
+
+		// A run starts at each set bit whose preceding bit is clear.
+		runs = 0;
+		previousTopBit = 0;
+		for (long word : words) {
+			runs += Long.bitCount(word & ~((word << 1) | previousTopBit));
+			previousTopBit = word >>> 63;
+		}
+
+		return runs;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void addTo(RoaringBitmapContainer bitmap) {
+		bitmap.addAll(this);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	RoaringContainer copy() {
+		RoaringBitmapContainer result;
+
+		result = new RoaringBitmapContainer();
+		result.addAll(this);
+
+		return result;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	long getMemoryUsage() {
+		return OBJECT_OVERHEAD + BITMAP_BYTES;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	RoaringBitmapContainer toBitmap() {
+		return this;
+	}
+}
@@ -0,0 +1,205 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+
+/**
+ * Holds the low 16 bits of the ids within a single chunk of a
+ * {@link RoaringIdTracker}. Implementations use different representations
+ * suited to sparse, dense and consecutive ids. Modifying methods return the
+ * container that should replace this one because a container switches
+ * representation when another would be more compact.
+ */
+/* package */ abstract class RoaringContainer {
+	/**
+	 * The number of values that may be stored in a container.
+	 */
+	/* package */ static final int CHUNK_SIZE = 65536;
+	/**
+	 * The maximum number of values held by an array container. Beyond this
+	 * point a bitmap is smaller.
+	 */
+	/* package */ static final int MAX_ARRAY_CARDINALITY = 4096;
+	/**
+	 * The number of bytes of data in a bitmap container.
+	 */
+	/* package */ static final int BITMAP_BYTES = CHUNK_SIZE / 8;
+	/**
+	 * The approximate number of bytes used by a container object in
+	 * addition to its data arrays.
+	 */
+	/* package */ static final int OBJECT_OVERHEAD = 32;
+
+
+	/**
+	 * Checks whether the specified value is set.
+	 *
+	 * @param value
+	 *            The value between 0 and 65535.
+	 * @return True if the value is set.
+	 */
+	/* package */ abstract boolean get(int value);
+
+
+	/**
+	 * Sets the specified value.
+	 *
+	 * @param value
+	 *            The value between 0 and 65535.
+	 * @return The container holding the result, which may be a new container.
+	 */
+	/* package */ abstract RoaringContainer set(int value);
+
+
+	/**
+	 * Gets the number of values set.
+	 *
+	 * @return The number of values.
+	 */
+	/* package */ abstract int getCardinality();
+
+
+	/**
+	 * Finds the smallest set value greater than or equal to the specified
+	 * value.
+	 *
+	 * @param from
+	 *            The value to search from, may be beyond the last value.
+	 * @return The next set value, or -1 if no more values are set.
+	 */
+	/* package */ abstract int nextValue(int from);
+
+
+	/**
+	 * Counts the number of runs of consecutive values.
+	 *
+	 * @return The number of runs.
+	 */
+	/* package */ abstract int countRuns();
+
+
+	/**
+	 * Sets all values in this container within a bitmap container.
+	 *
+	 * @param bitmap
+	 *            The bitmap to be updated.
+	 */
+	/* package */ abstract void addTo(RoaringBitmapContainer bitmap);
+
+
+	/**
+	 * Creates an independent copy of this container.
+	 *
+	 * @return The new container.
+	 */
+	/* package */ abstract RoaringContainer copy();
+
+
+	/**
+	 * Estimates the memory consumed by this container.
+	 *
+	 * @return The approximate number of bytes used.
+	 */
+	/* package */ abstract long getMemoryUsage();
+
+
+	/**
+	 * Creates a bitmap container holding the values in this container.
+	 *
+	 * @return The bitmap container, or this container if it is already a
+	 *         bitmap.
+	 */
+	/* package */ RoaringBitmapContainer toBitmap() {
+		RoaringBitmapContainer bitmap;
+
+		bitmap = new RoaringBitmapContainer();
+		addTo(bitmap);
+
+		return bitmap;
+	}
+
+
+	/**
+	 * Creates an array container holding the values in this container. This
+	 * must only be called if the cardinality does not exceed
+	 * {@link #MAX_ARRAY_CARDINALITY}.
+	 *
+	 * @return The array container, or this container if it is already an
+	 *         array.
+	 */
+	/* package */ RoaringArrayContainer toArrayContainer() {
+		RoaringArrayContainer array;
+
+		array = new RoaringArrayContainer(getCardinality());
+		for (int value = nextValue(0); value >= 0; value = nextValue(value + 1)) {
+			array.append(value);
+		}
+
+		return array;
+	}
+
+
+	/**
+	 * Creates a run container holding the values in this container.
+	 *
+	 * @return The run container, or this container if it is already a run
+	 *         container.
+	 */
+	/* package */ RoaringRunContainer toRunContainer() {
+		RoaringRunContainer runs;
+
+		runs = new RoaringRunContainer(countRuns());
+		for (int value = nextValue(0); value >= 0; value = nextValue(value + 1)) {
+			runs.append(value);
+		}
+
+		return runs;
+	}
+
+
+	/**
+	 * Converts this container into the most compact representation for its
+	 * values.
+	 *
+	 * @return The most compact container, which may be this container.
+	 */
+	/* package */ RoaringContainer optimize() {
+		int cardinality;
+		long arrayBytes;
+		long runBytes;
+
+		cardinality = getCardinality();
+		runBytes = 4L * countRuns();
+
+		arrayBytes = Long.MAX_VALUE;
+		if (cardinality <= MAX_ARRAY_CARDINALITY) {
+			arrayBytes = 2L * cardinality;
+		}
+
+		if (runBytes < arrayBytes && runBytes < BITMAP_BYTES) {
+			return toRunContainer();
+		} else if (arrayBytes <= BITMAP_BYTES) {
+			return toArrayContainer();
+		} else {
+			return toBitmap();
+		}
+	}
+
+
+	/**
+	 * Combines the values of this container with another container. Neither
+	 * container is modified.
+	 *
+	 * @param other
+	 *            The container to combine with.
+	 * @return A new container holding the values of both containers.
+	 */
+	/* package */ RoaringContainer or(RoaringContainer other) {
+		RoaringBitmapContainer bitmap;
+
+		bitmap = new RoaringBitmapContainer();
+		addTo(bitmap);
+		other.addTo(bitmap);
+
+		return bitmap.optimize();
+	}
+}
@@ -0,0 +1,315 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/**
+ * Implements the IdTracker interface using a two level compressed bitmap in
+ * the style of roaring bitmaps. The full signed 64 bit id range is divided
+ * into chunks of 65536 ids keyed by the upper 48 bits of the id. Each chunk
+ * in use holds its ids in the most compact of a sorted array, a bitmap or a
+ * list of runs, so the tracker stays small for sparse, dense and contiguous
+ * selections alike.
+ * <p>
+ * Chunks are optimised when a later chunk is first used, which keeps
+ * ascending ids from a sorted stream in their most compact form. This
+ * implementation is not thread safe.
+ */
+public class RoaringIdTracker implements IdTracker {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] keys;
+	private RoaringContainer[] containers;
+	private int containerCount;
+	/**
+	 * The index of the most recently accessed container. Ids are usually
+	 * accessed in ascending order so this avoids most searches.
+	 */
+	private int lastIndex;
+
+
+	/**
+	 * Creates a new instance.
+	 */
+	public RoaringIdTracker() {
+		keys = new long[INITIAL_CAPACITY];
+		containers = new RoaringContainer[INITIAL_CAPACITY];
+		containerCount = 0;
+		lastIndex = 0;
+	}
+
+
+	private static long getKey(long id) {
+		return id >> 16;
+	}
+
+
+	private static int getLow(long id) {
+		return (int) (id & 0xFFFF);
+	}
+
+
+	/**
+	 * Finds the container for a key.
+	 *
+	 * @return The container index if found, otherwise (-(insertion point) - 1).
+	 */
+	private int findContainer(long key) {
+		int index;
+
+		if (lastIndex < containerCount && keys[lastIndex] == key) {
+			return lastIndex;
+		}
+		if (lastIndex + 1 < containerCount && keys[lastIndex + 1] == key) {
+			index = lastIndex + 1;
+		} else if (containerCount > 0 && keys[containerCount - 1] < key) {
+			index = -(containerCount + 1);
+		} else {
+			index = Arrays.binarySearch(keys, 0, containerCount, key);
+		}
+
+		if (index >= 0) {
+			lastIndex = index;
+		}
+
+		return index;
+	}
+
+
+	private void insertContainer(int index, long key, RoaringContainer container) {
+		if (containerCount == keys.length) {
+			keys = Arrays.copyOf(keys, containerCount * 2);
+			containers = Arrays.copyOf(containers, containerCount * 2);
+		}
+
+		System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+		System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+		keys[index] = key;
+		containers[index] = container;
+		containerCount++;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void set(long id) {
+		long key;
+		int index;
+
+		key = getKey(id);
+		index = findContainer(key);
+
+		if (index < 0) {
+			index = -(index + 1);
+
+			// Optimise the previous chunk once a stream of ascending ids moves
+			// beyond it because it won't change again.
+			if (index == containerCount && index > 0) {
+				containers[index - 1] = containers[index - 1].optimize();
+			}
+
+			insertContainer(index, key, new RoaringArrayContainer());
+			lastIndex = index;
+		}
+
+		containers[index] = containers[index].set(getLow(id));
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean get(long id) {
+		int index;
+
+		index = findContainer(getKey(id));
+
+		if (index >= 0) {
+			return containers[index].get(getLow(id));
+		} else {
+			return false;
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setAll(IdTracker idTracker) {
+		if (idTracker instanceof RoaringIdTracker) {
+			merge((RoaringIdTracker) idTracker);
+		} else {
+			for (Long id : idTracker) {
+				set(id);
+			}
+		}
+	}
+
+
+	/**
+	 * Combines the chunks of another tracker with this tracker without
+	 * visiting the individual ids.
+	 */
+	private void merge(RoaringIdTracker other) {
+		long[] newKeys;
+		RoaringContainer[] newContainers;
+		int newCount;
+		int i;
+		int j;
+
+		newKeys = new long[Math.max(containerCount + other.containerCount, INITIAL_CAPACITY)];
+		newContainers = new RoaringContainer[newKeys.length];
+		newCount = 0;
+		i = 0;
+		j = 0;
+		while (i < containerCount || j < other.containerCount) {
+			if (j >= other.containerCount || (i < containerCount && keys[i] < other.keys[j])) {
+				newKeys[newCount] = keys[i];
+				newContainers[newCount] = containers[i];
+				i++;
+			} else if (i >= containerCount || other.keys[j] < keys[i]) {
+				newKeys[newCount] = other.keys[j];
+				newContainers[newCount] = other.containers[j].copy();
+				j++;
+			} else {
+				newKeys[newCount] = keys[i];
+				newContainers[newCount] = containers[i].or(other.containers[j]);
+				i++;
+				j++;
+			}
+			newCount++;
+		}
+
+		keys = newKeys;
+		containers = newContainers;
+		containerCount = newCount;
+		lastIndex = 0;
+	}
+
+
+	/**
+	 * Converts all chunks to their most compact representation. This is
+	 * useful after ids have been set in random order.
+	 */
+	public void optimize() {
+		for (int i = 0; i < containerCount; i++) {
+			containers[i] = containers[i].optimize();
+		}
+	}
+
+
+	/**
+	 * Gets the number of ids set.
+	 *
+	 * @return The number of ids.
+	 */
+	public long size() {
+		long size;
+
+		size = 0;
+		for (int i = 0; i < containerCount; i++) {
+			size += containers[i].getCardinality();
+		}
+
+		return size;
+	}
+
+
+	/**
+	 * Estimates the memory consumed by this tracker.
+	 *
+	 * @return The approximate number of bytes used.
+	 */
+	public long getMemoryUsage() {
+		long memoryUsage;
+
+		// Each chunk slot holds an eight byte key and a reference.
+		memoryUsage = 16L * keys.length;
+		for (int i = 0; i < containerCount; i++) {
+			memoryUsage += containers[i].getMemoryUsage();
+		}
+
+		return memoryUsage;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<Long> iterator() {
+		return new IdIterator();
+	}
+
+
+	/**
+	 * Iterates over the ids of all containers in ascending order.
+	 */
+	private class IdIterator implements Iterator<Long> {
+		private int containerIndex;
+		private int nextLow;
+
+
+		/**
+		 * Creates a new instance.
+		 */
+		IdIterator() {
+			containerIndex = 0;
+			nextLow = -1;
+			if (containerCount > 0) {
+				nextLow = containers[0].nextValue(0);
+			}
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean hasNext() {
+			while (nextLow < 0) {
+				containerIndex++;
+				if (containerIndex >= containerCount) {
+					return false;
+				}
+				nextLow = containers[containerIndex].nextValue(0);
+			}
+
+			return true;
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Long next() {
+			long id;
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			id = (keys[containerIndex] << 16) | nextLow;
+			nextLow = containers[containerIndex].nextValue(nextLow + 1);
+
+			return id;
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
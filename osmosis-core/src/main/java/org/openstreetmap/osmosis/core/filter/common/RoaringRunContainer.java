@@ -0,0 +1,248 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.Arrays;
+
+
+/**
+ * A roaring container holding runs of consecutive values. This is the most
+ * compact representation for chunks where most ids are in use, such as when
+ * an entire region of a planet has been selected.
+ */
+/* package */ class RoaringRunContainer extends RoaringContainer {
+	/**
+	 * Beyond this number of runs a bitmap is smaller.
+	 */
+	private static final int MAX_RUNS = BITMAP_BYTES / 4;
+
+	/**
+	 * The first value of each run.
+	 */
+	private char[] starts;
+	/**
+	 * The number of values in each run minus one.
+	 */
+	private char[] lengths;
+	private int runCount;
+	private int cardinality;
+
+
+	/**
+	 * Creates a new empty instance.
+	 *
+	 * @param capacity
+	 *            The number of runs to allocate space for.
+	 */
+	RoaringRunContainer(int capacity) {
+		starts = new char[Math.max(capacity, 1)];
+		lengths = new char[starts.length];
+		runCount = 0;
+		cardinality = 0;
+	}
+
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > starts.length) {
+			int newCapacity;
+
+			newCapacity = Math.max(capacity, starts.length + (starts.length >> 1));
+			starts = Arrays.copyOf(starts, newCapacity);
+			lengths = Arrays.copyOf(lengths, newCapacity);
+		}
+	}
+
+
+	/**
+	 * Finds the last run starting at or before the specified value.
+	 *
+	 * @return The run index, or -1 if all runs start after the value.
+	 */
+	private int findRun(int value) {
+		int index;
+
+		index = Arrays.binarySearch(starts, 0, runCount, (char) value);
+		if (index < 0) {
+			index = -(index + 1) - 1;
+		}
+
+		return index;
+	}
+
+
+	private int getEnd(int run) {
+		return starts[run] + lengths[run];
+	}
+
+
+	/**
+	 * Adds a value greater than all values already held.
+	 *
+	 * @param value
+	 *            The value between 0 and 65535.
+	 */
+	/* package */ void append(int value) {
+		if (runCount > 0 && getEnd(runCount - 1) + 1 == value) {
+			lengths[runCount - 1]++;
+		} else {
+			ensureCapacity(runCount + 1);
+			starts[runCount] = (char) value;
+			lengths[runCount] = 0;
+			runCount++;
+		}
+
+		cardinality++;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	boolean get(int value) {
+		int run;
+
+		run = findRun(value);
+
+		return run >= 0 && value <= getEnd(run);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	RoaringContainer set(int value) {
+		int run;
+
+		run = findRun(value);
+
+		if (run >= 0 && value <= getEnd(run)) {
+			return this;
+		}
+
+		if (run >= 0 && value == getEnd(run) + 1) {
+			// Extend the preceding run, and join it to the following run if
+			// the gap is now closed.
+			lengths[run]++;
+			if (run + 1 < runCount && starts[run + 1] == value + 1) {
+				lengths[run] += lengths[run + 1] + 1;
+				System.arraycopy(starts, run + 2, starts, run + 1, runCount - run - 2);
+				System.arraycopy(lengths, run + 2, lengths, run + 1, runCount - run - 2);
+				runCount--;
+			}
+
+		} else if (run + 1 < runCount && starts[run + 1] == value + 1) {
+			// Extend the following run downwards.
+			starts[run + 1]--;
+			lengths[run + 1]++;
+
+		} else {
+			if (runCount >= MAX_RUNS) {
+				RoaringBitmapContainer bitmap;
+
+				bitmap = toBitmap();
+				bitmap.add(value);
+
+				return bitmap;
+			}
+
+			ensureCapacity(runCount + 1);
+			System.arraycopy(starts, run + 1, starts, run + 2, runCount - run - 1);
+			System.arraycopy(lengths, run + 1, lengths, run + 2, runCount - run - 1);
+			starts[run + 1] = (char) value;
+			lengths[run + 1] = 0;
+			runCount++;
+		}
+
+		cardinality++;
+
+		return this;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	int getCardinality() {
+		return cardinality;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	int nextValue(int from) {
+		int run;
+
+		if (from >= CHUNK_SIZE) {
+			return -1;
+		}
+
+		run = findRun(from);
+
+		if (run >= 0 && from <= getEnd(run)) {
+			return from;
+		} else if (run + 1 < runCount) {
+			return starts[run + 1];
+		} else {
+			return -1;
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	int countRuns() {
+		return runCount;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void addTo(RoaringBitmapContainer bitmap) {
+		for (int i = 0; i < runCount; i++) {
+			bitmap.addRange(starts[i], getEnd(i));
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	RoaringContainer copy() {
+		RoaringRunContainer result;
+
+		result = new RoaringRunContainer(runCount);
+		System.arraycopy(starts, 0, result.starts, 0, runCount);
+		System.arraycopy(lengths, 0, result.lengths, 0, runCount);
+		result.runCount = runCount;
+		result.cardinality = cardinality;
+
+		return result;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	long getMemoryUsage() {
+		return OBJECT_OVERHEAD + 4L * starts.length;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	RoaringRunContainer toRunContainer() {
+		return this;
+	}
+}
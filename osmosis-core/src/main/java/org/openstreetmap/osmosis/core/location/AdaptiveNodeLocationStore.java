@@ -0,0 +1,124 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.location;
+
+import java.util.logging.Logger;
+
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+
+
+/**
+ * A node location store implementation that chooses the most efficient
+ * storage for the input. Nodes are initially held in a
+ * {@link SparseNodeLocationStore} which consumes memory proportional to the
+ * number of nodes and suits small and regional extracts. If the number of
+ * nodes grows too large to hold on the heap, or if nodes are not received in
+ * ascending id order, the nodes are moved to a
+ * {@link CompactPersistentNodeLocationStore} which consumes disk space
+ * proportional to the number of nodes. Only if the input bound covers most of
+ * the planet are the nodes moved to a {@link MappedNodeLocationStore}, its file
+ * is indexed by node id and approaches the size of a planet file for any
+ * input with ids spread over the planet id range.
+ */
+public class AdaptiveNodeLocationStore implements NodeLocationStore {
+
+	private static final Logger LOG = Logger.getLogger(AdaptiveNodeLocationStore.class.getName());
+
+	/**
+	 * The maximum number of nodes held in the sparse store, consuming
+	 * approximately 512MB of heap.
+	 */
+	private static final long MAX_SPARSE_NODE_COUNT = 1L << 25;
+	/**
+	 * Bounds larger than half of the planet in square degrees are assumed to
+	 * contain densely allocated node ids suitable for the mapped store.
+	 */
+	private static final double MIN_MAPPED_BOUND_AREA = 360.0 * 180.0 / 2;
+
+	private SparseNodeLocationStore sparseStore;
+	private NodeLocationStore store;
+
+
+	/**
+	 * Creates a new instance.
+	 */
+	public AdaptiveNodeLocationStore() {
+		sparseStore = new SparseNodeLocationStore();
+		store = sparseStore;
+	}
+
+
+	/**
+	 * Moves all nodes from the sparse store to a new store.
+	 *
+	 * @param newStore
+	 *            The store to hold all nodes from now on.
+	 * @param reason
+	 *            The reason for the change, used for logging.
+	 */
+	private void switchStore(NodeLocationStore newStore, String reason) {
+		LOG.fine("Switching to a " + newStore.getClass().getSimpleName() + " after "
+				+ sparseStore.getNodeCount() + " nodes because " + reason + ".");
+
+		sparseStore.copyTo(newStore);
+		sparseStore.close();
+
+		sparseStore = null;
+		store = newStore;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setBound(Bound bound) {
+		if (sparseStore != null) {
+			double area;
+
+			area = 0;
+			for (Bound simpleBound : bound.toSimpleBound()) {
+				area += (simpleBound.getRight() - simpleBound.getLeft())
+						* (simpleBound.getTop() - simpleBound.getBottom());
+			}
+
+			if (area > MIN_MAPPED_BOUND_AREA) {
+				switchStore(new MappedNodeLocationStore(), "the bound covers " + area + " square degrees");
+			}
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addLocation(long nodeId, NodeLocation nodeLocation) {
+		if (sparseStore != null) {
+			if (sparseStore.getNodeCount() >= MAX_SPARSE_NODE_COUNT) {
+				switchStore(new CompactPersistentNodeLocationStore(), "the node count limit was reached");
+			} else if (sparseStore.getNodeCount() > 0 && nodeId <= sparseStore.getLastNodeId()) {
+				switchStore(new CompactPersistentNodeLocationStore(), "node " + nodeId + " is not in ascending order");
+			}
+		}
+
+		store.addLocation(nodeId, nodeLocation);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public NodeLocation getNodeLocation(long nodeId) {
+		return store.getNodeLocation(nodeId);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		store.close();
+	}
+}
@@ -0,0 +1,211 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.location;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.util.FixedPrecisionCoordinateConvertor;
+
+
+/**
+ * A node location store implementation holding locations in a sparse
+ * memory-mapped temporary file indexed directly by node id. Each node
+ * occupies a pair of fixed precision integers. The file is mapped in segments
+ * as nodes are added, and only the pages containing nodes are allocated by
+ * the operating system, so lookups run at page cache speed without holding
+ * the locations on the Java heap.
+ * <p>
+ * Unlike the other file based stores, nodes may be added in any order and by
+ * multiple threads concurrently, allowing locations to be bulk loaded in
+ * parallel. Reads are lock free. Locations added by one thread are visible to
+ * other threads once a happens-before relationship has been established, for
+ * example by waiting for the loading threads to complete. Negative node ids
+ * and ids too large to map are rare and are held on the heap.
+ */
+public class MappedNodeLocationStore implements NodeLocationStore {
+
+	private static final Logger LOG = Logger.getLogger(MappedNodeLocationStore.class.getName());
+
+	private static final int NODE_DATA_SIZE = 8;
+	/**
+	 * The number of bits of the node id selecting a node within a segment.
+	 * Each segment covers 1GB of file.
+	 */
+	private static final int SEGMENT_NODE_BITS = 27;
+	private static final long SEGMENT_NODE_COUNT = 1L << SEGMENT_NODE_BITS;
+	private static final long SEGMENT_SIZE = SEGMENT_NODE_COUNT * NODE_DATA_SIZE;
+	/**
+	 * The maximum number of segments, covering node ids up to 2<sup>37</sup>.
+	 */
+	private static final int MAX_SEGMENTS = 1024;
+	private static final long MAPPED_NODE_LIMIT = SEGMENT_NODE_COUNT * MAX_SEGMENTS;
+
+	private File file;
+	private RandomAccessFile randomAccessFile;
+	private FileChannel channel;
+	private AtomicReferenceArray<MappedByteBuffer> segments;
+	private Map<Long, NodeLocation> overflow;
+	private NodeLocation invalidNodeLocation;
+
+
+	/**
+	 * Creates a new instance.
+	 */
+	public MappedNodeLocationStore() {
+		segments = new AtomicReferenceArray<MappedByteBuffer>(MAX_SEGMENTS);
+		overflow = new ConcurrentHashMap<Long, NodeLocation>();
+		invalidNodeLocation = new NodeLocation();
+	}
+
+
+	private static boolean isMapped(long nodeId) {
+		return nodeId >= 0 && nodeId < MAPPED_NODE_LIMIT;
+	}
+
+
+	private static int getSegmentOffset(long nodeId) {
+		return (int) (nodeId & (SEGMENT_NODE_COUNT - 1)) * NODE_DATA_SIZE;
+	}
+
+
+	/**
+	 * Maps the segment holding the specified node if it isn't already mapped.
+	 * This is the only operation requiring a lock and occurs once per
+	 * segment.
+	 */
+	private synchronized MappedByteBuffer createSegment(int segmentIndex) {
+		MappedByteBuffer segment;
+
+		segment = segments.get(segmentIndex);
+		if (segment != null) {
+			return segment;
+		}
+
+		try {
+			if (channel == null) {
+				file = File.createTempFile("nodeloc", null);
+				file.deleteOnExit();
+				randomAccessFile = new RandomAccessFile(file, "rw");
+				channel = randomAccessFile.getChannel();
+			}
+
+			// Mapping beyond the end of the file extends it without allocating
+			// disk space for the unused pages.
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentIndex * SEGMENT_SIZE, SEGMENT_SIZE);
+
+		} catch (IOException e) {
+			throw new OsmosisRuntimeException("Unable to map node location file " + file + ".", e);
+		}
+
+		segments.set(segmentIndex, segment);
+
+		return segment;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addLocation(long nodeId, NodeLocation nodeLocation) {
+		if (isMapped(nodeId)) {
+			int segmentIndex;
+			MappedByteBuffer segment;
+			int offset;
+
+			segmentIndex = (int) (nodeId >>> SEGMENT_NODE_BITS);
+			segment = segments.get(segmentIndex);
+			if (segment == null) {
+				segment = createSegment(segmentIndex);
+			}
+
+			// The zero filled pages of the sparse file represent missing nodes.
+			// Flipping the sign bit of the longitude ensures a valid location
+			// is never stored as zeros. The only unrepresentable location is a
+			// longitude far outside the valid range.
+			offset = getSegmentOffset(nodeId);
+			segment.putInt(
+					offset,
+					FixedPrecisionCoordinateConvertor.convertToFixed(nodeLocation.getLongitude()) ^ Integer.MIN_VALUE);
+			segment.putInt(
+					offset + 4, FixedPrecisionCoordinateConvertor.convertToFixed(nodeLocation.getLatitude()));
+		} else {
+			overflow.put(nodeId, nodeLocation);
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public NodeLocation getNodeLocation(long nodeId) {
+		if (isMapped(nodeId)) {
+			MappedByteBuffer segment;
+			int offset;
+			int longitude;
+			int latitude;
+
+			segment = segments.get((int) (nodeId >>> SEGMENT_NODE_BITS));
+			if (segment == null) {
+				return invalidNodeLocation;
+			}
+
+			offset = getSegmentOffset(nodeId);
+			longitude = segment.getInt(offset);
+			latitude = segment.getInt(offset + 4);
+			if (longitude == 0 && latitude == 0) {
+				return invalidNodeLocation;
+			}
+
+			return new NodeLocation(
+				FixedPrecisionCoordinateConvertor.convertToDouble(longitude ^ Integer.MIN_VALUE),
+				FixedPrecisionCoordinateConvertor.convertToDouble(latitude)
+			);
+		} else {
+			return overflow.getOrDefault(nodeId, invalidNodeLocation);
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		for (int i = 0; i < segments.length(); i++) {
+			segments.set(i, null);
+		}
+		overflow.clear();
+
+		if (randomAccessFile != null) {
+			try {
+				randomAccessFile.close();
+			} catch (IOException e) {
+				// We cannot throw an exception within a release method.
+				LOG.log(Level.WARNING, "Unable to close node location file " + file + ".", e);
+			}
+			randomAccessFile = null;
+			channel = null;
+		}
+
+		// Some platforms don't allow a file to be deleted until its mapped
+		// buffers have been garbage collected, in which case it will be
+		// deleted on exit.
+		if (file != null) {
+			if (!file.delete()) {
+				LOG.fine("Unable to delete file " + file + " while mapped, deleting on exit.");
+			}
+			file = null;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 // This software is released into the Public Domain.  See copying.txt for details.
-package org.openstreetmap.osmosis.pgsimple.common;
+package org.openstreetmap.osmosis.core.location;
 
 
 /**
@@ -1,6 +1,7 @@
 // This software is released into the Public Domain.  See copying.txt for details.
-package org.openstreetmap.osmosis.pgsnapshot.common;
+package org.openstreetmap.osmosis.core.location;
 
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
 import org.openstreetmap.osmosis.core.lifecycle.Closeable;
 
 
@@ -31,4 +32,17 @@ public interface NodeLocationStore extends Closeable {
 	 *         valid flag will be set to false.
 	 */
 	NodeLocation getNodeLocation(long nodeId);
+	
+	
+	/**
+	 * Provides the bounding box of the input data. Implementations may use
+	 * this to choose a storage strategy suitable for the expected data volume.
+	 * This does nothing by default.
+	 * 
+	 * @param bound
+	 *            The bounding box of the nodes to be added.
+	 */
+	default void setBound(Bound bound) {
+		// Do nothing by default.
+	}
 }
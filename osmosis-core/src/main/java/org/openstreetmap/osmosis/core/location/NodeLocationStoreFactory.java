@@ -0,0 +1,44 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.location;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+
+/**
+ * Creates NodeLocationStore implementation instances depending on the
+ * requested store type.
+ */
+public final class NodeLocationStoreFactory {
+
+	/**
+	 * This class cannot be instantiated.
+	 */
+	private NodeLocationStoreFactory() {
+	}
+
+
+	/**
+	 * Creates the requested node location store type.
+	 *
+	 * @param storeType
+	 *            The type of store to instantiate.
+	 * @return The new node location store.
+	 */
+	public static NodeLocationStore createInstance(NodeLocationStoreType storeType) {
+		if (NodeLocationStoreType.InMemory.equals(storeType)) {
+			return new InMemoryNodeLocationStore();
+		} else if (NodeLocationStoreType.TempFile.equals(storeType)) {
+			return new PersistentNodeLocationStore();
+		} else if (NodeLocationStoreType.CompactTempFile.equals(storeType)) {
+			return new CompactPersistentNodeLocationStore();
+		} else if (NodeLocationStoreType.Mapped.equals(storeType)) {
+			return new MappedNodeLocationStore();
+		} else if (NodeLocationStoreType.Sparse.equals(storeType)) {
+			return new SparseNodeLocationStore();
+		} else if (NodeLocationStoreType.Auto.equals(storeType)) {
+			return new AdaptiveNodeLocationStore();
+		} else {
+			throw new OsmosisRuntimeException("The store type " + storeType + " is not recognized.");
+		}
+	}
+}
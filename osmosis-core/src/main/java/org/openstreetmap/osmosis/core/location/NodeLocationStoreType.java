@@ -0,0 +1,53 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.location;
+
+
+/**
+ * Defines the different node location store implementations available.
+ * 
+ * @author Brett Henderson
+ */
+public enum NodeLocationStoreType {
+	/**
+	 * An in-memory node location store holds all information in memory. This
+	 * typically requires a very large JVM heap space.
+	 */
+	InMemory,
+	
+	/**
+	 * A temporary file based node location store holds all information in a temporary file on disk.
+	 */
+	TempFile,
+	
+	/**
+	 * A temporary file based node location store holds all information in a
+	 * temporary file on disk. This is optimised for small datasets, and is less
+	 * efficient for large datasets.
+	 */
+	CompactTempFile,
+	
+	/**
+	 * A memory-mapped node location store holds all information in a sparse
+	 * temporary file indexed by node id. This provides fast lookups for large
+	 * datasets without requiring a large JVM heap, and supports loading from
+	 * multiple threads.
+	 */
+	Mapped,
+	
+	/**
+	 * A sparse node location store holds only the nodes received in sorted
+	 * in-memory arrays. Memory consumption is proportional to the number of
+	 * nodes, making this efficient for regional extracts. Nodes must be
+	 * received in ascending id order.
+	 */
+	Sparse,
+	
+	/**
+	 * An automatic node location store initially uses the sparse
+	 * implementation. It switches to the compact temporary file implementation
+	 * if the node count is too large to be held in memory or nodes are
+	 * unsorted, and to the memory-mapped implementation if the input bound
+	 * covers most of the planet.
+	 */
+	Auto
+}
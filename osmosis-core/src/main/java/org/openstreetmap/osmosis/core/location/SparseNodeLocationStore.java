@@ -0,0 +1,277 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.util.FixedPrecisionCoordinateConvertor;
+
+
+/**
+ * An in-memory node location store implementation holding only the nodes
+ * added, in sorted arrays of node ids and fixed precision coordinates. Memory
+ * consumption is proportional to the number of nodes stored rather than the
+ * range of node ids, making it efficient for regional extracts whose node ids
+ * are scattered across the full planet id range.
+ * <p>
+ * Nodes must be added in ascending id order as occurs in a sorted entity
+ * stream. Arrays are divided into fixed size chunks so that the store can
+ * grow without copying all existing data. Lookups locate the chunk using a
+ * binary search of the first id of each chunk, then find the node within the
+ * chunk using an interpolation search.
+ */
+public class SparseNodeLocationStore implements NodeLocationStore {
+
+	private static final int CHUNK_SIZE = 65536;
+	private static final int INITIAL_CHUNK_CAPACITY = 1024;
+	/**
+	 * The number of interpolation probes to make within a chunk before
+	 * reverting to a binary search. Node ids are usually evenly spread within
+	 * a chunk and are found with one or two probes, this prevents
+	 * pathological distributions degrading to a linear search.
+	 */
+	private static final int MAX_INTERPOLATION_PROBES = 4;
+
+	private List<Chunk> chunks;
+	private long[] chunkFirstIds;
+	private long lastNodeId;
+	private long nodeCount;
+	private NodeLocation invalidNodeLocation;
+
+
+	/**
+	 * Creates a new instance.
+	 */
+	public SparseNodeLocationStore() {
+		chunks = new ArrayList<Chunk>();
+		chunkFirstIds = new long[16];
+		lastNodeId = Long.MIN_VALUE;
+		nodeCount = 0;
+		invalidNodeLocation = new NodeLocation();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addLocation(long nodeId, NodeLocation nodeLocation) {
+		Chunk chunk;
+
+		// We can only add nodes in sorted order.
+		if (nodeCount > 0 && nodeId <= lastNodeId) {
+			throw new OsmosisRuntimeException(
+				"The node id of " + nodeId
+				+ " must be greater than the previous id of "
+				+ lastNodeId + "."
+			);
+		}
+		lastNodeId = nodeId;
+
+		if (chunks.isEmpty() || chunks.get(chunks.size() - 1).isFull()) {
+			if (chunks.size() == chunkFirstIds.length) {
+				chunkFirstIds = Arrays.copyOf(chunkFirstIds, chunkFirstIds.length * 2);
+			}
+			chunkFirstIds[chunks.size()] = nodeId;
+			chunks.add(new Chunk());
+		}
+		chunk = chunks.get(chunks.size() - 1);
+
+		chunk.add(
+			nodeId,
+			FixedPrecisionCoordinateConvertor.convertToFixed(nodeLocation.getLongitude()),
+			FixedPrecisionCoordinateConvertor.convertToFixed(nodeLocation.getLatitude()));
+		nodeCount++;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public NodeLocation getNodeLocation(long nodeId) {
+		int chunkIndex;
+		Chunk chunk;
+		int index;
+
+		chunkIndex = Arrays.binarySearch(chunkFirstIds, 0, chunks.size(), nodeId);
+		if (chunkIndex < 0) {
+			// Use the chunk preceding the insertion point.
+			chunkIndex = -(chunkIndex + 1) - 1;
+			if (chunkIndex < 0) {
+				return invalidNodeLocation;
+			}
+		}
+
+		chunk = chunks.get(chunkIndex);
+		index = chunk.find(nodeId);
+		if (index < 0) {
+			return invalidNodeLocation;
+		}
+
+		return new NodeLocation(
+			FixedPrecisionCoordinateConvertor.convertToDouble(chunk.longitudes[index]),
+			FixedPrecisionCoordinateConvertor.convertToDouble(chunk.latitudes[index])
+		);
+	}
+
+
+	/**
+	 * Gets the number of nodes in the store.
+	 *
+	 * @return The node count.
+	 */
+	public long getNodeCount() {
+		return nodeCount;
+	}
+
+
+	/**
+	 * Gets the identifier of the most recently added node.
+	 *
+	 * @return The node id, or Long.MIN_VALUE if no nodes have been added.
+	 */
+	public long getLastNodeId() {
+		return lastNodeId;
+	}
+
+
+	/**
+	 * Adds all nodes in this store to another store in ascending id order.
+	 *
+	 * @param store
+	 *            The destination store.
+	 */
+	public void copyTo(NodeLocationStore store) {
+		for (Chunk chunk : chunks) {
+			for (int i = 0; i < chunk.count; i++) {
+				store.addLocation(
+					chunk.ids[i],
+					new NodeLocation(
+						FixedPrecisionCoordinateConvertor.convertToDouble(chunk.longitudes[i]),
+						FixedPrecisionCoordinateConvertor.convertToDouble(chunk.latitudes[i])));
+			}
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		chunks.clear();
+		nodeCount = 0;
+	}
+
+
+	/**
+	 * Holds a contiguous sorted range of nodes. Arrays grow until they reach
+	 * the chunk size so that small datasets consume little memory.
+	 */
+	private static class Chunk {
+		private long[] ids;
+		private int[] longitudes;
+		private int[] latitudes;
+		private int count;
+
+
+		/**
+		 * Creates a new instance.
+		 */
+		Chunk() {
+			ids = new long[INITIAL_CHUNK_CAPACITY];
+			longitudes = new int[INITIAL_CHUNK_CAPACITY];
+			latitudes = new int[INITIAL_CHUNK_CAPACITY];
+			count = 0;
+		}
+
+
+		/**
+		 * Indicates if the chunk has reached its maximum size.
+		 *
+		 * @return True if no more nodes can be added.
+		 */
+		boolean isFull() {
+			return count == CHUNK_SIZE;
+		}
+
+
+		/**
+		 * Adds a node to the end of the chunk.
+		 *
+		 * @param nodeId
+		 *            The node identifier.
+		 * @param longitude
+		 *            The fixed precision longitude.
+		 * @param latitude
+		 *            The fixed precision latitude.
+		 */
+		void add(long nodeId, int longitude, int latitude) {
+			if (count == ids.length) {
+				int newCapacity;
+
+				newCapacity = Math.min(ids.length * 2, CHUNK_SIZE);
+				ids = Arrays.copyOf(ids, newCapacity);
+				longitudes = Arrays.copyOf(longitudes, newCapacity);
+				latitudes = Arrays.copyOf(latitudes, newCapacity);
+			}
+
+			ids[count] = nodeId;
+			longitudes[count] = longitude;
+			latitudes[count] = latitude;
+			count++;
+		}
+
+
+		/**
+		 * Finds the index of a node id within the chunk.
+		 *
+		 * @param nodeId
+		 *            The node identifier.
+		 * @return The index, or -1 if the node doesn't exist.
+		 */
+		int find(long nodeId) {
+			int low;
+			int high;
+			int index;
+
+			low = 0;
+			high = count - 1;
+			for (int probe = 0; probe < MAX_INTERPOLATION_PROBES; probe++) {
+				int position;
+
+				if (low > high || nodeId < ids[low] || nodeId > ids[high]) {
+					return -1;
+				}
+
+				// Estimate the position assuming ids are evenly spread between
+				// the bounds. Doubles avoid overflow of the id differences.
+				position = low;
+				if (ids[high] != ids[low]) {
+					position += (int) ((double) (nodeId - ids[low]) / (ids[high] - ids[low]) * (high - low));
+				}
+
+				if (ids[position] == nodeId) {
+					return position;
+				} else if (ids[position] < nodeId) {
+					low = position + 1;
+				} else {
+					high = position - 1;
+				}
+			}
+
+			if (low > high) {
+				return -1;
+			}
+			index = Arrays.binarySearch(ids, low, high + 1, nodeId);
+			if (index < 0) {
+				return -1;
+			}
+
+			return index;
+		}
+	}
+}
@@ -4,7 +4,7 @@ package org.openstreetmap.osmosis.core.misc.v0_6;
 import java.util.Map;
 
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
-import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityReuseSink;
 
 
 /**
@@ -13,7 +13,7 @@ import org.openstreetmap.osmosis.core.task.v0_6.Sink;
  * 
  * @author Brett Henderson
  */
-public class NullWriter implements Sink {
+public class NullWriter implements EntityReuseSink {
 
 	/**
 	 * {@inheritDoc}
@@ -32,6 +32,15 @@ public class NullWriter implements Sink {
 	}
 
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsEntityReuse() {
+		return true;
+	}
+
+
 	/**
 	 * Flushes all changes to file.
 	 */
@@ -0,0 +1,401 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.parallel.v0_6;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskRunner;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.BatchSinkAdapter;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
+import org.openstreetmap.osmosis.core.task.v0_6.Source;
+
+
+/**
+ * Runs several instances of a stateless task in parallel. Incoming entities
+ * are grouped into batches which are handed to whichever worker is free, each
+ * worker owning its own instance of the task. Results are passed downstream in
+ * the order the batches were received so the output is identical to that of a
+ * single task instance.
+ * <p>
+ * All task instances are initialized, completed and released on the input
+ * thread, only batch processing occurs on the worker threads.
+ */
+public class ParallelSinkSource implements SinkSource, BatchSink {
+
+	private static final Batch END_OF_INPUT = new Batch(new ArrayList<EntityContainer>(0));
+
+	private String name;
+	private int batchSize;
+	private List<Worker> workers;
+	private BlockingQueue<Batch> workQueue;
+	private Deque<Batch> inFlight;
+	private List<EntityContainer> pending;
+	private List<TaskRunner> runners;
+	private BatchSink sink;
+
+
+	/**
+	 * Creates a new instance. Task instances must be added with
+	 * {@link #addWorker(Sink, Source)} before processing begins.
+	 *
+	 * @param name
+	 *            The name used as a prefix for worker thread names.
+	 * @param batchSize
+	 *            The number of entities to be processed by a worker at a time.
+	 */
+	public ParallelSinkSource(String name, int batchSize) {
+		this.name = name;
+		this.batchSize = batchSize;
+
+		workers = new ArrayList<Worker>();
+		workQueue = new LinkedBlockingQueue<Batch>();
+		inFlight = new ArrayDeque<Batch>();
+		pending = new ArrayList<EntityContainer>(batchSize);
+		runners = new ArrayList<TaskRunner>();
+	}
+
+
+	/**
+	 * Adds a task instance to be run by a worker.
+	 *
+	 * @param input
+	 *            The sink receiving input for the task instance.
+	 * @param output
+	 *            The source producing output for the task instance. This is
+	 *            often the same object as the input.
+	 */
+	public void addWorker(Sink input, Source output) {
+		Worker worker;
+
+		worker = new Worker(input);
+		output.setSink(worker);
+
+		workers.add(worker);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setSink(Sink sink) {
+		this.sink = BatchSinkAdapter.adapt(sink);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void initialize(Map<String, Object> metaData) {
+		Map<String, Object> outputMetaData;
+
+		if (workers.isEmpty()) {
+			throw new OsmosisRuntimeException("No workers have been added to the parallel task.");
+		}
+
+		// All instances run the same task so the meta data produced by the first
+		// is representative of all of them.
+		for (Worker worker : workers) {
+			worker.task.initialize(metaData);
+		}
+		outputMetaData = workers.get(0).metaData;
+		if (outputMetaData == null) {
+			outputMetaData = metaData;
+		}
+
+		for (int i = 0; i < workers.size(); i++) {
+			TaskRunner runner;
+
+			runner = new TaskRunner(workers.get(i), "Thread-" + name + "-" + (i + 1));
+			runner.start();
+			runners.add(runner);
+		}
+
+		sink.initialize(outputMetaData);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void process(EntityContainer entityContainer) {
+		pending.add(entityContainer);
+
+		if (pending.size() >= batchSize) {
+			dispatch();
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void processBatch(List<EntityContainer> entityContainers) {
+		for (EntityContainer entityContainer : entityContainers) {
+			process(entityContainer);
+		}
+	}
+
+
+	/**
+	 * Hands the pending entities to the workers and passes any results that
+	 * are ready downstream.
+	 */
+	private void dispatch() {
+		Batch batch;
+
+		// Limit the number of outstanding batches to bound memory usage. Two
+		// per worker ensures that workers always have the next batch queued.
+		while (inFlight.size() >= workers.size() * 2) {
+			emit(inFlight.removeFirst());
+		}
+
+		batch = new Batch(pending);
+		pending = new ArrayList<EntityContainer>(batchSize);
+
+		inFlight.addLast(batch);
+		workQueue.add(batch);
+
+		// Send any results that are already available without waiting.
+		while (!inFlight.isEmpty() && inFlight.peekFirst().isDone()) {
+			emit(inFlight.removeFirst());
+		}
+	}
+
+
+	/**
+	 * Waits for a batch to be processed and sends its results downstream.
+	 *
+	 * @param batch
+	 *            The batch to be sent.
+	 */
+	private void emit(Batch batch) {
+		try {
+			batch.done.await();
+		} catch (InterruptedException e) {
+			throw new OsmosisRuntimeException("Interrupted while waiting for a parallel worker.", e);
+		}
+
+		if (batch.error != null) {
+			throw new OsmosisRuntimeException("A parallel worker failed.", batch.error);
+		}
+
+		if (!batch.output.isEmpty()) {
+			sink.processBatch(batch.output);
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void complete() {
+		if (!pending.isEmpty()) {
+			dispatch();
+		}
+		while (!inFlight.isEmpty()) {
+			emit(inFlight.removeFirst());
+		}
+
+		// The workers are idle so the task instances can be completed from
+		// this thread. Any data they release during completion follows the
+		// processed data.
+		for (Worker worker : workers) {
+			List<EntityContainer> output;
+
+			output = new ArrayList<EntityContainer>();
+			worker.output = output;
+			worker.task.complete();
+
+			if (!output.isEmpty()) {
+				sink.processBatch(output);
+			}
+		}
+
+		sink.complete();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		try {
+			stopWorkers();
+
+		} finally {
+			try {
+				for (Worker worker : workers) {
+					worker.task.close();
+				}
+			} finally {
+				sink.close();
+			}
+		}
+	}
+
+
+	private void stopWorkers() {
+		for (int i = 0; i < runners.size(); i++) {
+			workQueue.add(END_OF_INPUT);
+		}
+
+		for (TaskRunner runner : runners) {
+			try {
+				runner.join();
+			} catch (InterruptedException e) {
+				throw new OsmosisRuntimeException("Interrupted while waiting for " + runner.getName() + " to stop.", e);
+			}
+		}
+		runners.clear();
+	}
+
+
+	/**
+	 * A group of entities processed by a single worker along with the results.
+	 */
+	private static class Batch {
+		private List<EntityContainer> input;
+		private List<EntityContainer> output;
+		private CountDownLatch done;
+		private Throwable error;
+
+
+		/**
+		 * Creates a new instance.
+		 *
+		 * @param input
+		 *            The entities to be processed.
+		 */
+		Batch(List<EntityContainer> input) {
+			this.input = input;
+
+			output = new ArrayList<EntityContainer>(input.size());
+			done = new CountDownLatch(1);
+		}
+
+
+		/**
+		 * Indicates if processing of the batch has finished.
+		 *
+		 * @return True if the batch is finished.
+		 */
+		boolean isDone() {
+			return done.getCount() == 0;
+		}
+	}
+
+
+	/**
+	 * Owns a single task instance, feeding it batches from the work queue and
+	 * collecting its output.
+	 */
+	private final class Worker implements Runnable, BatchSink {
+		private BatchSink task;
+		private List<EntityContainer> output;
+		private Map<String, Object> metaData;
+
+
+		/**
+		 * Creates a new instance.
+		 *
+		 * @param task
+		 *            The task instance.
+		 */
+		Worker(Sink task) {
+			this.task = BatchSinkAdapter.adapt(task);
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run() {
+			while (true) {
+				Batch batch;
+
+				try {
+					batch = workQueue.take();
+				} catch (InterruptedException e) {
+					throw new OsmosisRuntimeException("Parallel worker was interrupted.", e);
+				}
+				if (batch == END_OF_INPUT) {
+					return;
+				}
+
+				try {
+					output = batch.output;
+					task.processBatch(batch.input);
+
+				} catch (RuntimeException | Error e) {
+					batch.error = e;
+				} finally {
+					output = null;
+					batch.done.countDown();
+				}
+			}
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void initialize(Map<String, Object> taskMetaData) {
+			this.metaData = taskMetaData;
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void process(EntityContainer entityContainer) {
+			output.add(entityContainer);
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void processBatch(List<EntityContainer> entityContainers) {
+			// The list may be re-used by the caller so the contents are copied.
+			output.addAll(entityContainers);
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void complete() {
+			// Downstream completion is handled by the parallel task.
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void close() {
+			// Downstream release is handled by the parallel task.
+		}
+	}
+}
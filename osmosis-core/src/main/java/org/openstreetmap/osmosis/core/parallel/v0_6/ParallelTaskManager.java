@@ -0,0 +1,136 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.parallel.v0_6;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.pipeline.common.PassiveTaskManager;
+import org.openstreetmap.osmosis.core.pipeline.common.PipeTasks;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskWrapper;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.MeteredSink;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.core.task.v0_6.Source;
+
+
+/**
+ * A task manager for the parallel task. It wraps the task following it on the
+ * command line, creating one instance of that task per worker.
+ */
+public class ParallelTaskManager extends PassiveTaskManager implements TaskWrapper {
+	private int workerCount;
+	private ParallelSinkSource task;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param taskId
+	 *            A unique identifier for the task. This is used to produce
+	 *            meaningful errors when errors occur.
+	 * @param workerCount
+	 *            The number of task instances to run in parallel.
+	 * @param batchSize
+	 *            The number of entities to be processed by a worker at a time.
+	 * @param pipeArgs
+	 *            The arguments defining input and output pipes for the task,
+	 *            pipes are a logical concept for identifying how the tasks are
+	 *            connected together.
+	 */
+	public ParallelTaskManager(String taskId, int workerCount, int batchSize, Map<String, String> pipeArgs) {
+		super(taskId, pipeArgs);
+		
+		this.workerCount = workerCount;
+		
+		task = new ParallelSinkSource(taskId, batchSize);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void wrap(TaskManagerFactory factory, TaskConfiguration taskConfig) {
+		if (!factory.supportsParallelExecution(taskConfig)) {
+			throw new OsmosisRuntimeException(
+					"Task " + taskConfig.getId() + " of type " + taskConfig.getType()
+					+ " does not support parallel execution.");
+		}
+		if (!taskConfig.getPipeArgs().isEmpty()) {
+			throw new OsmosisRuntimeException(
+					"Task " + taskConfig.getId() + " is run in parallel, its pipes must be specified on task "
+					+ getTaskId() + " instead.");
+		}
+		
+		for (int i = 1; i <= workerCount; i++) {
+			TaskConfiguration workerConfig;
+			TaskManager workerManager;
+			PipeTasks workerPipeTasks;
+			InputCapture inputCapture;
+			
+			workerConfig = new TaskConfiguration(
+					taskConfig.getId() + "-" + i,
+					taskConfig.getType(),
+					Collections.<String, String>emptyMap(),
+					taskConfig.getConfigArgs(),
+					taskConfig.getDefaultArg());
+			workerConfig.setStringDictionary(taskConfig.getStringDictionary());
+			workerManager = factory.createTaskManager(workerConfig);
+			
+			// Connect the instance within its own private pipeline so that its
+			// input and output can be captured.
+			inputCapture = new InputCapture();
+			workerPipeTasks = new PipeTasks();
+			workerPipeTasks.putTask(getTaskId(), inputCapture);
+			workerManager.connect(workerPipeTasks);
+			
+			if (inputCapture.sink == null || workerPipeTasks.defaultTaskSize() != 1 || workerPipeTasks.size() != 1) {
+				throw new OsmosisRuntimeException("Task " + taskConfig.getId()
+						+ " must have a single input and a single output to run in parallel.");
+			}
+			
+			task.addWorker(inputCapture.sink, (Source) workerPipeTasks.retrieveTask(getTaskId(), Source.class));
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void connect(PipeTasks pipeTasks) {
+		Source source;
+		
+		// Get the input task. A sink only has one input, this corresponds to
+		// pipe index 0.
+		source = (Source) getInputTask(pipeTasks, 0, Source.class);
+		
+		// Connect the tasks.
+		source.setSink(MeteredSink.wrap(task, connectMetrics(pipeTasks, source, task)));
+		
+		// Register the task as an output. A source only has one output, this
+		// corresponds to pipe index 0.
+		setOutputTask(pipeTasks, task, 0);
+	}
+	
+	
+	/**
+	 * Stands in for the upstream task of a worker task instance, recording the
+	 * sink that the instance connects to it.
+	 */
+	private static class InputCapture implements Source {
+		private Sink sink;
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setSink(Sink sink) {
+			this.sink = sink;
+		}
+	}
+}
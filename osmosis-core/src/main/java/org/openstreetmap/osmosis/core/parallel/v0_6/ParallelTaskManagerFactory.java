@@ -0,0 +1,44 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.parallel.v0_6;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityBatcher;
+
+
+/**
+ * The task manager factory for the parallel task.
+ */
+public class ParallelTaskManagerFactory extends TaskManagerFactory {
+	private static final String ARG_WORKERS = "workers";
+	private static final String ARG_BATCH_SIZE = "batchSize";
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
+		int workers;
+		int batchSize;
+		
+		// Get the task arguments.
+		workers = getIntegerArgument(
+			taskConfig,
+			ARG_WORKERS,
+			getDefaultIntegerArgument(taskConfig, Runtime.getRuntime().availableProcessors())
+		);
+		batchSize = getIntegerArgument(taskConfig, ARG_BATCH_SIZE, EntityBatcher.DEFAULT_BATCH_SIZE);
+		
+		if (workers < 1) {
+			throw new OsmosisRuntimeException("Argument " + ARG_WORKERS + " must be at least 1.");
+		}
+		if (batchSize < 1) {
+			throw new OsmosisRuntimeException("Argument " + ARG_BATCH_SIZE + " must be at least 1.");
+		}
+		
+		return new ParallelTaskManager(taskConfig.getId(), workers, batchSize, taskConfig.getPipeArgs());
+	}
+}
@@ -44,19 +44,50 @@ public abstract class ActiveTaskManager extends TaskManager {
 	protected abstract Runnable getTask();
 	
 		
+	/**
+	 * Wraps the task so that work performed on its thread is charged to its
+	 * profile, if profiling is enabled.
+	 * 
+	 * @param task
+	 *            The task to be run.
+	 * @return The task to be passed to the thread.
+	 */
+	private Runnable profile(final Runnable task) {
+		final TaskProfile profile = getMetrics().getProfile();
+		
+		if (profile == null) {
+			return task;
+		}
+		
+		return new Runnable() {
+			@Override
+			public void run() {
+				TaskProfile previous = profile.enter();
+				
+				try {
+					task.run();
+				} finally {
+					profile.exit(previous);
+				}
+			}
+		};
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public void execute() {
-		LOG.fine("Launching task " + getTaskId() + " in a new thread.");
-		
 		if (thread != null) {
 			throw new OsmosisRuntimeException("Task " + getTaskId()
 					+ " is already running.");
 		}
 		
-		thread = new TaskRunner(getTask(), "Thread-" + getTaskId());
+		thread = new TaskRunner(profile(getTask()), "Thread-" + getTaskId());
+		
+		LOG.fine("Launching task " + getTaskId() + " in a new "
+				+ thread.getThreadType().name().toLowerCase() + " thread.");
 		
 		thread.start();
 	}
@@ -80,6 +111,14 @@ public abstract class ActiveTaskManager extends TaskManager {
 			
 			successful = thread.isSuccessful();
 			
+			// Task durations are of most interest when tasks share carrier
+			// threads.
+			if (ThreadType.Virtual.equals(thread.getThreadType())) {
+				LOG.info("Task " + getTaskId() + " " + thread.getUsageSummary() + ".");
+			} else {
+				LOG.fine("Task " + getTaskId() + " " + thread.getUsageSummary() + ".");
+			}
+			
 			if (!successful) {
 				LOG.log(Level.SEVERE, "Thread for task " + getTaskId() + " failed", thread.getException());
 			}
@@ -0,0 +1,21 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.common;
+
+
+/**
+ * Implemented by tasks that contribute their own statistics, such as buffer
+ * occupancy or bytes read, to the metrics of the task. The task manager
+ * provides the metrics object while connecting the pipeline, this only occurs
+ * if metrics collection is enabled.
+ */
+public interface Metered {
+	
+	/**
+	 * Provides the metrics object the task should record its statistics into.
+	 * This may be called more than once with the same object.
+	 * 
+	 * @param metrics
+	 *            The metrics for the task.
+	 */
+	void setTaskMetrics(TaskMetrics metrics);
+}
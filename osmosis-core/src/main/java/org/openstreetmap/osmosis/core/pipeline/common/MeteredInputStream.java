@@ -0,0 +1,73 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.common;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * An input stream counting the bytes read through it.
+ */
+class MeteredInputStream extends FilterInputStream {
+	private LongAdder counter;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param in
+	 *            The underlying stream.
+	 * @param counter
+	 *            Receives the number of bytes read.
+	 */
+	MeteredInputStream(InputStream in, LongAdder counter) {
+		super(in);
+		
+		this.counter = counter;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read() throws IOException {
+		int result = super.read();
+		
+		if (result >= 0) {
+			counter.increment();
+		}
+		
+		return result;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int result = super.read(b, off, len);
+		
+		if (result > 0) {
+			counter.add(result);
+		}
+		
+		return result;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long skip(long n) throws IOException {
+		long result = super.skip(n);
+		
+		counter.add(result);
+		
+		return result;
+	}
+}
@@ -0,0 +1,51 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.common;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * An output stream counting the bytes written through it.
+ */
+class MeteredOutputStream extends FilterOutputStream {
+	private LongAdder counter;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param out
+	 *            The underlying stream.
+	 * @param counter
+	 *            Receives the number of bytes written.
+	 */
+	MeteredOutputStream(OutputStream out, LongAdder counter) {
+		super(out);
+		
+		this.counter = counter;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(int b) throws IOException {
+		out.write(b);
+		counter.increment();
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		// The base class writes a byte at a time, avoid that.
+		out.write(b, off, len);
+		counter.add(len);
+	}
+}
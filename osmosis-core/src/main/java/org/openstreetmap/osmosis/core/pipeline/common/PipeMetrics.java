@@ -0,0 +1,91 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Counts the data passing through a single pipe between two tasks. A pipe is
+ * only ever written to by one thread at a time, so the count is published
+ * without the cost of an atomic increment. It may be read from any thread.
+ * <p>
+ * If the consuming task is being profiled, calls passing through the pipe are
+ * charged to that task.
+ */
+public class PipeMetrics {
+	private AtomicLong count;
+	private TaskProfile consumerProfile;
+
+
+	/**
+	 * Creates a new instance.
+	 */
+	public PipeMetrics() {
+		this(null);
+	}
+
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param consumerProfile
+	 *            The profile of the task receiving data from the pipe, or null
+	 *            if the task is not being profiled.
+	 */
+	public PipeMetrics(TaskProfile consumerProfile) {
+		this.consumerProfile = consumerProfile;
+		
+		count = new AtomicLong();
+	}
+
+
+	/**
+	 * Must be called before passing a call through the pipe to the consuming
+	 * task.
+	 * 
+	 * @return The value to be passed to {@link #exitConsumer(TaskProfile)}.
+	 */
+	public TaskProfile enterConsumer() {
+		if (consumerProfile == null) {
+			return null;
+		}
+		
+		return consumerProfile.enter();
+	}
+
+
+	/**
+	 * Must be called after the consuming task returns from a call passed
+	 * through the pipe, regardless of success.
+	 * 
+	 * @param previous
+	 *            The value returned by {@link #enterConsumer()}.
+	 */
+	public void exitConsumer(TaskProfile previous) {
+		if (consumerProfile != null) {
+			consumerProfile.exit(previous);
+		}
+	}
+
+
+	/**
+	 * Records data passing through the pipe. This must only be called by the
+	 * thread writing to the pipe.
+	 * 
+	 * @param amount
+	 *            The number of objects passed.
+	 */
+	public void add(long amount) {
+		count.lazySet(count.get() + amount);
+	}
+
+
+	/**
+	 * Returns the number of objects that have passed through the pipe.
+	 * 
+	 * @return The object count.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+}
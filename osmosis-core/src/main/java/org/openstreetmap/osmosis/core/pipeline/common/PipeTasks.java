@@ -4,6 +4,7 @@ package org.openstreetmap.osmosis.core.pipeline.common;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
@@ -24,14 +25,69 @@ public class PipeTasks {
 	
 	private Map<String, Task> namedTasks;
 	private Deque<Task> defaultTasks;
+	private boolean metricsEnabled;
+	private Map<Task, TaskMetrics> producerMetrics;
 	
 	
 	/**
 	 * Creates a new instance.
 	 */
 	public PipeTasks() {
+		this(false);
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param metricsEnabled
+	 *            If true, task managers will meter the pipes they connect.
+	 */
+	public PipeTasks(boolean metricsEnabled) {
+		this.metricsEnabled = metricsEnabled;
+		
 		namedTasks = new HashMap<String, Task>();
 		defaultTasks = new ArrayDeque<Task>();
+		producerMetrics = new IdentityHashMap<Task, TaskMetrics>();
+	}
+	
+	
+	/**
+	 * Indicates if task managers should meter the pipes they connect.
+	 * 
+	 * @return True if metrics are enabled.
+	 */
+	public boolean isMetricsEnabled() {
+		return metricsEnabled;
+	}
+	
+	
+	/**
+	 * Records the metrics of the task producing data from the specified output
+	 * task. This allows the consuming task to attribute its input to the
+	 * producer. Unlike the pipes themselves, these are retained after the task
+	 * is retrieved.
+	 * 
+	 * @param task
+	 *            The output task.
+	 * @param metrics
+	 *            The metrics of the producing task.
+	 */
+	public void putProducerMetrics(Task task, TaskMetrics metrics) {
+		producerMetrics.put(task, metrics);
+	}
+	
+	
+	/**
+	 * Returns the metrics of the task producing data from the specified output
+	 * task.
+	 * 
+	 * @param task
+	 *            The output task.
+	 * @return The metrics of the producing task, or null if unknown.
+	 */
+	public TaskMetrics getProducerMetrics(Task task) {
+		return producerMetrics.get(task);
 	}
 	
 	
@@ -7,6 +7,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 
 
 /**
@@ -21,6 +22,8 @@ public class Pipeline {
 	
 	private TaskManagerFactoryRegister factoryRegister;
 	private List<TaskManager> taskManagers;
+	private PipelineMetrics metrics;
+	private StringDictionary stringDictionary;
 	
 	
 	/**
@@ -30,7 +33,22 @@ public class Pipeline {
 	 *            The register containing all known task manager factories.
 	 */
 	public Pipeline(TaskManagerFactoryRegister factoryRegister) {
+		this(factoryRegister, null);
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param factoryRegister
+	 *            The register containing all known task manager factories.
+	 * @param metrics
+	 *            If not null, the metrics of each task will be collected and
+	 *            exported via this object while the pipeline executes.
+	 */
+	public Pipeline(TaskManagerFactoryRegister factoryRegister, PipelineMetrics metrics) {
 		this.factoryRegister = factoryRegister;
+		this.metrics = metrics;
 		
 		taskManagers = new ArrayList<TaskManager>();
 	}
@@ -45,16 +63,47 @@ public class Pipeline {
 	 *            The list of task information objects.
 	 */
 	private void buildTasks(List<TaskConfiguration> taskInfoList) {
+		TaskWrapper pendingWrapper;
+		
+		pendingWrapper = null;
 		for (TaskConfiguration taskConfig : taskInfoList) {
+			TaskManagerFactory factory;
+			TaskManager taskManager;
+			
+			factory = factoryRegister.getInstance(taskConfig.getType());
+			
+			// A wrapper takes ownership of the following task.
+			if (pendingWrapper != null) {
+				pendingWrapper.wrap(factory, taskConfig);
+				pendingWrapper = null;
+				
+				if (LOG.isLoggable(Level.FINE)) {
+					LOG.fine("Wrapped task \"" + taskConfig.getId() + "\"");
+				}
+				continue;
+			}
+			
 			// Create the new task manager and add to the pipeline.
-			taskManagers.add(
-				factoryRegister.getInstance(taskConfig.getType()).createTaskManager(taskConfig)
-			);
+			taskManager = factory.createTaskManager(taskConfig);
+			taskManagers.add(taskManager);
+			
+			if (taskManager instanceof TaskWrapper) {
+				pendingWrapper = (TaskWrapper) taskManager;
+			}
+			
+			if (metrics != null) {
+				metrics.register(taskManager.getMetrics());
+			}
 			
 			if (LOG.isLoggable(Level.FINE)) {
 				LOG.fine("Created task \"" + taskConfig.getId() + "\"");
 			}
 		}
+		
+		if (pendingWrapper != null) {
+			throw new OsmosisRuntimeException("Task " + ((TaskManager) pendingWrapper).getTaskId()
+					+ " must be followed by the task it applies to.");
+		}
 	}
 	
 	
@@ -66,7 +115,7 @@ public class Pipeline {
 		
 		// Create a container to map between the pipe name and the task that has
 		// last written to it.
-		pipeTasks = new PipeTasks();
+		pipeTasks = new PipeTasks(metrics != null);
 		
 		// Request each node to perform connection, each node will update the
 		// pipe tasks as it provides and consumes pipes.
@@ -107,6 +156,15 @@ public class Pipeline {
 	 *            The list of task information objects.
 	 */
 	public void prepare(List<TaskConfiguration> taskInfoList) {
+		// Tasks share strings through a dictionary scoped to this pipeline.
+		stringDictionary = new StringDictionary(StringDictionary.DEFAULT_CAPACITY);
+		for (TaskConfiguration taskConfig : taskInfoList) {
+			taskConfig.setStringDictionary(stringDictionary);
+		}
+		if (metrics != null) {
+			metrics.setStringDictionary(stringDictionary);
+		}
+		
 		// Process the command line arguments to build all tasks in the pipeline.
 		LOG.fine("Building tasks.");
 		buildTasks(taskInfoList);
@@ -121,6 +179,10 @@ public class Pipeline {
 	 * Launches the execution of the tasks within the pipeline.
 	 */
 	public void execute() {
+		if (metrics != null) {
+			metrics.start();
+		}
+		
 		// Initiate execution of all nodes.
 		for (TaskManager taskManager : taskManagers) {
 			taskManager.execute();
@@ -136,9 +198,23 @@ public class Pipeline {
 		
 		// Wait for completion of all nodes.
 		successful = true;
-		for (TaskManager taskManager : taskManagers) {
-			if (!taskManager.waitForCompletion()) {
-				successful = false;
+		try {
+			for (TaskManager taskManager : taskManagers) {
+				if (!taskManager.waitForCompletion()) {
+					successful = false;
+				}
+			}
+			
+		} finally {
+			if (metrics != null) {
+				metrics.stop();
+				metrics.reportProfile();
+			}
+			if (stringDictionary != null && LOG.isLoggable(Level.FINE)) {
+				LOG.fine(String.format("String dictionary shared %d of %d strings (%.1f%%).",
+						stringDictionary.getHitCount(),
+						stringDictionary.getHitCount() + stringDictionary.getMissCount(),
+						stringDictionary.getHitRate() * 100));
 			}
 		}
 		
@@ -0,0 +1,514 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+
+/**
+ * Holds the metrics of all tasks within a pipeline and exports them while the
+ * pipeline is running. Metrics are always published as JMX MBeans, they can
+ * additionally be written to a file or served over HTTP in the Prometheus text
+ * format. If profiling is enabled, the CPU time and heap allocations of each
+ * task are reported when the pipeline completes.
+ */
+public class PipelineMetrics {
+	private static final Logger LOG = Logger.getLogger(PipelineMetrics.class.getName());
+
+	/**
+	 * The JMX domain that task MBeans are registered under.
+	 */
+	public static final String JMX_DOMAIN = "org.openstreetmap.osmosis";
+
+	private static final int EXPORT_INTERVAL_SECONDS = 10;
+	private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private File prometheusFile;
+	private int httpPort;
+	private boolean profilingEnabled;
+	private File profileFile;
+	private List<TaskMetrics> tasks;
+	private List<ObjectName> registeredNames;
+	private ScheduledExecutorService fileExporter;
+	private HttpServer httpServer;
+	private volatile StringDictionary stringDictionary;
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param prometheusFile
+	 *            If not null, metrics will be written periodically to this file
+	 *            in the Prometheus text format.
+	 * @param httpPort
+	 *            If greater than zero, metrics will be served in the Prometheus
+	 *            text format on this port of the loopback interface.
+	 */
+	public PipelineMetrics(File prometheusFile, int httpPort) {
+		this(prometheusFile, httpPort, false, null);
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param prometheusFile
+	 *            If not null, metrics will be written periodically to this file
+	 *            in the Prometheus text format.
+	 * @param httpPort
+	 *            If greater than zero, metrics will be served in the Prometheus
+	 *            text format on this port of the loopback interface.
+	 * @param profilingEnabled
+	 *            If true, the CPU time and allocations of each task will be
+	 *            measured and logged on completion.
+	 * @param profileFile
+	 *            If not null, the profile will also be written to this file in
+	 *            JSON format on completion.
+	 */
+	public PipelineMetrics(File prometheusFile, int httpPort, boolean profilingEnabled, File profileFile) {
+		this.prometheusFile = prometheusFile;
+		this.httpPort = httpPort;
+		this.profilingEnabled = profilingEnabled;
+		this.profileFile = profileFile;
+
+		tasks = new CopyOnWriteArrayList<TaskMetrics>();
+		registeredNames = new ArrayList<ObjectName>();
+	}
+
+
+	/**
+	 * Adds the metrics of a task to the pipeline.
+	 *
+	 * @param taskMetrics
+	 *            The task metrics.
+	 */
+	public void register(TaskMetrics taskMetrics) {
+		if (profilingEnabled) {
+			taskMetrics.enableProfiling();
+		}
+		
+		tasks.add(taskMetrics);
+	}
+
+
+	/**
+	 * Sets the string dictionary shared by the tasks in the pipeline.
+	 *
+	 * @param stringDictionary
+	 *            The dictionary.
+	 */
+	public void setStringDictionary(StringDictionary stringDictionary) {
+		this.stringDictionary = stringDictionary;
+	}
+
+
+	/**
+	 * Returns the metrics of all tasks in the pipeline.
+	 *
+	 * @return The task metrics.
+	 */
+	public List<TaskMetrics> getTasks() {
+		return tasks;
+	}
+
+
+	/**
+	 * Begins exporting metrics. This should be called when the pipeline starts
+	 * executing.
+	 */
+	public void start() {
+		for (TaskMetrics taskMetrics : tasks) {
+			taskMetrics.start();
+		}
+
+		registerMBeans();
+
+		if (prometheusFile != null) {
+			fileExporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "Metrics-Exporter");
+				thread.setDaemon(true);
+				return thread;
+			});
+			fileExporter.scheduleWithFixedDelay(
+					this::writePrometheusFileQuietly, 0, EXPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+		}
+
+		if (httpPort > 0) {
+			startHttpServer();
+		}
+	}
+
+
+	/**
+	 * Stops exporting metrics. A final copy of the metrics file is written so
+	 * that it reflects the completed pipeline.
+	 */
+	public void stop() {
+		if (fileExporter != null) {
+			fileExporter.shutdownNow();
+			fileExporter = null;
+			writePrometheusFileQuietly();
+		}
+
+		if (httpServer != null) {
+			httpServer.stop(0);
+			httpServer = null;
+		}
+
+		unregisterMBeans();
+	}
+
+
+	private void registerMBeans() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		for (TaskMetrics taskMetrics : tasks) {
+			try {
+				ObjectName name = new ObjectName(
+						JMX_DOMAIN + ":type=Task,name=" + ObjectName.quote(taskMetrics.getTaskId()));
+
+				server.registerMBean(taskMetrics, name);
+				registeredNames.add(name);
+
+			} catch (JMException e) {
+				throw new OsmosisRuntimeException(
+						"Unable to register metrics for task " + taskMetrics.getTaskId() + ".", e);
+			}
+		}
+	}
+
+
+	private void unregisterMBeans() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		for (ObjectName name : registeredNames) {
+			try {
+				server.unregisterMBean(name);
+			} catch (JMException e) {
+				// We are shutting down so log and continue.
+				LOG.log(Level.WARNING, "Unable to unregister metrics " + name + ".", e);
+			}
+		}
+		registeredNames.clear();
+	}
+
+
+	private void startHttpServer() {
+		try {
+			httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), httpPort), 0);
+		} catch (IOException e) {
+			throw new OsmosisRuntimeException("Unable to serve metrics on port " + httpPort + ".", e);
+		}
+
+		httpServer.createContext("/metrics", this::handleHttpRequest);
+		httpServer.start();
+
+		LOG.info("Serving metrics at http://localhost:" + httpPort + "/metrics.");
+	}
+
+
+	private void handleHttpRequest(HttpExchange exchange) throws IOException {
+		byte[] body = formatPrometheus().getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().set("Content-Type", PROMETHEUS_CONTENT_TYPE);
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+
+	private void writePrometheusFileQuietly() {
+		try {
+			writePrometheusFile();
+		} catch (IOException e) {
+			// Metrics must never cause the pipeline to fail.
+			LOG.log(Level.WARNING, "Unable to write metrics file " + prometheusFile + ".", e);
+		}
+	}
+
+
+	/**
+	 * Writes the file via a temporary file so that readers never see a partial
+	 * file.
+	 */
+	private void writePrometheusFile() throws IOException {
+		File tmpFile = new File(prometheusFile.getPath() + ".tmp");
+
+		Files.write(tmpFile.toPath(), formatPrometheus().getBytes(StandardCharsets.UTF_8));
+		Files.move(tmpFile.toPath(), prometheusFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+
+	private static String escapeLabel(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+
+	private void appendMetric(StringBuilder builder, String name, String type, String help, MetricValue value) {
+		builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+
+		for (TaskMetrics taskMetrics : tasks) {
+			builder.append(name).append("{task=\"").append(escapeLabel(taskMetrics.getTaskId())).append("\"} ");
+			builder.append(value.get(taskMetrics)).append('\n');
+		}
+	}
+
+
+	/**
+	 * Writes the size of each individual buffer for tasks owning more than one,
+	 * this shows which output of a buffered tee is falling behind.
+	 */
+	private void appendBufferSizes(StringBuilder builder) {
+		String name = "osmosis_task_buffer_size";
+		
+		builder.append("# HELP ").append(name).append(" Objects waiting in each buffer owned by the task.\n");
+		builder.append("# TYPE ").append(name).append(" gauge\n");
+		
+		for (TaskMetrics taskMetrics : tasks) {
+			int[] sizes = taskMetrics.getQueueSizes();
+			
+			if (sizes.length > 1) {
+				for (int i = 0; i < sizes.length; i++) {
+					builder.append(name).append("{task=\"").append(escapeLabel(taskMetrics.getTaskId()));
+					builder.append("\",buffer=\"").append(i).append("\"} ").append(sizes[i]).append('\n');
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * Writes the effectiveness of the string dictionary shared by all tasks.
+	 */
+	private void appendStringDictionary(StringBuilder builder) {
+		StringDictionary dictionary = stringDictionary;
+		
+		if (dictionary == null) {
+			return;
+		}
+		
+		builder.append("# HELP osmosis_string_dictionary_hits_total Strings replaced by a shared instance.\n");
+		builder.append("# TYPE osmosis_string_dictionary_hits_total counter\n");
+		builder.append("osmosis_string_dictionary_hits_total ").append(dictionary.getHitCount()).append('\n');
+		builder.append("# HELP osmosis_string_dictionary_misses_total Strings added to the dictionary.\n");
+		builder.append("# TYPE osmosis_string_dictionary_misses_total counter\n");
+		builder.append("osmosis_string_dictionary_misses_total ").append(dictionary.getMissCount()).append('\n');
+	}
+	
+	
+	/**
+	 * Formats the current metrics of all tasks in the Prometheus text
+	 * exposition format.
+	 *
+	 * @return The formatted metrics.
+	 */
+	public String formatPrometheus() {
+		StringBuilder builder = new StringBuilder();
+
+		appendMetric(builder, "osmosis_task_entities_in_total", "counter",
+				"Entities or changes received by the task.", t -> Long.toString(t.getEntitiesIn()));
+		appendMetric(builder, "osmosis_task_entities_out_total", "counter",
+				"Entities or changes sent by the task.", t -> Long.toString(t.getEntitiesOut()));
+		appendMetric(builder, "osmosis_task_entities_in_per_second", "gauge",
+				"Average input rate since the pipeline started.",
+				t -> String.format(Locale.ROOT, "%.3f", t.getEntitiesInPerSecond()));
+		appendMetric(builder, "osmosis_task_entities_out_per_second", "gauge",
+				"Average output rate since the pipeline started.",
+				t -> String.format(Locale.ROOT, "%.3f", t.getEntitiesOutPerSecond()));
+		appendMetric(builder, "osmosis_task_queue_size", "gauge",
+				"Objects waiting in buffers owned by the task.", t -> Integer.toString(t.getQueueSize()));
+		appendBufferSizes(builder);
+		appendMetric(builder, "osmosis_task_put_blocked_seconds_total", "counter",
+				"Time spent waiting for buffer space.",
+				t -> String.format(Locale.ROOT, "%.3f", t.getPutBlockedMillis() / 1000.0));
+		appendMetric(builder, "osmosis_task_get_blocked_seconds_total", "counter",
+				"Time spent waiting for buffer data.",
+				t -> String.format(Locale.ROOT, "%.3f", t.getGetBlockedMillis() / 1000.0));
+		appendMetric(builder, "osmosis_task_bytes_read_total", "counter",
+				"Bytes read by the task.", t -> Long.toString(t.getBytesRead()));
+		appendMetric(builder, "osmosis_task_bytes_written_total", "counter",
+				"Bytes written by the task.", t -> Long.toString(t.getBytesWritten()));
+		appendStringDictionary(builder);
+
+		return builder.toString();
+	}
+
+
+	/**
+	 * Reports the CPU time and allocations of each task if profiling is
+	 * enabled. This should be called once the pipeline has completed.
+	 */
+	public void reportProfile() {
+		if (!profilingEnabled) {
+			return;
+		}
+		
+		LOG.info("Task profile:\n" + formatProfileTable());
+		
+		if (profileFile != null) {
+			try {
+				Files.write(profileFile.toPath(), formatProfileJson().getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				// The pipeline has already completed so log and continue.
+				LOG.log(Level.WARNING, "Unable to write profile file " + profileFile + ".", e);
+			}
+		}
+	}
+	
+	
+	private List<TaskProfile> getProfiles() {
+		List<TaskProfile> profiles = new ArrayList<TaskProfile>();
+		
+		for (TaskMetrics taskMetrics : tasks) {
+			if (taskMetrics.getProfile() != null) {
+				profiles.add(taskMetrics.getProfile());
+			}
+		}
+		
+		return profiles;
+	}
+	
+	
+	/**
+	 * Formats the CPU time and allocations of each task as a table suitable
+	 * for logging. Tasks are listed in pipeline order.
+	 * 
+	 * @return The formatted table.
+	 */
+	public String formatProfileTable() {
+		StringBuilder builder = new StringBuilder();
+		List<TaskProfile> profiles = getProfiles();
+		boolean allocationSupported = TaskProfile.isAllocationSupported();
+		long totalCpu = 0;
+		long totalAllocated = 0;
+		int idWidth = "Total".length();
+		
+		for (TaskProfile profile : profiles) {
+			totalCpu += profile.getCpuTime();
+			totalAllocated += profile.getAllocatedBytes();
+			idWidth = Math.max(idWidth, profile.getTaskId().length());
+		}
+		
+		builder.append(String.format(Locale.ROOT, "%-" + idWidth + "s %12s %7s %14s%n",
+				"Task", "CPU (s)", "CPU %", "Allocated (MB)"));
+		for (TaskProfile profile : profiles) {
+			appendProfileRow(builder, idWidth, profile.getTaskId(), profile.getCpuTime(), totalCpu,
+					profile.getAllocatedBytes(), allocationSupported);
+		}
+		appendProfileRow(builder, idWidth, "Total", totalCpu, totalCpu, totalAllocated, allocationSupported);
+		
+		return builder.toString();
+	}
+	
+	
+	private static void appendProfileRow(StringBuilder builder, int idWidth, String taskId, long cpuTime,
+			long totalCpu, long allocatedBytes, boolean allocationSupported) {
+		double cpuShare = 0;
+		String allocated = "n/a";
+		
+		if (totalCpu > 0) {
+			cpuShare = 100.0 * cpuTime / totalCpu;
+		}
+		if (allocationSupported) {
+			allocated = String.format(Locale.ROOT, "%.1f", allocatedBytes / (1024.0 * 1024.0));
+		}
+		
+		builder.append(String.format(Locale.ROOT, "%-" + idWidth + "s %12.3f %7.1f %14s%n",
+				taskId, cpuTime / 1e9, cpuShare, allocated));
+	}
+	
+	
+	private static String escapeJson(String value) {
+		StringBuilder builder = new StringBuilder();
+		
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			
+			if (c == '"' || c == '\\') {
+				builder.append('\\').append(c);
+			} else if (c < ' ') {
+				builder.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+			} else {
+				builder.append(c);
+			}
+		}
+		
+		return builder.toString();
+	}
+	
+	
+	/**
+	 * Formats the CPU time and allocations of each task as a JSON document.
+	 * Allocations are reported as -1 if the runtime cannot measure them.
+	 * 
+	 * @return The formatted profile.
+	 */
+	public String formatProfileJson() {
+		StringBuilder builder = new StringBuilder();
+		boolean allocationSupported = TaskProfile.isAllocationSupported();
+		boolean first = true;
+		
+		builder.append("{\n  \"tasks\": [");
+		for (TaskProfile profile : getProfiles()) {
+			long allocatedBytes = -1;
+			
+			if (allocationSupported) {
+				allocatedBytes = profile.getAllocatedBytes();
+			}
+			if (!first) {
+				builder.append(',');
+			}
+			first = false;
+			
+			builder.append("\n    {\"taskId\": \"").append(escapeJson(profile.getTaskId()));
+			builder.append("\", \"cpuNanos\": ").append(profile.getCpuTime());
+			builder.append(", \"allocatedBytes\": ").append(allocatedBytes).append('}');
+		}
+		builder.append("\n  ]\n}\n");
+		
+		return builder.toString();
+	}
+	
+	
+	/**
+	 * Extracts a single formatted value from the metrics of a task.
+	 */
+	private interface MetricValue {
+		/**
+		 * Gets the value.
+		 *
+		 * @param taskMetrics
+		 *            The task metrics.
+		 * @return The formatted value.
+		 */
+		String get(TaskMetrics taskMetrics);
+	}
+}
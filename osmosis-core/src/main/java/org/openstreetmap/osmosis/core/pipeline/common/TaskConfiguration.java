@@ -4,6 +4,8 @@ package org.openstreetmap.osmosis.core.pipeline.common;
 import java.util.Collections;
 import java.util.Map;
 
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
+
 
 /**
  * Contains all information relating to the configuration of a single task.
@@ -16,6 +18,7 @@ public class TaskConfiguration {
 	private Map<String, String> pipeArgs;
 	private Map<String, String> configArgs;
 	private String defaultArg;
+	private StringDictionary stringDictionary;
 	
 	
 	/**
@@ -85,4 +88,31 @@ public class TaskConfiguration {
 	public String getDefaultArg() {
 		return defaultArg;
 	}
+	
+	
+	/**
+	 * Sets the dictionary shared by all tasks in the pipeline.
+	 * 
+	 * @param stringDictionary
+	 *            The dictionary.
+	 */
+	public void setStringDictionary(StringDictionary stringDictionary) {
+		this.stringDictionary = stringDictionary;
+	}
+	
+	
+	/**
+	 * The dictionary for sharing frequently repeated strings between all tasks
+	 * in the pipeline. If the task isn't part of a pipeline, a new dictionary
+	 * is created for it.
+	 * 
+	 * @return The dictionary.
+	 */
+	public StringDictionary getStringDictionary() {
+		if (stringDictionary == null) {
+			stringDictionary = new StringDictionary(StringDictionary.DEFAULT_CAPACITY);
+		}
+		
+		return stringDictionary;
+	}
 }
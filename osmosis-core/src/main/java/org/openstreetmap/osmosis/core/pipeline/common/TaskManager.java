@@ -20,6 +20,7 @@ public abstract class TaskManager {
 	private String taskId;
 	private Map<Integer, String> inputPipeNames;
 	private Map<Integer, String> outputPipeNames;
+	private TaskMetrics metrics;
 	
 	
 	/**
@@ -38,6 +39,7 @@ public abstract class TaskManager {
 		
 		inputPipeNames = buildPipes(pipeArgs, true);
 		outputPipeNames = buildPipes(pipeArgs, false);
+		metrics = new TaskMetrics(taskId);
 	}
 	
 	
@@ -189,6 +191,53 @@ public abstract class TaskManager {
 		} else {
 			pipeTasks.putTask(taskId, outputTask);
 		}
+		
+		if (pipeTasks.isMetricsEnabled()) {
+			pipeTasks.putProducerMetrics(outputTask, metrics);
+			attachMetrics(outputTask);
+		}
+	}
+	
+	
+	private void attachMetrics(Object task) {
+		if (task instanceof Metered) {
+			((Metered) task).setTaskMetrics(metrics);
+		}
+	}
+	
+	
+	/**
+	 * Creates the metrics for a pipe connecting an input task to the managed
+	 * task. Implementations wrap the sink they connect to the input task so
+	 * that it updates the returned pipe metrics. If the managed task is
+	 * {@link Metered}, it will also be given the task metrics.
+	 * 
+	 * @param pipeTasks
+	 *            The currently registered pipe tasks.
+	 * @param inputTask
+	 *            The task providing input.
+	 * @param task
+	 *            The managed task.
+	 * @return The pipe metrics, or null if metrics are disabled.
+	 */
+	protected PipeMetrics connectMetrics(PipeTasks pipeTasks, Task inputTask, Object task) {
+		PipeMetrics pipe;
+		TaskMetrics producer;
+		
+		if (!pipeTasks.isMetricsEnabled()) {
+			return null;
+		}
+		
+		attachMetrics(task);
+		
+		pipe = new PipeMetrics(metrics.getProfile());
+		metrics.addInputPipe(pipe);
+		producer = pipeTasks.getProducerMetrics(inputTask);
+		if (producer != null) {
+			producer.addOutputPipe(pipe);
+		}
+		
+		return pipe;
 	}
 	
 	
@@ -200,6 +249,17 @@ public abstract class TaskManager {
 	}
 	
 	
+	/**
+	 * Returns the runtime metrics of the task. These are only populated if
+	 * metrics were enabled when the pipeline was connected.
+	 * 
+	 * @return The task metrics.
+	 */
+	public TaskMetrics getMetrics() {
+		return metrics;
+	}
+	
+	
 	/**
 	 * Connects the task to any input tasks based upon the pipes created by
 	 * source tasks, and makes any output pipes available to be used by
@@ -84,6 +84,23 @@ public abstract class TaskManagerFactory {
 	protected abstract TaskManager createTaskManagerImpl(TaskConfiguration taskConfig);
 	
 	
+	/**
+	 * Indicates if tasks created from the specified configuration process each
+	 * entity independently of all others. Such tasks may be run as several
+	 * instances in parallel, each receiving a subset of the data. Such tasks
+	 * must pass on the results for each entity before the call receiving it
+	 * returns. Factories must override this to opt in.
+	 * 
+	 * @param taskConfig
+	 *            Contains all information required to instantiate and configure
+	 *            the task.
+	 * @return True if the task supports parallel execution.
+	 */
+	public boolean supportsParallelExecution(TaskConfiguration taskConfig) {
+		return false;
+	}
+	
+	
 	/**
 	 * Checks if the specified argument has been supplied.
 	 * 
@@ -0,0 +1,283 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.common;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openstreetmap.osmosis.core.store.Postbox;
+
+
+/**
+ * Collects the runtime statistics of a single task. Entity counts are gathered
+ * by the pipes connecting the task to its neighbours, other statistics are
+ * contributed by tasks implementing {@link Metered}.
+ */
+public class TaskMetrics implements TaskMetricsMBean {
+	private String taskId;
+	private List<PipeMetrics> inputPipes;
+	private List<PipeMetrics> outputPipes;
+	private CopyOnWriteArrayList<Postbox<?>> postboxes;
+	private LongAdder bytesRead;
+	private LongAdder bytesWritten;
+	private TaskProfile profile;
+	private volatile long startTime;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param taskId
+	 *            The unique identifier of the task.
+	 */
+	public TaskMetrics(String taskId) {
+		this.taskId = taskId;
+		
+		inputPipes = new CopyOnWriteArrayList<PipeMetrics>();
+		outputPipes = new CopyOnWriteArrayList<PipeMetrics>();
+		postboxes = new CopyOnWriteArrayList<Postbox<?>>();
+		bytesRead = new LongAdder();
+		bytesWritten = new LongAdder();
+		startTime = System.nanoTime();
+	}
+	
+	
+	/**
+	 * Enables collection of the CPU time and heap allocations of the task.
+	 * This must be called before the pipeline is connected.
+	 */
+	public void enableProfiling() {
+		if (profile == null) {
+			profile = new TaskProfile(taskId);
+		}
+	}
+	
+	
+	/**
+	 * Returns the CPU and allocation profile of the task.
+	 * 
+	 * @return The profile, or null if profiling is disabled.
+	 */
+	public TaskProfile getProfile() {
+		return profile;
+	}
+	
+	
+	/**
+	 * Marks the point in time that processing began, rates are calculated
+	 * relative to this.
+	 */
+	public void start() {
+		startTime = System.nanoTime();
+	}
+	
+	
+	/**
+	 * Adds a pipe delivering data to the task.
+	 * 
+	 * @param pipe
+	 *            The pipe metrics.
+	 */
+	public void addInputPipe(PipeMetrics pipe) {
+		inputPipes.add(pipe);
+	}
+	
+	
+	/**
+	 * Adds a pipe carrying data from the task.
+	 * 
+	 * @param pipe
+	 *            The pipe metrics.
+	 */
+	public void addOutputPipe(PipeMetrics pipe) {
+		outputPipes.add(pipe);
+	}
+	
+	
+	/**
+	 * Adds a postbox owned by the task, its occupancy and blocked times will be
+	 * included in the task statistics. Adding the same postbox again has no
+	 * effect.
+	 * 
+	 * @param postbox
+	 *            The postbox.
+	 */
+	public void addPostbox(Postbox<?> postbox) {
+		postboxes.addIfAbsent(postbox);
+	}
+	
+	
+	/**
+	 * Wraps a stream so that all bytes read from it are counted against the
+	 * task.
+	 * 
+	 * @param stream
+	 *            The stream to be wrapped.
+	 * @return The counting stream.
+	 */
+	public InputStream meterInput(InputStream stream) {
+		return new MeteredInputStream(stream, bytesRead);
+	}
+	
+	
+	/**
+	 * Wraps a stream so that all bytes written to it are counted against the
+	 * task.
+	 * 
+	 * @param stream
+	 *            The stream to be wrapped.
+	 * @return The counting stream.
+	 */
+	public OutputStream meterOutput(OutputStream stream) {
+		return new MeteredOutputStream(stream, bytesWritten);
+	}
+	
+	
+	private static long sumPipes(List<PipeMetrics> pipes) {
+		long total = 0;
+		
+		for (PipeMetrics pipe : pipes) {
+			total += pipe.getCount();
+		}
+		
+		return total;
+	}
+	
+	
+	private double perSecond(long count) {
+		long elapsed = System.nanoTime() - startTime;
+		
+		if (elapsed <= 0) {
+			return 0;
+		}
+		
+		return count * 1e9 / elapsed;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getTaskId() {
+		return taskId;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getEntitiesIn() {
+		return sumPipes(inputPipes);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getEntitiesOut() {
+		return sumPipes(outputPipes);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getEntitiesInPerSecond() {
+		return perSecond(getEntitiesIn());
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getEntitiesOutPerSecond() {
+		return perSecond(getEntitiesOut());
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getQueueSize() {
+		int total = 0;
+		
+		for (Postbox<?> postbox : postboxes) {
+			total += postbox.size();
+		}
+		
+		return total;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int[] getQueueSizes() {
+		List<Postbox<?>> snapshot = postboxes;
+		int[] sizes = new int[snapshot.size()];
+		
+		for (int i = 0; i < sizes.length; i++) {
+			sizes[i] = snapshot.get(i).size();
+		}
+		
+		return sizes;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getPutBlockedMillis() {
+		long total = 0;
+		
+		for (Postbox<?> postbox : postboxes) {
+			total += postbox.getPutBlockedTime();
+		}
+		
+		return TimeUnit.NANOSECONDS.toMillis(total);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getGetBlockedMillis() {
+		long total = 0;
+		
+		for (Postbox<?> postbox : postboxes) {
+			total += postbox.getGetBlockedTime();
+		}
+		
+		return TimeUnit.NANOSECONDS.toMillis(total);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+}
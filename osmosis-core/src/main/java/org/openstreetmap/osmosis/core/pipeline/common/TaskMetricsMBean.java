@@ -0,0 +1,103 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.common;
+
+
+/**
+ * The JMX management interface exposing the metrics of a single task.
+ */
+public interface TaskMetricsMBean {
+	
+	/**
+	 * Returns the unique identifier of the task.
+	 * 
+	 * @return The task identifier.
+	 */
+	String getTaskId();
+	
+	
+	/**
+	 * Returns the number of entities or changes received by the task.
+	 * 
+	 * @return The input count.
+	 */
+	long getEntitiesIn();
+	
+	
+	/**
+	 * Returns the number of entities or changes sent by the task.
+	 * 
+	 * @return The output count.
+	 */
+	long getEntitiesOut();
+	
+	
+	/**
+	 * Returns the average rate at which entities have been received since the
+	 * pipeline started.
+	 * 
+	 * @return The number of entities per second.
+	 */
+	double getEntitiesInPerSecond();
+	
+	
+	/**
+	 * Returns the average rate at which entities have been sent since the
+	 * pipeline started.
+	 * 
+	 * @return The number of entities per second.
+	 */
+	double getEntitiesOutPerSecond();
+	
+	
+	/**
+	 * Returns the number of objects currently waiting in the buffers owned by
+	 * the task.
+	 * 
+	 * @return The queue size.
+	 */
+	int getQueueSize();
+	
+	
+	/**
+	 * Returns the number of objects currently waiting in each buffer owned by
+	 * the task, in the order the buffers were added. For a tee with buffered
+	 * outputs this is the lag of each output behind the input.
+	 * 
+	 * @return The size of each buffer.
+	 */
+	int[] getQueueSizes();
+	
+	
+	/**
+	 * Returns the total time spent blocked waiting for space in the buffers
+	 * owned by the task.
+	 * 
+	 * @return The blocked time in milliseconds.
+	 */
+	long getPutBlockedMillis();
+	
+	
+	/**
+	 * Returns the total time spent blocked waiting for data in the buffers
+	 * owned by the task.
+	 * 
+	 * @return The blocked time in milliseconds.
+	 */
+	long getGetBlockedMillis();
+	
+	
+	/**
+	 * Returns the number of bytes read by the task.
+	 * 
+	 * @return The byte count.
+	 */
+	long getBytesRead();
+	
+	
+	/**
+	 * Returns the number of bytes written by the task.
+	 * 
+	 * @return The byte count.
+	 */
+	long getBytesWritten();
+}
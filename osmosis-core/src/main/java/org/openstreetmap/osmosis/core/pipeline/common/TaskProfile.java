@@ -0,0 +1,180 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.common;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Accumulates the CPU time and heap allocations of a single task. Each thread
+ * tracks which task it is currently executing, work is charged to that task
+ * until the thread enters another task or returns. A task passing data to a
+ * downstream task on the same thread is therefore only charged for its own
+ * work and not that of the downstream task.
+ * <p>
+ * Measurements are taken using {@link ThreadMXBean}. Allocations are only
+ * available on runtimes supporting the HotSpot extensions to that interface.
+ */
+public class TaskProfile {
+	private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+	private static final ThreadLocal<ThreadState> THREAD_STATE = ThreadLocal.withInitial(ThreadState::new);
+	
+	private String taskId;
+	private LongAdder cpuTime;
+	private LongAdder allocatedBytes;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param taskId
+	 *            The unique identifier of the task.
+	 */
+	public TaskProfile(String taskId) {
+		this.taskId = taskId;
+		
+		cpuTime = new LongAdder();
+		allocatedBytes = new LongAdder();
+	}
+	
+	
+	private static long readCpuTime() {
+		if (THREAD_BEAN.isCurrentThreadCpuTimeSupported()) {
+			return THREAD_BEAN.getCurrentThreadCpuTime();
+		}
+		
+		return -1;
+	}
+	
+	
+	/**
+	 * Returns the total number of bytes allocated by the current thread.
+	 * 
+	 * @return The allocated bytes, or -1 if the runtime cannot measure them.
+	 */
+	static long readAllocatedBytes() {
+		if (THREAD_BEAN instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean hotspotBean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+			
+			if (hotspotBean.isThreadAllocatedMemorySupported() && hotspotBean.isThreadAllocatedMemoryEnabled()) {
+				return hotspotBean.getCurrentThreadAllocatedBytes();
+			}
+		}
+		
+		return -1;
+	}
+	
+	
+	/**
+	 * Indicates if allocations can be measured by this runtime.
+	 * 
+	 * @return True if allocated bytes are available.
+	 */
+	public static boolean isAllocationSupported() {
+		return readAllocatedBytes() >= 0;
+	}
+	
+	
+	/**
+	 * Begins charging work on the current thread to this task. Every call must
+	 * be matched by a call to {@link #exit(TaskProfile)} on the same thread.
+	 * 
+	 * @return The task previously being charged, to be passed to exit.
+	 */
+	public TaskProfile enter() {
+		ThreadState state;
+		TaskProfile previous;
+		
+		state = THREAD_STATE.get();
+		previous = state.current;
+		
+		state.checkpoint();
+		state.current = this;
+		
+		return previous;
+	}
+	
+	
+	/**
+	 * Stops charging work on the current thread to this task, resuming
+	 * charging to the task that was active when enter was called.
+	 * 
+	 * @param previous
+	 *            The value returned by the matching enter call.
+	 */
+	public void exit(TaskProfile previous) {
+		ThreadState state;
+		
+		state = THREAD_STATE.get();
+		
+		state.checkpoint();
+		state.current = previous;
+	}
+	
+	
+	/**
+	 * Returns the unique identifier of the task.
+	 * 
+	 * @return The task identifier.
+	 */
+	public String getTaskId() {
+		return taskId;
+	}
+	
+	
+	/**
+	 * Returns the CPU time charged to the task.
+	 * 
+	 * @return The CPU time in nanoseconds.
+	 */
+	public long getCpuTime() {
+		return cpuTime.sum();
+	}
+	
+	
+	/**
+	 * Returns the heap memory allocated by the task.
+	 * 
+	 * @return The number of bytes allocated.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes.sum();
+	}
+	
+	
+	/**
+	 * Tracks the task being executed by a thread and the resources used by the
+	 * thread when it started executing that task.
+	 */
+	private static class ThreadState {
+		private TaskProfile current;
+		private long cpuMark;
+		private long allocationMark;
+		
+		
+		/**
+		 * Charges the resources used since the last checkpoint to the current
+		 * task.
+		 */
+		void checkpoint() {
+			long cpu;
+			long allocation;
+			
+			cpu = readCpuTime();
+			allocation = readAllocatedBytes();
+			
+			if (current != null) {
+				if (cpu >= 0 && cpuMark >= 0) {
+					current.cpuTime.add(cpu - cpuMark);
+				}
+				if (allocation >= 0 && allocationMark >= 0) {
+					current.allocatedBytes.add(allocation - allocationMark);
+				}
+			}
+			
+			cpuMark = cpu;
+			allocationMark = allocation;
+		}
+	}
+}
@@ -1,13 +1,34 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.pipeline.common;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.logging.Logger;
+
 
 /**
- * A thread implementation for launching a runnable task.
- * 
+ * Launches a runnable task in its own thread. The thread may either be a
+ * platform thread or a virtual thread depending on the thread type selected.
+ *
  * @author Brett Henderson
  */
-public class TaskRunner extends Thread {
+public class TaskRunner {
+
+	private static final Logger LOG = Logger.getLogger(TaskRunner.class.getName());
+
+	/**
+	 * The thread type used when none is explicitly specified.
+	 */
+	private static volatile ThreadType defaultThreadType = ThreadType.Platform;
+	/**
+	 * Set once the lack of virtual thread support has been reported.
+	 */
+	private static volatile boolean virtualUnsupportedReported;
+
+	private Thread thread;
+	private ThreadType threadType;
 	/**
 	 * Becomes false if an uncaught exception occurs within the task
 	 * implementation.
@@ -18,24 +39,62 @@ public class TaskRunner extends Thread {
 	 * task implementation.
 	 */
 	private Throwable exception;
-	
-	
+	private long elapsedTime;
+	private long cpuTime;
+	private long allocatedBytes;
+
+
 	/**
-	 * Creates a new instance.
-	 * 
+	 * Creates a new instance using the default thread type.
+	 *
 	 * @param task
 	 *            The task to be executed.
 	 * @param name
 	 *            The name of the thread.
 	 */
 	public TaskRunner(Runnable task, String name) {
-		super(task, name);
-		
+		this(task, name, defaultThreadType);
+	}
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param task
+	 *            The task to be executed.
+	 * @param name
+	 *            The name of the thread.
+	 * @param threadType
+	 *            The type of thread to run the task on.
+	 */
+	public TaskRunner(final Runnable task, String name, ThreadType threadType) {
+		Runnable measuredTask;
+
 		successful = true;
-		
+		cpuTime = -1;
+		allocatedBytes = -1;
+
+		measuredTask = new Runnable() {
+			@SuppressWarnings("synthetic-access")
+			@Override
+			public void run() {
+				runMeasured(task);
+			}
+		};
+
+		if (ThreadType.Virtual.equals(threadType)) {
+			thread = createVirtualThread(measuredTask, name);
+		}
+		if (thread == null) {
+			this.threadType = ThreadType.Platform;
+			thread = new Thread(measuredTask, name);
+		} else {
+			this.threadType = ThreadType.Virtual;
+		}
+
 		// Set an exception handler to capture the details of any failure.
-		setUncaughtExceptionHandler(
-			new UncaughtExceptionHandler() {
+		thread.setUncaughtExceptionHandler(
+			new Thread.UncaughtExceptionHandler() {
 				@SuppressWarnings("synthetic-access")
 				public void uncaughtException(Thread t, Throwable e) {
 					successful = false;
@@ -44,25 +103,239 @@ public class TaskRunner extends Thread {
 			}
 		);
 	}
-	
-	
+
+
+	/**
+	 * Sets the thread type used by runners created without an explicit thread
+	 * type. This is normally configured once by the command line application
+	 * before the pipeline is executed.
+	 *
+	 * @param threadType
+	 *            The new default thread type.
+	 */
+	public static void setDefaultThreadType(ThreadType threadType) {
+		defaultThreadType = threadType;
+	}
+
+
+	/**
+	 * Gets the thread type used by runners created without an explicit thread
+	 * type.
+	 *
+	 * @return The default thread type.
+	 */
+	public static ThreadType getDefaultThreadType() {
+		return defaultThreadType;
+	}
+
+
+	/**
+	 * Creates an unstarted virtual thread. Virtual threads are only available
+	 * from Java 21 so they are created reflectively to allow the code to run
+	 * on older runtimes.
+	 *
+	 * @param task
+	 *            The task to be executed.
+	 * @param name
+	 *            The name of the thread.
+	 * @return The new thread, or null if virtual threads are not supported.
+	 */
+	private static Thread createVirtualThread(Runnable task, String name) {
+		try {
+			Class<?> builderClass;
+			Object builder;
+			Method ofVirtual;
+
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			builderClass = ofVirtual.getReturnType();
+			builder = ofVirtual.invoke(null);
+			builder = builderClass.getMethod("name", String.class).invoke(builder, name);
+
+			return (Thread) builderClass.getMethod("unstarted", Runnable.class).invoke(builder, task);
+
+		} catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+			if (!virtualUnsupportedReported) {
+				virtualUnsupportedReported = true;
+				LOG.warning("Virtual threads are not supported by this Java runtime, using platform threads instead.");
+			}
+			return null;
+		}
+	}
+
+
+	private void runMeasured(Runnable task) {
+		ThreadMXBean threadBean;
+		long startTime;
+		long startCpuTime;
+		long startAllocatedBytes;
+
+		threadBean = ManagementFactory.getThreadMXBean();
+		startTime = System.nanoTime();
+		startCpuTime = -1;
+		// The runtime doesn't attribute CPU time to virtual threads, and the
+		// time of their carrier threads is shared with other tasks.
+		if (ThreadType.Platform.equals(threadType) && threadBean.isCurrentThreadCpuTimeSupported()) {
+			startCpuTime = threadBean.getCurrentThreadCpuTime();
+		}
+		startAllocatedBytes = TaskProfile.readAllocatedBytes();
+
+		try {
+			task.run();
+
+		} finally {
+			elapsedTime = System.nanoTime() - startTime;
+			if (startCpuTime >= 0) {
+				long endCpuTime = threadBean.getCurrentThreadCpuTime();
+				if (endCpuTime >= 0) {
+					cpuTime = endCpuTime - startCpuTime;
+				}
+			}
+			if (startAllocatedBytes >= 0) {
+				allocatedBytes = TaskProfile.readAllocatedBytes() - startAllocatedBytes;
+			}
+		}
+	}
+
+
+	/**
+	 * Launches the task.
+	 */
+	public void start() {
+		thread.start();
+	}
+
+
+	/**
+	 * Waits for the task to complete.
+	 *
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting.
+	 */
+	public void join() throws InterruptedException {
+		thread.join();
+	}
+
+
+	/**
+	 * Returns the name of the thread running the task.
+	 *
+	 * @return The thread name.
+	 */
+	public String getName() {
+		return thread.getName();
+	}
+
+
+	/**
+	 * Returns the type of thread running the task. This may differ from the
+	 * requested type if virtual threads are not supported.
+	 *
+	 * @return The thread type.
+	 */
+	public ThreadType getThreadType() {
+		return threadType;
+	}
+
+
 	/**
 	 * This can be called after the thread has completed to determine if the
 	 * thread terminated normally.
-	 * 
+	 *
 	 * @return True if the thread terminated normally.
 	 */
 	public boolean isSuccessful() {
 		return successful;
 	}
-	
-	
+
+
 	/**
 	 * Returns the reason for abnormal termination.
-	 * 
+	 *
 	 * @return The exception causing the failure.
 	 */
 	public Throwable getException() {
 		return exception;
 	}
+
+
+	/**
+	 * Returns the wall clock time that the task ran for. This is only valid
+	 * after the task has completed.
+	 *
+	 * @return The elapsed time in nanoseconds.
+	 */
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+
+	/**
+	 * Returns the CPU time consumed by the task. CPU time is not available for
+	 * tasks running on virtual threads. This is only valid after the task has
+	 * completed.
+	 *
+	 * @return The CPU time in nanoseconds, or -1 if the runtime cannot measure
+	 *         CPU time for this thread.
+	 */
+	public long getCpuTime() {
+		return cpuTime;
+	}
+
+
+	/**
+	 * Returns the heap memory allocated by the task's thread. This includes
+	 * allocations made by any passive tasks running on the thread. This is
+	 * only valid after the task has completed.
+	 *
+	 * @return The number of bytes allocated, or -1 if the runtime cannot
+	 *         measure allocations.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+
+	/**
+	 * Returns the proportion of the elapsed time the task spent running on a
+	 * CPU, the remainder being spent blocked waiting for other tasks or I/O.
+	 * This is not available for tasks running on virtual threads. This is only
+	 * valid after the task has completed.
+	 *
+	 * @return The utilisation as a percentage, or -1 if unknown.
+	 */
+	public double getUtilisation() {
+		if (cpuTime < 0 || elapsedTime <= 0) {
+			return -1;
+		}
+
+		return (100.0 * cpuTime) / elapsedTime;
+	}
+
+
+	/**
+	 * Builds a short description of the thread type and resources used by the
+	 * task suitable for logging. This is only valid after the task has
+	 * completed.
+	 *
+	 * @return The usage description.
+	 */
+	public String getUsageSummary() {
+		StringBuilder summary;
+
+		summary = new StringBuilder();
+		summary.append("ran on a ").append(threadType.name().toLowerCase()).append(" thread for ");
+		summary.append(String.format("%.3fs", elapsedTime / 1e9));
+		if (cpuTime >= 0) {
+			summary.append(String.format(", used %.3fs CPU (%.1f%% utilisation)", cpuTime / 1e9, getUtilisation()));
+		} else if (ThreadType.Virtual.equals(threadType)) {
+			summary.append(", CPU usage is unavailable for virtual threads");
+		} else {
+			summary.append(", CPU usage unavailable");
+		}
+		if (allocatedBytes >= 0) {
+			summary.append(String.format(", allocated %.1fMB", allocatedBytes / (1024.0 * 1024.0)));
+		}
+
+		return summary.toString();
+	}
 }
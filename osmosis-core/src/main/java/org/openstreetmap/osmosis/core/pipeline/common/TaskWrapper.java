@@ -0,0 +1,23 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.common;
+
+
+/**
+ * Implemented by task managers that apply to the task following them on the
+ * command line rather than being a task in their own right. The wrapped task
+ * doesn't receive a task manager of its own within the pipeline, instead it is
+ * handed to the wrapper which becomes responsible for creating and connecting
+ * it.
+ */
+public interface TaskWrapper {
+	
+	/**
+	 * Provides the task to be wrapped.
+	 * 
+	 * @param factory
+	 *            The factory for the wrapped task.
+	 * @param taskConfig
+	 *            The configuration of the wrapped task.
+	 */
+	void wrap(TaskManagerFactory factory, TaskConfiguration taskConfig);
+}
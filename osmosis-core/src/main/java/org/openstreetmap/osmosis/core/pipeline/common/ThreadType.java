@@ -0,0 +1,22 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.common;
+
+
+/**
+ * Defines the kinds of threads that active tasks may be run on.
+ */
+public enum ThreadType {
+	/**
+	 * A dedicated operating system thread is used for each task.
+	 */
+	Platform,
+	
+	/**
+	 * A virtual thread is used for each task. Virtual threads are scheduled
+	 * onto a small pool of carrier threads which allows pipelines containing a
+	 * large number of mostly blocked tasks to run without creating an
+	 * operating system thread per task. This requires Java 21 or later, older
+	 * runtimes will fall back to platform threads.
+	 */
+	Virtual
+}
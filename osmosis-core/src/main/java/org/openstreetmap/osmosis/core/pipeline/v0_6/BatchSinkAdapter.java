@@ -0,0 +1,94 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.v0_6;
+
+import java.util.List;
+import java.util.Map;
+
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+
+/**
+ * Allows a batch producing source to be connected to a sink that only supports
+ * per-entity processing. Each batch is passed to the underlying sink one entity
+ * at a time.
+ */
+public class BatchSinkAdapter implements BatchSink {
+	private Sink sink;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param sink
+	 *            The sink to receive all data.
+	 */
+	public BatchSinkAdapter(Sink sink) {
+		this.sink = sink;
+	}
+	
+	
+	/**
+	 * Returns a batch sink for the specified sink. The sink is returned as is
+	 * if it supports batches, otherwise it is wrapped in a new adapter.
+	 * 
+	 * @param sink
+	 *            The sink to be adapted.
+	 * @return The batch sink.
+	 */
+	public static BatchSink adapt(Sink sink) {
+		if (sink instanceof BatchSink) {
+			return (BatchSink) sink;
+		} else {
+			return new BatchSinkAdapter(sink);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void initialize(Map<String, Object> metaData) {
+		sink.initialize(metaData);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void process(EntityContainer entityContainer) {
+		sink.process(entityContainer);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void processBatch(List<EntityContainer> entityContainers) {
+		for (EntityContainer entityContainer : entityContainers) {
+			sink.process(entityContainer);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void complete() {
+		sink.complete();
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		sink.close();
+	}
+}
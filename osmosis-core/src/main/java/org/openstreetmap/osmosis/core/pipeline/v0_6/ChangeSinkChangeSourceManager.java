@@ -52,7 +52,7 @@ public class ChangeSinkChangeSourceManager extends PassiveTaskManager {
 		
 		// Cast the input feed to the correct type.
 		// Connect the tasks.
-		source.setChangeSink(task);
+		source.setChangeSink(MeteredChangeSink.wrap(task, connectMetrics(pipeTasks, source, task)));
 		
 		// Register the task as an output. A source only has one output, this
 		// corresponds to pipe index 0.
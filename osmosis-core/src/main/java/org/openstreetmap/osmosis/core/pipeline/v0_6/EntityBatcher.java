@@ -0,0 +1,106 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.v0_6;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+
+/**
+ * Collects entities produced one at a time and sends them to a sink in
+ * batches. A single list is re-used for all batches.
+ */
+public class EntityBatcher {
+	/**
+	 * The default number of entities sent to the sink in each batch.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1024;
+	
+	private BatchSink sink;
+	private int batchSize;
+	private List<EntityContainer> batch;
+	private EntityRecycler recycler;
+	
+	
+	/**
+	 * Creates a new instance using the default batch size.
+	 * 
+	 * @param sink
+	 *            The sink to receive all data. It will be adapted if it does
+	 *            not support batches.
+	 */
+	public EntityBatcher(Sink sink) {
+		this(sink, DEFAULT_BATCH_SIZE);
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param sink
+	 *            The sink to receive all data. It will be adapted if it does
+	 *            not support batches.
+	 * @param batchSize
+	 *            The maximum number of entities to send in a single batch.
+	 */
+	public EntityBatcher(Sink sink, int batchSize) {
+		this(sink, batchSize, null);
+	}
+	
+	
+	/**
+	 * Creates a new instance that releases entities for re-use after each
+	 * batch has been processed.
+	 * 
+	 * @param sink
+	 *            The sink to receive all data. It will be adapted if it does
+	 *            not support batches.
+	 * @param batchSize
+	 *            The maximum number of entities to send in a single batch.
+	 * @param recycler
+	 *            The recycler supplying entities to be added to this batcher,
+	 *            may be null.
+	 */
+	public EntityBatcher(Sink sink, int batchSize, EntityRecycler recycler) {
+		this.sink = BatchSinkAdapter.adapt(sink);
+		this.batchSize = batchSize;
+		this.recycler = recycler;
+		
+		batch = new ArrayList<EntityContainer>(batchSize);
+	}
+	
+	
+	/**
+	 * Adds an entity to the current batch, sending the batch to the sink if it
+	 * is full.
+	 * 
+	 * @param entityContainer
+	 *            The entity to be added.
+	 */
+	public void add(EntityContainer entityContainer) {
+		batch.add(entityContainer);
+		
+		if (batch.size() >= batchSize) {
+			flush();
+		}
+	}
+	
+	
+	/**
+	 * Sends all entities in the current batch to the sink. This must be called
+	 * before the sink is completed.
+	 */
+	public void flush() {
+		if (!batch.isEmpty()) {
+			sink.processBatch(batch);
+			batch.clear();
+			
+			if (recycler != null) {
+				recycler.release();
+			}
+		}
+	}
+}
@@ -0,0 +1,256 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.v0_6;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.common.TimestampContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+
+
+/**
+ * Supplies entities to a reader, re-using previously sent instances if the
+ * downstream sink supports it. Entities are handed out until
+ * {@link #release()} is called after which all of them are re-used in the
+ * same order. If re-use is disabled new instances are created on every call.
+ * <p>
+ * Entities returned by this class have no tags, way nodes or members, these
+ * must be added by the caller. This class is not threadsafe.
+ */
+public class EntityRecycler {
+	private boolean enabled;
+	private Pool<NodeContainer> nodes;
+	private Pool<WayContainer> ways;
+	private Pool<RelationContainer> relations;
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param enabled
+	 *            If true, entities will be re-used. This should only be set
+	 *            if {@link EntityReuse#isSupported} returns true for the sink
+	 *            receiving the entities.
+	 */
+	public EntityRecycler(boolean enabled) {
+		this.enabled = enabled;
+
+		nodes = new Pool<NodeContainer>();
+		ways = new Pool<WayContainer>();
+		relations = new Pool<RelationContainer>();
+	}
+
+
+	/**
+	 * Indicates if entities are being re-used.
+	 *
+	 * @return True if re-use is enabled.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+
+	private static void reset(
+			Entity entity, long id, int version, TimestampContainer timestamp, OsmUser user, long changesetId) {
+		entity.setId(id);
+		entity.setVersion(version);
+		entity.setTimestampContainer(timestamp);
+		entity.setUser(user);
+		entity.setChangesetId(changesetId);
+		entity.getTags().clear();
+		entity.getMetaTags().clear();
+	}
+
+
+	/**
+	 * Gets a node container.
+	 *
+	 * @param id
+	 *            The unique identifier.
+	 * @param version
+	 *            The version of the entity.
+	 * @param timestamp
+	 *            The last updated timestamp.
+	 * @param user
+	 *            The user that last modified this entity.
+	 * @param changesetId
+	 *            The id of the changeset that this version of the entity was
+	 *            created by.
+	 * @param latitude
+	 *            The geographic latitude.
+	 * @param longitude
+	 *            The geographic longitude.
+	 * @return The node container.
+	 */
+	public NodeContainer nextNode(long id, int version, TimestampContainer timestamp, OsmUser user, long changesetId,
+			double latitude, double longitude) {
+		NodeContainer container;
+		Node node;
+
+		container = nodes.next();
+		if (container == null) {
+			container = new NodeContainer(
+					new Node(new CommonEntityData(id, version, timestamp, user, changesetId), latitude, longitude));
+			nodes.add(container);
+
+		} else {
+			node = container.getEntity();
+			reset(node, id, version, timestamp, user, changesetId);
+			node.setLatitude(latitude);
+			node.setLongitude(longitude);
+		}
+
+		return container;
+	}
+
+
+	/**
+	 * Gets a way container.
+	 *
+	 * @param id
+	 *            The unique identifier.
+	 * @param version
+	 *            The version of the entity.
+	 * @param timestamp
+	 *            The last updated timestamp.
+	 * @param user
+	 *            The user that last modified this entity.
+	 * @param changesetId
+	 *            The id of the changeset that this version of the entity was
+	 *            created by.
+	 * @return The way container.
+	 */
+	public WayContainer nextWay(long id, int version, TimestampContainer timestamp, OsmUser user, long changesetId) {
+		WayContainer container;
+		Way way;
+
+		container = ways.next();
+		if (container == null) {
+			container = new WayContainer(new Way(new CommonEntityData(id, version, timestamp, user, changesetId)));
+			ways.add(container);
+
+		} else {
+			way = container.getEntity();
+			reset(way, id, version, timestamp, user, changesetId);
+			way.getWayNodes().clear();
+		}
+
+		return container;
+	}
+
+
+	/**
+	 * Gets a relation container.
+	 *
+	 * @param id
+	 *            The unique identifier.
+	 * @param version
+	 *            The version of the entity.
+	 * @param timestamp
+	 *            The last updated timestamp.
+	 * @param user
+	 *            The user that last modified this entity.
+	 * @param changesetId
+	 *            The id of the changeset that this version of the entity was
+	 *            created by.
+	 * @return The relation container.
+	 */
+	public RelationContainer nextRelation(
+			long id, int version, TimestampContainer timestamp, OsmUser user, long changesetId) {
+		RelationContainer container;
+		Relation relation;
+
+		container = relations.next();
+		if (container == null) {
+			container = new RelationContainer(
+					new Relation(new CommonEntityData(id, version, timestamp, user, changesetId)));
+			relations.add(container);
+
+		} else {
+			relation = container.getEntity();
+			reset(relation, id, version, timestamp, user, changesetId);
+			relation.getMembers().clear();
+		}
+
+		return container;
+	}
+
+
+	/**
+	 * Makes all entities handed out so far available for re-use. This must
+	 * only be called once the downstream sink has returned from processing
+	 * them.
+	 */
+	public void release() {
+		nodes.release();
+		ways.release();
+		relations.release();
+	}
+
+
+	/**
+	 * Holds the instances of a single container type.
+	 *
+	 * @param <T>
+	 *            The container type.
+	 */
+	private final class Pool<T extends EntityContainer> {
+		private List<T> instances;
+		private int used;
+
+
+		/**
+		 * Creates a new instance.
+		 */
+		Pool() {
+			instances = new ArrayList<T>();
+		}
+
+
+		/**
+		 * Gets the next free instance.
+		 *
+		 * @return The instance, or null if a new one must be created.
+		 */
+		T next() {
+			if (used < instances.size()) {
+				return instances.get(used++);
+			}
+
+			return null;
+		}
+
+
+		/**
+		 * Records a newly created instance. If re-use is disabled the instance
+		 * isn't retained.
+		 *
+		 * @param instance
+		 *            The new instance.
+		 */
+		void add(T instance) {
+			if (enabled) {
+				instances.add(instance);
+				used++;
+			}
+		}
+
+
+		/**
+		 * Makes all instances available again.
+		 */
+		void release() {
+			used = 0;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.v0_6;
+
+import org.openstreetmap.osmosis.core.task.v0_6.EntityReuseSink;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+
+/**
+ * Provides support for the entity re-use contract defined by
+ * {@link EntityReuseSink}.
+ */
+public final class EntityReuse {
+
+	/**
+	 * This class cannot be instantiated.
+	 */
+	private EntityReuse() {
+	}
+
+
+	/**
+	 * Indicates if entities sent to the specified sink may be re-used once
+	 * processing calls return.
+	 * 
+	 * @param sink
+	 *            The sink to be checked.
+	 * @return True if entity instances may be re-used.
+	 */
+	public static boolean isSupported(Sink sink) {
+		return sink instanceof EntityReuseSink && ((EntityReuseSink) sink).supportsEntityReuse();
+	}
+}
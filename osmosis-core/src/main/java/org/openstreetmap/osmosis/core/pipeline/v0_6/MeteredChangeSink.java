@@ -0,0 +1,115 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.v0_6;
+
+import java.util.Map;
+
+import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainer;
+import org.openstreetmap.osmosis.core.pipeline.common.PipeMetrics;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskProfile;
+import org.openstreetmap.osmosis.core.task.v0_6.ChangeSink;
+
+
+/**
+ * Counts the changes passing into a change sink. If the change sink is being
+ * profiled, the time spent in each call is charged to it.
+ */
+public class MeteredChangeSink implements ChangeSink {
+	private ChangeSink changeSink;
+	private PipeMetrics pipe;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param changeSink
+	 *            The change sink to receive all data.
+	 * @param pipe
+	 *            The metrics to be updated.
+	 */
+	public MeteredChangeSink(ChangeSink changeSink, PipeMetrics pipe) {
+		this.changeSink = changeSink;
+		this.pipe = pipe;
+	}
+	
+	
+	/**
+	 * Wraps the change sink if metrics are enabled.
+	 * 
+	 * @param changeSink
+	 *            The change sink to be wrapped.
+	 * @param pipe
+	 *            The metrics to be updated, may be null if metrics are
+	 *            disabled.
+	 * @return The change sink to be connected to the source.
+	 */
+	public static ChangeSink wrap(ChangeSink changeSink, PipeMetrics pipe) {
+		if (pipe == null) {
+			return changeSink;
+		} else {
+			return new MeteredChangeSink(changeSink, pipe);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void initialize(Map<String, Object> metaData) {
+		TaskProfile previous = pipe.enterConsumer();
+		
+		try {
+			changeSink.initialize(metaData);
+		} finally {
+			pipe.exitConsumer(previous);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void process(ChangeContainer change) {
+		TaskProfile previous;
+		
+		pipe.add(1);
+		previous = pipe.enterConsumer();
+		
+		try {
+			changeSink.process(change);
+		} finally {
+			pipe.exitConsumer(previous);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void complete() {
+		TaskProfile previous = pipe.enterConsumer();
+		
+		try {
+			changeSink.complete();
+		} finally {
+			pipe.exitConsumer(previous);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		TaskProfile previous = pipe.enterConsumer();
+		
+		try {
+			changeSink.close();
+		} finally {
+			pipe.exitConsumer(previous);
+		}
+	}
+}
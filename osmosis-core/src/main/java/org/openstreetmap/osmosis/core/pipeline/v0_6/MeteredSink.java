@@ -0,0 +1,149 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.v0_6;
+
+import java.util.List;
+import java.util.Map;
+
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.pipeline.common.PipeMetrics;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskProfile;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityReuseSink;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+
+/**
+ * Counts the entities passing into a sink. Batches are counted and passed on
+ * as a whole so that batch delivery is preserved. If the sink is being
+ * profiled, the time spent in each call is charged to it.
+ */
+public class MeteredSink implements BatchSink, EntityReuseSink {
+	private Sink sink;
+	private BatchSink batchSink;
+	private PipeMetrics pipe;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param sink
+	 *            The sink to receive all data.
+	 * @param pipe
+	 *            The metrics to be updated.
+	 */
+	public MeteredSink(Sink sink, PipeMetrics pipe) {
+		this.sink = sink;
+		this.pipe = pipe;
+		
+		batchSink = BatchSinkAdapter.adapt(sink);
+	}
+	
+	
+	/**
+	 * Wraps the sink if metrics are enabled.
+	 * 
+	 * @param sink
+	 *            The sink to be wrapped.
+	 * @param pipe
+	 *            The metrics to be updated, may be null if metrics are
+	 *            disabled.
+	 * @return The sink to be connected to the source.
+	 */
+	public static Sink wrap(Sink sink, PipeMetrics pipe) {
+		if (pipe == null) {
+			return sink;
+		} else {
+			return new MeteredSink(sink, pipe);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void initialize(Map<String, Object> metaData) {
+		TaskProfile previous = pipe.enterConsumer();
+		
+		try {
+			sink.initialize(metaData);
+		} finally {
+			pipe.exitConsumer(previous);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void process(EntityContainer entityContainer) {
+		TaskProfile previous;
+		
+		pipe.add(1);
+		previous = pipe.enterConsumer();
+		
+		try {
+			sink.process(entityContainer);
+		} finally {
+			pipe.exitConsumer(previous);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void processBatch(List<EntityContainer> entityContainers) {
+		TaskProfile previous;
+		
+		pipe.add(entityContainers.size());
+		previous = pipe.enterConsumer();
+		
+		try {
+			batchSink.processBatch(entityContainers);
+		} finally {
+			pipe.exitConsumer(previous);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void complete() {
+		TaskProfile previous = pipe.enterConsumer();
+		
+		try {
+			sink.complete();
+		} finally {
+			pipe.exitConsumer(previous);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		TaskProfile previous = pipe.enterConsumer();
+		
+		try {
+			sink.close();
+		} finally {
+			pipe.exitConsumer(previous);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsEntityReuse() {
+		return EntityReuse.isSupported(sink);
+	}
+}
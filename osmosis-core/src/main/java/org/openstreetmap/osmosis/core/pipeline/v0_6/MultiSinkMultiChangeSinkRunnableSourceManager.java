@@ -61,7 +61,7 @@ public class MultiSinkMultiChangeSinkRunnableSourceManager extends ActiveTaskMan
 			source = (Source) getInputTask(pipeTasks, i, Source.class);
 			
 			// Connect the tasks.
-			source.setSink(sink);
+			source.setSink(MeteredSink.wrap(sink, connectMetrics(pipeTasks, source, task)));
 		}
 		for (int i = 0; i < task.getChangeSinkCount(); i++) {
 			ChangeSink changeSink;
@@ -78,7 +78,8 @@ public class MultiSinkMultiChangeSinkRunnableSourceManager extends ActiveTaskMan
 			);
 			
 			// Connect the tasks.
-			changeSource.setChangeSink(changeSink);
+			changeSource.setChangeSink(
+					MeteredChangeSink.wrap(changeSink, connectMetrics(pipeTasks, changeSource, task)));
 		}
 		
 		// Register the change source as an output task.
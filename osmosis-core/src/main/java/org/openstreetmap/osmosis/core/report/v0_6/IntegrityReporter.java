@@ -23,8 +23,9 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
 import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
-import org.openstreetmap.osmosis.core.filter.common.DynamicIdTracker;
 import org.openstreetmap.osmosis.core.filter.common.IdTracker;
+import org.openstreetmap.osmosis.core.filter.common.IdTrackerFactory;
+import org.openstreetmap.osmosis.core.filter.common.IdTrackerType;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 
 
@@ -52,11 +53,24 @@ public class IntegrityReporter implements Sink, EntityProcessor {
 	 *            The file to write.
 	 */
 	public IntegrityReporter(File file) {
+		this(file, IdTrackerType.Dynamic);
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param file
+	 *            The file to write.
+	 * @param idTrackerType
+	 *            Defines the id tracker implementation to use.
+	 */
+	public IntegrityReporter(File file, IdTrackerType idTrackerType) {
 		this.file = file;
 		
 		initialized = false;
-		nodeBitSet = new DynamicIdTracker();
-		wayBitSet = new DynamicIdTracker();
+		nodeBitSet = IdTrackerFactory.createInstance(idTrackerType);
+		wayBitSet = IdTrackerFactory.createInstance(idTrackerType);
 	}
 	
 	
@@ -243,6 +257,8 @@ public class IntegrityReporter implements Sink, EntityProcessor {
 				LOG.log(Level.SEVERE, "Unable to close writer.", e);
 			}
 		} finally {
+			nodeBitSet.close();
+			wayBitSet.close();
 			initialized = false;
 			writer = null;
 		}
@@ -3,6 +3,7 @@ package org.openstreetmap.osmosis.core.report.v0_6;
 
 import java.io.File;
 
+import org.openstreetmap.osmosis.core.filter.common.IdTrackerType;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
@@ -16,7 +17,9 @@ import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkManager;
  */
 public class IntegrityReporterFactory extends TaskManagerFactory {
 	private static final String ARG_FILE_NAME = "file";
+	private static final String ARG_ID_TRACKER_TYPE = "idTrackerType";
 	private static final String DEFAULT_FILE_NAME = "integrity-report.txt";
+	private static final String DEFAULT_ID_TRACKER_TYPE = "Dynamic";
 	
 	
 	/**
@@ -26,6 +29,7 @@ public class IntegrityReporterFactory extends TaskManagerFactory {
 	protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
 		String fileName;
 		File file;
+		IdTrackerType idTrackerType;
 		IntegrityReporter task;
 		
 		// Get the task arguments.
@@ -34,12 +38,16 @@ public class IntegrityReporterFactory extends TaskManagerFactory {
 			ARG_FILE_NAME,
 			getDefaultStringArgument(taskConfig, DEFAULT_FILE_NAME)
 		);
+		idTrackerType = Enum.valueOf(
+			IdTrackerType.class,
+			getStringArgument(taskConfig, ARG_ID_TRACKER_TYPE, DEFAULT_ID_TRACKER_TYPE)
+		);
 		
 		// Create a file object from the file name provided.
 		file = new File(fileName);
 		
 		// Build the task object.
-		task = new IntegrityReporter(file);
+		task = new IntegrityReporter(file, idTrackerType);
 		
 		return new SinkManager(taskConfig.getId(), task, taskConfig.getPipeArgs());
 	}
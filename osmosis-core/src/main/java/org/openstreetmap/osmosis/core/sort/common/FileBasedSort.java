@@ -1,22 +1,46 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.sort.common;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.lifecycle.Closeable;
 import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.store.BlockOutputStream;
 import org.openstreetmap.osmosis.core.store.ChunkedObjectStore;
 import org.openstreetmap.osmosis.core.store.ObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.store.ObjectSizeEstimator;
 import org.openstreetmap.osmosis.core.store.PersistentIterator;
+import org.openstreetmap.osmosis.core.store.ReleasableAdaptorForIterator;
+import org.openstreetmap.osmosis.core.store.StoreCompression;
 import org.openstreetmap.osmosis.core.store.Storeable;
 
 
 /**
  * Allows a large number of objects to be sorted by writing them all to disk
  * then sorting using a merge sort algorithm.
+ * <p>
+ * Chunks are sorted by a pool of worker threads while new objects continue to
+ * be added, and the sorted chunks are combined with a single k-way merge.
+ * Intermediate merge levels are only used when the number of chunks would
+ * require too many files to be open at once.
+ * <p>
+ * Chunks are limited either by object count or, if a size estimator is
+ * provided, by a memory budget. Objects are held in memory until the full
+ * budget is consumed, if all objects fit they are sorted in memory and no
+ * temporary files are created. Otherwise the buffered objects are divided into
+ * chunks and from then on the budget is shared between the chunk being filled
+ * and the chunks being sorted.
  * 
  * @param <T>
  *            The object type to be sorted.
@@ -33,29 +57,37 @@ public class FileBasedSort<T extends Storeable> implements Closeable {
 	
 	/**
 	 * The maximum number of sources to merge together at a single level of the
-	 * merge sort hierarchy. Must be 2 or higher. A standard merge sort is 2.
+	 * merge sort hierarchy. Each source holds an open file and read buffers,
+	 * if there are more chunks than this the chunks are merged in groups and
+	 * each group persisted to file before being merged again. Compressed
+	 * sources hold two blocks of {@link BlockOutputStream#BLOCK_SIZE} bytes and
+	 * uncompressed sources a 64KB buffer. This is not included in the memory
+	 * budget.
 	 */
-	private static final int MAX_MERGE_SOURCE_COUNT = 2;
-	
+	private static final int MAX_MERGE_SOURCE_COUNT = 256;
 	
 	/**
-	 * The number of levels in the merge sort hierarchy to perform in memory
-	 * before persisting to a file. By persisting to file at regular hierarchy
-	 * levels, the number of file handles is minimised. File handle count is
-	 * likely to be an issue before memory usage due to the small number of
-	 * in-flight objects at any point in time.
-	 * <p>
-	 * The number of file handles will be MAX_MERGE_SOURCE_COUNT raised to the
-	 * power of MAX_MEMORY_SORT_DEPTH.
+	 * The maximum number of threads sorting chunks. Each thread holds a full
+	 * chunk so this also limits the memory used by the sort.
 	 */
-	private static final int MAX_MEMORY_SORT_DEPTH = 8;
+	private static final int MAX_SORT_THREAD_COUNT = 4;
+	
+	private static final Logger LOG = Logger.getLogger(FileBasedSort.class.getName());
 	
 
 	private ObjectSerializationFactory serializationFactory;
 	private Comparator<T> comparator;
 	private ChunkedObjectStore<T> chunkedEntityStore;
 	private List<T> addBuffer;
-	private boolean useCompression;
+	private StoreCompression compression;
+	private int sortThreadCount;
+	private ExecutorService sortExecutor;
+	private Deque<Future<List<T>>> pendingChunks;
+	private ObjectSizeEstimator<T> sizeEstimator;
+	private long memoryBudget;
+	private long maxChunkSize;
+	private long addBufferSize;
+	private int mergePassCount;
 	
 	
 	/**
@@ -66,39 +98,186 @@ public class FileBasedSort<T extends Storeable> implements Closeable {
 	 * @param comparator
 	 *            The comparator to be used for sorting the results.
 	 * @param useCompression
-	 *            If true, the storage files will be compressed.
+	 *            If true, the storage files will be compressed using the
+	 *            default store compression method.
 	 */
 	public FileBasedSort(
 			ObjectSerializationFactory serializationFactory, Comparator<T> comparator, boolean useCompression) {
+		this(serializationFactory, comparator, StoreCompression.fromFlag(useCompression), 0, null);
+	}
+	
+	
+	/**
+	 * Creates a new instance with chunks sized by a memory budget rather than
+	 * by object count.
+	 * 
+	 * @param serializationFactory
+	 *            The factory defining the object serialisation implementation.
+	 * @param comparator
+	 *            The comparator to be used for sorting the results.
+	 * @param compression
+	 *            The compression method for the storage files.
+	 * @param memoryBudget
+	 *            The approximate maximum number of bytes of objects held in
+	 *            memory. If zero or less, chunks are sized by object count.
+	 * @param sizeEstimator
+	 *            Estimates the memory consumed by each object, may be null if
+	 *            no memory budget is specified.
+	 */
+	public FileBasedSort(ObjectSerializationFactory serializationFactory, Comparator<T> comparator,
+			StoreCompression compression, long memoryBudget, ObjectSizeEstimator<T> sizeEstimator) {
 		this.serializationFactory = serializationFactory;
 		this.comparator = comparator;
-		this.useCompression = useCompression;
+		this.compression = compression;
 		
-		chunkedEntityStore = new ChunkedObjectStore<T>(serializationFactory, "emta", "idx", useCompression);
+		chunkedEntityStore = new ChunkedObjectStore<T>(serializationFactory, "emta", "idx", compression);
 		addBuffer = new ArrayList<T>(MAX_MEMORY_SORT_COUNT);
+		sortThreadCount = Math.max(1, Math.min(MAX_SORT_THREAD_COUNT, Runtime.getRuntime().availableProcessors()));
+		pendingChunks = new ArrayDeque<Future<List<T>>>();
+		
+		// Once data is spilled, the budget is shared by the chunk being filled
+		// and those being sorted by the workers.
+		if (memoryBudget > 0) {
+			if (sizeEstimator == null) {
+				throw new OsmosisRuntimeException("A size estimator is required when sorting by memory budget.");
+			}
+			this.sizeEstimator = sizeEstimator;
+			this.memoryBudget = memoryBudget;
+			maxChunkSize = Math.max(1, memoryBudget / (sortThreadCount + 1));
+		}
+	}
+	
+	
+	/**
+	 * Gets the executor sorting chunks, creating it if this is the first chunk.
+	 * Small sorts never fill a chunk so they don't incur the cost of threads.
+	 * 
+	 * @return The executor.
+	 */
+	private ExecutorService getSortExecutor() {
+		if (sortExecutor == null) {
+			sortExecutor = Executors.newFixedThreadPool(sortThreadCount, runnable -> {
+				Thread thread = new Thread(runnable, "FileBasedSort-Worker");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		
+		return sortExecutor;
+	}
+	
+	
+	/**
+	 * Writes a sorted chunk to the object store once its sort completes.
+	 * 
+	 * @param pendingChunk
+	 *            The chunk being sorted.
+	 */
+	private void writeChunk(Future<List<T>> pendingChunk) {
+		List<T> chunk;
+		
+		try {
+			chunk = pendingChunk.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OsmosisRuntimeException("Interrupted while waiting for a chunk to be sorted.", e);
+		} catch (ExecutionException e) {
+			throw new OsmosisRuntimeException("Unable to sort chunk.", e.getCause());
+		}
+		
+		// Write all entities in the chunk to entity storage.
+		for (T entity : chunk) {
+			chunkedEntityStore.add(entity);
+		}
+		
+		// Close the chunk in the underlying data store so that it can be
+		// read separately.
+		chunkedEntityStore.closeChunk();
 	}
 	
 	
 	/**
-	 * Sorts the data currently in the add buffer, writes it to the object
-	 * store, and clears the buffer.
+	 * Indicates if no chunks have been handed to the workers yet, in which case
+	 * all data is still held in the add buffer.
+	 * 
+	 * @return True if nothing has been spilled.
+	 */
+	private boolean isUnspilled() {
+		return pendingChunks.isEmpty() && chunkedEntityStore.getChunkCount() == 0;
+	}
+	
+	
+	/**
+	 * Hands a chunk to a worker thread for sorting. Sorted chunks are written
+	 * to the object store in order, this only blocks if all workers are busy.
+	 * 
+	 * @param chunk
+	 *            The chunk to be sorted.
+	 */
+	private void submitChunk(final List<T> chunk) {
+		pendingChunks.add(getSortExecutor().submit(() -> {
+			chunk.sort(comparator);
+			return chunk;
+		}));
+		
+		while (pendingChunks.size() > sortThreadCount) {
+			writeChunk(pendingChunks.remove());
+		}
+	}
+	
+	
+	/**
+	 * Hands the data currently in the add buffer to worker threads for sorting
+	 * and starts a new buffer. A buffer larger than the chunk size, which
+	 * occurs when the first buffer fills the entire memory budget, is divided
+	 * into chunks of the normal size.
 	 */
 	private void flushAddBuffer() {
-		if (addBuffer.size() >= 0) {
-			// Sort the chunk prior to writing.
-			Collections.sort(addBuffer, comparator);
-			
-			// Write all entities in the buffer to entity storage.
+		List<T> buffer;
+		int chunkCount;
+		
+		buffer = addBuffer;
+		chunkCount = 1;
+		if (sizeEstimator != null && addBufferSize > maxChunkSize) {
+			chunkCount = (int) Math.min(buffer.size(), (addBufferSize + maxChunkSize - 1) / maxChunkSize);
+		}
+		
+		addBuffer = new ArrayList<T>(MAX_MEMORY_SORT_COUNT);
+		addBufferSize = 0;
+		
+		if (chunkCount == 1) {
+			submitChunk(buffer);
+		} else {
+			for (int i = 0; i < chunkCount; i++) {
+				submitChunk(new ArrayList<T>(
+						buffer.subList(buffer.size() * i / chunkCount, buffer.size() * (i + 1) / chunkCount)));
+			}
+		}
+	}
+	
+	
+	/**
+	 * Sorts the remaining data in the add buffer and writes all outstanding
+	 * chunks to the object store.
+	 */
+	private void completeChunks() {
+		while (!pendingChunks.isEmpty()) {
+			writeChunk(pendingChunks.remove());
+		}
+		
+		if (!addBuffer.isEmpty()) {
+			addBuffer.sort(comparator);
 			for (T entity : addBuffer) {
 				chunkedEntityStore.add(entity);
 			}
-			
 			addBuffer.clear();
-			
-			// Close the chunk in the underlying data store so that it can be
-			// read separately.
 			chunkedEntityStore.closeChunk();
 		}
+		
+		if (sortExecutor != null) {
+			sortExecutor.shutdown();
+			sortExecutor = null;
+		}
 	}
 	
 	
@@ -114,7 +293,15 @@ public class FileBasedSort<T extends Storeable> implements Closeable {
 		
 		// If the add buffer is full, it must be sorted and written to entity
 		// storage.
-		if (addBuffer.size() >= MAX_MEMORY_SORT_COUNT) {
+		if (sizeEstimator != null) {
+			addBufferSize += sizeEstimator.estimateSize(value);
+			
+			// Until something is spilled the buffer may use the whole budget
+			// in case all data can be sorted in memory.
+			if (addBufferSize >= maxChunkSize && (addBufferSize >= memoryBudget || !isUnspilled())) {
+				flushAddBuffer();
+			}
+		} else if (addBuffer.size() >= MAX_MEMORY_SORT_COUNT) {
 			flushAddBuffer();
 		}
 	}
@@ -124,27 +311,24 @@ public class FileBasedSort<T extends Storeable> implements Closeable {
 	 * This is a wrapper method around the iterate method with the same argument
 	 * list that persists the sort results prior to returning. This forces all
 	 * sorting by nested recursive method calls to be performed allowing all
-	 * associated memory can be freed.
+	 * associated files and memory to be freed.
 	 * 
-	 * @param nestLevel
-	 *            The current recursive nesting level of the merge sort
-	 *            operation.
 	 * @param beginChunkIndex
 	 *            The initial chunk to begin sorting from.
 	 * @param chunkCount
 	 *            The number of chunks to sort.
 	 * @return An iterator providing access to the sort result.
 	 */
-	private ReleasableIterator<T> iteratePersisted(int nestLevel, long beginChunkIndex, long chunkCount) {
+	private ReleasableIterator<T> iteratePersisted(long beginChunkIndex, long chunkCount) {
 		ReleasableIterator<T> persistentIterator;
 		
 		// Create a persistent iterator based on the requested underlying chunk
 		// iterator.
 		persistentIterator = new PersistentIterator<T>(
 			serializationFactory,
-			iterate(nestLevel, beginChunkIndex, chunkCount),
+			iterate(beginChunkIndex, chunkCount),
 			"emtb",
-			useCompression
+			compression
 		);
 		
 		// Prime the persistent iterator so that all underlying iterator data is
@@ -177,16 +361,13 @@ public class FileBasedSort<T extends Storeable> implements Closeable {
 	 * result list is not backed by a file and should be persisted prior to
 	 * being incorporated into a higher level merge operation.
 	 * 
-	 * @param nestLevel
-	 *            The current recursive nesting level of the merge sort
-	 *            operation.
 	 * @param beginChunkIndex
 	 *            The initial chunk to begin sorting from.
 	 * @param chunkCount
 	 *            The number of chunks to sort.
 	 * @return An iterator providing access to the sort result.
 	 */
-	private ReleasableIterator<T> iterate(int nestLevel, long beginChunkIndex, long chunkCount) {
+	private ReleasableIterator<T> iterate(long beginChunkIndex, long chunkCount) {
 		List<ReleasableIterator<T>> sources;
 		
 		sources = new ArrayList<ReleasableIterator<T>>();
@@ -211,12 +392,10 @@ public class FileBasedSort<T extends Storeable> implements Closeable {
 				 * The current chunk count must be divided by
 				 * MAX_MERGE_SOURCE_COUNT and we must recurse for each of those
 				 * sub chunk counts. Where the result isn't exact, we round up
-				 * to the nearest multiple of MAX_MERGE_SOURCE_COUNT to ensure
-				 * we don't end up with more than MAX_MERGE_SOURCE_COUNT
-				 * sources.
+				 * to ensure we don't end up with more than
+				 * MAX_MERGE_SOURCE_COUNT sources.
 				 */
-				subChunkCount = chunkCount / MAX_MERGE_SOURCE_COUNT;
-				subChunkCount += chunkCount % MAX_MERGE_SOURCE_COUNT;
+				subChunkCount = (chunkCount + MAX_MERGE_SOURCE_COUNT - 1) / MAX_MERGE_SOURCE_COUNT;
 				
 				// We can never pass beyond the chunk boundaries specified for
 				// this function.
@@ -234,20 +413,19 @@ public class FileBasedSort<T extends Storeable> implements Closeable {
 					}
 					
 					/*
-					 * Either call the persistent or standard version of the
-					 * recursive iterate based on whether this nesting level
-					 * requires persistence. If we only have one chunk left at
-					 * this point we make an exception and skip persistence
-					 * because it will only result in a single file being opened
-					 * anyway.
+					 * Each group is merged and persisted so that only a single
+					 * file per group is open during this merge. If we only
+					 * have one chunk left at this point we make an exception
+					 * and skip persistence because it will only result in a
+					 * single file being opened anyway.
 					 */
-					if (((nestLevel + 1) % MAX_MEMORY_SORT_DEPTH) == 0 && subChunkCount > 1) {
+					if (subChunkCount > 1) {
 						sources.add(
-							iteratePersisted(nestLevel + 1, subFirstChunk, subChunkCount)
+							iteratePersisted(subFirstChunk, subChunkCount)
 						);
 					} else {
 						sources.add(
-							iterate(nestLevel + 1, subFirstChunk, subChunkCount)
+							chunkedEntityStore.iterate(subFirstChunk)
 						);
 					}
 				}
@@ -276,9 +454,83 @@ public class FileBasedSort<T extends Storeable> implements Closeable {
 	 * @return An iterator providing access to the sorted entities.
 	 */
 	public ReleasableIterator<T> iterate() {
-		flushAddBuffer();
+		long chunkCount;
+		
+		// If nothing has been written to file yet, all data fits in memory.
+		if (isUnspilled()) {
+			addBuffer.sort(comparator);
+			mergePassCount = 0;
+			logStatistics();
+			
+			return new ReleasableAdaptorForIterator<T>(addBuffer.iterator());
+		}
+		
+		completeChunks();
+		
+		chunkCount = chunkedEntityStore.getChunkCount();
+		mergePassCount = 1;
+		for (long sourceCount = chunkCount; sourceCount > MAX_MERGE_SOURCE_COUNT;) {
+			sourceCount = (sourceCount + MAX_MERGE_SOURCE_COUNT - 1) / MAX_MERGE_SOURCE_COUNT;
+			mergePassCount++;
+		}
+		logStatistics();
+		
+		return iterate(0, chunkCount);
+	}
+	
+	
+	private void logStatistics() {
+		if (LOG.isLoggable(Level.FINE)) {
+			LOG.fine(getStatistics());
+		}
+	}
+	
+	
+	/**
+	 * Gets the number of sorted runs written to temporary files.
+	 * 
+	 * @return The run count, zero if the data was sorted in memory.
+	 */
+	public long getRunCount() {
+		return chunkedEntityStore.getChunkCount();
+	}
+	
+	
+	/**
+	 * Gets the number of bytes written to temporary files for the sorted runs.
+	 * This doesn't include intermediate merge results.
+	 * 
+	 * @return The number of bytes.
+	 */
+	public long getSpilledByteCount() {
+		return chunkedEntityStore.getStorageSize();
+	}
+	
+	
+	/**
+	 * Gets the number of merge passes required to produce the sorted result.
+	 * This is only valid once iteration has begun.
+	 * 
+	 * @return The merge pass count, zero if the data was sorted in memory.
+	 */
+	public int getMergePassCount() {
+		return mergePassCount;
+	}
+	
+	
+	/**
+	 * Describes the work performed by the sort. This is only valid once
+	 * iteration has begun.
+	 * 
+	 * @return A message containing the sort statistics.
+	 */
+	public String getStatistics() {
+		if (mergePassCount == 0) {
+			return "Sorted " + addBuffer.size() + " objects in memory.";
+		}
 		
-		return iterate(0, 0, chunkedEntityStore.getChunkCount());
+		return "Sorted " + getRunCount() + " runs spilling " + getSpilledByteCount() + " bytes to temporary files"
+				+ " using " + mergePassCount + " merge passes.";
 	}
 	
 	
@@ -286,6 +538,12 @@ public class FileBasedSort<T extends Storeable> implements Closeable {
 	 * {@inheritDoc}
 	 */
 	public void close() {
+		if (sortExecutor != null) {
+			sortExecutor.shutdownNow();
+			sortExecutor = null;
+		}
+		pendingChunks.clear();
+		
 		chunkedEntityStore.close();
 	}
 }
@@ -11,7 +11,10 @@ import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
 
 /**
  * This iterator examines a list of sorted input sources and merges them into a
- * single sorted list.
+ * single sorted list. The sources are held in a binary heap ordered by their
+ * next element so merging a large number of sources remains efficient. Where
+ * sources contain equal elements, those from earlier sources are returned
+ * first.
  * 
  * @param <DataType>
  *            The object type to be sorted.
@@ -21,6 +24,8 @@ public class MergingIterator<DataType> implements ReleasableIterator<DataType> {
 	private List<ReleasableIterator<DataType>> sources;
 	private Comparator<DataType> comparator;
 	private List<DataType> sourceData;
+	private int[] heap;
+	private int heapSize;
 	
 	
 	/**
@@ -42,21 +47,80 @@ public class MergingIterator<DataType> implements ReleasableIterator<DataType> {
 	 */
 	private void initialize() {
 		if (sourceData == null) {
-			// Get the first entity from each source.  Delete any empty sources.
+			// Get the first entity from each source.  Close any empty sources.
 			sourceData = new ArrayList<DataType>(sources.size());
-			for (int sourceIndex = 0; sourceIndex < sources.size();) {
+			heap = new int[sources.size()];
+			heapSize = 0;
+			for (int sourceIndex = 0; sourceIndex < sources.size(); sourceIndex++) {
 				ReleasableIterator<DataType> source;
 				
 				source = sources.get(sourceIndex);
 				
 				if (source.hasNext()) {
 					sourceData.add(source.next());
-					sourceIndex++;
+					heap[heapSize++] = sourceIndex;
 				} else {
-					sources.remove(sourceIndex).close();
+					sourceData.add(null);
+					closeSource(sourceIndex);
 				}
 			}
+			
+			for (int i = heapSize / 2 - 1; i >= 0; i--) {
+				siftDown(i);
+			}
+		}
+	}
+	
+	
+	private void closeSource(int sourceIndex) {
+		sources.set(sourceIndex, null).close();
+	}
+	
+	
+	/**
+	 * Checks if the current element of the first source should be returned
+	 * before that of the second.
+	 */
+	private boolean isLess(int firstSource, int secondSource) {
+		int result;
+		
+		result = comparator.compare(sourceData.get(firstSource), sourceData.get(secondSource));
+		if (result != 0) {
+			return result < 0;
+		}
+		
+		return firstSource < secondSource;
+	}
+	
+	
+	/**
+	 * Moves the heap entry at the specified position down until the heap is
+	 * ordered.
+	 */
+	private void siftDown(int position) {
+		int current;
+		int sourceIndex;
+		
+		current = position;
+		sourceIndex = heap[current];
+		while (true) {
+			int child;
+			
+			child = current * 2 + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && isLess(heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!isLess(heap[child], sourceIndex)) {
+				break;
+			}
+			
+			heap[current] = heap[child];
+			current = child;
 		}
+		heap[current] = sourceIndex;
 	}
 	
 	
@@ -66,7 +130,7 @@ public class MergingIterator<DataType> implements ReleasableIterator<DataType> {
 	public boolean hasNext() {
 		initialize();
 		
-		return sourceData.size() > 0;
+		return heapSize > 0;
 	}
 	
 	
@@ -84,19 +148,9 @@ public class MergingIterator<DataType> implements ReleasableIterator<DataType> {
 			throw new NoSuchElementException();
 		}
 		
-		dataMinimum = sourceData.get(0);
-		indexMinimum = 0;
-		
-		// Find the minimum entity.
-		for (int indexCurrent = 1; indexCurrent < sources.size(); indexCurrent++) {
-			DataType dataCurrent = sourceData.get(indexCurrent);
-			
-			// Check if the current data entity is less than the existing minimum.
-			if (comparator.compare(dataMinimum, dataCurrent) > 0) {
-				dataMinimum = dataCurrent;
-				indexMinimum = indexCurrent;
-			}
-		}
+		// The minimum entity is at the top of the heap.
+		indexMinimum = heap[0];
+		dataMinimum = sourceData.get(indexMinimum);
 		
 		// Get the next entity from the source if available.
 		// Otherwise remove the source and its current data.
@@ -104,9 +158,11 @@ public class MergingIterator<DataType> implements ReleasableIterator<DataType> {
 		if (source.hasNext()) {
 			sourceData.set(indexMinimum, source.next());
 		} else {
-			sources.remove(indexMinimum).close();
-			sourceData.remove(indexMinimum);
+			closeSource(indexMinimum);
+			sourceData.set(indexMinimum, null);
+			heap[0] = heap[--heapSize];
 		}
+		siftDown(0);
 		
 		return dataMinimum;
 	}
@@ -125,7 +181,9 @@ public class MergingIterator<DataType> implements ReleasableIterator<DataType> {
 	 */
 	public void close() {
 		for (ReleasableIterator<DataType> source : sources) {
-			source.close();
+			if (source != null) {
+				source.close();
+			}
 		}
 	}
 }
@@ -3,11 +3,15 @@ package org.openstreetmap.osmosis.core.sort.v0_6;
 
 import java.util.Comparator;
 import java.util.Map;
+import java.util.logging.Logger;
 
 import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainerSizeEstimator;
 import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
 import org.openstreetmap.osmosis.core.sort.common.FileBasedSort;
+import org.openstreetmap.osmosis.core.store.CompactObjectSerializationFactory;
 import org.openstreetmap.osmosis.core.store.SingleClassObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.store.StoreCompression;
 import org.openstreetmap.osmosis.core.task.v0_6.ChangeSink;
 import org.openstreetmap.osmosis.core.task.v0_6.ChangeSinkChangeSource;
 
@@ -19,6 +23,8 @@ import org.openstreetmap.osmosis.core.task.v0_6.ChangeSinkChangeSource;
  * @author Brett Henderson
  */
 public class ChangeSorter implements ChangeSinkChangeSource {
+	private static final Logger LOG = Logger.getLogger(ChangeSorter.class.getName());
+	
 	private FileBasedSort<ChangeContainer> fileBasedSort;
 	private ChangeSink changeSink;
 	
@@ -30,9 +36,43 @@ public class ChangeSorter implements ChangeSinkChangeSource {
 	 *            The comparator to use for sorting.
 	 */
 	public ChangeSorter(Comparator<ChangeContainer> comparator) {
+		this(comparator, 0);
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param comparator
+	 *            The comparator to use for sorting.
+	 * @param memoryBudget
+	 *            The approximate maximum number of bytes of changes to hold in
+	 *            memory before writing sorted runs to file. If zero or less,
+	 *            runs are sized by change count.
+	 */
+	public ChangeSorter(Comparator<ChangeContainer> comparator, long memoryBudget) {
+		this(comparator, StoreCompression.getDefault(), memoryBudget);
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param comparator
+	 *            The comparator to use for sorting.
+	 * @param compression
+	 *            The compression method for the storage files.
+	 * @param memoryBudget
+	 *            The approximate maximum number of bytes of changes to hold in
+	 *            memory before writing sorted runs to file. If zero or less,
+	 *            runs are sized by change count.
+	 */
+	public ChangeSorter(Comparator<ChangeContainer> comparator, StoreCompression compression, long memoryBudget) {
 		fileBasedSort =
 			new FileBasedSort<ChangeContainer>(
-					new SingleClassObjectSerializationFactory(ChangeContainer.class), comparator, true);
+					new CompactObjectSerializationFactory(
+							new SingleClassObjectSerializationFactory(ChangeContainer.class)),
+					comparator, compression, memoryBudget, new ChangeContainerSizeEstimator());
 	}
 
 
@@ -65,6 +105,8 @@ public class ChangeSorter implements ChangeSinkChangeSource {
 	 */
 	public void complete() {
 		try (ReleasableIterator<ChangeContainer> iterator = fileBasedSort.iterate()) {
+			LOG.info(fileBasedSort.getStatistics());
+			
 			while (iterator.hasNext()) {
 				changeSink.process(iterator.next());
 			}
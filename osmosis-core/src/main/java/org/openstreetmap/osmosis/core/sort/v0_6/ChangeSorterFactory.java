@@ -11,6 +11,7 @@ import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
 import org.openstreetmap.osmosis.core.pipeline.v0_6.ChangeSinkChangeSourceManager;
+import org.openstreetmap.osmosis.core.store.StoreCompression;
 
 
 /**
@@ -20,6 +21,10 @@ import org.openstreetmap.osmosis.core.pipeline.v0_6.ChangeSinkChangeSourceManage
  */
 public class ChangeSorterFactory extends TaskManagerFactory {
 	private static final String ARG_COMPARATOR_TYPE = "type";
+	private static final String ARG_MEMORY = "memory";
+	private static final String ARG_COMPRESSION = "compression";
+	private static final int DEFAULT_MEMORY = 0;
+	private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
 	
 	private Map<String, Comparator<ChangeContainer>> comparatorMap;
 	private String defaultComparatorType;
@@ -81,6 +86,8 @@ public class ChangeSorterFactory extends TaskManagerFactory {
 	@Override
 	protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
 		Comparator<ChangeContainer> comparator;
+		int memory;
+		StoreCompression compression;
 		
 		// Get the comparator.
 		comparator = getComparator(
@@ -90,10 +97,14 @@ public class ChangeSorterFactory extends TaskManagerFactory {
 				getDefaultStringArgument(taskConfig, defaultComparatorType)
 			)
 		);
+		memory = getIntegerArgument(taskConfig, ARG_MEMORY, DEFAULT_MEMORY);
+		compression = StoreCompression.parse(
+			getStringArgument(taskConfig, ARG_COMPRESSION, StoreCompression.getDefault().name())
+		);
 		
 		return new ChangeSinkChangeSourceManager(
 			taskConfig.getId(),
-			new ChangeSorter(comparator),
+			new ChangeSorter(comparator, compression, memory * BYTES_PER_MEGABYTE),
 			taskConfig.getPipeArgs()
 		);
 	}
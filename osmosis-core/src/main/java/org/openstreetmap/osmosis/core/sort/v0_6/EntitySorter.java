@@ -1,13 +1,24 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.sort.v0_6;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.logging.Logger;
 
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainerSizeEstimator;
 import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
 import org.openstreetmap.osmosis.core.sort.common.FileBasedSort;
+import org.openstreetmap.osmosis.core.sort.common.MergingIterator;
+import org.openstreetmap.osmosis.core.store.CompactObjectSerializationFactory;
 import org.openstreetmap.osmosis.core.store.GenericObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.store.ReleasableAdaptorForIterator;
+import org.openstreetmap.osmosis.core.store.SimpleObjectStore;
+import org.openstreetmap.osmosis.core.store.StoreCompression;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 
@@ -15,11 +26,48 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 /**
  * A data stream filter that sorts entities. The sort order is specified by
  * comparator provided during instantiation.
+ * <p>
+ * Input is often already sorted apart from a small number of entities. An
+ * ordered run is built greedily from the input and held in memory up to the
+ * memory budget, beyond which it is written straight to a file without
+ * sorting. Only entities breaking the order of the run are passed to the merge
+ * sort. The two are merged when the input is complete. The run is
+ * not guaranteed to be the longest possible, but if the first entity of the
+ * run is followed by an entity preceding it, the first entity is treated as an
+ * outlier and moved to the merge sort so that it cannot exclude the remaining
+ * input from the run. If the pipeline meta data
+ * shows that the input is already in the requested order, entities are passed
+ * straight through.
  *
  * @author Brett Henderson
  */
 public class EntitySorter implements SinkSource {
+	/**
+	 * The pipeline meta data key identifying the order of an entity stream.
+	 * The value is the comparator defining the order.
+	 */
+	public static final String SORT_ORDER_META_DATA_KEY = "entity.sort.order";
+	
+	/**
+	 * The number of in-order entities held in memory before they are written
+	 * to file if no memory budget is specified.
+	 */
+	private static final int MAX_MEMORY_RUN_COUNT = 16384;
+	
+	private static final Logger LOG = Logger.getLogger(EntitySorter.class.getName());
+	
+	private Comparator<EntityContainer> comparator;
 	private FileBasedSort<EntityContainer> fileBasedSort;
+	private SimpleObjectStore<EntityContainer> orderedStore;
+	private List<EntityContainer> orderedBuffer;
+	private EntityContainerSizeEstimator sizeEstimator;
+	private long memoryBudget;
+	private long orderedBufferSize;
+	private boolean orderedStoreActive;
+	private EntityContainer lastOrderedEntity;
+	private long orderedCount;
+	private long unorderedCount;
+	private boolean passThrough;
 	private Sink sink;
 
 
@@ -42,8 +90,49 @@ public class EntitySorter implements SinkSource {
 	 *            If true, the storage files will be compressed.
 	 */
 	public EntitySorter(Comparator<EntityContainer> comparator, boolean useCompression) {
+		this(comparator, useCompression, 0);
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param comparator
+	 *            The comparator to use for sorting.
+	 * @param useCompression
+	 *            If true, the storage files will be compressed.
+	 * @param memoryBudget
+	 *            The approximate maximum number of bytes of entities to hold in
+	 *            memory before writing sorted runs to file. If zero or less,
+	 *            runs are sized by entity count.
+	 */
+	public EntitySorter(Comparator<EntityContainer> comparator, boolean useCompression, long memoryBudget) {
+		this(comparator, StoreCompression.fromFlag(useCompression), memoryBudget);
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param comparator
+	 *            The comparator to use for sorting.
+	 * @param compression
+	 *            The compression method for the storage files.
+	 * @param memoryBudget
+	 *            The approximate maximum number of bytes of entities to hold in
+	 *            memory before writing sorted runs to file. The ordered run is
+	 *            also held in memory until it reaches this size. If zero or
+	 *            less, runs are sized by entity count.
+	 */
+	public EntitySorter(Comparator<EntityContainer> comparator, StoreCompression compression, long memoryBudget) {
+		this.comparator = comparator;
+		this.memoryBudget = memoryBudget;
+		
+		sizeEstimator = new EntityContainerSizeEstimator();
 		fileBasedSort = new FileBasedSort<EntityContainer>(
-			new GenericObjectSerializationFactory(), comparator, useCompression);
+			new CompactObjectSerializationFactory(new GenericObjectSerializationFactory()), comparator, compression,
+			memoryBudget, sizeEstimator);
+		orderedStore = new SimpleObjectStore<EntityContainer>(
+			new CompactObjectSerializationFactory(new GenericObjectSerializationFactory()), "esr", compression);
+		orderedBuffer = new ArrayList<EntityContainer>();
 	}
 
 
@@ -51,7 +140,15 @@ public class EntitySorter implements SinkSource {
 	 * {@inheritDoc}
 	 */
 	public void initialize(Map<String, Object> metaData) {
-		sink.initialize(metaData);
+		Map<String, Object> downstreamMetaData;
+		
+		// No sorting is required if an upstream task already produces this order.
+		passThrough = comparator.equals(metaData.get(SORT_ORDER_META_DATA_KEY));
+		
+		downstreamMetaData = new HashMap<String, Object>(metaData);
+		downstreamMetaData.put(SORT_ORDER_META_DATA_KEY, comparator);
+		
+		sink.initialize(downstreamMetaData);
 	}
 
 
@@ -59,7 +156,114 @@ public class EntitySorter implements SinkSource {
 	 * {@inheritDoc}
 	 */
 	public void process(EntityContainer entityContainer) {
-		fileBasedSort.add(entityContainer);
+		if (passThrough) {
+			sink.process(entityContainer);
+			return;
+		}
+		
+		// A lone run head followed by a preceding entity is an outlier, it
+		// would otherwise cause all remaining entities to be sorted.
+		if (orderedCount == 1 && comparator.compare(lastOrderedEntity, entityContainer) > 0) {
+			fileBasedSort.add(orderedBuffer.remove(0));
+			unorderedCount++;
+			
+			lastOrderedEntity = null;
+			orderedCount = 0;
+			orderedBufferSize = 0;
+		}
+		
+		// Entities extending the ordered run don't need to be sorted, all
+		// others are added to the merge sort.
+		if (lastOrderedEntity == null || comparator.compare(lastOrderedEntity, entityContainer) <= 0) {
+			if (orderedStoreActive) {
+				orderedStore.add(entityContainer);
+			} else {
+				orderedBuffer.add(entityContainer);
+				orderedBufferSize += sizeEstimator.estimateSize(entityContainer);
+				if (isOrderedBufferFull()) {
+					for (EntityContainer orderedEntity : orderedBuffer) {
+						orderedStore.add(orderedEntity);
+					}
+					orderedBuffer.clear();
+					orderedBufferSize = 0;
+					orderedStoreActive = true;
+				}
+			}
+			
+			lastOrderedEntity = entityContainer;
+			orderedCount++;
+			
+		} else {
+			fileBasedSort.add(entityContainer);
+			unorderedCount++;
+		}
+	}
+	
+	
+	/**
+	 * Checks if the in-memory part of the ordered run must be written to file.
+	 * 
+	 * @return True if the ordered buffer is full.
+	 */
+	private boolean isOrderedBufferFull() {
+		// The run head must remain in memory until it can no longer be
+		// treated as an outlier.
+		if (orderedBuffer.size() < 2) {
+			return false;
+		}
+		
+		if (memoryBudget > 0) {
+			return orderedBufferSize >= memoryBudget;
+		} else {
+			return orderedBuffer.size() >= MAX_MEMORY_RUN_COUNT;
+		}
+	}
+	
+	
+	/**
+	 * Gets the number of entities that didn't extend the ordered run and were
+	 * passed to the merge sort.
+	 * 
+	 * @return The unordered entity count.
+	 */
+	public long getUnorderedCount() {
+		return unorderedCount;
+	}
+	
+	
+	/**
+	 * Indicates whether the ordered run was too large to hold in memory and
+	 * was written to file.
+	 * 
+	 * @return True if the ordered run was written to file.
+	 */
+	public boolean isOrderedRunSpilled() {
+		return orderedStoreActive;
+	}
+	
+	
+	/**
+	 * Creates an iterator returning all entities in sorted order.
+	 * 
+	 * @return The iterator.
+	 */
+	private ReleasableIterator<EntityContainer> iterate() {
+		ReleasableIterator<EntityContainer> orderedIterator;
+		
+		if (orderedStoreActive) {
+			orderedIterator = orderedStore.iterate();
+		} else {
+			orderedIterator = new ReleasableAdaptorForIterator<EntityContainer>(orderedBuffer.iterator());
+		}
+		
+		if (unorderedCount == 0) {
+			return orderedIterator;
+		}
+		
+		// The ordered run is the first source so that entities comparing as
+		// equal remain in their original order.
+		return new MergingIterator<EntityContainer>(
+				Arrays.asList(orderedIterator, fileBasedSort.iterate()), comparator);
 	}
 
 
@@ -75,7 +279,18 @@ public class EntitySorter implements SinkSource {
 	 * {@inheritDoc}
 	 */
 	public void complete() {
-		try (ReleasableIterator<EntityContainer> iterator = fileBasedSort.iterate()) {
+		if (passThrough) {
+			LOG.info("Input was already sorted, entities were passed through unchanged.");
+			sink.complete();
+			return;
+		}
+		
+		try (ReleasableIterator<EntityContainer> iterator = iterate()) {
+			LOG.info(orderedCount + " entities were in order, " + unorderedCount + " required sorting.");
+			if (unorderedCount > 0) {
+				LOG.info(fileBasedSort.getStatistics());
+			}
+			
 			while (iterator.hasNext()) {
 				sink.process(iterator.next());
 			}
@@ -90,6 +305,7 @@ public class EntitySorter implements SinkSource {
 	 */
 	public void close() {
 		fileBasedSort.close();
+		orderedStore.close();
 		sink.close();
 	}
 }
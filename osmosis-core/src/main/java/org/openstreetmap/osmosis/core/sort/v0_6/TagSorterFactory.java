@@ -26,4 +26,13 @@ public class TagSorterFactory extends TaskManagerFactory {
 			taskConfig.getPipeArgs()
 		);
 	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsParallelExecution(TaskConfiguration taskConfig) {
+		return true;
+	}
 }
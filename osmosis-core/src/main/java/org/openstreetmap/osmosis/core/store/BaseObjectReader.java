@@ -49,16 +49,24 @@ public abstract class BaseObjectReader implements ObjectReader {
 	
 	/**
 	 * Reads an object from storage using identifiers embedded in the stream to
-	 * determine the correct class type to instantiate.
+	 * determine the correct class type to instantiate. Classes with a factory
+	 * registered in the {@link StoreableFactoryRegister} are created by their
+	 * factory, all others are created using reflection.
 	 * 
 	 * @return The re-instantiated object.
 	 */
 	public Storeable readObject() {
 		Class<?> clazz;
+		StoreableFactory<?> factory;
 		Constructor<?> constructor;
 		
 		clazz = readClassFromIdentifier(storeReader, storeClassRegister);
 		
+		factory = StoreableFactoryRegister.getFactory(clazz);
+		if (factory != null) {
+			return factory.create(storeReader, storeClassRegister);
+		}
+		
 		constructor = constructorCache.getStoreableConstructor(clazz);
 		
 		try {
@@ -0,0 +1,53 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.IOException;
+
+
+/**
+ * Compresses and decompresses independent blocks of store data. Each block is
+ * encoded without reference to other blocks. A codec instance is only used by
+ * one thread at a time but may be used by different threads over its
+ * lifetime. Codecs may hold native resources and must be closed once no
+ * longer required.
+ */
+public interface BlockCodec {
+
+	/**
+	 * Compresses a block of data.
+	 *
+	 * @param source
+	 *            The data to be compressed.
+	 * @param sourceLength
+	 *            The number of bytes of source data.
+	 * @param target
+	 *            The array to receive the compressed data.
+	 * @return The number of compressed bytes, or -1 if the compressed data
+	 *         would not fit within the target array.
+	 */
+	int compress(byte[] source, int sourceLength, byte[] target);
+
+
+	/**
+	 * Decompresses a block of data.
+	 *
+	 * @param source
+	 *            The compressed data.
+	 * @param sourceLength
+	 *            The number of bytes of compressed data.
+	 * @param target
+	 *            The array to receive the decompressed data.
+	 * @param targetLength
+	 *            The number of bytes the block decompresses to.
+	 * @throws IOException
+	 *             if the compressed data is corrupt.
+	 */
+	void decompress(byte[] source, int sourceLength, byte[] target, int targetLength) throws IOException;
+
+
+	/**
+	 * Releases any resources held by the codec. The codec can't be used once
+	 * it is closed.
+	 */
+	void close();
+}
@@ -0,0 +1,107 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * Runs the compression and decompression work of block streams on a shared
+ * pool of background threads. The pool is shared by all streams so that
+ * stores with many open streams such as merge sorts don't create a thread per
+ * stream. Tasks never wait on each other so the pool can't deadlock.
+ * <p>
+ * Each pool thread owns a buffer for compressed data which is shared by all
+ * streams, rather than each stream holding its own.
+ */
+public final class BlockCodecExecutor {
+
+	/**
+	 * Holds the pool, it is only created when the first block stream is used.
+	 */
+	private static final class Holder {
+		private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+				Runtime.getRuntime().availableProcessors(), runnable -> {
+					Thread thread = new Thread(runnable, "BlockCodec-Worker");
+					thread.setDaemon(true);
+					return thread;
+				});
+
+
+		private Holder() {
+			// This class cannot be instantiated.
+		}
+	}
+
+
+	/**
+	 * Holds the compressed data buffer of each pool thread.
+	 */
+	private static final ThreadLocal<byte[]> COMPRESSED_BUFFER =
+			ThreadLocal.withInitial(() -> new byte[BlockOutputStream.BLOCK_SIZE]);
+
+
+	/**
+	 * This class cannot be instantiated.
+	 */
+	private BlockCodecExecutor() {
+	}
+
+
+	/**
+	 * Gets the buffer for holding a compressed block. This may only be called
+	 * by a task running on the pool, and the contents are only valid until the
+	 * task completes.
+	 *
+	 * @return The buffer of {@link BlockOutputStream#BLOCK_SIZE} bytes.
+	 */
+	static byte[] getCompressedBuffer() {
+		return COMPRESSED_BUFFER.get();
+	}
+
+
+	/**
+	 * Submits a task to the pool.
+	 *
+	 * @param <T>
+	 *            The result type of the task.
+	 * @param task
+	 *            The task to run.
+	 * @return The future result of the task.
+	 */
+	public static <T> Future<T> submit(Callable<T> task) {
+		return Holder.EXECUTOR.submit(task);
+	}
+
+
+	/**
+	 * Waits for a task to complete, converting failures into I/O exceptions.
+	 *
+	 * @param <T>
+	 *            The result type of the task.
+	 * @param future
+	 *            The future result of the task.
+	 * @return The result of the task.
+	 * @throws IOException
+	 *             if the task failed or the wait was interrupted.
+	 */
+	public static <T> T await(Future<T> future) throws IOException {
+		try {
+			return future.get();
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a block to be processed.");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Unable to process a block.", e.getCause());
+		}
+	}
+}
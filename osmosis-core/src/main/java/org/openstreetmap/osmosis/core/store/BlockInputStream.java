@@ -0,0 +1,253 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Reads data written by a {@link BlockOutputStream}. The next block is read
+ * and decompressed on a background thread while the current block is being
+ * consumed, allowing decompression to overlap the work consuming the data.
+ * Blocks are read into the current and read ahead buffers, so no additional
+ * buffering is required by callers. Compressed data is held in a buffer
+ * shared with other streams.
+ */
+public class BlockInputStream extends InputStream {
+
+	private static final Logger LOG = Logger.getLogger(BlockInputStream.class.getName());
+
+	private InputStream in;
+	private BlockCodec codec;
+	private byte[] buffer;
+	private int bufferCount;
+	private int bufferOffset;
+	private byte[] spareBuffer;
+	private byte[] header;
+	private Future<Integer> pendingRead;
+	private boolean endOfStream;
+
+
+	/**
+	 * Creates a new instance. Reading of the first block begins immediately.
+	 *
+	 * @param in
+	 *            The stream to read blocks from.
+	 * @param codec
+	 *            The codec used to decompress blocks.
+	 */
+	public BlockInputStream(InputStream in, BlockCodec codec) {
+		this.in = in;
+		this.codec = codec;
+
+		buffer = new byte[BlockOutputStream.BLOCK_SIZE];
+		spareBuffer = new byte[BlockOutputStream.BLOCK_SIZE];
+		header = new byte[8];
+		bufferCount = 0;
+		bufferOffset = 0;
+		endOfStream = false;
+
+		submitRead();
+	}
+
+
+	/**
+	 * Starts reading the next block into the spare buffer in the background.
+	 */
+	private void submitRead() {
+		final byte[] target;
+
+		target = spareBuffer;
+
+		pendingRead = BlockCodecExecutor.submit(() -> readBlock(target));
+	}
+
+
+	/**
+	 * Fills the specified array completely from the underlying stream.
+	 *
+	 * @return False if the end of stream was reached before any bytes were
+	 *         read.
+	 */
+	private boolean readFully(byte[] target, int length) throws IOException {
+		int count;
+
+		count = 0;
+		while (count < length) {
+			int readLength;
+
+			readLength = in.read(target, count, length - count);
+			if (readLength < 0) {
+				if (count == 0) {
+					return false;
+				}
+				throw new EOFException("End of stream reached part way through a block.");
+			}
+
+			count += readLength;
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * Reads and decompresses a single block. This runs on a background thread.
+	 *
+	 * @return The number of bytes in the block, or -1 if the end of stream was
+	 *         reached.
+	 */
+	private int readBlock(byte[] target) throws IOException {
+		int blockLength;
+		int storedLength;
+
+		if (!readFully(header, 8)) {
+			return -1;
+		}
+
+		blockLength = 0;
+		storedLength = 0;
+		for (int i = 0; i < 4; i++) {
+			blockLength = (blockLength << 8) | (header[i] & 0xff);
+			storedLength = (storedLength << 8) | (header[i + 4] & 0xff);
+		}
+
+		if (blockLength < 0 || blockLength > target.length || storedLength < 0 || storedLength > blockLength) {
+			throw new IOException(
+					"Invalid block header, length " + blockLength + ", stored length " + storedLength + ".");
+		}
+
+		if (storedLength == blockLength) {
+			if (!readFully(target, blockLength)) {
+				throw new EOFException("End of stream reached before block data.");
+			}
+		} else {
+			byte[] compressedBuffer;
+			
+			compressedBuffer = BlockCodecExecutor.getCompressedBuffer();
+			if (!readFully(compressedBuffer, storedLength)) {
+				throw new EOFException("End of stream reached before block data.");
+			}
+			codec.decompress(compressedBuffer, storedLength, target, blockLength);
+		}
+
+		return blockLength;
+	}
+
+
+	/**
+	 * Ensures data is available in the current buffer.
+	 *
+	 * @return False if the end of stream has been reached.
+	 */
+	private boolean populateBuffer() throws IOException {
+		while (bufferOffset >= bufferCount) {
+			byte[] block;
+			int blockLength;
+			Future<Integer> read;
+
+			if (endOfStream) {
+				return false;
+			}
+
+			// A failed read leaves the stream at its end so that it isn't retried.
+			read = pendingRead;
+			pendingRead = null;
+			endOfStream = true;
+			blockLength = BlockCodecExecutor.await(read);
+
+			if (blockLength < 0) {
+				return false;
+			}
+			endOfStream = false;
+
+			block = spareBuffer;
+			spareBuffer = buffer;
+			buffer = block;
+			bufferCount = blockLength;
+			bufferOffset = 0;
+
+			// Read ahead while the current block is consumed.
+			submitRead();
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read() throws IOException {
+		if (!populateBuffer()) {
+			return -1;
+		}
+
+		return buffer[bufferOffset++] & 0xff;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int readLength;
+
+		if (len == 0) {
+			return 0;
+		}
+		if (!populateBuffer()) {
+			return -1;
+		}
+
+		readLength = Math.min(len, bufferCount - bufferOffset);
+		System.arraycopy(buffer, bufferOffset, b, off, readLength);
+		bufferOffset += readLength;
+
+		return readLength;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int available() {
+		return bufferCount - bufferOffset;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException {
+		if (pendingRead != null) {
+			Future<Integer> read;
+
+			read = pendingRead;
+			pendingRead = null;
+
+			// The background read must finish before the stream is closed.
+			try {
+				BlockCodecExecutor.await(read);
+			} catch (IOException e) {
+				// The data is no longer required so read ahead failures are ignored.
+				LOG.log(Level.FINE, "Ignoring a failed read ahead on close.", e);
+			}
+		}
+
+		endOfStream = true;
+		try {
+			in.close();
+		} finally {
+			codec.close();
+		}
+	}
+}
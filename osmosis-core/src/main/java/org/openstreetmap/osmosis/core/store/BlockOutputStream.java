@@ -0,0 +1,205 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Future;
+
+
+/**
+ * Splits data into fixed size blocks and writes each block compressed by a
+ * block codec. Blocks are compressed and written on a background thread while
+ * the next block is being filled, allowing compression to overlap the work
+ * producing the data.
+ * <p>
+ * Each block is written as a four byte uncompressed length, a four byte
+ * stored length and the stored bytes. Blocks that don't compress are stored
+ * as is, which is indicated by the two lengths being equal.
+ */
+public class BlockOutputStream extends OutputStream {
+
+	/**
+	 * The maximum number of uncompressed bytes in a block.
+	 */
+	public static final int BLOCK_SIZE = 128 * 1024;
+
+	private OutputStream out;
+	private BlockCodec codec;
+	private byte[] buffer;
+	private int bufferCount;
+	private byte[] spareBuffer;
+	private byte[] header;
+	private Future<Void> pendingWrite;
+	private boolean closed;
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param out
+	 *            The stream to write blocks to.
+	 * @param codec
+	 *            The codec used to compress blocks.
+	 */
+	public BlockOutputStream(OutputStream out, BlockCodec codec) {
+		this.out = out;
+		this.codec = codec;
+
+		buffer = new byte[BLOCK_SIZE];
+		spareBuffer = new byte[BLOCK_SIZE];
+		header = new byte[8];
+		bufferCount = 0;
+		closed = false;
+	}
+
+
+	/**
+	 * Waits for the previously submitted block to be written.
+	 */
+	private void waitForPendingWrite() throws IOException {
+		if (pendingWrite != null) {
+			Future<Void> write;
+
+			write = pendingWrite;
+			pendingWrite = null;
+
+			BlockCodecExecutor.await(write);
+		}
+	}
+
+
+	/**
+	 * Submits the current buffer to be compressed and written in the
+	 * background, and makes the spare buffer current.
+	 */
+	private void submitBlock() throws IOException {
+		final byte[] block;
+		final int blockLength;
+
+		// The spare buffer is in use until the previous block is written.
+		waitForPendingWrite();
+
+		block = buffer;
+		blockLength = bufferCount;
+
+		buffer = spareBuffer;
+		spareBuffer = block;
+		bufferCount = 0;
+
+		pendingWrite = BlockCodecExecutor.submit(() -> {
+			writeBlock(block, blockLength);
+			return null;
+		});
+	}
+
+
+	/**
+	 * Compresses and writes a single block. This runs on a background thread.
+	 */
+	private void writeBlock(byte[] block, int blockLength) throws IOException {
+		byte[] compressedBuffer;
+		int compressedLength;
+
+		compressedBuffer = BlockCodecExecutor.getCompressedBuffer();
+		compressedLength = codec.compress(block, blockLength, compressedBuffer);
+
+		if (compressedLength < 0 || compressedLength >= blockLength) {
+			writeHeader(blockLength, blockLength);
+			out.write(block, 0, blockLength);
+		} else {
+			writeHeader(blockLength, compressedLength);
+			out.write(compressedBuffer, 0, compressedLength);
+		}
+	}
+
+
+	/**
+	 * Writes the header of a block.
+	 */
+	private void writeHeader(int blockLength, int storedLength) throws IOException {
+		for (int i = 0; i < 4; i++) {
+			header[i] = (byte) (blockLength >>> (24 - i * 8));
+			header[i + 4] = (byte) (storedLength >>> (24 - i * 8));
+		}
+
+		out.write(header);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(int b) throws IOException {
+		if (bufferCount == BLOCK_SIZE) {
+			submitBlock();
+		}
+
+		buffer[bufferCount++] = (byte) b;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		int offset;
+		int remaining;
+
+		offset = off;
+		remaining = len;
+		while (remaining > 0) {
+			int copyLength;
+
+			if (bufferCount == BLOCK_SIZE) {
+				submitBlock();
+			}
+
+			copyLength = Math.min(remaining, BLOCK_SIZE - bufferCount);
+			System.arraycopy(b, offset, buffer, bufferCount, copyLength);
+			bufferCount += copyLength;
+			offset += copyLength;
+			remaining -= copyLength;
+		}
+	}
+
+
+	/**
+	 * Writes all buffered data as a possibly short block and waits for it to
+	 * be written to the underlying stream.
+	 *
+	 * @throws IOException
+	 *             if an error occurs.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (bufferCount > 0) {
+			submitBlock();
+		}
+		waitForPendingWrite();
+
+		out.flush();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+
+			try {
+				flush();
+			} finally {
+				try {
+					out.close();
+				} finally {
+					codec.close();
+				}
+			}
+		}
+	}
+}
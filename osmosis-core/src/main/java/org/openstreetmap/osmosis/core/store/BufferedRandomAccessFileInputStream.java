@@ -4,7 +4,6 @@ package org.openstreetmap.osmosis.core.store;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.util.LinkedList;
 import java.util.List;
@@ -17,7 +16,7 @@ import java.util.List;
  * 
  * @author Brett Henderson
  */
-public class BufferedRandomAccessFileInputStream extends InputStream {
+public class BufferedRandomAccessFileInputStream extends RandomAccessInputStream {
 	
 	private static final int DEFAULT_BUFFER_COUNT = 4;
 	private static final int DEFAULT_INITIAL_BUFFER_SIZE = 16;
@@ -120,6 +119,7 @@ public class BufferedRandomAccessFileInputStream extends InputStream {
 	 * @throws IOException
 	 *             if an error occurs during seeking.
 	 */
+	@Override
 	public void seek(long pos) throws IOException {
 		BufferedReader reader;
 		
@@ -157,6 +157,7 @@ public class BufferedRandomAccessFileInputStream extends InputStream {
 	 * @throws IOException
 	 *             if an error occurs during the length operation.
 	 */
+	@Override
 	public long length() throws IOException {
 		return randomFile.length();
 	}
@@ -169,6 +170,7 @@ public class BufferedRandomAccessFileInputStream extends InputStream {
 	 * @throws IOException
 	 *             if an error occurs during the position operation.
 	 */
+	@Override
 	public long position() throws IOException {
 		return readerList.get(0).position();
 	}
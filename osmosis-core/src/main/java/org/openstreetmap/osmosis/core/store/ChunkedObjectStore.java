@@ -29,7 +29,7 @@ public class ChunkedObjectStore<T extends Storeable> implements Completable {
 	 * started, and the object count is written when a chunk is completed.
 	 */
 	private IndexStore<Long, LongLongIndexElement> indexStore;
-	private IndexStoreReader<Long, LongLongIndexElement> indexStoreReader;
+	private LongLongIndexStoreReader indexStoreReader;
 	private long chunkCount;
 	private boolean chunkInProgress;
 	private long newChunkFilePosition;
@@ -46,14 +46,36 @@ public class ChunkedObjectStore<T extends Storeable> implements Completable {
 	 * @param indexFilePrefix
 	 *            The prefix of the index file name.
 	 * @param useCompression
-	 *            If true, the storage file will be compressed.
+	 *            If true, the storage file will be compressed using the
+	 *            default store compression method.
 	 */
 	public ChunkedObjectStore(
 			ObjectSerializationFactory serializationFactory,
 			String storageFilePrefix,
 			String indexFilePrefix,
 			boolean useCompression) {
-		objectStore = new SegmentedObjectStore<T>(serializationFactory, storageFilePrefix, useCompression);
+		this(serializationFactory, storageFilePrefix, indexFilePrefix, StoreCompression.fromFlag(useCompression));
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param serializationFactory
+	 *            The factory defining the object serialisation implementation.
+	 * @param storageFilePrefix
+	 *            The prefix of the storage file name.
+	 * @param indexFilePrefix
+	 *            The prefix of the index file name.
+	 * @param compression
+	 *            The compression method for the storage file.
+	 */
+	public ChunkedObjectStore(
+			ObjectSerializationFactory serializationFactory,
+			String storageFilePrefix,
+			String indexFilePrefix,
+			StoreCompression compression) {
+		objectStore = new SegmentedObjectStore<T>(serializationFactory, storageFilePrefix, compression);
 		
 		indexStore = new IndexStore<Long, LongLongIndexElement>(
 			LongLongIndexElement.class,
@@ -128,6 +150,17 @@ public class ChunkedObjectStore<T extends Storeable> implements Completable {
 	}
 	
 	
+	/**
+	 * Returns the number of bytes written to the storage file by all closed
+	 * chunks.
+	 * 
+	 * @return The number of bytes.
+	 */
+	public long getStorageSize() {
+		return newChunkFilePosition;
+	}
+	
+	
 	/**
 	 * Provides access to the contents of this store.
 	 * 
@@ -139,14 +172,14 @@ public class ChunkedObjectStore<T extends Storeable> implements Completable {
 		complete();
 		
 		if (indexStoreReader == null) {
-			indexStoreReader = indexStore.createReader();
+			indexStoreReader = new LongLongIndexStoreReader(indexStore.createElementReader());
 		}
 		
 		// Retrieve the file position and number of objects for the specified
 		// chunk and iterate.
 		return objectStore.iterate(
-			indexStoreReader.get(chunk * 2).getValue(),
-			indexStoreReader.get(chunk * 2 + 1).getValue()
+			indexStoreReader.getValue(chunk * 2),
+			indexStoreReader.getValue(chunk * 2 + 1)
 		);
 	}
 	
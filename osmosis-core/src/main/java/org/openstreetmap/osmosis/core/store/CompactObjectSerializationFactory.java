@@ -0,0 +1,51 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+
+/**
+ * An object reader and writer factory storing objects in the compact format
+ * written by {@link CompactStoreWriter}. Object identification is delegated to
+ * another factory.
+ * <p>
+ * The compact format can only be read sequentially from the point where the
+ * writer was created, so this factory is only suitable for stores such as
+ * {@link SimpleObjectStore} and {@link SegmentedObjectStore} that create a new
+ * writer for each independently readable stream, and a new reader at the start
+ * of each stream when reading. It must not be used with random access stores
+ * or index stores. Stores using the original format via
+ * the delegate factory directly remain readable as before.
+ */
+public class CompactObjectSerializationFactory implements ObjectSerializationFactory {
+	
+	private ObjectSerializationFactory delegate;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param delegate
+	 *            The factory providing the object readers and writers to be
+	 *            used with the compact format.
+	 */
+	public CompactObjectSerializationFactory(ObjectSerializationFactory delegate) {
+		this.delegate = delegate;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ObjectReader createObjectReader(StoreReader storeReader, StoreClassRegister storeClassRegister) {
+		return delegate.createObjectReader(new CompactStoreReader(storeReader), storeClassRegister);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ObjectWriter createObjectWriter(StoreWriter storeWriter, StoreClassRegister storeClassRegister) {
+		return delegate.createObjectWriter(new CompactStoreWriter(storeWriter), storeClassRegister);
+	}
+}
@@ -0,0 +1,184 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+
+/**
+ * Reads data written by a {@link CompactStoreWriter}. Data must be read
+ * sequentially from the point where the writer was created.
+ */
+public class CompactStoreReader implements StoreReader {
+
+	private StoreReader reader;
+	private List<String> stringTable;
+	private long[] previousValues;
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param reader
+	 *            The underlying store reader to read encoded data from.
+	 */
+	public CompactStoreReader(StoreReader reader) {
+		this.reader = reader;
+
+		stringTable = new ArrayList<String>();
+		previousValues = new long[DeltaChannel.values().length];
+	}
+
+
+	private long readVarLong() {
+		long result;
+		int shift;
+		byte value;
+
+		result = 0;
+		shift = 0;
+		do {
+			if (shift >= 64) {
+				throw new OsmosisRuntimeException("Variable length value in the store is too long.");
+			}
+
+			value = reader.readByte();
+			result |= (long) (value & 0x7F) << shift;
+			shift += 7;
+		} while ((value & 0x80) != 0);
+
+		return result;
+	}
+
+
+	private long readZigZagLong() {
+		long value;
+
+		value = readVarLong();
+
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean readBoolean() {
+		return reader.readBoolean();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte readByte() {
+		return reader.readByte();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public char readCharacter() {
+		return (char) readVarLong();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int readInteger() {
+		return (int) readZigZagLong();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long readLong() {
+		return readZigZagLong();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double readDouble() {
+		return reader.readDouble();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String readString() {
+		long index;
+		String value;
+
+		index = readVarLong();
+
+		if (index == 0) {
+			value = reader.readString();
+
+			// The table must be populated using the same rules as the writer.
+			if (stringTable.size() < CompactStoreWriter.STRING_TABLE_SIZE
+					&& value.length() <= CompactStoreWriter.MAX_TABLE_STRING_LENGTH) {
+				stringTable.add(value);
+			}
+
+		} else {
+			if (index > stringTable.size()) {
+				throw new OsmosisRuntimeException(
+						"String table index " + index + " is beyond the " + stringTable.size()
+						+ " strings read from the store.");
+			}
+
+			value = stringTable.get((int) index - 1);
+		}
+
+		return value;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long readDeltaLong(DeltaChannel channel) {
+		int channelIndex;
+		long value;
+
+		channelIndex = channel.ordinal();
+
+		value = previousValues[channelIndex] + readZigZagLong();
+		previousValues[channelIndex] = value;
+
+		return value;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int readDeltaInteger(DeltaChannel channel) {
+		int channelIndex;
+		int value;
+
+		channelIndex = channel.ordinal();
+
+		value = (int) previousValues[channelIndex] + (int) readZigZagLong();
+		previousValues[channelIndex] = value;
+
+		return value;
+	}
+}
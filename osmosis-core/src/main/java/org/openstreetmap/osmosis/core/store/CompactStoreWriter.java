@@ -0,0 +1,180 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * A store writer producing a compact encoding of the data written to it. It
+ * writes to an underlying store writer and is read back using a
+ * {@link CompactStoreReader}.
+ * <p>
+ * Integers, longs and characters are written as variable length zig-zag
+ * encoded values so that small positive and negative values consume a single
+ * byte. Values belonging to a {@link DeltaChannel} are written as the
+ * difference from the previous value in the same channel. Strings are written
+ * in full the first time they are seen and as an index into a string table
+ * afterwards.
+ * <p>
+ * Both delta coding and the string table depend on all preceding data, so
+ * data can only be read back sequentially from the point where the writer was
+ * created. This format is therefore unsuitable for stores providing random
+ * access to individual objects.
+ */
+public class CompactStoreWriter implements StoreWriter {
+
+	/**
+	 * The maximum number of strings held in the string table. Strings seen
+	 * after the table is full are always written in full.
+	 */
+	static final int STRING_TABLE_SIZE = 65536;
+
+	/**
+	 * The maximum length of strings added to the string table. Long strings
+	 * such as notes and descriptions rarely repeat.
+	 */
+	static final int MAX_TABLE_STRING_LENGTH = 100;
+
+	private StoreWriter writer;
+	private Map<String, Integer> stringTable;
+	private long[] previousValues;
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param writer
+	 *            The underlying store writer to write encoded data to.
+	 */
+	public CompactStoreWriter(StoreWriter writer) {
+		this.writer = writer;
+
+		stringTable = new HashMap<String, Integer>();
+		previousValues = new long[DeltaChannel.values().length];
+	}
+
+
+	private void writeVarLong(long value) {
+		long remaining;
+
+		remaining = value;
+		while ((remaining & ~0x7FL) != 0) {
+			writer.writeByte((byte) ((remaining & 0x7F) | 0x80));
+			remaining >>>= 7;
+		}
+		writer.writeByte((byte) remaining);
+	}
+
+
+	private void writeZigZagLong(long value) {
+		writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeBoolean(boolean value) {
+		writer.writeBoolean(value);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeByte(byte value) {
+		writer.writeByte(value);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeCharacter(char value) {
+		writeVarLong(value);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeInteger(int value) {
+		writeZigZagLong(value);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeLong(long value) {
+		writeZigZagLong(value);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeDouble(double value) {
+		writer.writeDouble(value);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeString(String value) {
+		Integer index;
+
+		index = stringTable.get(value);
+
+		if (index != null) {
+			writeVarLong(index.intValue() + 1);
+		} else {
+			// A zero index indicates that the string follows in full.
+			writeVarLong(0);
+			writer.writeString(value);
+
+			if (stringTable.size() < STRING_TABLE_SIZE && value.length() <= MAX_TABLE_STRING_LENGTH) {
+				stringTable.put(value, stringTable.size());
+			}
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeDeltaLong(DeltaChannel channel, long value) {
+		int channelIndex;
+
+		channelIndex = channel.ordinal();
+
+		writeZigZagLong(value - previousValues[channelIndex]);
+		previousValues[channelIndex] = value;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeDeltaInteger(DeltaChannel channel, int value) {
+		int channelIndex;
+
+		channelIndex = channel.ordinal();
+
+		// Integer arithmetic wraps consistently with the reader so values
+		// spanning the full range still round trip.
+		writeZigZagLong(value - (int) previousValues[channelIndex]);
+		previousValues[channelIndex] = value;
+	}
+}
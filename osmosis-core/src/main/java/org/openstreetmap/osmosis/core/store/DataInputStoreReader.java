@@ -6,15 +6,25 @@ import java.io.EOFException;
 import java.io.IOException;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 
 
 /**
- * Allows persisted input to be read from a DataInput implementation.
+ * Allows persisted input to be read from a DataInput implementation. Strings
+ * are shared through a small dictionary owned by the reader because stores
+ * typically hold large numbers of entities with repeated tags.
  * 
  * @author Brett Henderson
  */
 public class DataInputStoreReader implements StoreReader {
+	/**
+	 * Many readers may be open at once during a merge so each dictionary is
+	 * kept small.
+	 */
+	private static final int DICTIONARY_CAPACITY = 4096;
+	
 	private DataInput input;
+	private StringDictionary dictionary;
 	
 	
 	/**
@@ -25,6 +35,8 @@ public class DataInputStoreReader implements StoreReader {
 	 */
 	public DataInputStoreReader(DataInput input) {
 		this.input = input;
+		
+		dictionary = new StringDictionary(DICTIONARY_CAPACITY);
 	}
 	
 	
@@ -135,7 +147,7 @@ public class DataInputStoreReader implements StoreReader {
 	@Override
 	public String readString() {
 		try {
-			return input.readUTF();
+			return dictionary.intern(input.readUTF());
 		} catch (EOFException e) {
 			throw new EndOfStoreException(
 					"End of stream was reached while attempting to read a String from the store.", e);
@@ -9,9 +9,9 @@ import java.util.Queue;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
-import org.openstreetmap.osmosis.core.task.v0_6.Initializable;
 
 
 /**
@@ -74,13 +74,36 @@ import org.openstreetmap.osmosis.core.task.v0_6.Initializable;
  * output methods must be called an equal number of times or deadlock will
  * occur. Re-use may occur after input or output threads fail, however in all
  * cases calls to release and outputRelease must be matched.
+ * </p>
+ * <p>
+ * The capacity is normally a fixed number of objects. Alternatively a memory
+ * budget and an estimator of object sizes may be supplied, in which case the
+ * capacity is measured in bytes and adapted while data flows. It grows while
+ * both threads spend time waiting on each other, meaning data is arriving in
+ * bursts the buffer is too small to absorb, and shrinks while the output
+ * thread is consistently the slower of the two, meaning a full buffer of any
+ * size would make no difference.
+ * </p>
  * 
  * @param <T>
  *            The type of data held in the postbox.
  */
-public class DataPostbox<T> implements Initializable {
-	private int bufferCapacity;
-	private int chunkSize;
+public class DataPostbox<T> implements Postbox<T> {
+	private static final Logger LOG = Logger.getLogger(DataPostbox.class.getName());
+	private static final long ADAPT_INTERVAL = 1000000000L;
+	private static final int MIN_CAPACITY_DIVISOR = 32;
+	
+	private long bufferCapacity;
+	private long chunkSize;
+	private ObjectSizeEstimator<T> sizeEstimator;
+	private long maxCapacity;
+	private long minCapacity;
+	private long peakCapacity;
+	private long inboundSize;
+	private long centralSize;
+	private long windowStart;
+	private long windowPutBlockedTime;
+	private long windowGetBlockedTime;
 	private Lock lock;
 	private Condition dataWaitCondition;
 	private Map<String, Object> processingMetaData;
@@ -97,6 +120,9 @@ public class DataPostbox<T> implements Initializable {
 	private boolean outputExit;
 	private boolean inputOkay;
 	private boolean outputOkay;
+	// Monitoring statistics, each is only written by a single thread.
+	private volatile long putBlockedTime;
+	private volatile long getBlockedTime;
 
 
 	/**
@@ -112,14 +138,46 @@ public class DataPostbox<T> implements Initializable {
 		}
 
 		this.bufferCapacity = capacity;
+		maxCapacity = capacity;
+		minCapacity = capacity;
 
-		// Use a chunk size one quarter of total buffer size. This is a magic
-		// number but performance isn't highly sensitive to this parameter.
-		chunkSize = bufferCapacity / 4;
-		if (chunkSize <= 0) {
-			chunkSize = 1;
+		initializeSynchronisation();
+	}
+
+
+	/**
+	 * Creates a new instance holding data up to a memory budget. The capacity
+	 * in bytes is adjusted within the budget according to the relative speed
+	 * of the input and output threads.
+	 * 
+	 * @param memoryBudget
+	 *            The approximate maximum number of bytes held by the postbox,
+	 *            including the chunks held privately by each thread.
+	 * @param sizeEstimator
+	 *            Estimates the size of each object.
+	 */
+	public DataPostbox(long memoryBudget, ObjectSizeEstimator<T> sizeEstimator) {
+		if (memoryBudget <= 0) {
+			throw new OsmosisRuntimeException(
+					"A memory budget of " + memoryBudget + " is invalid, must be greater than 0.");
 		}
 
+		this.sizeEstimator = sizeEstimator;
+
+		// The shared queue and the outbound queue may each hold a full buffer,
+		// and the inbound queue a quarter of one.
+		maxCapacity = Math.max(memoryBudget * 2 / 5, 1);
+		minCapacity = Math.max(maxCapacity / MIN_CAPACITY_DIVISOR, 1);
+		bufferCapacity = Math.max(maxCapacity / 4, minCapacity);
+
+		initializeSynchronisation();
+	}
+
+
+	private void initializeSynchronisation() {
+		updateChunkSize();
+		peakCapacity = bufferCapacity;
+
 		// Create the thread synchronisation primitives.
 		lock = new ReentrantLock();
 		dataWaitCondition = lock.newCondition();
@@ -149,6 +207,79 @@ public class DataPostbox<T> implements Initializable {
 		centralQueue = new ArrayList<T>();
 		inboundQueue = new ArrayList<T>();
 		outboundQueue = new ArrayDeque<T>();
+		inboundSize = 0;
+		centralSize = 0;
+		windowStart = System.nanoTime();
+		windowPutBlockedTime = putBlockedTime;
+		windowGetBlockedTime = getBlockedTime;
+	}
+
+
+	private void updateChunkSize() {
+		// Use a chunk size one quarter of total buffer size. This is a magic
+		// number but performance isn't highly sensitive to this parameter.
+		chunkSize = bufferCapacity / 4;
+		if (chunkSize <= 0) {
+			chunkSize = 1;
+		}
+	}
+
+
+	/**
+	 * Adjusts the capacity of a memory sized postbox based on the time each
+	 * thread has spent blocked since the last adjustment. Must be called with
+	 * the lock held.
+	 * 
+	 * @param now
+	 *            The current time in nanoseconds.
+	 */
+	private void adaptCapacity(long now) {
+		long elapsed;
+		long putBlocked;
+		long getBlocked;
+
+		elapsed = now - windowStart;
+		if (sizeEstimator == null || elapsed < ADAPT_INTERVAL) {
+			return;
+		}
+
+		putBlocked = putBlockedTime - windowPutBlockedTime;
+		getBlocked = getBlockedTime - windowGetBlockedTime;
+
+		if (putBlocked * 10 > elapsed && getBlocked * 10 > elapsed) {
+			// Both threads are regularly waiting on each other, a larger buffer
+			// allows each to keep working while the other is busy.
+			bufferCapacity = Math.min(bufferCapacity * 2, maxCapacity);
+		} else if (putBlocked * 2 > elapsed && getBlocked * 100 < elapsed) {
+			// The output thread is always busy and the buffer is always full,
+			// a smaller buffer gives the same throughput.
+			bufferCapacity = Math.max(bufferCapacity / 2, minCapacity);
+		}
+		updateChunkSize();
+		peakCapacity = Math.max(peakCapacity, bufferCapacity);
+
+		windowStart = now;
+		windowPutBlockedTime = putBlockedTime;
+		windowGetBlockedTime = getBlockedTime;
+	}
+
+
+	/**
+	 * Returns the current capacity of the postbox. This is a number of objects
+	 * unless the postbox was created with a memory budget in which case it is
+	 * a number of bytes.
+	 * 
+	 * @return The capacity.
+	 */
+	public long getCapacity() {
+		lock.lock();
+
+		try {
+			return bufferCapacity;
+
+		} finally {
+			lock.unlock();
+		}
 	}
 
 
@@ -210,17 +341,25 @@ public class DataPostbox<T> implements Initializable {
 		lock.lock();
 
 		try {
+			long blockStart;
+			
 			checkForOutputErrors();
 
 			// Wait until the currently posted data is cleared.
-			while (centralQueue.size() >= bufferCapacity) {
+			blockStart = System.nanoTime();
+			while (centralSize >= bufferCapacity) {
 				waitForUpdate();
 				checkForOutputErrors();
 			}
+			putBlockedTime += System.nanoTime() - blockStart;
 
 			// Post the new data.
 			centralQueue.addAll(inboundQueue);
+			centralSize += inboundSize;
 			inboundQueue.clear();
+			inboundSize = 0;
+
+			adaptCapacity(System.nanoTime());
 			signalUpdate();
 
 		} finally {
@@ -236,16 +375,21 @@ public class DataPostbox<T> implements Initializable {
 		lock.lock();
 
 		try {
+			long blockStart;
+			
 			checkForInputErrors();
 
 			// Wait until data is available.
+			blockStart = System.nanoTime();
 			while (!((centralQueue.size() > 0) || inputComplete)) {
 				waitForUpdate();
 				checkForInputErrors();
 			}
+			getBlockedTime += System.nanoTime() - blockStart;
 
 			outboundQueue.addAll(centralQueue);
 			centralQueue.clear();
+			centralSize = 0;
 
 			signalUpdate();
 
@@ -289,19 +433,22 @@ public class DataPostbox<T> implements Initializable {
 
 
 	/**
-	 * Adds a new object to the postbox.
-	 * 
-	 * @param o
-	 *            The object to be added.
+	 * {@inheritDoc}
 	 */
+	@Override
 	public void put(T o) {
 		if (!inputInitialized) {
 			throw new OsmosisRuntimeException("initialize has not been called");
 		}
 
 		inboundQueue.add(o);
+		if (sizeEstimator != null) {
+			inboundSize += sizeEstimator.estimateSize(o);
+		} else {
+			inboundSize++;
+		}
 
-		if (inboundQueue.size() >= chunkSize) {
+		if (inboundSize >= chunkSize) {
 			populateCentralQueue();
 		}
 	}
@@ -365,6 +512,11 @@ public class DataPostbox<T> implements Initializable {
 				waitForUpdate();
 			}
 
+			if (sizeEstimator != null && inputComplete) {
+				LOG.info("Memory sized postbox finished with a capacity of " + bufferCapacity
+						+ " bytes, the peak was " + peakCapacity + " bytes of a possible " + maxCapacity + ".");
+			}
+
 			// At this point both threads have reached a release state so we can
 			// reset our state.
 			initializeQueues();
@@ -387,12 +539,9 @@ public class DataPostbox<T> implements Initializable {
 
 
 	/**
-	 * Notifies that the output thread has begun processing, and gets the
-	 * initialization data set by the input thread. This will block until either
-	 * the input thread has called initialize, or an input error occurs.
-	 * 
-	 * @return The initialization data.
+	 * {@inheritDoc}
 	 */
+	@Override
 	public Map<String, Object> outputInitialize() {
 		if (outputInitialized) {
 			throw new OsmosisRuntimeException("outputInitialize has already been called");
@@ -422,12 +571,9 @@ public class DataPostbox<T> implements Initializable {
 
 
 	/**
-	 * Indicates if data is available for output. This will block until either
-	 * data is available, input processing has completed, or an input error
-	 * occurs.
-	 * 
-	 * @return True if data is available.
+	 * {@inheritDoc}
 	 */
+	@Override
 	public boolean hasNext() {
 		int queueSize;
 
@@ -447,11 +593,18 @@ public class DataPostbox<T> implements Initializable {
 
 
 	/**
-	 * Returns the next available object from the postbox. This should be
-	 * preceeded by a call to hasNext.
-	 * 
-	 * @return The next available object.
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isDataAvailable() {
+		return !outboundQueue.isEmpty();
+	}
+
+
+	/**
+	 * {@inheritDoc}
 	 */
+	@Override
 	public T getNext() {
 		if (hasNext()) {
 			T result;
@@ -467,10 +620,9 @@ public class DataPostbox<T> implements Initializable {
 
 
 	/**
-	 * Notifies that the output thread has completed processing. This will block
-	 * until either the input thread has called complete, or an input error
-	 * occurs.
+	 * {@inheritDoc}
 	 */
+	@Override
 	public void outputComplete() {
 		if (!outputInitialized) {
 			throw new OsmosisRuntimeException("outputInitialize has not been called");
@@ -498,9 +650,9 @@ public class DataPostbox<T> implements Initializable {
 
 
 	/**
-	 * Notifies that the output thread has released. This will block until the
-	 * input thread has also released and the object has been reset.
+	 * {@inheritDoc}
 	 */
+	@Override
 	public void outputRelease() {
 		lock.lock();
 
@@ -543,4 +695,40 @@ public class DataPostbox<T> implements Initializable {
 			lock.unlock();
 		}
 	}
+
+
+	/**
+	 * {@inheritDoc} Only objects posted to the central queue are counted,
+	 * objects in the chunks currently held privately by the input and output
+	 * threads are not.
+	 */
+	@Override
+	public int size() {
+		lock.lock();
+
+		try {
+			return centralQueue.size();
+
+		} finally {
+			lock.unlock();
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getPutBlockedTime() {
+		return putBlockedTime;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getGetBlockedTime() {
+		return getBlockedTime;
+	}
 }
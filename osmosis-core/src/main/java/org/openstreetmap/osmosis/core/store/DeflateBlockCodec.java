@@ -0,0 +1,101 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+
+/**
+ * A block codec using the deflate algorithm also used by gzip. This gives the
+ * best compression of the available codecs but is the most CPU intensive.
+ */
+public class DeflateBlockCodec implements BlockCodec {
+
+	private Deflater deflater;
+	private Inflater inflater;
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int compress(byte[] source, int sourceLength, byte[] target) {
+		int targetLength;
+
+		if (deflater == null) {
+			deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		}
+
+		deflater.reset();
+		deflater.setInput(source, 0, sourceLength);
+		deflater.finish();
+
+		targetLength = 0;
+		while (!deflater.finished() && targetLength < target.length) {
+			targetLength += deflater.deflate(target, targetLength, target.length - targetLength);
+		}
+
+		if (!deflater.finished()) {
+			return -1;
+		}
+
+		return targetLength;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void decompress(byte[] source, int sourceLength, byte[] target, int targetLength) throws IOException {
+		int count;
+
+		if (inflater == null) {
+			inflater = new Inflater(true);
+		}
+
+		inflater.reset();
+		inflater.setInput(source, 0, sourceLength);
+
+		try {
+			count = 0;
+			while (count < targetLength && !inflater.finished()) {
+				int inflated;
+
+				inflated = inflater.inflate(target, count, targetLength - count);
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+
+				count += inflated;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Unable to decompress a deflate block.", e);
+		}
+
+		if (count != targetLength) {
+			throw new IOException(
+					"Deflate block decompressed to " + count + " bytes, expected " + targetLength + " bytes.");
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		// The zlib streams are held outside the heap and would otherwise only
+		// be released once garbage collected.
+		if (deflater != null) {
+			deflater.end();
+			deflater = null;
+		}
+		if (inflater != null) {
+			inflater.end();
+			inflater = null;
+		}
+	}
+}
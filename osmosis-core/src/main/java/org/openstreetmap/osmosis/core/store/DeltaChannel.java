@@ -0,0 +1,36 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+
+/**
+ * Identifies a sequence of related values within a store. Values in the same
+ * sequence tend to be close to the previous value, so compact stores encode
+ * each value as the difference from the previous value in its sequence.
+ * Stores that don't support delta coding write the values unchanged.
+ */
+public enum DeltaChannel {
+	/**
+	 * The ids of entities.
+	 */
+	EntityId,
+	/**
+	 * The timestamps of entities in milliseconds.
+	 */
+	Timestamp,
+	/**
+	 * The fixed precision latitudes of nodes.
+	 */
+	Latitude,
+	/**
+	 * The fixed precision longitudes of nodes.
+	 */
+	Longitude,
+	/**
+	 * The node ids referenced by ways.
+	 */
+	WayNodeId,
+	/**
+	 * The member ids referenced by relations.
+	 */
+	MemberId
+}
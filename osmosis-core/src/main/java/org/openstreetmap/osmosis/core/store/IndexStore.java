@@ -152,6 +152,20 @@ public class IndexStore<K, T extends IndexElement<K>> implements Completable {
 	}
 	
 	
+	/**
+	 * Creates a new reader providing direct access to the sorted index
+	 * elements by file offset. This allows specialised readers such as
+	 * {@link LongLongIndexStoreReader} to search the index without
+	 * deserialising elements. The reader must be explicitly released when no
+	 * longer required. Readers must be released prior to this store.
+	 * 
+	 * @return An element reader.
+	 */
+	public RandomAccessObjectStoreReader<T> createElementReader() {
+		return indexStore.createReader();
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -201,7 +215,8 @@ public class IndexStore<K, T extends IndexElement<K>> implements Completable {
 							indexStore.add(sortIterator.next());
 						}
 					}
-					
+					indexStore.complete();
+
 				}
 			}
 			
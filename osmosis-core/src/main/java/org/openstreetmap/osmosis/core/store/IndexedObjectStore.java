@@ -90,10 +90,10 @@ public class IndexedObjectStore<T extends Storeable> implements Completable {
 		objectStoreReader = objectStore.createReader();
 		
 		try {
-			IndexStoreReader<Long, LongLongIndexElement> indexStoreReader;
+			LongLongIndexStoreReader indexStoreReader;
 			IndexedObjectStoreReader<T> reader;
 			
-			indexStoreReader = indexStore.createReader();
+			indexStoreReader = new LongLongIndexStoreReader(indexStore.createElementReader());
 			
 			reader = new IndexedObjectStoreReader<T>(objectStoreReader, indexStoreReader);
 			
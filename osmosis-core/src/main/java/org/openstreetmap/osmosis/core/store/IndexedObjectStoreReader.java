@@ -17,7 +17,7 @@ import org.openstreetmap.osmosis.core.lifecycle.Closeable;
  */
 public class IndexedObjectStoreReader<T> implements Closeable {
 	private RandomAccessObjectStoreReader<T> objectStoreReader;
-	private IndexStoreReader<Long, LongLongIndexElement> indexStoreReader;
+	private LongLongIndexStoreReader indexStoreReader;
 	
 	
 	/**
@@ -30,7 +30,7 @@ public class IndexedObjectStoreReader<T> implements Closeable {
 	 */
 	public IndexedObjectStoreReader(
 			RandomAccessObjectStoreReader<T> objectStoreReader,
-			IndexStoreReader<Long, LongLongIndexElement> indexStoreReader) {
+			LongLongIndexStoreReader indexStoreReader) {
 		this.objectStoreReader = objectStoreReader;
 		this.indexStoreReader = indexStoreReader;
 	}
@@ -48,7 +48,7 @@ public class IndexedObjectStoreReader<T> implements Closeable {
 		T data;
 		
 		// Get the object offset from the index store.
-		objectOffset = indexStoreReader.get(id).getValue();
+		objectOffset = indexStoreReader.getValue(id);
 		
 		// Read the object from the object store.
 		data = objectStoreReader.get(objectOffset);
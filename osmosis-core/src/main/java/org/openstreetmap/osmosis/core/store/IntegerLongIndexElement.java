@@ -20,6 +20,11 @@ public class IntegerLongIndexElement implements IndexElement<Integer> {
 	private long value;
 	
 	
+	static {
+		StoreableFactoryRegister.register(IntegerLongIndexElement.class, IntegerLongIndexElement::new);
+	}
+	
+	
 	/**
 	 * Creates a new instance.
 	 * 
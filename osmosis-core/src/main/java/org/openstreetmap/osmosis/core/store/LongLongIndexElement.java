@@ -20,6 +20,11 @@ public class LongLongIndexElement implements IndexElement<Long> {
 	private long value;
 	
 	
+	static {
+		StoreableFactoryRegister.register(LongLongIndexElement.class, LongLongIndexElement::new);
+	}
+	
+	
 	/**
 	 * Creates a new instance.
 	 * 
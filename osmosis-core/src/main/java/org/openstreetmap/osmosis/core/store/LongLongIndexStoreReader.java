@@ -0,0 +1,75 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+
+/**
+ * Provides read-only access to a long-long index store ordered by natural long
+ * ordering. In addition to the generic index lookups, values may be retrieved
+ * by reading the fixed layout index elements directly which avoids creating
+ * index element and key objects during the binary search.
+ */
+public class LongLongIndexStoreReader extends IndexStoreReader<Long, LongLongIndexElement> {
+
+	/**
+	 * The number of bytes written for a single element, a long id followed by
+	 * a long value.
+	 */
+	private static final int ELEMENT_SIZE = 16;
+
+	private RandomAccessObjectStoreReader<LongLongIndexElement> indexStoreReader;
+	private long elementCount;
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param indexStoreReader
+	 *            Provides access to the index data.
+	 */
+	public LongLongIndexStoreReader(RandomAccessObjectStoreReader<LongLongIndexElement> indexStoreReader) {
+		super(indexStoreReader, new ComparableComparator<Long>());
+
+		this.indexStoreReader = indexStoreReader;
+
+		elementCount = -1;
+	}
+
+
+	/**
+	 * Returns the value of the index element identified by id.
+	 *
+	 * @param id
+	 *            The identifier of the index element.
+	 * @return The value of the index element.
+	 */
+	public long getValue(long id) {
+		long intervalBegin;
+		long intervalEnd;
+
+		if (elementCount < 0) {
+			elementCount = indexStoreReader.length() / ELEMENT_SIZE;
+		}
+
+		// Find the first element with an id greater than or equal to the
+		// requested id.
+		intervalBegin = 0;
+		intervalEnd = elementCount;
+		while (intervalBegin < intervalEnd) {
+			long intervalMid;
+
+			intervalMid = (intervalBegin + intervalEnd) >>> 1;
+
+			if (indexStoreReader.readLong(intervalMid * ELEMENT_SIZE) < id) {
+				intervalBegin = intervalMid + 1;
+			} else {
+				intervalEnd = intervalMid;
+			}
+		}
+
+		if (intervalEnd < elementCount && indexStoreReader.readLong(intervalEnd * ELEMENT_SIZE) == id) {
+			return indexStoreReader.readLong(intervalEnd * ELEMENT_SIZE + 8);
+		}
+
+		throw new NoSuchIndexElementException("Requested key " + id + " does not exist.");
+	}
+}
@@ -0,0 +1,274 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+
+/**
+ * A very fast block codec from the LZ77 family using the same sequence layout
+ * as LZ4 blocks. Matches are found using a single hash table probe and no
+ * entropy coding is applied, trading compression ratio for compression and
+ * decompression speeds that are typically faster than disk I/O.
+ * <p>
+ * Each sequence begins with a token byte holding the literal length in the
+ * high four bits and the match length less the minimum match in the low four
+ * bits. A value of 15 in either field is followed by additional length bytes
+ * which are summed until a byte other than 255 is found. The literals follow,
+ * then a two byte little endian match offset and any additional match length
+ * bytes. The final sequence contains only literals.
+ */
+public class LzBlockCodec implements BlockCodec {
+
+	private static final int MIN_MATCH = 4;
+	private static final int MAX_OFFSET = 65535;
+	private static final int HASH_BITS = 14;
+	private static final int LENGTH_MASK = 15;
+	/**
+	 * Matches are not searched for near the end of the block, the remaining
+	 * bytes are written as literals.
+	 */
+	private static final int END_LITERALS = 5;
+	/**
+	 * The number of unmatched positions after which the search starts skipping
+	 * ahead, this speeds up incompressible data.
+	 */
+	private static final int SKIP_TRIGGER = 6;
+
+	private int[] hashTable;
+
+
+	/**
+	 * Creates a new instance.
+	 */
+	public LzBlockCodec() {
+		hashTable = new int[1 << HASH_BITS];
+	}
+
+
+	/**
+	 * Reads four bytes as a little endian integer.
+	 */
+	private static int readInt(byte[] data, int offset) {
+		return (data[offset] & 0xff)
+				| ((data[offset + 1] & 0xff) << 8)
+				| ((data[offset + 2] & 0xff) << 16)
+				| ((data[offset + 3] & 0xff) << 24);
+	}
+
+
+	/**
+	 * Calculates the hash table index for four bytes of data.
+	 */
+	private static int hash(int value) {
+		return (value * -1640531535) >>> (32 - HASH_BITS);
+	}
+
+
+	/**
+	 * Writes the part of a length exceeding the token field.
+	 *
+	 * @return The new target position.
+	 */
+	private static int writeLength(byte[] target, int offset, int length) {
+		int remaining;
+		int position;
+
+		position = offset;
+		remaining = length;
+		while (remaining >= 255) {
+			target[position++] = (byte) 255;
+			remaining -= 255;
+		}
+		target[position++] = (byte) remaining;
+
+		return position;
+	}
+
+
+	/**
+	 * Writes a single sequence to the target.
+	 *
+	 * @return The new target position, or -1 if the sequence doesn't fit.
+	 */
+	private static int writeSequence(
+			byte[] source, int literalStart, int literalLength, int matchOffset, int matchLength,
+			byte[] target, int targetOffset) {
+		int position;
+		int matchExtra;
+		int token;
+
+		// Reserve room for the worst case of the length bytes.
+		if (targetOffset + literalLength + (literalLength / 255) + (matchLength / 255) + 5 > target.length) {
+			return -1;
+		}
+
+		position = targetOffset + 1;
+
+		if (literalLength >= LENGTH_MASK) {
+			token = LENGTH_MASK << 4;
+			position = writeLength(target, position, literalLength - LENGTH_MASK);
+		} else {
+			token = literalLength << 4;
+		}
+
+		System.arraycopy(source, literalStart, target, position, literalLength);
+		position += literalLength;
+
+		if (matchLength > 0) {
+			target[position++] = (byte) matchOffset;
+			target[position++] = (byte) (matchOffset >>> 8);
+
+			matchExtra = matchLength - MIN_MATCH;
+			if (matchExtra >= LENGTH_MASK) {
+				token |= LENGTH_MASK;
+				position = writeLength(target, position, matchExtra - LENGTH_MASK);
+			} else {
+				token |= matchExtra;
+			}
+		}
+
+		target[targetOffset] = (byte) token;
+
+		return position;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int compress(byte[] source, int sourceLength, byte[] target) {
+		int matchLimit;
+		int anchor;
+		int position;
+		int targetPosition;
+
+		Arrays.fill(hashTable, -1);
+
+		matchLimit = sourceLength - END_LITERALS - MIN_MATCH;
+		anchor = 0;
+		position = 0;
+		targetPosition = 0;
+
+		while (position < matchLimit) {
+			int value;
+			int hashIndex;
+			int reference;
+
+			value = readInt(source, position);
+			hashIndex = hash(value);
+			reference = hashTable[hashIndex];
+			hashTable[hashIndex] = position;
+
+			if (reference >= 0 && position - reference <= MAX_OFFSET && readInt(source, reference) == value) {
+				int matchLength;
+
+				matchLength = MIN_MATCH;
+				while (position + matchLength < sourceLength - END_LITERALS
+						&& source[reference + matchLength] == source[position + matchLength]) {
+					matchLength++;
+				}
+
+				targetPosition = writeSequence(
+						source, anchor, position - anchor, position - reference, matchLength, target, targetPosition);
+				if (targetPosition < 0) {
+					return -1;
+				}
+
+				position += matchLength;
+				anchor = position;
+
+			} else {
+				position += 1 + ((position - anchor) >>> SKIP_TRIGGER);
+			}
+		}
+
+		return writeSequence(source, anchor, sourceLength - anchor, 0, 0, target, targetPosition);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void decompress(byte[] source, int sourceLength, byte[] target, int targetLength) throws IOException {
+		int sourcePosition;
+		int targetPosition;
+
+		sourcePosition = 0;
+		targetPosition = 0;
+
+		try {
+			while (sourcePosition < sourceLength) {
+				int token;
+				int literalLength;
+				int matchOffset;
+				int matchLength;
+				int matchPosition;
+
+				token = source[sourcePosition++] & 0xff;
+
+				literalLength = token >>> 4;
+				if (literalLength == LENGTH_MASK) {
+					int lengthByte;
+
+					do {
+						lengthByte = source[sourcePosition++] & 0xff;
+						literalLength += lengthByte;
+					} while (lengthByte == 255);
+				}
+
+				System.arraycopy(source, sourcePosition, target, targetPosition, literalLength);
+				sourcePosition += literalLength;
+				targetPosition += literalLength;
+
+				// The final sequence contains only literals.
+				if (sourcePosition >= sourceLength) {
+					break;
+				}
+
+				matchOffset = (source[sourcePosition] & 0xff) | ((source[sourcePosition + 1] & 0xff) << 8);
+				sourcePosition += 2;
+
+				matchLength = token & LENGTH_MASK;
+				if (matchLength == LENGTH_MASK) {
+					int lengthByte;
+
+					do {
+						lengthByte = source[sourcePosition++] & 0xff;
+						matchLength += lengthByte;
+					} while (lengthByte == 255);
+				}
+				matchLength += MIN_MATCH;
+
+				matchPosition = targetPosition - matchOffset;
+				if (matchOffset == 0 || matchPosition < 0 || targetPosition + matchLength > targetLength) {
+					throw new IOException("Invalid match at position " + targetPosition + " of LZ block.");
+				}
+
+				// Matches may overlap the bytes being written so are copied a
+				// byte at a time.
+				for (int i = 0; i < matchLength; i++) {
+					target[targetPosition++] = target[matchPosition++];
+				}
+			}
+		} catch (IndexOutOfBoundsException e) {
+			throw new IOException("LZ block is corrupt.", e);
+		}
+
+		if (targetPosition != targetLength) {
+			throw new IOException(
+					"LZ block decompressed to " + targetPosition + " bytes, expected " + targetLength + " bytes.");
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		hashTable = null;
+	}
+}
@@ -0,0 +1,234 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Provides random access to a file by mapping it into memory. Reads and seeks
+ * operate directly on the operating system page cache rather than issuing
+ * system calls and copying data through intermediate buffers.
+ * <p>
+ * Files larger than the maximum size of a single mapping are mapped as a
+ * series of segments. The file must not be modified while it is mapped. The
+ * mappings are released when this stream is no longer referenced rather than
+ * when it is closed.
+ */
+public class MappedFileInputStream extends RandomAccessInputStream {
+
+	private static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+	private int segmentSize;
+	private long length;
+	private MappedByteBuffer[] segments;
+	private long position;
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param file
+	 *            The file to be read.
+	 * @throws IOException
+	 *             if the file cannot be opened or mapped.
+	 */
+	public MappedFileInputStream(File file) throws IOException {
+		this(file, DEFAULT_SEGMENT_SIZE);
+	}
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param file
+	 *            The file to be read.
+	 * @param segmentSize
+	 *            The maximum number of bytes to include in a single mapping.
+	 * @throws IOException
+	 *             if the file cannot be opened or mapped.
+	 */
+	public MappedFileInputStream(File file, int segmentSize) throws IOException {
+		this.segmentSize = segmentSize;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			int segmentCount;
+
+			length = channel.size();
+			segmentCount = (int) ((length + segmentSize - 1) / segmentSize);
+
+			// The mappings remain valid after the channel is closed.
+			segments = new MappedByteBuffer[segmentCount];
+			for (int i = 0; i < segmentCount; i++) {
+				long segmentBegin;
+
+				segmentBegin = (long) i * segmentSize;
+				segments[i] = channel.map(
+						FileChannel.MapMode.READ_ONLY, segmentBegin, Math.min(segmentSize, length - segmentBegin));
+			}
+		}
+
+		position = 0;
+	}
+
+
+	/**
+	 * Verifies that the stream has not been closed.
+	 *
+	 * @throws IOException
+	 *             if the stream is closed.
+	 */
+	private void checkOpen() throws IOException {
+		if (segments == null) {
+			throw new IOException("The mapped file has been closed.");
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read() throws IOException {
+		int result;
+
+		checkOpen();
+
+		if (position >= length) {
+			return -1;
+		}
+
+		result = segments[(int) (position / segmentSize)].get((int) (position % segmentSize)) & 0xff;
+		position++;
+
+		return result;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int segmentOffset;
+		int readLength;
+
+		checkOpen();
+
+		if (len == 0) {
+			return 0;
+		}
+		if (position >= length) {
+			return -1;
+		}
+
+		// Reads stop at the end of the current segment, callers requiring more
+		// data will read again.
+		segmentOffset = (int) (position % segmentSize);
+		readLength = (int) Math.min(len, Math.min(segmentSize - segmentOffset, length - position));
+
+		segments[(int) (position / segmentSize)].get(segmentOffset, b, off, readLength);
+		position += readLength;
+
+		return readLength;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long skip(long n) throws IOException {
+		long skipLength;
+
+		checkOpen();
+
+		skipLength = Math.max(0, Math.min(n, length - position));
+		position += skipLength;
+
+		return skipLength;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int available() throws IOException {
+		checkOpen();
+
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - position));
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void seek(long pos) throws IOException {
+		checkOpen();
+
+		if (pos < 0) {
+			throw new IOException("Unable to seek to negative position " + pos + ".");
+		}
+
+		position = pos;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long length() throws IOException {
+		checkOpen();
+
+		return length;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long position() throws IOException {
+		checkOpen();
+
+		return position;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long readLong(long pos) throws IOException {
+		int segmentOffset;
+
+		checkOpen();
+
+		segmentOffset = (int) (pos % segmentSize);
+
+		// Values spanning two segments are read a byte at a time, invalid
+		// positions are rejected by the seek.
+		if (pos < 0 || pos + 8 > length || segmentOffset + 8 > segmentSize) {
+			return super.readLong(pos);
+		}
+
+		position = pos + 8;
+
+		return segments[(int) (pos / segmentSize)].getLong(segmentOffset);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		segments = null;
+	}
+}
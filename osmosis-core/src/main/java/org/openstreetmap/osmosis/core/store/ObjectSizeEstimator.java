@@ -0,0 +1,23 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+
+/**
+ * Estimates the amount of heap memory retained by an object. Estimates are
+ * used to size buffers in terms of memory rather than object counts, they
+ * need to be cheap to calculate rather than exact.
+ * 
+ * @param <T>
+ *            The type of object being measured.
+ */
+public interface ObjectSizeEstimator<T> {
+	
+	/**
+	 * Estimates the retained size of an object.
+	 * 
+	 * @param object
+	 *            The object to be measured.
+	 * @return The approximate size in bytes.
+	 */
+	long estimateSize(T object);
+}
@@ -35,16 +35,38 @@ public class PersistentIterator<T extends Storeable> implements ReleasableIterat
 	 * @param storageFilePrefix
 	 *            The prefix of the storage file.
 	 * @param useCompression
-	 *            If true, the storage file will be compressed.
+	 *            If true, the storage file will be compressed using the
+	 *            default store compression method.
 	 */
 	public PersistentIterator(
 			ObjectSerializationFactory serializationFactory,
 			ReleasableIterator<T> sourceIterator,
 			String storageFilePrefix,
 			boolean useCompression) {
+		this(serializationFactory, sourceIterator, storageFilePrefix, StoreCompression.fromFlag(useCompression));
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param serializationFactory
+	 *            The factory defining the object serialisation implementation.
+	 * @param sourceIterator
+	 *            The source of data.
+	 * @param storageFilePrefix
+	 *            The prefix of the storage file.
+	 * @param compression
+	 *            The compression method for the storage file.
+	 */
+	public PersistentIterator(
+			ObjectSerializationFactory serializationFactory,
+			ReleasableIterator<T> sourceIterator,
+			String storageFilePrefix,
+			StoreCompression compression) {
 		this.sourceIterator = sourceIterator;
 		
-		store = new SimpleObjectStore<T>(serializationFactory, storageFilePrefix, useCompression);
+		store = new SimpleObjectStore<T>(serializationFactory, storageFilePrefix, compression);
 		
 		initialized = false;
 	}
@@ -0,0 +1,109 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.util.Map;
+
+import org.openstreetmap.osmosis.core.task.v0_6.Initializable;
+
+
+/**
+ * Defines the operations supported by a mechanism for passing data from one
+ * thread to another. A single writing thread and a single reading thread are
+ * supported. The input thread calls the {@link Initializable} methods and put,
+ * the output thread calls the output methods. Refer to {@link DataPostbox} for
+ * a full description of the calling sequence and blocking behaviour that all
+ * implementations must follow.
+ *
+ * @param <T>
+ *            The type of data held in the postbox.
+ */
+public interface Postbox<T> extends Initializable {
+
+	/**
+	 * Adds a new object to the postbox.
+	 *
+	 * @param o
+	 *            The object to be added.
+	 */
+	void put(T o);
+
+
+	/**
+	 * Notifies that the output thread has begun processing, and gets the
+	 * initialization data set by the input thread. This will block until either
+	 * the input thread has called initialize, or an input error occurs.
+	 *
+	 * @return The initialization data.
+	 */
+	Map<String, Object> outputInitialize();
+
+
+	/**
+	 * Indicates if data is available for output. This will block until either
+	 * data is available, input processing has completed, or an input error
+	 * occurs.
+	 *
+	 * @return True if data is available.
+	 */
+	boolean hasNext();
+
+
+	/**
+	 * Indicates if data is available for output without blocking. A false
+	 * result does not mean that data won't become available later.
+	 *
+	 * @return True if the next call to getNext is guaranteed not to block.
+	 */
+	boolean isDataAvailable();
+
+
+	/**
+	 * Returns the next available object from the postbox. This should be
+	 * preceeded by a call to hasNext.
+	 *
+	 * @return The next available object.
+	 */
+	T getNext();
+
+
+	/**
+	 * Notifies that the output thread has completed processing. This will block
+	 * until either the input thread has called complete, or an input error
+	 * occurs.
+	 */
+	void outputComplete();
+
+
+	/**
+	 * Notifies that the output thread has released. This will block until the
+	 * input thread has also released and the object has been reset.
+	 */
+	void outputRelease();
+
+
+	/**
+	 * Returns the approximate number of objects waiting in the postbox. This is
+	 * intended for monitoring and may be called from any thread.
+	 *
+	 * @return The number of objects waiting.
+	 */
+	int size();
+
+
+	/**
+	 * Returns the total time the input thread has spent blocked waiting for
+	 * space in the postbox. This may be called from any thread.
+	 *
+	 * @return The blocked time in nanoseconds.
+	 */
+	long getPutBlockedTime();
+
+
+	/**
+	 * Returns the total time the output thread has spent blocked waiting for
+	 * data to arrive in the postbox. This may be called from any thread.
+	 *
+	 * @return The blocked time in nanoseconds.
+	 */
+	long getGetBlockedTime();
+}
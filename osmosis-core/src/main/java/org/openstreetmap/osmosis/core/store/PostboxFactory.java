@@ -0,0 +1,41 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+
+/**
+ * Creates Postbox implementation instances depending on the requested postbox
+ * type.
+ */
+public final class PostboxFactory {
+	
+	/**
+	 * This class cannot be instantiated.
+	 */
+	private PostboxFactory() {
+	}
+	
+	
+	/**
+	 * Creates the requested postbox type.
+	 * 
+	 * @param <T>
+	 *            The type of data held in the postbox.
+	 * @param postboxType
+	 *            The type of postbox to instantiate.
+	 * @param capacity
+	 *            The maximum number of objects to hold in the postbox before
+	 *            blocking.
+	 * @return The new postbox.
+	 */
+	public static <T> Postbox<T> createInstance(PostboxType postboxType, int capacity) {
+		if (PostboxType.Locking.equals(postboxType)) {
+			return new DataPostbox<T>(capacity);
+		} else if (PostboxType.RingBuffer.equals(postboxType)) {
+			return new RingBufferPostbox<T>(capacity);
+		} else {
+			throw new OsmosisRuntimeException("The PostboxType " + postboxType + " is not recognised.");
+		}
+	}
+}
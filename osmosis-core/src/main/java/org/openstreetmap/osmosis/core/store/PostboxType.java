@@ -0,0 +1,24 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+/**
+ * Defines the different postbox implementations available for passing data
+ * between threads.
+ */
+public enum PostboxType {
+	/**
+	 * The locking implementation guards a set of queues with a single lock and
+	 * moves data between them in chunks. It blocks immediately when no data or
+	 * space is available which keeps CPU usage low when one side of the
+	 * pipeline is much slower than the other.
+	 */
+	Locking,
+	/**
+	 * The ring buffer implementation passes data through a fixed size array
+	 * without acquiring any locks. Each thread briefly spins before parking
+	 * when it has to wait which minimises hand-off latency at the cost of some
+	 * CPU time on idle threads. This should be used where the cost of passing
+	 * data between threads limits pipeline throughput.
+	 */
+	RingBuffer
+}
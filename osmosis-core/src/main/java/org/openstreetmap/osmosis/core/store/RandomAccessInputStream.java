@@ -0,0 +1,77 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * An input stream over a file that supports seeking to arbitrary positions.
+ * This is the input used by store readers which retrieve objects at known file
+ * offsets.
+ */
+public abstract class RandomAccessInputStream extends InputStream {
+
+	/**
+	 * Seeks to the specified position in the file.
+	 *
+	 * @param pos
+	 *            The position within the file to seek to.
+	 * @throws IOException
+	 *             if an error occurs during seeking.
+	 */
+	public abstract void seek(long pos) throws IOException;
+
+
+	/**
+	 * Returns the length of the data file.
+	 *
+	 * @return The file length in bytes.
+	 * @throws IOException
+	 *             if an error occurs during the length operation.
+	 */
+	public abstract long length() throws IOException;
+
+
+	/**
+	 * Returns the current read position in the data file.
+	 *
+	 * @return The current file offset in bytes.
+	 * @throws IOException
+	 *             if an error occurs during the position operation.
+	 */
+	public abstract long position() throws IOException;
+
+
+	/**
+	 * Reads a big-endian long from the specified position. This leaves the
+	 * stream positioned after the long. Implementations with direct access to
+	 * the file contents override this to avoid the stream reads.
+	 *
+	 * @param pos
+	 *            The position within the file to read from.
+	 * @return The long value.
+	 * @throws IOException
+	 *             if an error occurs during reading.
+	 */
+	public long readLong(long pos) throws IOException {
+		long result;
+
+		seek(pos);
+
+		result = 0;
+		for (int i = 0; i < 8; i++) {
+			int b;
+
+			b = read();
+			if (b < 0) {
+				throw new EOFException("End of file reached reading a long at position " + pos + ".");
+			}
+
+			result = (result << 8) | b;
+		}
+
+		return result;
+	}
+}
@@ -27,6 +27,8 @@ public class RandomAccessObjectStore<T extends Storeable> implements Completable
 	
 	private static final Logger LOG = Logger.getLogger(RandomAccessObjectStore.class.getName());
 	
+	private static volatile boolean tempFileMappingEnabled;
+	
 	private ObjectSerializationFactory serializationFactory;
 	private StorageStage stage;
 	private String tempFilePrefix;
@@ -73,6 +75,36 @@ public class RandomAccessObjectStore<T extends Storeable> implements Completable
 	}
 	
 	
+	/**
+	 * Sets whether temporary storage files are memory-mapped for reading. This
+	 * is normally configured once by the command line application before the
+	 * pipeline is executed.
+	 * <p>
+	 * Temporary files are deleted when the store is closed, but a mapped file
+	 * is only released once its buffers are garbage collected. Until then its
+	 * disk space isn't reclaimed, and some platforms such as Windows refuse to
+	 * delete it at all in which case it is deleted on exit. Mapping is
+	 * therefore disabled by default for temporary files, storage files
+	 * provided by the caller are always mapped where possible.
+	 * 
+	 * @param enabled
+	 *            If true, temporary files will be mapped.
+	 */
+	public static void setTempFileMappingEnabled(boolean enabled) {
+		tempFileMappingEnabled = enabled;
+	}
+	
+	
+	/**
+	 * Indicates whether temporary storage files are memory-mapped for reading.
+	 * 
+	 * @return True if temporary files are mapped.
+	 */
+	public static boolean isTempFileMappingEnabled() {
+		return tempFileMappingEnabled;
+	}
+	
+	
 	/**
 	 * Initialises the output file and configures the class for adding data.
 	 */
@@ -178,20 +210,42 @@ public class RandomAccessObjectStore<T extends Storeable> implements Completable
 	 * @return A store reader.
 	 */
 	public RandomAccessObjectStoreReader<T> createReader() {
+		RandomAccessInputStream randomFileReader;
+		
 		initializeReadingStage();
 		
+		randomFileReader = openRandomFile();
+		
+		return new RandomAccessObjectStoreReader<T>(
+			randomFileReader,
+			serializationFactory.createObjectReader(
+					new DataInputStoreReader(
+							new DataInputStream(randomFileReader)), storeClassRegister)
+		);
+	}
+	
+	
+	/**
+	 * Opens the storage file for random access. The file is no longer modified
+	 * once reading begins so it is mapped into memory where possible, allowing
+	 * random reads to be served from the page cache without system calls. If
+	 * the file can't be mapped, for example due to a lack of address space,
+	 * or if it is a temporary file and temporary file mapping is disabled,
+	 * buffered file reads are used instead.
+	 * 
+	 * @return The random access stream.
+	 */
+	private RandomAccessInputStream openRandomFile() {
+		if (tempFile == null || tempFileMappingEnabled) {
+			try {
+				return new MappedFileInputStream(storageFile);
+			} catch (IOException e) {
+				LOG.log(Level.FINE, "Unable to map file " + storageFile + ", falling back to buffered reads.", e);
+			}
+		}
+		
 		try {
-			BufferedRandomAccessFileInputStream randomFileReader;
-			
-			randomFileReader = new BufferedRandomAccessFileInputStream(storageFile);
-			
-			return new RandomAccessObjectStoreReader<T>(
-				randomFileReader,
-				serializationFactory.createObjectReader(
-						new DataInputStoreReader(
-								new DataInputStream(randomFileReader)), storeClassRegister)
-			);
-			
+			return new BufferedRandomAccessFileInputStream(storageFile);
 		} catch (FileNotFoundException e) {
 			throw new OsmosisRuntimeException(
 					"Unable to create object stream reading from file " + storageFile + ".", e);
@@ -240,6 +294,11 @@ public class RandomAccessObjectStore<T extends Storeable> implements Completable
 		
 		if (tempFile != null) {
 			if (!tempFile.delete()) {
+				// A mapped file can't be deleted on some platforms until its
+				// buffers are garbage collected.
+				if (tempFileMappingEnabled) {
+					tempFile.deleteOnExit();
+				}
 				// We cannot throw an exception within a release statement.
 				LOG.warning("Unable to delete file " + tempFile);
 			}
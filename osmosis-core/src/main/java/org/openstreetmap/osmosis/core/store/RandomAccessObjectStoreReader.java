@@ -24,7 +24,7 @@ import org.openstreetmap.osmosis.core.lifecycle.Closeable;
 public class RandomAccessObjectStoreReader<T> implements Closeable {
 	private static final Logger LOG = Logger.getLogger(RandomAccessObjectStoreReader.class.getName());
 	
-	private BufferedRandomAccessFileInputStream randomFile;
+	private RandomAccessInputStream randomFile;
 	private ObjectReader objectReader;
 	
 	
@@ -32,11 +32,11 @@ public class RandomAccessObjectStoreReader<T> implements Closeable {
 	 * Creates a new instance.
 	 * 
 	 * @param randomFile
-	 *            A read-only random access file opened on the store file.
+	 *            A read-only random access stream opened on the store file.
 	 * @param objectReader
 	 *            The reader containing the objects to be deserialized.
 	 */
-	public RandomAccessObjectStoreReader(BufferedRandomAccessFileInputStream randomFile, ObjectReader objectReader) {
+	public RandomAccessObjectStoreReader(RandomAccessInputStream randomFile, ObjectReader objectReader) {
 		this.randomFile = randomFile;
 		this.objectReader = objectReader;
 	}
@@ -72,6 +72,25 @@ public class RandomAccessObjectStoreReader<T> implements Closeable {
 	}
 	
 	
+	/**
+	 * Reads a long directly from the specified file offset without
+	 * deserializing an object. This is only meaningful for stores containing
+	 * fixed layout objects such as index elements.
+	 * 
+	 * @param offset
+	 *            The file offset to read the long from.
+	 * @return The long value.
+	 */
+	public long readLong(long offset) {
+		try {
+			return randomFile.readLong(offset);
+		} catch (IOException e) {
+			throw new OsmosisRuntimeException(
+					"Unable to read a long at position " + offset + " in the storage file.", e);
+		}
+	}
+	
+	
 	/**
 	 * Returns the length of data.
 	 * 
@@ -0,0 +1,619 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+
+/**
+ * <p>
+ * A postbox implementation passing data between a single writing thread and a
+ * single reading thread through a bounded ring buffer without acquiring locks.
+ * It follows the same calling sequence, blocking behaviour and error
+ * propagation rules as {@link DataPostbox}, refer to that class for details.
+ * </p>
+ * <p>
+ * The writing thread owns the tail sequence, the reading thread owns the head
+ * sequence. Each sequence is padded to occupy its own cache line so the two
+ * threads don't contend for the same memory. Sequences are published in
+ * chunks of one quarter of the buffer capacity so that in steady state each
+ * thread only touches shared memory once per chunk. A thread that must wait
+ * spins briefly, then yields, then parks until woken by the other thread.
+ * </p>
+ *
+ * @param <T>
+ *            The type of data held in the postbox.
+ */
+public class RingBufferPostbox<T> implements Postbox<T> {
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 10;
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final int bufferCapacity;
+	private final int chunkSize;
+	private final int mask;
+	private final Object[] buffer;
+	private final Sequence head;
+	private final Sequence tail;
+
+	// Fields only accessed by the input thread.
+	private long inputPosition;
+	private long cachedHead;
+
+	// Fields only accessed by the output thread.
+	private long outputPosition;
+	private long cachedTail;
+
+	// Monitoring statistics, each is only written by a single thread.
+	private volatile long putBlockedTime;
+	private volatile long getBlockedTime;
+
+	private volatile Thread inputWaiter;
+	private volatile Thread outputWaiter;
+	private volatile Map<String, Object> processingMetaData;
+	private volatile boolean inputInitialized;
+	private volatile boolean outputInitialized;
+	private volatile boolean inputComplete;
+	private volatile boolean outputComplete;
+	private volatile boolean inputReleased;
+	private volatile boolean outputReleased;
+	private volatile boolean inputExit;
+	private volatile boolean outputExit;
+	private volatile boolean inputOkay;
+	private volatile boolean outputOkay;
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param capacity
+	 *            The maximum number of objects to hold in the postbox before
+	 *            blocking.
+	 */
+	public RingBufferPostbox(int capacity) {
+		if (capacity <= 0) {
+			throw new OsmosisRuntimeException("A capacity of " + capacity + " is invalid, must be greater than 0.");
+		}
+
+		bufferCapacity = capacity;
+
+		// Publish in chunks of one quarter of the buffer, as per DataPostbox.
+		chunkSize = Math.max(1, bufferCapacity / 4);
+
+		// The array is sized to the next power of two so that positions can be
+		// mapped to slots with a mask. The configured capacity still limits
+		// the number of objects held.
+		int arraySize = Integer.highestOneBit(capacity);
+		if (arraySize < capacity) {
+			arraySize <<= 1;
+		}
+		mask = arraySize - 1;
+		buffer = new Object[arraySize];
+
+		head = new Sequence();
+		tail = new Sequence();
+
+		inputExit = true;
+		outputExit = true;
+		inputOkay = true;
+		outputOkay = true;
+	}
+
+
+	/**
+	 * This is called by the input thread to validate that no errors have
+	 * occurred on the output thread.
+	 */
+	private void checkForOutputErrors() {
+		if (!outputOkay) {
+			throw new OsmosisRuntimeException("An output error has occurred, aborting.");
+		}
+	}
+
+
+	/**
+	 * This is called by the output thread to validate that no errors have
+	 * occurred on the input thread.
+	 */
+	private void checkForInputErrors() {
+		if (!inputOkay) {
+			throw new OsmosisRuntimeException("An input error has occurred, aborting.");
+		}
+	}
+
+
+	/**
+	 * Validates that no errors have occurred on the thread at the other end of
+	 * the postbox.
+	 *
+	 * @param inputThread
+	 *            True if the caller is the input thread, false for the output
+	 *            thread.
+	 */
+	private void checkForErrors(boolean inputThread) {
+		if (inputThread) {
+			checkForOutputErrors();
+		} else {
+			checkForInputErrors();
+		}
+	}
+
+
+	/**
+	 * Wakes the input thread if it is parked waiting for an update.
+	 */
+	private void signalInput() {
+		Thread waiter = inputWaiter;
+		if (waiter != null) {
+			LockSupport.unpark(waiter);
+		}
+	}
+
+
+	/**
+	 * Wakes the output thread if it is parked waiting for an update.
+	 */
+	private void signalOutput() {
+		Thread waiter = outputWaiter;
+		if (waiter != null) {
+			LockSupport.unpark(waiter);
+		}
+	}
+
+
+	/**
+	 * Blocks the calling thread until the condition is satisfied. The caller
+	 * first spins, then yields, then parks. The other thread will unpark a
+	 * parked caller after each update, parking is also time limited as a
+	 * safeguard.
+	 *
+	 * @param condition
+	 *            The condition to wait for.
+	 * @param inputThread
+	 *            True if the caller is the input thread, false for the output
+	 *            thread.
+	 * @param checkErrors
+	 *            If true, errors flagged by the other thread will abort the
+	 *            wait.
+	 */
+	private void waitUntil(BooleanSupplier condition, boolean inputThread, boolean checkErrors) {
+		int attempts = 0;
+
+		while (true) {
+			if (checkErrors) {
+				checkForErrors(inputThread);
+			}
+
+			if (condition.getAsBoolean()) {
+				return;
+			}
+
+			if (attempts < SPIN_TRIES) {
+				Thread.onSpinWait();
+			} else if (attempts < SPIN_TRIES + YIELD_TRIES) {
+				Thread.yield();
+			} else {
+				// Register as a waiter then re-check the condition to avoid
+				// missing a signal sent between the check and the park.
+				Thread current = Thread.currentThread();
+				if (inputThread) {
+					inputWaiter = current;
+				} else {
+					outputWaiter = current;
+				}
+				try {
+					if (condition.getAsBoolean()) {
+						return;
+					}
+					if (checkErrors) {
+						checkForErrors(inputThread);
+					}
+					LockSupport.parkNanos(this, MAX_PARK_NANOS);
+				} finally {
+					if (inputThread) {
+						inputWaiter = null;
+					} else {
+						outputWaiter = null;
+					}
+				}
+				if (Thread.interrupted()) {
+					throw new OsmosisRuntimeException("Thread was interrupted.");
+				}
+			}
+
+			attempts++;
+		}
+	}
+
+
+	/**
+	 * Makes all objects added by the input thread visible to the output thread.
+	 */
+	private void publishInput() {
+		checkForOutputErrors();
+
+		if (inputPosition != tail.get()) {
+			tail.setOrdered(inputPosition);
+			signalOutput();
+		}
+	}
+
+
+	/**
+	 * Makes all slots consumed by the output thread available to the input
+	 * thread.
+	 */
+	private void publishOutput() {
+		if (outputPosition != head.get()) {
+			head.setOrdered(outputPosition);
+			signalInput();
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void initialize(Map<String, Object> metaData) {
+		if (inputInitialized) {
+			throw new OsmosisRuntimeException("initialize has already been called");
+		}
+
+		checkForOutputErrors();
+
+		// Set the processing metadata, and flag that we have initialized.
+		processingMetaData = metaData;
+		inputInitialized = true;
+		signalOutput();
+
+		// Now we must wait until the output thread initializes or encounters
+		// an error.
+		waitUntil(() -> outputInitialized, true, true);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void put(T o) {
+		if (!inputInitialized) {
+			throw new OsmosisRuntimeException("initialize has not been called");
+		}
+
+		// Wait for space if the buffer is full. Pending data must be published
+		// first otherwise the output thread may be waiting on it.
+		if (inputPosition - cachedHead >= bufferCapacity) {
+			cachedHead = head.get();
+
+			if (inputPosition - cachedHead >= bufferCapacity) {
+				long blockStart;
+
+				publishInput();
+				blockStart = System.nanoTime();
+				waitUntil(() -> inputPosition - head.get() < bufferCapacity, true, true);
+				putBlockedTime += System.nanoTime() - blockStart;
+				cachedHead = head.get();
+			}
+		}
+
+		buffer[(int) inputPosition & mask] = o;
+		inputPosition++;
+
+		if (inputPosition - tail.get() >= chunkSize) {
+			publishInput();
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void complete() {
+		if (!inputInitialized) {
+			throw new OsmosisRuntimeException("initialize has not been called");
+		}
+
+		publishInput();
+
+		inputComplete = true;
+		signalOutput();
+
+		// Now we must wait until the output thread completes or encounters an
+		// error.
+		waitUntil(() -> outputComplete, true, true);
+	}
+
+
+	/**
+	 * This method conforms to the
+	 * {@link org.openstreetmap.osmosis.core.lifecycle.Closeable} contract,
+	 * however there are limitations around calling it multiple times. Each call
+	 * to this method must be matched by a call to the outputRelease method in a
+	 * separate thread or deadlock will occur.
+	 */
+	@Override
+	public void close() {
+		// If release is being called without having completed successfully, it
+		// is an error condition.
+		if (!inputComplete) {
+			inputOkay = false;
+		}
+
+		// Discard any data that was never published.
+		long publishedPosition = tail.get();
+		while (inputPosition > publishedPosition) {
+			inputPosition--;
+			buffer[(int) inputPosition & mask] = null;
+		}
+
+		// The exit flag must be cleared before the release flag is visible to
+		// the output thread.
+		inputExit = false;
+		inputReleased = true;
+		signalOutput();
+
+		// Wait until the output thread releases.
+		waitUntil(() -> outputReleased, true, false);
+
+		// At this point both threads have reached a release state so we can
+		// reset our state.
+		cachedHead = head.get();
+		inputInitialized = false;
+		inputComplete = false;
+		inputOkay = true;
+		inputReleased = false;
+		inputExit = true;
+		signalOutput();
+
+		// Wait for the output thread to exit.
+		waitUntil(() -> outputExit, true, false);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Object> outputInitialize() {
+		if (outputInitialized) {
+			throw new OsmosisRuntimeException("outputInitialize has already been called");
+		}
+
+		// We must wait until the input thread initializes or encounters an
+		// error.
+		waitUntil(() -> inputInitialized, false, true);
+
+		outputInitialized = true;
+		signalInput();
+
+		return processingMetaData;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext() {
+		if (!outputInitialized) {
+			throw new OsmosisRuntimeException("outputInitialize has not been called");
+		}
+
+		long blockStart;
+
+		if (outputPosition < cachedTail) {
+			return true;
+		}
+
+		// All known data has been consumed, return the free space to the input
+		// thread before looking for more.
+		publishOutput();
+
+		cachedTail = tail.get();
+		if (outputPosition < cachedTail) {
+			return true;
+		}
+
+		// Wait until data is available or input is complete. The tail must be
+		// re-read after seeing the complete flag because the final chunk is
+		// published immediately before it.
+		blockStart = System.nanoTime();
+		waitUntil(() -> inputComplete || outputPosition < tail.get(), false, true);
+		getBlockedTime += System.nanoTime() - blockStart;
+		cachedTail = tail.get();
+
+		return outputPosition < cachedTail;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isDataAvailable() {
+		if (outputPosition < cachedTail) {
+			return true;
+		}
+
+		cachedTail = tail.get();
+
+		return outputPosition < cachedTail;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public T getNext() {
+		if (hasNext()) {
+			int slot = (int) outputPosition & mask;
+
+			@SuppressWarnings("unchecked")
+			T result = (T) buffer[slot];
+			buffer[slot] = null;
+			outputPosition++;
+
+			if (outputPosition - head.get() >= chunkSize) {
+				publishOutput();
+			}
+
+			return result;
+
+		} else {
+			throw new OsmosisRuntimeException("No data is available, should call hasNext first.");
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void outputComplete() {
+		if (!outputInitialized) {
+			throw new OsmosisRuntimeException("outputInitialize has not been called");
+		}
+
+		// We must wait until the input thread completes or encounters an error.
+		waitUntil(() -> inputComplete, false, true);
+
+		outputComplete = true;
+		signalInput();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void outputRelease() {
+		// If release is being called without having completed successfully, it
+		// is an error condition.
+		if (!outputComplete) {
+			outputOkay = false;
+			signalInput();
+		}
+
+		// Wait until the input thread is released.
+		waitUntil(() -> inputReleased, false, false);
+
+		// The input thread has stopped publishing so any remaining data can be
+		// discarded.
+		long publishedPosition = tail.get();
+		while (outputPosition < publishedPosition) {
+			buffer[(int) outputPosition & mask] = null;
+			outputPosition++;
+		}
+		cachedTail = publishedPosition;
+		head.setOrdered(outputPosition);
+
+		// At this point both threads have reached a release state so we can set
+		// our state as released but waiting for exit.
+		outputInitialized = false;
+		outputComplete = false;
+		outputOkay = true;
+		outputExit = false;
+		outputReleased = true;
+		signalInput();
+
+		// Wait until the input thread has reached the exit point.
+		waitUntil(() -> inputExit, false, false);
+
+		// The input thread has reached exit, so now we can clear the release
+		// flag (required so that subsequent iterations if they exist must go
+		// through the same handshake sequence) and flag that we've reached
+		// exit.
+		outputReleased = false;
+		outputExit = true;
+		signalInput();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return (int) (tail.get() - head.get());
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getPutBlockedTime() {
+		return putBlockedTime;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getGetBlockedTime() {
+		return getBlockedTime;
+	}
+
+
+	/**
+	 * Padding occupying the cache line before a sequence value.
+	 */
+	@SuppressWarnings("unused")
+	private static class LeftPadding {
+		private long p01, p02, p03, p04, p05, p06, p07;
+	}
+
+
+	/**
+	 * Holds the sequence value.
+	 */
+	private static class SequenceValue extends LeftPadding {
+		protected volatile long value;
+	}
+
+
+	/**
+	 * A sequence counter padded to occupy its own cache line. Values are
+	 * written by a single thread and read by the other.
+	 */
+	@SuppressWarnings("unused")
+	private static final class Sequence extends SequenceValue {
+		private static final AtomicLongFieldUpdater<SequenceValue> UPDATER =
+				AtomicLongFieldUpdater.newUpdater(SequenceValue.class, "value");
+
+		private long p11, p12, p13, p14, p15, p16, p17;
+
+
+		/**
+		 * Gets the current value.
+		 *
+		 * @return The value.
+		 */
+		public long get() {
+			return value;
+		}
+
+
+		/**
+		 * Sets the value with release semantics. This is cheaper than a
+		 * volatile write but still guarantees that all prior writes by the
+		 * calling thread are visible to a thread that reads the new value.
+		 *
+		 * @param newValue
+		 *            The new value.
+		 */
+		public void setOrdered(long newValue) {
+			UPDATER.lazySet(this, newValue);
+		}
+	}
+}
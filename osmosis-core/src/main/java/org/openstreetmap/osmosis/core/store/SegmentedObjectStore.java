@@ -1,19 +1,17 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.store;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.lifecycle.Completable;
@@ -43,13 +41,14 @@ public class SegmentedObjectStore<T extends Storeable> implements Completable {
 	private String storageFilePrefix;
 	private File file;
 	private FileOutputStream fileOutStream;
+	private OffsetTrackingOutputStream offsetTrackingStream;
 	private DataOutputStream dataOutStream;
-	private ByteArrayOutputStream arrayOutStream;
 	private StoreClassRegister storeClassRegister;
 	private ObjectWriter objectWriter;
 	private boolean chunkActive; 
-	private boolean useCompression;
-	private long fileSize;
+	private long chunkObjectCount;
+	private List<Long> chunkObjectCounts;
+	private StoreCompression compression;
 	
 	
 	/**
@@ -60,20 +59,87 @@ public class SegmentedObjectStore<T extends Storeable> implements Completable {
 	 * @param storageFilePrefix
 	 *            The prefix of the storage file.
 	 * @param useCompression
-	 *            If true, the storage file will be compressed.
+	 *            If true, the storage file will be compressed using the
+	 *            default store compression method.
 	 */
 	public SegmentedObjectStore(
 			ObjectSerializationFactory serializationFactory, String storageFilePrefix, boolean useCompression) {
+		this(serializationFactory, storageFilePrefix, StoreCompression.fromFlag(useCompression));
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param serializationFactory
+	 *            The factory defining the object serialisation implementation.
+	 * @param storageFilePrefix
+	 *            The prefix of the storage file.
+	 * @param compression
+	 *            The compression method for the storage file.
+	 */
+	public SegmentedObjectStore(
+			ObjectSerializationFactory serializationFactory, String storageFilePrefix, StoreCompression compression) {
 		this.serializationFactory = serializationFactory;
 		this.storageFilePrefix = storageFilePrefix;
-		this.useCompression = useCompression;
+		this.compression = compression;
 		
 		storeClassRegister = new DynamicStoreClassRegister();
 		
 		stage = StorageStage.NotStarted;
-		fileSize = 0;
 		
 		chunkActive = false;
+		chunkObjectCounts = new ArrayList<Long>();
+	}
+	
+	
+	/**
+	 * Reads objects across all chunks of the store. Each chunk was written by
+	 * its own object writer so a new object reader is created at the start of
+	 * each chunk. This allows serialisation formats holding state between
+	 * objects such as the compact format to be read from the start of the
+	 * file.
+	 */
+	private class ChunkObjectReader implements ObjectReader {
+		private StoreReader storeReader;
+		private ObjectReader objectReader;
+		private int chunkIndex;
+		private long chunkObjectsRemaining;
+		
+		
+		/**
+		 * Creates a new instance.
+		 * 
+		 * @param storeReader
+		 *            The reader positioned at the start of the first chunk.
+		 */
+		ChunkObjectReader(StoreReader storeReader) {
+			this.storeReader = storeReader;
+			
+			chunkIndex = -1;
+			chunkObjectsRemaining = 0;
+		}
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Storeable readObject() {
+			while (chunkObjectsRemaining <= 0) {
+				chunkIndex++;
+				if (chunkIndex >= chunkObjectCounts.size()) {
+					throw new EndOfStoreException("No more chunks are available in the store.");
+				}
+				
+				chunkObjectsRemaining = chunkObjectCounts.get(chunkIndex);
+				objectReader = serializationFactory.createObjectReader(storeReader, storeClassRegister);
+			}
+			
+			chunkObjectsRemaining--;
+			
+			return objectReader.readObject();
+		}
 	}
 	
 	
@@ -95,6 +161,7 @@ public class SegmentedObjectStore<T extends Storeable> implements Completable {
 				file = File.createTempFile(storageFilePrefix, null);
 				
 				fileOutStream = new FileOutputStream(file);
+				offsetTrackingStream = new OffsetTrackingOutputStream(new BufferedOutputStream(fileOutStream, 65536));
 				
 				stage = StorageStage.Add;
 				
@@ -105,41 +172,21 @@ public class SegmentedObjectStore<T extends Storeable> implements Completable {
 		
 		// Initialise the current chunk if it isn't already.
 		if (!chunkActive) {
-			try {
-				arrayOutStream = new ByteArrayOutputStream();
-				
-				if (useCompression) {
-					dataOutStream = new DataOutputStream(
-							new BufferedOutputStream(
-									new GZIPOutputStream(arrayOutStream), 65536));
-				} else {
-					dataOutStream = new DataOutputStream(new BufferedOutputStream(arrayOutStream, 65536));
-				}
-				
-				objectWriter = serializationFactory.createObjectWriter(
-						new DataOutputStoreWriter(dataOutStream), storeClassRegister);
-				
-				chunkActive = true;
-				
-			} catch (IOException e) {
-				throw new OsmosisRuntimeException("Unable to create object stream.", e);
-			}
+			// Each chunk is an independent compressed stream so that reads can
+			// begin at the start of any chunk.
+			dataOutStream = new DataOutputStream(
+					new BufferedOutputStream(compression.createOutputStream(offsetTrackingStream), 65536));
+			
+			objectWriter = serializationFactory.createObjectWriter(
+					new DataOutputStoreWriter(dataOutStream), storeClassRegister);
+			
+			chunkActive = true;
+			chunkObjectCount = 0;
 		}
 		
 		// Write the object to the store.
 		objectWriter.writeObject(data);
-		
-		// Update the file position based on the buffer size.
-		fileSize += arrayOutStream.size();
-		
-		// Write the buffer to file, and clear the buffer.
-		try {
-			arrayOutStream.writeTo(fileOutStream);
-			arrayOutStream.reset();
-			
-		} catch (IOException e) {
-			throw new OsmosisRuntimeException("Unable to write object to file.", e);
-		}
+		chunkObjectCount++;
 	}
 	
 	
@@ -160,16 +207,17 @@ public class SegmentedObjectStore<T extends Storeable> implements Completable {
 		// Nothing needs to be done if the chunk is not yet active.
 		if (chunkActive) {
 			try {
-				dataOutStream.close();
-				fileSize += arrayOutStream.size();
-				
-				arrayOutStream.writeTo(fileOutStream);
-				arrayOutStream.reset();
+				// Flushing writes all data of the chunk without closing the
+				// underlying file.
+				dataOutStream.flush();
 				
 				// Subsequent writes must begin a new object stream.
-				arrayOutStream = null;
 				dataOutStream = null;
 				
+				// Reads of the whole store must begin a new object stream at
+				// the same point.
+				chunkObjectCounts.add(chunkObjectCount);
+				
 				chunkActive = false;
 				
 			} catch (IOException e) {
@@ -177,7 +225,7 @@ public class SegmentedObjectStore<T extends Storeable> implements Completable {
 			}
 		}
 		
-		return fileSize;
+		return offsetTrackingStream.getByteCount();
 	}
 	
 	
@@ -204,11 +252,12 @@ public class SegmentedObjectStore<T extends Storeable> implements Completable {
 			closeChunk();
 			
 			try {
-				fileOutStream.close();
+				offsetTrackingStream.close();
 				
 			} catch (IOException e) {
 				throw new OsmosisRuntimeException("Unable to close output stream.", e);
 			} finally {
+				offsetTrackingStream = null;
 				fileOutStream = null;
 			}
 			
@@ -222,6 +271,7 @@ public class SegmentedObjectStore<T extends Storeable> implements Completable {
 	
 	/**
 	 * Returns an iterator for reading objects from the underlying data store.
+	 * All chunks are returned in the order they were written.
 	 * 
 	 * @return An iterator for reading objects from the data store. This
 	 *         iterator must be released after use.
@@ -270,25 +320,21 @@ public class SegmentedObjectStore<T extends Storeable> implements Completable {
 			}
 			
 			// Create the object input stream.
-			try {
-				if (useCompression) {
-					dataInStream = new DataInputStream(
-							new BufferedInputStream(
-									new GZIPInputStream(fileStream), 65536));
-				} else {
-					dataInStream = new DataInputStream(new BufferedInputStream(fileStream, 65536));
-				}
-				
-			} catch (IOException e) {
-				throw new OsmosisRuntimeException("Unable to open object stream.", e);
-			}
+			dataInStream = new DataInputStream(
+					compression.createBufferedInputStream(fileStream, 65536));
 			
 			// The stream will be owned by the caller, therefore we must clear
 			// the reference now so it isn't closed on method exit.
 			fileStream = null;
 			
-			objectReader = serializationFactory.createObjectReader(
-					new DataInputStoreReader(dataInStream), storeClassRegister);
+			// A read from the start of the file spans all chunks, each of which
+			// requires its own object reader.
+			if (streamOffset == 0 && maxObjectCount < 0) {
+				objectReader = new ChunkObjectReader(new DataInputStoreReader(dataInStream));
+			} else {
+				objectReader = serializationFactory.createObjectReader(
+						new DataInputStoreReader(dataInStream), storeClassRegister);
+			}
 			
 			if (maxObjectCount >= 0) {
 				return new SubObjectStreamIterator<T>(dataInStream, objectReader, maxObjectCount);
@@ -322,6 +368,7 @@ public class SegmentedObjectStore<T extends Storeable> implements Completable {
 	 * {@inheritDoc}
 	 */
 	public void close() {
+		offsetTrackingStream = null;
 		if (fileOutStream != null) {
 			try {
 				fileOutStream.close();
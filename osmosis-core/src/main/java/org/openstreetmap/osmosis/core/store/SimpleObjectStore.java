@@ -1,7 +1,6 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.store;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -11,8 +10,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.lifecycle.Completable;
@@ -38,7 +35,7 @@ public class SimpleObjectStore<T extends Storeable> implements Completable {
 	private DataOutputStream dataOutStream;
 	private StoreClassRegister storeClassRegister;
 	private ObjectWriter objectWriter;
-	private boolean useCompression;
+	private StoreCompression compression;
 	
 	
 	/**
@@ -49,13 +46,30 @@ public class SimpleObjectStore<T extends Storeable> implements Completable {
 	 * @param storageFilePrefix
 	 *            The prefix of the storage file.
 	 * @param useCompression
-	 *            If true, the storage file will be compressed.
+	 *            If true, the storage file will be compressed using the
+	 *            default store compression method.
 	 */
 	public SimpleObjectStore(
 			ObjectSerializationFactory serializationFactory, String storageFilePrefix, boolean useCompression) {
+		this(serializationFactory, storageFilePrefix, StoreCompression.fromFlag(useCompression));
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param serializationFactory
+	 *            The factory defining the object serialisation implementation.
+	 * @param storageFilePrefix
+	 *            The prefix of the storage file.
+	 * @param compression
+	 *            The compression method for the storage file.
+	 */
+	public SimpleObjectStore(
+			ObjectSerializationFactory serializationFactory, String storageFilePrefix, StoreCompression compression) {
 		this.serializationFactory = serializationFactory;
 		this.storageFilePrefix = storageFilePrefix;
-		this.useCompression = useCompression;
+		this.compression = compression;
 		
 		storeClassRegister = new DynamicStoreClassRegister();
 		
@@ -82,13 +96,8 @@ public class SimpleObjectStore<T extends Storeable> implements Completable {
 				
 				fileOutStream = new FileOutputStream(file);
 				
-				if (useCompression) {
-					dataOutStream = new DataOutputStream(
-							new BufferedOutputStream(new GZIPOutputStream(fileOutStream), 65536));
-				} else {
-					dataOutStream = new DataOutputStream(
-							new BufferedOutputStream(fileOutStream, 65536));
-				}
+				dataOutStream = new DataOutputStream(
+						new BufferedOutputStream(compression.createOutputStream(fileOutStream), 65536));
 				
 				objectWriter = serializationFactory.createObjectWriter(
 						new DataOutputStoreWriter(dataOutStream), storeClassRegister);
@@ -169,18 +178,8 @@ public class SimpleObjectStore<T extends Storeable> implements Completable {
 			}
 			
 			// Create the object input stream.
-			try {
-				if (useCompression) {
-					dataInStream = new DataInputStream(
-							new BufferedInputStream(new GZIPInputStream(fileStream), 65536));
-				} else {
-					dataInStream = new DataInputStream(
-							new BufferedInputStream(fileStream, 65536));
-				}
-				
-			} catch (IOException e) {
-				throw new OsmosisRuntimeException("Unable to open object stream.", e);
-			}
+			dataInStream = new DataInputStream(
+					compression.createBufferedInputStream(fileStream, 65536));
 			
 			// The stream will be owned by the caller, therefore we must clear
 			// the reference now so it isn't closed on method exit.
@@ -0,0 +1,183 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+
+/**
+ * Defines the compression methods available for temporary store files. The
+ * compressed methods split data into blocks which are compressed and
+ * decompressed on background threads.
+ */
+public enum StoreCompression {
+	/**
+	 * Data is written without compression. This uses the least CPU and the
+	 * most disk space.
+	 */
+	None,
+	/**
+	 * Data is compressed using deflate, the algorithm used by gzip. This uses
+	 * the least disk space but is CPU intensive and often slower than writing
+	 * uncompressed data.
+	 */
+	Deflate,
+	/**
+	 * Data is compressed using a very fast LZ codec. This typically halves the
+	 * disk space of uncompressed data while compressing faster than most
+	 * disks can write.
+	 */
+	Lz;
+
+
+	/**
+	 * The compression method used by stores that request compression without
+	 * specifying a method.
+	 */
+	private static volatile StoreCompression defaultCompression = Deflate;
+
+
+	/**
+	 * Creates a new codec for this compression method.
+	 *
+	 * @return The codec, or null if data is not compressed.
+	 */
+	private BlockCodec createCodec() {
+		if (Deflate.equals(this)) {
+			return new DeflateBlockCodec();
+		} else if (Lz.equals(this)) {
+			return new LzBlockCodec();
+		} else {
+			return null;
+		}
+	}
+
+
+	/**
+	 * Wraps an output stream with a stream compressing data using this
+	 * method.
+	 *
+	 * @param out
+	 *            The stream to receive the compressed data.
+	 * @return The compressing stream, or the original stream if data is not
+	 *         compressed.
+	 */
+	public OutputStream createOutputStream(OutputStream out) {
+		BlockCodec codec;
+
+		codec = createCodec();
+		if (codec == null) {
+			return out;
+		}
+
+		return new BlockOutputStream(out, codec);
+	}
+
+
+	/**
+	 * Wraps an input stream with a stream decompressing data written by
+	 * {@link #createOutputStream(OutputStream)}.
+	 *
+	 * @param in
+	 *            The stream containing the compressed data.
+	 * @return The decompressing stream, or the original stream if data is not
+	 *         compressed.
+	 */
+	public InputStream createInputStream(InputStream in) {
+		BlockCodec codec;
+
+		codec = createCodec();
+		if (codec == null) {
+			return in;
+		}
+
+		return new BlockInputStream(in, codec);
+	}
+
+
+	/**
+	 * Wraps an input stream with a buffered stream decompressing data written
+	 * by {@link #createOutputStream(OutputStream)}. Compressed streams are
+	 * already buffered in blocks so a buffer is only added if data is not
+	 * compressed.
+	 *
+	 * @param in
+	 *            The stream containing the compressed data.
+	 * @param bufferSize
+	 *            The size of the buffer used if data is not compressed.
+	 * @return The buffered decompressing stream.
+	 */
+	public InputStream createBufferedInputStream(InputStream in, int bufferSize) {
+		BlockCodec codec;
+
+		codec = createCodec();
+		if (codec == null) {
+			return new BufferedInputStream(in, bufferSize);
+		}
+
+		return new BlockInputStream(in, codec);
+	}
+
+
+	/**
+	 * Sets the compression method used by stores that request compression
+	 * without specifying a method. This is normally configured once by the
+	 * command line application before the pipeline is executed.
+	 *
+	 * @param compression
+	 *            The new default compression method.
+	 */
+	public static void setDefault(StoreCompression compression) {
+		defaultCompression = compression;
+	}
+
+
+	/**
+	 * Gets the compression method used by stores that request compression
+	 * without specifying a method.
+	 *
+	 * @return The default compression method.
+	 */
+	public static StoreCompression getDefault() {
+		return defaultCompression;
+	}
+
+
+	/**
+	 * Converts a store compression flag into a compression method.
+	 *
+	 * @param useCompression
+	 *            If true, the default compression method is returned.
+	 * @return The compression method.
+	 */
+	public static StoreCompression fromFlag(boolean useCompression) {
+		if (useCompression) {
+			return defaultCompression;
+		} else {
+			return None;
+		}
+	}
+
+
+	/**
+	 * Parses the name of a compression method. The name is matched without
+	 * regard to case.
+	 *
+	 * @param name
+	 *            The name of the compression method.
+	 * @return The compression method.
+	 */
+	public static StoreCompression parse(String name) {
+		for (StoreCompression candidate : values()) {
+			if (candidate.name().equalsIgnoreCase(name)) {
+				return candidate;
+			}
+		}
+
+		throw new OsmosisRuntimeException(
+				"The store compression " + name + " is not recognised, expected none, deflate or lz.");
+	}
+}
@@ -65,4 +65,29 @@ public interface StoreReader {
 	 * @return The loaded value.
 	 */
 	String readString();
+	
+	
+	/**
+	 * Reads a long written by {@link StoreWriter#writeDeltaLong(DeltaChannel, long)}.
+	 * 
+	 * @param channel
+	 *            The sequence the value belongs to.
+	 * @return The loaded value.
+	 */
+	default long readDeltaLong(DeltaChannel channel) {
+		return readLong();
+	}
+	
+	
+	/**
+	 * Reads an integer written by
+	 * {@link StoreWriter#writeDeltaInteger(DeltaChannel, int)}.
+	 * 
+	 * @param channel
+	 *            The sequence the value belongs to.
+	 * @return The loaded value.
+	 */
+	default int readDeltaInteger(DeltaChannel channel) {
+		return readInteger();
+	}
 }
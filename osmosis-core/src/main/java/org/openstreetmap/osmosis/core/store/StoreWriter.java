@@ -70,4 +70,34 @@ public interface StoreWriter {
 	 *            The value to be written.
 	 */
 	void writeString(String value);
+	
+	
+	/**
+	 * Writes a long belonging to a sequence of related values. Implementations
+	 * supporting delta coding store the difference from the previous value in
+	 * the same sequence, all others store the value as is.
+	 * 
+	 * @param channel
+	 *            The sequence the value belongs to.
+	 * @param value
+	 *            The value to be written.
+	 */
+	default void writeDeltaLong(DeltaChannel channel, long value) {
+		writeLong(value);
+	}
+	
+	
+	/**
+	 * Writes an integer belonging to a sequence of related values.
+	 * Implementations supporting delta coding store the difference from the
+	 * previous value in the same sequence, all others store the value as is.
+	 * 
+	 * @param channel
+	 *            The sequence the value belongs to.
+	 * @param value
+	 *            The value to be written.
+	 */
+	default void writeDeltaInteger(DeltaChannel channel, int value) {
+		writeInteger(value);
+	}
 }
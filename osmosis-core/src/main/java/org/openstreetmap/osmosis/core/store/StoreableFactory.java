@@ -0,0 +1,27 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+
+/**
+ * Creates instances of a Storeable class from data in a store. Factories are
+ * registered with {@link StoreableFactoryRegister} and allow object readers to
+ * instantiate classes without reflection.
+ * 
+ * @param <T>
+ *            The type of object created by the factory.
+ */
+@FunctionalInterface
+public interface StoreableFactory<T extends Storeable> {
+	
+	/**
+	 * Creates a new object from data in the store.
+	 * 
+	 * @param sr
+	 *            The store to read state from.
+	 * @param scr
+	 *            Maintains the mapping between classes and their identifiers
+	 *            within the store.
+	 * @return The newly created object.
+	 */
+	T create(StoreReader sr, StoreClassRegister scr);
+}
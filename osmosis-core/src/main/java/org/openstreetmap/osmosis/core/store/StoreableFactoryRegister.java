@@ -0,0 +1,52 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Maintains the factories used to instantiate Storeable classes when reading
+ * from a store. Classes register a factory, typically a reference to their
+ * storeable constructor, when they are initialised. Classes without a
+ * registered factory are instantiated by reflection.
+ */
+public final class StoreableFactoryRegister {
+	
+	private static final Map<Class<?>, StoreableFactory<?>> FACTORIES =
+			new ConcurrentHashMap<Class<?>, StoreableFactory<?>>();
+	
+	
+	/**
+	 * This class cannot be instantiated.
+	 */
+	private StoreableFactoryRegister() {
+	}
+	
+	
+	/**
+	 * Registers the factory for a class.
+	 * 
+	 * @param <T>
+	 *            The type of object created by the factory.
+	 * @param clazz
+	 *            The class created by the factory.
+	 * @param factory
+	 *            The factory.
+	 */
+	public static <T extends Storeable> void register(Class<T> clazz, StoreableFactory<T> factory) {
+		FACTORIES.put(clazz, factory);
+	}
+	
+	
+	/**
+	 * Gets the factory registered for a class.
+	 * 
+	 * @param clazz
+	 *            The class to be created.
+	 * @return The factory, or null if none has been registered.
+	 */
+	public static StoreableFactory<?> getFactory(Class<?> clazz) {
+		return FACTORIES.get(clazz);
+	}
+}
@@ -0,0 +1,27 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.task.v0_6;
+
+import java.util.List;
+
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+
+
+/**
+ * Extends the sink interface for tasks able to consume groups of entities in a
+ * single call. Sources producing data in bulk should deliver it through this
+ * interface where available to avoid the per-entity call overhead. Sinks that
+ * only implement {@link Sink} can be adapted with
+ * {@link org.openstreetmap.osmosis.core.pipeline.v0_6.BatchSinkAdapter}.
+ */
+public interface BatchSink extends Sink {
+
+	/**
+	 * Process a group of entities. The list remains owned by the caller and
+	 * may be modified and re-used once this method returns, implementations
+	 * may retain the entities but must not retain the list itself.
+	 * 
+	 * @param entityContainers
+	 *            The entities to be processed in order.
+	 */
+	void processBatch(List<EntityContainer> entityContainers);
+}
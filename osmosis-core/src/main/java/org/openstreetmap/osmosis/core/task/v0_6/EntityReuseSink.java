@@ -0,0 +1,25 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.task.v0_6;
+
+
+/**
+ * Extends the sink interface for tasks able to declare that they don't retain
+ * entities. If a sink and every sink downstream of it release all references to
+ * entities once processing calls return, sources may modify and re-send the
+ * same entity instances instead of creating new ones. Sinks not implementing
+ * this interface are assumed to retain entities.
+ */
+public interface EntityReuseSink extends Sink {
+
+	/**
+	 * Indicates if entity instances may be re-used once a call to process or
+	 * processBatch returns. Tasks passing entities on to another sink must
+	 * only return true if the downstream sink also supports re-use, this can
+	 * be checked with
+	 * {@link org.openstreetmap.osmosis.core.pipeline.v0_6.EntityReuse#isSupported(Sink)}.
+	 * This is only called once all tasks in the pipeline are connected.
+	 * 
+	 * @return True if entities are not retained by this or any downstream sink.
+	 */
+	boolean supportsEntityReuse();
+}
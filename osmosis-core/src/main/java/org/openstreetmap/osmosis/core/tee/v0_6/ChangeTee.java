@@ -4,9 +4,16 @@ package org.openstreetmap.osmosis.core.tee.v0_6;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.buffer.v0_6.ChangeBuffer;
 import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainer;
+import org.openstreetmap.osmosis.core.pipeline.common.Metered;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskMetrics;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskRunner;
+import org.openstreetmap.osmosis.core.store.PostboxType;
 import org.openstreetmap.osmosis.core.task.v0_6.ChangeSink;
 import org.openstreetmap.osmosis.core.task.v0_6.ChangeSinkChangeSource;
 import org.openstreetmap.osmosis.core.task.v0_6.ChangeSinkMultiChangeSource;
@@ -15,10 +22,17 @@ import org.openstreetmap.osmosis.core.task.v0_6.ChangeSource;
 
 /**
  * Sends input change data to two output destinations.
+ * <p>
+ * By default all destinations are fed synchronously on the input thread. If
+ * buffered outputs are requested each destination is instead given its own
+ * buffer and thread so that a slow destination doesn't hold up the others
+ * until its buffer fills.
  * 
  * @author Brett Henderson
  */
-public class ChangeTee implements ChangeSinkMultiChangeSource {
+public class ChangeTee implements ChangeSinkMultiChangeSource, Metered {
+	
+	private static final Logger LOG = Logger.getLogger(ChangeTee.class.getName());
 	
 	private List<ProxyChangeSinkChangeSource> sinkList;
 	
@@ -38,6 +52,43 @@ public class ChangeTee implements ChangeSinkMultiChangeSource {
 	}
 	
 	
+	/**
+	 * Creates a new instance with each output running on its own thread.
+	 * 
+	 * @param outputCount
+	 *            The number of output destinations to write to.
+	 * @param name
+	 *            The name used as a prefix for output thread names.
+	 * @param bufferCapacity
+	 *            The size of the buffer for each output.
+	 * @param bufferType
+	 *            The type of postbox used to pass data to each output thread.
+	 */
+	public ChangeTee(int outputCount, String name, int bufferCapacity, PostboxType bufferType) {
+		sinkList = new ArrayList<ProxyChangeSinkChangeSource>();
+		
+		for (int i = 0; i < outputCount; i++) {
+			sinkList.add(new BufferedProxyChangeSinkChangeSource(
+					"Thread-" + name + "-" + i, new ChangeBuffer(bufferCapacity, bufferType)));
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setTaskMetrics(TaskMetrics metrics) {
+		// Buffers are added in output order so that the size of each can be
+		// matched to its output.
+		for (ProxyChangeSinkChangeSource sink : sinkList) {
+			if (sink instanceof BufferedProxyChangeSinkChangeSource) {
+				((BufferedProxyChangeSinkChangeSource) sink).buffer.setTaskMetrics(metrics);
+			}
+		}
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -159,4 +210,96 @@ public class ChangeTee implements ChangeSinkMultiChangeSource {
 			changeSink.close();
 		}
 	}
+	
+	
+	/**
+	 * An output passing data to its destination via a buffer serviced by a
+	 * dedicated thread.
+	 */
+	private static final class BufferedProxyChangeSinkChangeSource extends ProxyChangeSinkChangeSource {
+		private String threadName;
+		private ChangeBuffer buffer;
+		private TaskRunner runner;
+		
+		
+		/**
+		 * Creates a new instance.
+		 * 
+		 * @param threadName
+		 *            The name of the thread feeding the destination.
+		 * @param buffer
+		 *            The buffer holding data waiting for the destination.
+		 */
+		BufferedProxyChangeSinkChangeSource(String threadName, ChangeBuffer buffer) {
+			this.threadName = threadName;
+			this.buffer = buffer;
+		}
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setChangeSink(ChangeSink changeSink) {
+			super.setChangeSink(changeSink);
+			buffer.setChangeSink(changeSink);
+		}
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void initialize(Map<String, Object> metaData) {
+			// The buffer blocks until the output thread has started.
+			runner = new TaskRunner(buffer, threadName);
+			runner.start();
+			
+			buffer.initialize(metaData);
+		}
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void process(ChangeContainer change) {
+			buffer.process(change);
+		}
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void complete() {
+			buffer.complete();
+		}
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void close() {
+			// The buffer blocks until the output thread has released its
+			// destination.
+			buffer.close();
+			
+			if (runner != null) {
+				try {
+					runner.join();
+				} catch (InterruptedException e) {
+					throw new OsmosisRuntimeException("Interrupted while waiting for " + threadName + " to stop.", e);
+				}
+				
+				// The input side only sees a generic buffer failure so the
+				// underlying cause must be reported here.
+				if (!runner.isSuccessful()) {
+					LOG.log(Level.SEVERE, "Thread " + threadName + " failed", runner.getException());
+				}
+				runner = null;
+			}
+		}
+	}
 }
@@ -4,9 +4,18 @@ package org.openstreetmap.osmosis.core.tee.v0_6;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.buffer.v0_6.EntityBuffer;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.pipeline.common.Metered;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskMetrics;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskRunner;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.BatchSinkAdapter;
+import org.openstreetmap.osmosis.core.store.PostboxType;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkMultiSource;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
@@ -15,10 +24,18 @@ import org.openstreetmap.osmosis.core.task.v0_6.Source;
 
 /**
  * Sends input data to two output destinations.
+ * <p>
+ * By default all destinations are fed synchronously on the input thread. If
+ * buffered outputs are requested each destination is instead given its own
+ * buffer and thread so that a slow destination doesn't hold up the others
+ * until its buffer fills. Entities are made read-only and shared between all
+ * destinations rather than copied.
  * 
  * @author Brett Henderson
  */
-public class EntityTee implements SinkMultiSource {
+public class EntityTee implements SinkMultiSource, BatchSink, Metered {
+	
+	private static final Logger LOG = Logger.getLogger(EntityTee.class.getName());
 	
 	private List<ProxySinkSource> sinkList;
 	
@@ -38,6 +55,43 @@ public class EntityTee implements SinkMultiSource {
 	}
 	
 	
+	/**
+	 * Creates a new instance with each output running on its own thread.
+	 * 
+	 * @param outputCount
+	 *            The number of output destinations to write to.
+	 * @param name
+	 *            The name used as a prefix for output thread names.
+	 * @param bufferCapacity
+	 *            The size of the buffer for each output.
+	 * @param bufferType
+	 *            The type of postbox used to pass data to each output thread.
+	 */
+	public EntityTee(int outputCount, String name, int bufferCapacity, PostboxType bufferType) {
+		sinkList = new ArrayList<ProxySinkSource>();
+		
+		for (int i = 0; i < outputCount; i++) {
+			sinkList.add(new BufferedProxySinkSource(
+					"Thread-" + name + "-" + i, new EntityBuffer(bufferCapacity, bufferType)));
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setTaskMetrics(TaskMetrics metrics) {
+		// Buffers are added in output order so that the size of each can be
+		// matched to its output.
+		for (ProxySinkSource sink : sinkList) {
+			if (sink instanceof BufferedProxySinkSource) {
+				((BufferedProxySinkSource) sink).buffer.setTaskMetrics(metrics);
+			}
+		}
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -83,6 +137,21 @@ public class EntityTee implements SinkMultiSource {
 	}
 	
 	
+	/**
+	 * {@inheritDoc}
+	 */
+	public void processBatch(List<EntityContainer> entityContainers) {
+		// Make all entities read-only once rather than once per destination.
+		for (EntityContainer entityContainer : entityContainers) {
+			entityContainer.getEntity().makeReadOnly();
+		}
+		
+		for (ProxySinkSource sink : sinkList) {
+			sink.processBatch(entityContainers);
+		}
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -108,8 +177,9 @@ public class EntityTee implements SinkMultiSource {
 	 * 
 	 * @author Brett Henderson
 	 */
-	private static class ProxySinkSource implements SinkSource {
+	private static class ProxySinkSource implements SinkSource, BatchSink {
 		private Sink sink;
+		private BatchSink batchSink;
 		
 		
 		/**
@@ -125,6 +195,7 @@ public class EntityTee implements SinkMultiSource {
 		 */
 		public void setSink(Sink sink) {
 			this.sink = sink;
+			this.batchSink = BatchSinkAdapter.adapt(sink);
 		}
 
 
@@ -144,6 +215,14 @@ public class EntityTee implements SinkMultiSource {
 		}
 		
 		
+		/**
+		 * {@inheritDoc}
+		 */
+		public void processBatch(List<EntityContainer> entityContainers) {
+			batchSink.processBatch(entityContainers);
+		}
+		
+		
 		/**
 		 * {@inheritDoc}
 		 */
@@ -157,6 +236,107 @@ public class EntityTee implements SinkMultiSource {
 		 */
 		public void close() {
 			sink.close();
-		}		
+		}
+	}
+	
+	
+	/**
+	 * An output passing data to its destination via a buffer serviced by a
+	 * dedicated thread.
+	 */
+	private static final class BufferedProxySinkSource extends ProxySinkSource {
+		private String threadName;
+		private EntityBuffer buffer;
+		private TaskRunner runner;
+		
+		
+		/**
+		 * Creates a new instance.
+		 * 
+		 * @param threadName
+		 *            The name of the thread feeding the destination.
+		 * @param buffer
+		 *            The buffer holding data waiting for the destination.
+		 */
+		BufferedProxySinkSource(String threadName, EntityBuffer buffer) {
+			this.threadName = threadName;
+			this.buffer = buffer;
+		}
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setSink(Sink sink) {
+			super.setSink(sink);
+			buffer.setSink(sink);
+		}
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void initialize(Map<String, Object> metaData) {
+			// The buffer blocks until the output thread has started.
+			runner = new TaskRunner(buffer, threadName);
+			runner.start();
+			
+			buffer.initialize(metaData);
+		}
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void process(EntityContainer entityContainer) {
+			buffer.process(entityContainer);
+		}
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void processBatch(List<EntityContainer> entityContainers) {
+			buffer.processBatch(entityContainers);
+		}
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void complete() {
+			buffer.complete();
+		}
+		
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void close() {
+			// The buffer blocks until the output thread has released its
+			// destination.
+			buffer.close();
+			
+			if (runner != null) {
+				try {
+					runner.join();
+				} catch (InterruptedException e) {
+					throw new OsmosisRuntimeException("Interrupted while waiting for " + threadName + " to stop.", e);
+				}
+				
+				// The input side only sees a generic buffer failure so the
+				// underlying cause must be reported here.
+				if (!runner.isSuccessful()) {
+					LOG.log(Level.SEVERE, "Thread " + threadName + " failed", runner.getException());
+				}
+				runner = null;
+			}
+		}
 	}
 }
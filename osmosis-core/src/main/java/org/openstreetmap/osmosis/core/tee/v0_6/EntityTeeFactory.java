@@ -5,6 +5,7 @@ import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
 import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkMultiSourceManager;
+import org.openstreetmap.osmosis.core.store.PostboxType;
 
 
 /**
@@ -14,7 +15,11 @@ import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkMultiSourceManager;
  */
 public class EntityTeeFactory extends TaskManagerFactory {
 	private static final String ARG_OUTPUT_COUNT = "outputCount";
+	private static final String ARG_BUFFER_CAPACITY = "bufferCapacity";
+	private static final String ARG_BUFFER_TYPE = "bufferType";
 	private static final int DEFAULT_OUTPUT_COUNT = 2;
+	private static final int DEFAULT_BUFFER_CAPACITY = 0;
+	private static final String DEFAULT_BUFFER_TYPE = "Locking";
 	
 	
 	/**
@@ -23,6 +28,9 @@ public class EntityTeeFactory extends TaskManagerFactory {
 	@Override
 	protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
 		int outputCount;
+		int bufferCapacity;
+		PostboxType bufferType;
+		EntityTee tee;
 		
 		// Get the task arguments.
 		outputCount = getIntegerArgument(
@@ -30,10 +38,22 @@ public class EntityTeeFactory extends TaskManagerFactory {
 			ARG_OUTPUT_COUNT,
 			getDefaultIntegerArgument(taskConfig, DEFAULT_OUTPUT_COUNT)
 		);
+		bufferCapacity = getIntegerArgument(taskConfig, ARG_BUFFER_CAPACITY, DEFAULT_BUFFER_CAPACITY);
+		bufferType = Enum.valueOf(
+			PostboxType.class,
+			getStringArgument(taskConfig, ARG_BUFFER_TYPE, DEFAULT_BUFFER_TYPE)
+		);
+		
+		// Outputs are only decoupled from each other if they're given buffers.
+		if (bufferCapacity > 0) {
+			tee = new EntityTee(outputCount, taskConfig.getId(), bufferCapacity, bufferType);
+		} else {
+			tee = new EntityTee(outputCount);
+		}
 		
 		return new SinkMultiSourceManager(
 			taskConfig.getId(),
-			new EntityTee(outputCount),
+			tee,
 			taskConfig.getPipeArgs()
 		);
 	}
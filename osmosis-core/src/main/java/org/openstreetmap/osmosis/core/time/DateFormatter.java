@@ -9,12 +9,19 @@ import java.util.TimeZone;
 
 /**
  * Outputs a date in a format suitable for an OSM XML file.
+ * <p>
+ * Dates are formatted using integer arithmetic rather than calendar objects.
+ * Timestamps in a data stream are mostly in order so the most recently
+ * formatted second is cached and reused.
  * 
  * @author Brett Henderson
  */
 public class DateFormatter {
 	
 	private GregorianCalendar calendar;
+	private int[] dateFields;
+	private long cachedEpochSecond;
+	private String cachedResult;
 	
 	
 	/**
@@ -22,6 +29,33 @@ public class DateFormatter {
 	 */
 	public DateFormatter() {
 		calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+		dateFields = new int[3];
+		cachedEpochSecond = Long.MIN_VALUE;
+	}
+	
+	
+	private static void appendTwoDigits(StringBuilder result, int value) {
+		if (value < 10) {
+			result.append('0');
+		}
+		result.append(value);
+	}
+	
+	
+	private static void appendDate(
+			StringBuilder result, int year, int month, int day, int hour, int minute, int second) {
+		result.append(year);
+		result.append('-');
+		appendTwoDigits(result, month);
+		result.append('-');
+		appendTwoDigits(result, day);
+		result.append('T');
+		appendTwoDigits(result, hour);
+		result.append(':');
+		appendTwoDigits(result, minute);
+		result.append(':');
+		appendTwoDigits(result, second);
+		result.append('Z');
 	}
 	
 	
@@ -33,53 +67,66 @@ public class DateFormatter {
 	 * @return The string representing the date.
 	 */
 	public String format(Date date) {
-		StringBuilder result;
-		int year;
-		int month;
-		int day;
-		int hour;
-		int minute;
-		int second;
-		
-		calendar.setTime(date);
+		return format(date.getTime());
+	}
+	
+	
+	/**
+	 * Formats a timestamp in XML format. Precision below one second is
+	 * discarded.
+	 * 
+	 * @param epochMillis
+	 *            The number of milliseconds since the epoch.
+	 * @return The string representing the timestamp.
+	 */
+	public String format(long epochMillis) {
+		long epochSecond;
 		
-		result = new StringBuilder(20);
+		epochSecond = Math.floorDiv(epochMillis, 1000);
+		if (epochSecond != cachedEpochSecond) {
+			StringBuilder result;
+			
+			result = new StringBuilder(20);
+			appendTo(epochMillis, result);
+			
+			cachedResult = result.toString();
+			cachedEpochSecond = epochSecond;
+		}
 		
-		year = calendar.get(Calendar.YEAR);
-		month = calendar.get(Calendar.MONTH) + 1;
-		day = calendar.get(Calendar.DATE);
-		hour = calendar.get(Calendar.HOUR_OF_DAY);
-		minute = calendar.get(Calendar.MINUTE);
-		second = calendar.get(Calendar.SECOND);
+		return cachedResult;
+	}
+	
+	
+	private void appendTo(long epochMillis, StringBuilder result) {
+		long epochSecond;
+		int secondOfDay;
 		
-		result.append(year);
-		result.append('-');
-		if (month < 10) {
-			result.append('0');
+		// Dates prior to the epoch may pre-date the Gregorian calendar so are
+		// handed to the JDK calendar which supports the Julian calendar.
+		if (epochMillis < 0) {
+			calendar.setTimeInMillis(epochMillis);
+			appendDate(
+					result,
+					calendar.get(Calendar.YEAR),
+					calendar.get(Calendar.MONTH) + 1,
+					calendar.get(Calendar.DATE),
+					calendar.get(Calendar.HOUR_OF_DAY),
+					calendar.get(Calendar.MINUTE),
+					calendar.get(Calendar.SECOND));
+			return;
 		}
-		result.append(month);
-		result.append('-');
-		if (day < 10) {
-			result.append('0');
-		}
-		result.append(day);
-		result.append('T');
-		if (hour < 10) {
-			result.append('0');
-		}
-		result.append(hour);
-		result.append(':');
-		if (minute < 10) {
-			result.append('0');
-		}
-		result.append(minute);
-		result.append(':');
-		if (second < 10) {
-			result.append('0');
-		}
-		result.append(second);
-		result.append('Z');
 		
-		return result.toString();
+		epochSecond = epochMillis / 1000;
+		secondOfDay = (int) (epochSecond % EpochCalendar.SECONDS_PER_DAY);
+		EpochCalendar.fromEpochDay(epochSecond / EpochCalendar.SECONDS_PER_DAY, dateFields);
+		
+		appendDate(
+				result,
+				dateFields[0],
+				dateFields[1],
+				dateFields[2],
+				secondOfDay / 3600,
+				secondOfDay / 60 % 60,
+				secondOfDay % 60);
 	}
 }
@@ -18,13 +18,23 @@ import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
  * Handles a number of different date formats encountered in OSM. This is built
  * based on similar code in JOSM. This class is not threadsafe, a separate
  * instance must be created per thread.
+ * <p>
+ * The standard formats used by OSM are parsed directly from the characters
+ * without creating intermediate objects. Timestamps in a data stream are
+ * mostly in order so the most recently parsed second is cached and reused.
  * 
  * @author Brett Henderson
  */
 public class DateParser {
+	private static final long UNPARSED = Long.MIN_VALUE;
+	private static final int SECOND_PREFIX_LENGTH = 19;
+	private static final int MIN_FAST_YEAR = 1970;
+	
 	private DatatypeFactory datatypeFactory;
 	private FallbackDateParser fallbackDateParser;
 	private Calendar calendar;
+	private char[] cachedPrefix;
+	private long cachedEpochSecond;
 	
 	
 	/**
@@ -42,6 +52,123 @@ public class DateParser {
 		fallbackDateParser = new FallbackDateParser();
 		
 		calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+		
+		cachedPrefix = new char[SECOND_PREFIX_LENGTH];
+		cachedEpochSecond = UNPARSED;
+	}
+	
+	
+	/**
+	 * Parses a fixed width number.
+	 * 
+	 * @return The number, or -1 if a non-digit character is encountered.
+	 */
+	private static int parseDigits(CharSequence text, int offset, int length) {
+		int result;
+		
+		result = 0;
+		for (int i = offset; i < offset + length; i++) {
+			char digit = text.charAt(i);
+			
+			if (digit < '0' || digit > '9') {
+				return -1;
+			}
+			result = result * 10 + (digit - '0');
+		}
+		
+		return result;
+	}
+	
+	
+	/**
+	 * Parses the date and time portion of a standard format date to the
+	 * nearest second, eg. 2007-09-23T08:25:43. The separators must already
+	 * have been validated.
+	 * 
+	 * @return The seconds since the epoch, or UNPARSED if the date can't be
+	 *         handled.
+	 */
+	private long parseEpochSecond(CharSequence text, int start) {
+		boolean cacheHit;
+		int year;
+		int month;
+		int day;
+		int hour;
+		int minute;
+		int second;
+		long epochSecond;
+		
+		cacheHit = cachedEpochSecond != UNPARSED;
+		for (int i = 0; cacheHit && i < SECOND_PREFIX_LENGTH; i++) {
+			cacheHit = cachedPrefix[i] == text.charAt(start + i);
+		}
+		if (cacheHit) {
+			return cachedEpochSecond;
+		}
+		
+		year = parseDigits(text, start, 4);
+		month = parseDigits(text, start + 5, 2);
+		day = parseDigits(text, start + 8, 2);
+		hour = parseDigits(text, start + 11, 2);
+		minute = parseDigits(text, start + 14, 2);
+		second = parseDigits(text, start + 17, 2);
+		
+		// Unusual values are left to the lenient calendar based parsing.
+		if (year < MIN_FAST_YEAR || month < 1 || month > 12 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+			return UNPARSED;
+		}
+		
+		epochSecond = EpochCalendar.toEpochDay(year, month, day) * EpochCalendar.SECONDS_PER_DAY
+				+ hour * 3600 + minute * 60 + second;
+		
+		for (int i = 0; i < SECOND_PREFIX_LENGTH; i++) {
+			cachedPrefix[i] = text.charAt(start + i);
+		}
+		cachedEpochSecond = epochSecond;
+		
+		return epochSecond;
+	}
+	
+	
+	/**
+	 * Parses dates in the short and long standard formats, eg.
+	 * 2007-09-23T08:25:43Z and 2007-09-23T08:25:43.000Z.
+	 * 
+	 * @return The milliseconds since the epoch, or UNPARSED if the date is in
+	 *         a different format.
+	 */
+	private long parseStandardDate(CharSequence text, int start, int end) {
+		int length;
+		int millisecond;
+		long epochSecond;
+		
+		length = end - start;
+		if (length != 20 && length != 24) {
+			return UNPARSED;
+		}
+		if (text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-' || text.charAt(start + 10) != 'T'
+				|| text.charAt(start + 13) != ':' || text.charAt(start + 16) != ':' || text.charAt(end - 1) != 'Z') {
+			return UNPARSED;
+		}
+		
+		if (length == 20) {
+			millisecond = 0;
+		} else {
+			if (text.charAt(start + 19) != '.') {
+				return UNPARSED;
+			}
+			millisecond = parseDigits(text, start + 20, 3);
+			if (millisecond < 0) {
+				return UNPARSED;
+			}
+		}
+		
+		epochSecond = parseEpochSecond(text, start);
+		if (epochSecond == UNPARSED) {
+			return UNPARSED;
+		}
+		
+		return epochSecond * 1000 + millisecond;
 	}
 	
 	
@@ -254,6 +381,42 @@ public class DateParser {
 	 * @return The date.
 	 */
 	public Date parse(String date) {
+		long millis;
+		
+		millis = parseStandardDate(date, 0, date.length());
+		if (millis != UNPARSED) {
+			return new Date(millis);
+		}
+		
+		return parseOtherDate(date);
+	}
+	
+	
+	/**
+	 * Attempts to parse the date held within a range of characters. Dates in
+	 * the standard formats are parsed without creating any objects.
+	 * 
+	 * @param text
+	 *            The characters containing the date.
+	 * @param start
+	 *            The index of the first character of the date.
+	 * @param end
+	 *            The index after the last character of the date.
+	 * @return The number of milliseconds since the epoch.
+	 */
+	public long parseMillis(CharSequence text, int start, int end) {
+		long millis;
+		
+		millis = parseStandardDate(text, start, end);
+		if (millis != UNPARSED) {
+			return millis;
+		}
+		
+		return parseOtherDate(text.subSequence(start, end).toString()).getTime();
+	}
+	
+	
+	private Date parseOtherDate(String date) {
 		try {
 			if (isDateInShortStandardFormat(date)) {
 				return parseShortStandardDate(date);
@@ -0,0 +1,102 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.time;
+
+
+/**
+ * Converts between UTC calendar dates and days since the epoch using integer
+ * arithmetic. This avoids the object creation and synchronisation overhead of
+ * the JDK calendar classes. The calculations use the proleptic Gregorian
+ * calendar so they only match the JDK classes for dates after the Gregorian
+ * changeover in 1582, callers are expected to restrict usage to modern dates.
+ */
+final class EpochCalendar {
+	/**
+	 * The number of seconds in a day.
+	 */
+	static final int SECONDS_PER_DAY = 86400;
+
+	private static final int DAYS_PER_ERA = 146097;
+	private static final int EPOCH_DAY_OFFSET = 719468;
+
+
+	/**
+	 * This class cannot be instantiated.
+	 */
+	private EpochCalendar() {
+	}
+
+
+	/**
+	 * Calculates the number of days since 1970-01-01 of the specified date.
+	 *
+	 * @param year
+	 *            The year.
+	 * @param month
+	 *            The month from 1 to 12.
+	 * @param day
+	 *            The day of the month from 1.
+	 * @return The number of days since the epoch.
+	 */
+	static long toEpochDay(int year, int month, int day) {
+		long adjustedYear;
+		long era;
+		long yearOfEra;
+		long dayOfYear;
+		long dayOfEra;
+
+		// Years are treated as starting in March so that the leap day falls at the end.
+		adjustedYear = year;
+		if (month <= 2) {
+			adjustedYear--;
+			dayOfYear = (153 * (month + 9) + 2) / 5 + day - 1;
+		} else {
+			dayOfYear = (153 * (month - 3) + 2) / 5 + day - 1;
+		}
+
+		era = Math.floorDiv(adjustedYear, 400);
+		yearOfEra = adjustedYear - era * 400;
+		dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+		return era * DAYS_PER_ERA + dayOfEra - EPOCH_DAY_OFFSET;
+	}
+
+
+	/**
+	 * Calculates the calendar date of the specified number of days since
+	 * 1970-01-01.
+	 *
+	 * @param epochDay
+	 *            The number of days since the epoch.
+	 * @param result
+	 *            Receives the year, month and day in that order.
+	 */
+	static void fromEpochDay(long epochDay, int[] result) {
+		long shiftedDay;
+		long era;
+		long dayOfEra;
+		long yearOfEra;
+		long dayOfYear;
+		long monthIndex;
+		long year;
+		int month;
+
+		shiftedDay = epochDay + EPOCH_DAY_OFFSET;
+		era = Math.floorDiv(shiftedDay, DAYS_PER_ERA);
+		dayOfEra = shiftedDay - era * DAYS_PER_ERA;
+		yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		monthIndex = (5 * dayOfYear + 2) / 153;
+
+		year = yearOfEra + era * 400;
+		if (monthIndex < 10) {
+			month = (int) monthIndex + 3;
+		} else {
+			month = (int) monthIndex - 9;
+			year++;
+		}
+
+		result[0] = (int) year;
+		result[1] = month;
+		result[2] = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+	}
+}
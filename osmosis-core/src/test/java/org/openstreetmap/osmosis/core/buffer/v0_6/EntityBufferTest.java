@@ -0,0 +1,147 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.buffer.v0_6;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityBatcher;
+import org.openstreetmap.osmosis.core.store.PostboxType;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkBatchInspector;
+
+
+/**
+ * Tests the entity buffer.
+ */
+public class EntityBufferTest {
+
+	private EntityContainer createNode(long id) {
+		return new NodeContainer(new Node(new CommonEntityData(id, 1, new Date(0), OsmUser.NONE, 1), 1, 1));
+	}
+
+
+	/**
+	 * Passes entities through a buffer whose output doesn't start reading until
+	 * all input has been sent, so everything is available when the output
+	 * drains the buffer. Postboxes publish input in chunks of a quarter of
+	 * their capacity, the capacity is chosen so that an even entity count is
+	 * published in full before completion.
+	 *
+	 * @param bufferType
+	 *            The type of postbox used by the buffer.
+	 * @param entityCount
+	 *            The number of entities to pass through the buffer.
+	 * @return The batches received by the destination.
+	 * @throws InterruptedException
+	 *             if the test is interrupted.
+	 */
+	private List<List<EntityContainer>> runBuffer(PostboxType bufferType, int entityCount)
+			throws InterruptedException {
+		final CountDownLatch inputSent;
+		EntityBuffer entityBuffer;
+		SinkBatchInspector inspector;
+		Thread outputThread;
+		List<EntityContainer> batch;
+		long expectedId;
+
+		inputSent = new CountDownLatch(1);
+		entityBuffer = new EntityBuffer(entityCount * 2, bufferType);
+		inspector = new SinkBatchInspector() {
+			@Override
+			public void initialize(Map<String, Object> metaData) {
+				try {
+					inputSent.await();
+				} catch (InterruptedException e) {
+					throw new OsmosisRuntimeException("Interrupted while waiting for input.", e);
+				}
+			}
+		};
+		entityBuffer.setSink(inspector);
+
+		outputThread = new Thread(entityBuffer);
+		outputThread.start();
+
+		// Send the entities in small batches re-using the same list.
+		batch = new ArrayList<EntityContainer>();
+		entityBuffer.initialize(Collections.<String, Object>emptyMap());
+		for (int i = 0; i < entityCount; i++) {
+			batch.add(createNode(i));
+			if (batch.size() == 7) {
+				entityBuffer.processBatch(batch);
+				batch.clear();
+			}
+		}
+		entityBuffer.processBatch(batch);
+		// Completion waits for the output thread so the output must be
+		// released first.
+		inputSent.countDown();
+		entityBuffer.complete();
+		entityBuffer.close();
+		outputThread.join();
+
+		expectedId = 0;
+		for (EntityContainer entityContainer : inspector.getProcessedEntities()) {
+			Assert.assertEquals("Incorrect entity order.", expectedId++, entityContainer.getEntity().getId());
+		}
+		Assert.assertEquals("Incorrect entity count.", entityCount, expectedId);
+
+		return inspector.getBatches();
+	}
+
+
+	/**
+	 * Verifies that all entities available in a locking buffer are drained into
+	 * a single downstream batch.
+	 *
+	 * @throws InterruptedException
+	 *             if the test is interrupted.
+	 */
+	@Test(timeout = 60000)
+	public void testLockingDrainToBatch() throws InterruptedException {
+		Assert.assertEquals("Available entities should be sent as one batch.", 1,
+				runBuffer(PostboxType.Locking, 100).size());
+	}
+
+
+	/**
+	 * Verifies that all entities available in a ring buffer are drained into a
+	 * single downstream batch.
+	 *
+	 * @throws InterruptedException
+	 *             if the test is interrupted.
+	 */
+	@Test(timeout = 60000)
+	public void testRingBufferDrainToBatch() throws InterruptedException {
+		Assert.assertEquals("Available entities should be sent as one batch.", 1,
+				runBuffer(PostboxType.RingBuffer, 100).size());
+	}
+
+
+	/**
+	 * Verifies that draining a large buffer doesn't exceed the batch size.
+	 *
+	 * @throws InterruptedException
+	 *             if the test is interrupted.
+	 */
+	@Test(timeout = 60000)
+	public void testDrainLimitedByBatchSize() throws InterruptedException {
+		List<List<EntityContainer>> batches;
+
+		batches = runBuffer(PostboxType.RingBuffer, EntityBatcher.DEFAULT_BATCH_SIZE * 2 + 10);
+
+		Assert.assertEquals("Incorrect batch count.", 3, batches.size());
+		Assert.assertEquals("Incorrect first batch size.", EntityBatcher.DEFAULT_BATCH_SIZE, batches.get(0).size());
+		Assert.assertEquals("Incorrect last batch size.", 10, batches.get(2).size());
+	}
+}
@@ -9,6 +9,7 @@ import org.junit.Test;
 
 import org.openstreetmap.osmosis.core.LogLevels;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.pipeline.common.ThreadType;
 
 
 /**
@@ -127,6 +128,54 @@ public class CommandLineParserTest {
 	}
 	
 	
+	/**
+	 * Validates the threads option.
+	 */
+	@Test
+	public void testThreadsOption() {
+		CommandLineParser commandLineParser;
+		
+		commandLineParser = new CommandLineParser();
+		commandLineParser.parse(new String[] {});
+		Assert.assertEquals("Incorrect default thread type.", ThreadType.Platform, commandLineParser.getThreadType());
+		
+		commandLineParser = new CommandLineParser();
+		commandLineParser.parse(new String[] {"-threads", "virtual"});
+		Assert.assertEquals("Incorrect thread type.", ThreadType.Virtual, commandLineParser.getThreadType());
+	}
+	
+	
+	/**
+	 * Validates failure when an unknown thread type is specified.
+	 */
+	@Test (expected = OsmosisRuntimeException.class)
+	public void testUnknownThreadType() {
+		CommandLineParser commandLineParser;
+		
+		commandLineParser = new CommandLineParser();
+		commandLineParser.parse(new String[] {"-t", "green"});
+	}
+	
+	
+	/**
+	 * Validates the metrics options.
+	 */
+	@Test
+	public void testMetricsOptions() {
+		CommandLineParser commandLineParser;
+		
+		commandLineParser = new CommandLineParser();
+		commandLineParser.parse(new String[] {});
+		Assert.assertFalse("Metrics should be disabled by default.", commandLineParser.isMetricsEnabled());
+		
+		commandLineParser = new CommandLineParser();
+		commandLineParser.parse(new String[] {"-metrics-file", "osmosis.prom", "-mp", "9100"});
+		Assert.assertTrue("Metrics should be enabled.", commandLineParser.isMetricsEnabled());
+		Assert.assertEquals("Incorrect metrics file.", "osmosis.prom", commandLineParser.getMetricsFile());
+		Assert.assertEquals("Incorrect metrics port.", 9100, commandLineParser.getMetricsPort());
+	}
+	
+	
 	/**
 	 * Validates failure when an unknown option is specified.
 	 */
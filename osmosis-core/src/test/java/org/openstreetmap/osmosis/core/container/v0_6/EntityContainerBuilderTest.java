@@ -0,0 +1,144 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.container.v0_6;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.NodeBuilder;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayBuilder;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityReuseSink;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkEntityInspector;
+
+
+/**
+ * Tests the entity container builder.
+ */
+@SuppressWarnings("deprecation")
+public class EntityContainerBuilderTest {
+
+	/**
+	 * Records the content of each entity as it is received, entities may be
+	 * re-used once processing returns.
+	 */
+	private static class ReuseSink extends SinkEntityInspector implements EntityReuseSink {
+		private boolean reuseSupported;
+		private List<EntityContainer> containers;
+		private List<String> contents;
+
+
+		/**
+		 * Creates a new instance.
+		 */
+		ReuseSink() {
+			containers = new ArrayList<EntityContainer>();
+			contents = new ArrayList<String>();
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void process(EntityContainer entityContainer) {
+			StringBuilder builder;
+
+			builder = new StringBuilder();
+			builder.append(entityContainer.getEntity().getId());
+			for (Tag tag : entityContainer.getEntity().getTags()) {
+				builder.append(' ').append(tag.getKey()).append('=').append(tag.getValue());
+			}
+			if (entityContainer instanceof WayContainer) {
+				for (WayNode wayNode : ((WayContainer) entityContainer).getEntity().getWayNodes()) {
+					builder.append(" n").append(wayNode.getNodeId());
+				}
+			}
+
+			containers.add(entityContainer);
+			contents.add(builder.toString());
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean supportsEntityReuse() {
+			return reuseSupported;
+		}
+	}
+
+
+	private List<String> run(ReuseSink sink, boolean reuseSupported) {
+		EntityContainerBuilder builder;
+
+		builder = new EntityContainerBuilder() {
+			@Override
+			protected boolean processNode(NodeBuilder entityBuilder) {
+				entityBuilder.addTag(new Tag("checked", "yes"));
+				return true;
+			}
+
+
+			@Override
+			protected boolean processWay(WayBuilder entityBuilder) {
+				entityBuilder.addWayNode(new WayNode(entityBuilder.getId() * 10));
+				return true;
+			}
+		};
+		builder.setSink(sink);
+		// Re-use support may depend on tasks connected after this one.
+		sink.reuseSupported = reuseSupported;
+
+		for (long id = 1; id <= 2; id++) {
+			builder.process(new NodeContainer(
+					new Node(new CommonEntityData(id, 1, new Date(0), OsmUser.NONE, 1), 1, 1)));
+			builder.process(new WayContainer(
+					new Way(new CommonEntityData(id, 1, new Date(0), OsmUser.NONE, 1))));
+		}
+
+		return sink.contents;
+	}
+
+
+	/**
+	 * Verifies that modified entities are re-used if the sink supports it.
+	 */
+	@Test
+	public void testEntityReuse() {
+		ReuseSink sink;
+
+		sink = new ReuseSink();
+
+		Assert.assertEquals("Incorrect entities.",
+				Arrays.asList("1 checked=yes", "1 n10", "2 checked=yes", "2 n20"), run(sink, true));
+		Assert.assertSame("Node was not re-used.", sink.containers.get(0), sink.containers.get(2));
+		Assert.assertSame("Way was not re-used.", sink.containers.get(1), sink.containers.get(3));
+	}
+
+
+	/**
+	 * Verifies that modified entities are not re-used if the sink doesn't
+	 * support it.
+	 */
+	@Test
+	public void testNoEntityReuse() {
+		ReuseSink sink;
+
+		sink = new ReuseSink();
+
+		Assert.assertEquals("Incorrect entities.",
+				Arrays.asList("1 checked=yes", "1 n10", "2 checked=yes", "2 n20"), run(sink, false));
+		Assert.assertNotSame("Node was re-used.", sink.containers.get(0), sink.containers.get(2));
+		Assert.assertEquals("Entity was modified.", 1, sink.containers.get(0).getEntity().getId());
+	}
+}
@@ -0,0 +1,56 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.domain.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Tests the string dictionary.
+ */
+public class StringDictionaryTest {
+
+	/**
+	 * Verifies that equal strings are replaced by a single instance and that
+	 * lookups are counted.
+	 */
+	@Test
+	public void testIntern() {
+		StringDictionary dictionary;
+		String first;
+		String second;
+
+		dictionary = new StringDictionary(16);
+
+		first = dictionary.intern(new String("highway"));
+		second = dictionary.intern(new String("highway"));
+
+		Assert.assertSame("String was not shared.", first, second);
+		Assert.assertEquals("Incorrect hit count.", 1, dictionary.getHitCount());
+		Assert.assertEquals("Incorrect miss count.", 1, dictionary.getMissCount());
+		Assert.assertEquals("Incorrect hit rate.", 0.5, dictionary.getHitRate(), 0);
+	}
+
+
+	/**
+	 * Verifies that null and long strings are passed through unchanged.
+	 */
+	@Test
+	public void testPassThrough() {
+		StringDictionary dictionary;
+		StringBuilder builder;
+		String longValue;
+
+		dictionary = new StringDictionary(16);
+
+		builder = new StringBuilder();
+		for (int i = 0; i <= StringDictionary.MAX_LENGTH; i++) {
+			builder.append('a');
+		}
+		longValue = builder.toString();
+
+		Assert.assertNull("Null was not passed through.", dictionary.intern(null));
+		Assert.assertSame("Long string was not passed through.", longValue, dictionary.intern(longValue));
+		Assert.assertEquals("Long strings should not be counted.", 0, dictionary.getMissCount());
+	}
+}
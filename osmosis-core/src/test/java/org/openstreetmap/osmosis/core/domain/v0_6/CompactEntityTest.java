@@ -0,0 +1,126 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.domain.v0_6;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.util.FixedPrecisionCoordinateConvertor;
+
+
+/**
+ * Verifies that the compact entity representation preserves entity state.
+ */
+public class CompactEntityTest {
+	/**
+	 * Coordinates must be returned exactly as supplied regardless of precision.
+	 */
+	@Test
+	public void testNodeCoordinates() {
+		Node node;
+
+		node = new Node(new CommonEntityData(1, 1, new Date(0), OsmUser.NONE, 1), -33.8688197, 151.2092955);
+		Assert.assertEquals("Incorrect latitude.", -33.8688197, node.getLatitude(), 0);
+		Assert.assertEquals("Incorrect longitude.", 151.2092955, node.getLongitude(), 0);
+
+		node.setLatitude(1.0 / 3);
+		Assert.assertEquals("Incorrect high precision latitude.", 1.0 / 3, node.getLatitude(), 0);
+		Assert.assertEquals("Longitude was modified.", 151.2092955, node.getLongitude(), 0);
+	}
+
+
+	/**
+	 * Coordinates decoded from PBF style fixed precision values carry floating
+	 * point error but must still be held in fixed precision form only.
+	 */
+	@Test
+	public void testDecodedNodeCoordinates() {
+		for (long raw = -1800000000L; raw <= 1800000000L; raw += 1234567) {
+			double latitude;
+			double longitude;
+			Node node;
+
+			// The PBF decoder scaling for the default granularity of 100
+			// nanodegrees.
+			latitude = 0.000000001 * (100 * (raw / 2));
+			longitude = 0.000000001 * (100 * raw);
+			node = new Node(new CommonEntityData(1, 1, new Date(0), OsmUser.NONE, 1), latitude, longitude);
+
+			Assert.assertEquals("Latitude was not held in fixed form.",
+					FixedPrecisionCoordinateConvertor.convertToDouble((int) (raw / 2)), node.getLatitude(), 0);
+			Assert.assertEquals("Longitude was not held in fixed form.",
+					FixedPrecisionCoordinateConvertor.convertToDouble((int) raw), node.getLongitude(), 0);
+		}
+	}
+
+
+	/**
+	 * Tags and timestamps must behave as before when the underlying storage is
+	 * allocated lazily.
+	 */
+	@Test
+	public void testEntityData() {
+		CommonEntityData entityData;
+
+		entityData = new CommonEntityData(1, 1, new Date(1234), OsmUser.NONE, 1);
+		Assert.assertEquals("Incorrect timestamp.", new Date(1234), entityData.getTimestamp());
+		Assert.assertEquals("Incorrect container timestamp.", new Date(1234),
+				entityData.getTimestampContainer().getTimestamp());
+		Assert.assertTrue("Tags should be empty.", entityData.getTags().isEmpty());
+
+		entityData.getTags().add(new Tag("key", "value"));
+		entityData.getMetaTags().put("meta", "value");
+		entityData.makeReadOnly();
+		Assert.assertEquals("Incorrect tag count.", 1, entityData.getTags().size());
+		Assert.assertEquals("Incorrect meta tag count.", 1, entityData.getMetaTags().size());
+
+		entityData = new CommonEntityData(2, 1, new Date(1234), OsmUser.NONE, 1);
+		entityData.makeReadOnly();
+		Assert.assertTrue("Read-only tags should be empty.", entityData.getTags().isEmpty());
+		Assert.assertTrue("Read-only meta tags should be empty.", entityData.getMetaTags().isEmpty());
+	}
+
+
+	/**
+	 * Way node lists must support normal list updates.
+	 */
+	@Test
+	public void testWayNodeList() {
+		List<WayNode> wayNodes;
+		WayNodeList wayNodeList;
+
+		wayNodes = new ArrayList<WayNode>();
+		for (int i = 0; i < 20; i++) {
+			wayNodes.add(new WayNode(i));
+		}
+
+		wayNodeList = new WayNodeList(wayNodes);
+		wayNodeList.remove(0);
+		wayNodeList.add(5, new WayNode(100, 1.5, 2.5));
+		wayNodeList.set(6, new WayNode(200));
+
+		Assert.assertEquals("Incorrect size.", 20, wayNodeList.size());
+		Assert.assertEquals("Incorrect first node.", 1, wayNodeList.getNodeId(0));
+		Assert.assertEquals("Incorrect inserted node.", 100, wayNodeList.get(5).getNodeId());
+		Assert.assertEquals("Incorrect inserted latitude.", 1.5, wayNodeList.get(5).getLatitude(), 0);
+		Assert.assertEquals("Incorrect inserted longitude.", 2.5, wayNodeList.get(5).getLongitude(), 0);
+		Assert.assertEquals("Incorrect replaced node.", 200, wayNodeList.get(6).getNodeId());
+		Assert.assertEquals("Incorrect last node.", 19, wayNodeList.get(19).getNodeId());
+	}
+
+
+	/**
+	 * Read-only way node lists must reject updates.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testReadOnlyWayNodeList() {
+		Way way;
+
+		way = new Way(new CommonEntityData(1, 1, new Date(0), OsmUser.NONE, 1));
+		way.getWayNodes().add(new WayNode(1));
+		way.makeReadOnly();
+		way.getWayNodes().add(new WayNode(2));
+	}
+}
@@ -0,0 +1,123 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Tests the concurrent id tracker implementation.
+ */
+public class ConcurrentIdTrackerTest extends IdTrackerBase {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IdTracker getImplementation() {
+		return new ConcurrentIdTracker();
+	}
+
+
+	/**
+	 * Tests that ids set by several threads at once, including ids in the
+	 * same words and ids outside the paged range, are all retained and
+	 * iterated in order.
+	 *
+	 * @throws InterruptedException
+	 *             if the test is interrupted.
+	 */
+	@Test
+	public void testConcurrentSet() throws InterruptedException {
+		final ConcurrentIdTracker tracker;
+		final int threadCount;
+		final int idCount;
+		List<Thread> threads;
+		List<Long> expected;
+		List<Long> actual;
+
+		tracker = new ConcurrentIdTracker();
+		threadCount = 4;
+		idCount = 100000;
+
+		// Each thread sets every fourth id so all threads update the same
+		// words, and adds ids in the overflow set.
+		threads = new ArrayList<Thread>();
+		for (int i = 0; i < threadCount; i++) {
+			final int threadIndex;
+
+			threadIndex = i;
+			threads.add(new Thread(() -> {
+				long[] batch;
+
+				batch = new long[idCount / threadCount];
+				for (int j = 0; j < batch.length; j++) {
+					batch[j] = (long) j * threadCount + threadIndex;
+				}
+
+				tracker.set(batch, 0, batch.length / 2);
+				for (int j = batch.length / 2; j < batch.length; j++) {
+					tracker.set(batch[j]);
+				}
+
+				tracker.set(-1 - threadIndex);
+				tracker.set(Long.MAX_VALUE - threadIndex);
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		expected = new ArrayList<Long>();
+		for (int i = threadCount; i > 0; i--) {
+			expected.add((long) -i);
+		}
+		for (long id = 0; id < idCount; id++) {
+			expected.add(id);
+		}
+		for (int i = threadCount - 1; i >= 0; i--) {
+			expected.add(Long.MAX_VALUE - i);
+		}
+
+		actual = new ArrayList<Long>();
+		for (Long id : tracker) {
+			actual.add(id);
+		}
+
+		Assert.assertEquals("Incorrect ids were set.", expected, actual);
+		Assert.assertFalse("Unexpected id was set.", tracker.get(idCount));
+	}
+
+
+	/**
+	 * Tests merging concurrent trackers.
+	 */
+	@Test
+	public void testMergeTrackers() {
+		ConcurrentIdTracker tracker1;
+		ConcurrentIdTracker tracker2;
+		List<Long> actual;
+
+		tracker1 = new ConcurrentIdTracker();
+		tracker1.set(5);
+		tracker1.set(-7);
+		tracker2 = new ConcurrentIdTracker();
+		tracker2.set(6);
+		tracker2.set(1L << 40);
+		tracker2.set(50000000000L);
+
+		tracker1.setAll(tracker2);
+
+		actual = new ArrayList<Long>();
+		for (Long id : tracker1) {
+			actual.add(id);
+		}
+		Assert.assertEquals("Incorrect merged ids.", List.of(-7L, 5L, 6L, 50000000000L, 1L << 40), actual);
+	}
+}
@@ -37,6 +37,7 @@ public abstract class IdTrackerBase {
 	 */
 	@After
 	public final void tearDown() {
+		idt.close();
 		idt = null;
 	}
 	
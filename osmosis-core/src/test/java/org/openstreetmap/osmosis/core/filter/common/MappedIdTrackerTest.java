@@ -0,0 +1,71 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Tests the memory-mapped id tracker implementation.
+ */
+public class MappedIdTrackerTest extends IdTrackerBase {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IdTracker getImplementation() {
+		return new MappedIdTracker();
+	}
+
+
+	/**
+	 * Tests ids spread across several segments and outside the mapped range
+	 * are retained and iterated in order.
+	 */
+	@Test
+	public void testWideIdRange() {
+		List<Long> expected;
+		List<Long> actual;
+
+		expected = List.of(
+				Long.MIN_VALUE, -5L, 0L, 63L, 64L, (1L << 30) - 1, 1L << 30, 12000000000L, 1L << 40, Long.MAX_VALUE);
+
+		try (MappedIdTracker tracker = new MappedIdTracker()) {
+			for (int i = expected.size() - 1; i >= 0; i--) {
+				tracker.set(expected.get(i));
+			}
+
+			actual = new ArrayList<Long>();
+			for (Long id : tracker) {
+				actual.add(id);
+			}
+
+			Assert.assertEquals("Incorrect ids were iterated.", expected, actual);
+			Assert.assertTrue("Id should be set.", tracker.get(12000000000L));
+			Assert.assertFalse("Id should not be set.", tracker.get(12000000001L));
+			Assert.assertFalse("Id in an unmapped segment should not be set.", tracker.get(3L << 30));
+		}
+	}
+
+
+	/**
+	 * Tests that a closed tracker may be reused.
+	 */
+	@Test
+	public void testReuseAfterClose() {
+		MappedIdTracker tracker;
+
+		tracker = new MappedIdTracker();
+		tracker.set(10);
+		tracker.close();
+
+		Assert.assertFalse("Closed tracker should be empty.", tracker.get(10));
+		tracker.set(11);
+		Assert.assertTrue("Id should be set.", tracker.get(11));
+		tracker.close();
+	}
+}
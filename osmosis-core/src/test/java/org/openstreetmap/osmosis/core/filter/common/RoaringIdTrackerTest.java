@@ -0,0 +1,163 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Tests the roaring id tracker implementation.
+ */
+public class RoaringIdTrackerTest extends IdTrackerBase {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IdTracker getImplementation() {
+		return new RoaringIdTracker();
+	}
+
+
+	private TreeSet<Long> createIds(long seed) {
+		TreeSet<Long> ids;
+		Random random;
+
+		ids = new TreeSet<Long>();
+		random = new Random(seed);
+
+		// A contiguous range producing run chunks.
+		for (long id = 100000; id < 300000; id++) {
+			ids.add(id);
+		}
+		// Dense scattered ids producing bitmap chunks.
+		for (int i = 0; i < 20000; i++) {
+			ids.add(1000000L + random.nextInt(65536));
+		}
+		// Sparse ids producing array chunks, including extreme and negative values.
+		for (int i = 0; i < 1000; i++) {
+			ids.add(random.nextLong());
+		}
+		ids.add(Long.MIN_VALUE);
+		ids.add(Long.MAX_VALUE);
+		ids.add(-1L);
+		ids.add(0L);
+
+		return ids;
+	}
+
+
+	private void checkContents(TreeSet<Long> expected, RoaringIdTracker tracker) {
+		List<Long> actual;
+
+		actual = new ArrayList<Long>();
+		for (Long id : tracker) {
+			actual.add(id);
+		}
+
+		Assert.assertEquals("Incorrect ids were iterated.", new ArrayList<Long>(expected), actual);
+		Assert.assertEquals("Incorrect size.", expected.size(), tracker.size());
+		for (Long id : expected) {
+			Assert.assertTrue("Id " + id + " should be set.", tracker.get(id));
+			if (!expected.contains(id + 1)) {
+				Assert.assertFalse("Id " + (id + 1) + " should not be set.", tracker.get(id + 1));
+			}
+		}
+	}
+
+
+	/**
+	 * Tests ids set in ascending and random order across all container types.
+	 */
+	@Test
+	public void testContainerTypes() {
+		TreeSet<Long> ids;
+		RoaringIdTracker ascending;
+		RoaringIdTracker shuffled;
+		List<Long> shuffledIds;
+
+		ids = createIds(1);
+
+		ascending = new RoaringIdTracker();
+		for (Long id : ids) {
+			ascending.set(id);
+		}
+		checkContents(ids, ascending);
+
+		shuffledIds = new ArrayList<Long>(ids);
+		Collections.shuffle(shuffledIds, new Random(2));
+		shuffled = new RoaringIdTracker();
+		for (Long id : shuffledIds) {
+			shuffled.set(id);
+		}
+		checkContents(ids, shuffled);
+
+		shuffled.optimize();
+		checkContents(ids, shuffled);
+
+		// Extend, create and join runs in the optimised chunks.
+		for (long id : new long[] {99999, 300000, 300002, 300001, 400000, 131072, 99997}) {
+			ids.add(id);
+			shuffled.set(id);
+		}
+		checkContents(ids, shuffled);
+	}
+
+
+	/**
+	 * Tests that trackers are merged correctly, and that the source tracker is
+	 * unaffected by later changes to the target.
+	 */
+	@Test
+	public void testMergeTrackers() {
+		TreeSet<Long> ids1;
+		TreeSet<Long> ids2;
+		TreeSet<Long> combined;
+		RoaringIdTracker tracker1;
+		RoaringIdTracker tracker2;
+
+		ids1 = createIds(3);
+		ids2 = createIds(4);
+		combined = new TreeSet<Long>(ids1);
+		combined.addAll(ids2);
+
+		tracker1 = new RoaringIdTracker();
+		for (Long id : ids1) {
+			tracker1.set(id);
+		}
+		tracker2 = new RoaringIdTracker();
+		for (Long id : ids2) {
+			tracker2.set(id);
+		}
+
+		tracker1.setAll(tracker2);
+		checkContents(combined, tracker1);
+
+		tracker1.set(-12345);
+		Assert.assertFalse("The source tracker was modified.", tracker2.get(-12345));
+		checkContents(ids2, tracker2);
+	}
+
+
+	/**
+	 * Tests that contiguous ids consume very little memory.
+	 */
+	@Test
+	public void testContiguousMemoryUsage() {
+		RoaringIdTracker tracker;
+
+		tracker = new RoaringIdTracker();
+		for (long id = 1; id <= 10000000; id++) {
+			tracker.set(id);
+		}
+		tracker.optimize();
+
+		Assert.assertTrue("Contiguous ids should be stored as runs.", tracker.getMemoryUsage() < 20000);
+	}
+}
@@ -0,0 +1,237 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.location;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.openstreetmap.osmosis.core.util.FixedPrecisionCoordinateConvertor;
+
+
+/**
+ * Tests the node location store implementations.
+ * 
+ * @author Brett Hendersons
+ */
+public class NodeLocationStoreTest {
+	
+	private void testStoreImplementation(NodeLocationStore store) {
+		// Add a large number of locations to the store.
+		for (int i = 0; i < 100000; i++) {
+			double longitude;
+			double latitude;
+			
+			// Stores typically use fixed precision storage therefore ensure we
+			// have a good spread of values.
+			// The longitude and latitude must be different values to ensure they don't get mixed up.
+			longitude = FixedPrecisionCoordinateConvertor.convertToDouble(1 << (i % 32));
+			latitude = FixedPrecisionCoordinateConvertor.convertToDouble(1 << ((i + 1) % 32));
+			
+			// Add the location to the store but leave every node invalid.
+			store.addLocation(i * 2, new NodeLocation(longitude, latitude));
+		}
+		
+
+		// Verify that the data from the store matches.
+		for (int i = 0; i < 100000; i++) {
+			double longitude;
+			double latitude;
+			NodeLocation location;
+			
+			// Stores typically use fixed precision storage therefore ensure we
+			// have a good spread of values.
+			// The longitude and latitude must be different values to ensure they don't get mixed up.
+			longitude = FixedPrecisionCoordinateConvertor.convertToDouble(1 << (i % 32));
+			latitude = FixedPrecisionCoordinateConvertor.convertToDouble(1 << ((i + 1) % 32));
+			
+			location = store.getNodeLocation(i * 2);
+			Assert.assertTrue("The node location should be valid.", location.isValid());
+			Assert.assertEquals("The longitude is incorrect.", longitude, location.getLongitude(), 0);
+			Assert.assertEquals("The latitude is incorrect.", latitude, location.getLatitude(), 0);
+			
+			location = store.getNodeLocation((i * 2) + 1);
+			Assert.assertFalse("The node location should be invalid.", location.isValid());
+		}
+		
+		store.close();
+	}
+	
+	
+	/**
+	 * Tests the temporary file implementation.
+	 */
+	@Test
+	public void testTempFile() {
+		testStoreImplementation(new PersistentNodeLocationStore());
+	}
+	
+	
+	/**
+	 * Tests the in-memory implementation.
+	 */
+	@Test
+	public void testInMemory() {
+		testStoreImplementation(new InMemoryNodeLocationStore());
+	}
+	
+	
+	/**
+	 * Tests the compact temporary file implementation.
+	 */
+	@Test
+	public void testCompactTempFile() {
+		testStoreImplementation(new CompactPersistentNodeLocationStore());
+	}
+	
+	
+	/**
+	 * Tests the memory-mapped implementation.
+	 */
+	@Test
+	public void testMapped() {
+		testStoreImplementation(new MappedNodeLocationStore());
+	}
+	
+	
+	/**
+	 * Tests the memory-mapped implementation with nodes loaded by several
+	 * threads in no particular order, including ids outside the mapped range.
+	 * 
+	 * @throws InterruptedException
+	 *             if the test is interrupted.
+	 */
+	@Test
+	public void testMappedParallelLoad() throws InterruptedException {
+		final MappedNodeLocationStore store;
+		final int threadCount;
+		List<Thread> threads;
+		
+		store = new MappedNodeLocationStore();
+		threadCount = 4;
+		
+		threads = new ArrayList<Thread>();
+		for (int i = 0; i < threadCount; i++) {
+			final int threadIndex;
+			
+			threadIndex = i;
+			threads.add(new Thread(() -> {
+				for (long nodeId = 200000 - threadIndex; nodeId >= 0; nodeId -= threadCount) {
+					store.addLocation(nodeId, new NodeLocation(nodeId / 10000.0, -nodeId / 10000.0));
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		store.addLocation(-5, new NodeLocation(1, 2));
+		store.addLocation(1L << 40, new NodeLocation(3, 4));
+		store.addLocation(10000000000L, new NodeLocation(0, 0));
+		
+		for (long nodeId = 0; nodeId <= 200000; nodeId++) {
+			NodeLocation location;
+			
+			location = store.getNodeLocation(nodeId);
+			Assert.assertTrue("The node location should be valid.", location.isValid());
+			Assert.assertEquals("The longitude is incorrect.", nodeId / 10000.0, location.getLongitude(), 0);
+			Assert.assertEquals("The latitude is incorrect.", -nodeId / 10000.0, location.getLatitude(), 0);
+		}
+		Assert.assertFalse("The node location should be invalid.", store.getNodeLocation(200001).isValid());
+		Assert.assertFalse("The node location should be invalid.", store.getNodeLocation(5000000000L).isValid());
+		Assert.assertEquals("The longitude is incorrect.", 1, store.getNodeLocation(-5).getLongitude(), 0);
+		Assert.assertEquals("The latitude is incorrect.", 4, store.getNodeLocation(1L << 40).getLatitude(), 0);
+		Assert.assertTrue("The node location should be valid.", store.getNodeLocation(10000000000L).isValid());
+		
+		store.close();
+	}
+	
+	
+	/**
+	 * Tests the sparse implementation.
+	 */
+	@Test
+	public void testSparse() {
+		testStoreImplementation(new SparseNodeLocationStore());
+	}
+	
+	
+	/**
+	 * Tests the automatic implementation.
+	 */
+	@Test
+	public void testAuto() {
+		testStoreImplementation(new AdaptiveNodeLocationStore());
+	}
+	
+	
+	/**
+	 * Tests the sparse implementation with unevenly distributed node ids
+	 * spanning several chunks.
+	 */
+	@Test
+	public void testSparseUnevenIds() {
+		SparseNodeLocationStore store;
+		List<Long> nodeIds;
+		
+		nodeIds = new ArrayList<Long>();
+		for (long i = -1000; i < 100000; i++) {
+			nodeIds.add(i * 3);
+		}
+		for (long i = 0; i < 100000; i++) {
+			nodeIds.add(10000000000L + 2 * i * i);
+		}
+		
+		store = new SparseNodeLocationStore();
+		for (Long nodeId : nodeIds) {
+			store.addLocation(nodeId, new NodeLocation(1, (nodeId % 1000) / 10.0));
+		}
+		Assert.assertEquals("Incorrect node count.", nodeIds.size(), store.getNodeCount());
+		
+		for (Long nodeId : nodeIds) {
+			NodeLocation location;
+			
+			location = store.getNodeLocation(nodeId);
+			Assert.assertTrue("The node location should be valid.", location.isValid());
+			Assert.assertEquals("The latitude is incorrect.", (nodeId % 1000) / 10.0, location.getLatitude(), 0);
+			Assert.assertFalse("The node location should be invalid.", store.getNodeLocation(nodeId + 1).isValid());
+		}
+		Assert.assertFalse("The node location should be invalid.", store.getNodeLocation(-3001).isValid());
+		Assert.assertFalse("The node location should be invalid.", store.getNodeLocation(Long.MAX_VALUE).isValid());
+		
+		store.close();
+	}
+	
+	
+	/**
+	 * Tests that the automatic implementation retains all nodes when it
+	 * switches storage due to unsorted input or a large bound.
+	 */
+	@Test
+	public void testAutoSwitchesStore() {
+		AdaptiveNodeLocationStore store;
+		
+		store = new AdaptiveNodeLocationStore();
+		store.setBound(new Bound(10, 5, 50, 45, "test"));
+		store.addLocation(10, new NodeLocation(1, 2));
+		store.addLocation(20, new NodeLocation(3, 4));
+		store.addLocation(15, new NodeLocation(5, 6));
+		Assert.assertEquals("The longitude is incorrect.", 1, store.getNodeLocation(10).getLongitude(), 0);
+		Assert.assertEquals("The longitude is incorrect.", 3, store.getNodeLocation(20).getLongitude(), 0);
+		Assert.assertEquals("The longitude is incorrect.", 5, store.getNodeLocation(15).getLongitude(), 0);
+		store.close();
+		
+		store = new AdaptiveNodeLocationStore();
+		store.addLocation(10, new NodeLocation(1, 2));
+		store.setBound(new Bound("planet"));
+		store.addLocation(20, new NodeLocation(3, 4));
+		Assert.assertEquals("The latitude is incorrect.", 2, store.getNodeLocation(10).getLatitude(), 0);
+		Assert.assertEquals("The latitude is incorrect.", 4, store.getNodeLocation(20).getLatitude(), 0);
+		Assert.assertFalse("The node location should be invalid.", store.getNodeLocation(11).isValid());
+		store.close();
+	}
+}
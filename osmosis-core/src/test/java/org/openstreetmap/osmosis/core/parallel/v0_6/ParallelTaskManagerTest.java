@@ -0,0 +1,171 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.parallel.v0_6;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.pipeline.common.PipeTasks;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkManager;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkSourceManager;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
+import org.openstreetmap.osmosis.core.task.v0_6.Source;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkEntityInspector;
+
+
+/**
+ * Tests the parallel task.
+ */
+public class ParallelTaskManagerTest {
+
+	/**
+	 * A task passing on only the nodes with an even identifier.
+	 */
+	private static class EvenNodeFilter implements SinkSource {
+		private Sink sink;
+
+
+		@Override
+		public void setSink(Sink sink) {
+			this.sink = sink;
+		}
+
+
+		@Override
+		public void initialize(Map<String, Object> metaData) {
+			sink.initialize(metaData);
+		}
+
+
+		@Override
+		public void process(EntityContainer entityContainer) {
+			if (entityContainer.getEntity().getId() % 2 == 0) {
+				sink.process(entityContainer);
+			}
+		}
+
+
+		@Override
+		public void complete() {
+			sink.complete();
+		}
+
+
+		@Override
+		public void close() {
+			sink.close();
+		}
+	}
+
+
+	/**
+	 * The factory for the even node filter.
+	 */
+	private static class EvenNodeFilterFactory extends TaskManagerFactory {
+		private boolean parallel;
+
+
+		EvenNodeFilterFactory(boolean parallel) {
+			this.parallel = parallel;
+		}
+
+
+		@Override
+		protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
+			return new SinkSourceManager(taskConfig.getId(), new EvenNodeFilter(), taskConfig.getPipeArgs());
+		}
+
+
+		@Override
+		public boolean supportsParallelExecution(TaskConfiguration taskConfig) {
+			return parallel;
+		}
+	}
+
+
+	private static TaskConfiguration buildConfig(String id) {
+		return new TaskConfiguration(id, "filter", Collections.<String, String>emptyMap(),
+				Collections.<String, String>emptyMap(), null);
+	}
+
+
+	/**
+	 * Verifies that output from all workers is passed on in the original order.
+	 */
+	@Test
+	public void testOrderPreserved() {
+		ParallelTaskManager parallelManager;
+		SinkEntityInspector inspector;
+		SinkManager sinkManager;
+		PipeTasks pipeTasks;
+		CaptureSource source;
+		Sink input;
+		long expectedId;
+
+		parallelManager = new ParallelTaskManager("1-parallel", 4, 7, Collections.<String, String>emptyMap());
+		parallelManager.wrap(new EvenNodeFilterFactory(true), buildConfig("2-filter"));
+
+		inspector = new SinkEntityInspector();
+		sinkManager = new SinkManager("3-sink", inspector, Collections.<String, String>emptyMap());
+
+		source = new CaptureSource();
+		pipeTasks = new PipeTasks();
+		pipeTasks.putTask("0-source", source);
+		parallelManager.connect(pipeTasks);
+		sinkManager.connect(pipeTasks);
+		input = source.sink;
+
+		input.initialize(Collections.<String, Object>emptyMap());
+		for (int i = 0; i < 1000; i++) {
+			input.process(new NodeContainer(new Node(new CommonEntityData(i, 1, new Date(), OsmUser.NONE, 1), 1, 1)));
+		}
+		input.complete();
+		input.close();
+
+		expectedId = 0;
+		for (EntityContainer entityContainer : inspector.getProcessedEntities()) {
+			Assert.assertEquals("Incorrect entity order.", expectedId, entityContainer.getEntity().getId());
+			expectedId += 2;
+		}
+		Assert.assertEquals("Incorrect entity count.", 1000, expectedId);
+	}
+
+
+	/**
+	 * Verifies that tasks not declaring support for parallel execution are
+	 * rejected.
+	 */
+	@Test(expected = OsmosisRuntimeException.class)
+	public void testUnsupportedTask() {
+		ParallelTaskManager parallelManager;
+
+		parallelManager = new ParallelTaskManager("1-parallel", 2, 10, Collections.<String, String>emptyMap());
+		parallelManager.wrap(new EvenNodeFilterFactory(false), buildConfig("2-filter"));
+	}
+
+
+	/**
+	 * Records the sink connected to it.
+	 */
+	private static class CaptureSource implements Source {
+		private Sink sink;
+
+
+		@Override
+		public void setSink(Sink sink) {
+			this.sink = sink;
+		}
+	}
+}
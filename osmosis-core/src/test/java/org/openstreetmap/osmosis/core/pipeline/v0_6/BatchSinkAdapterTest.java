@@ -0,0 +1,104 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.v0_6;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkBatchInspector;
+
+
+/**
+ * Tests the batch sink adapter.
+ */
+public class BatchSinkAdapterTest {
+
+	private EntityContainer createNode(long id) {
+		return new NodeContainer(new Node(new CommonEntityData(id, 1, new Date(0), OsmUser.NONE, 1), 1, 1));
+	}
+
+
+	/**
+	 * Verifies that sinks already supporting batches are not wrapped.
+	 */
+	@Test
+	public void testAdaptBatchSink() {
+		BatchSink sink;
+
+		sink = new SinkBatchInspector();
+
+		Assert.assertSame("Batch sink should not be wrapped.", sink, BatchSinkAdapter.adapt(sink));
+	}
+
+
+	/**
+	 * Verifies that sinks only implementing the per-entity interface receive
+	 * each entity of a batch in order along with all lifecycle calls.
+	 */
+	@Test
+	public void testFallback() {
+		final List<String> events;
+		Sink sink;
+		BatchSink adapter;
+		List<EntityContainer> batch;
+
+		events = new ArrayList<String>();
+		sink = new Sink() {
+			@Override
+			public void initialize(Map<String, Object> metaData) {
+				events.add("initialize");
+			}
+
+
+			@Override
+			public void process(EntityContainer entityContainer) {
+				events.add("process " + entityContainer.getEntity().getId());
+			}
+
+
+			@Override
+			public void complete() {
+				events.add("complete");
+			}
+
+
+			@Override
+			public void close() {
+				events.add("close");
+			}
+		};
+
+		adapter = BatchSinkAdapter.adapt(sink);
+		Assert.assertTrue("Sink should be wrapped.", adapter instanceof BatchSinkAdapter);
+
+		batch = new ArrayList<EntityContainer>();
+		adapter.initialize(Collections.<String, Object>emptyMap());
+		batch.add(createNode(1));
+		batch.add(createNode(2));
+		adapter.processBatch(batch);
+		adapter.process(createNode(3));
+		// The caller owns the list and may re-use it for the next batch.
+		batch.clear();
+		batch.add(createNode(4));
+		adapter.processBatch(batch);
+		adapter.processBatch(Collections.<EntityContainer>emptyList());
+		adapter.complete();
+		adapter.close();
+
+		Assert.assertEquals("Incorrect calls to the underlying sink.",
+				Arrays.asList("initialize", "process 1", "process 2", "process 3", "process 4", "complete", "close"),
+				events);
+	}
+}
@@ -0,0 +1,187 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.v0_6;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.domain.common.SimpleTimestampContainer;
+import org.openstreetmap.osmosis.core.domain.common.TimestampContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkBatchInspector;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkEntityInspector;
+
+
+/**
+ * Tests the entity batcher.
+ */
+public class EntityBatcherTest {
+
+	private EntityContainer createNode(long id) {
+		return new NodeContainer(new Node(new CommonEntityData(id, 1, new Date(0), OsmUser.NONE, 1), 1, 1));
+	}
+
+
+	private List<Long> getIds(Iterable<EntityContainer> entityContainers) {
+		List<Long> ids;
+
+		ids = new ArrayList<Long>();
+		for (EntityContainer entityContainer : entityContainers) {
+			ids.add(entityContainer.getEntity().getId());
+		}
+
+		return ids;
+	}
+
+
+	/**
+	 * Verifies that full batches are sent as they fill, and that flushing sends
+	 * the remaining partial batch.
+	 */
+	@Test
+	public void testBatchSize() {
+		SinkBatchInspector inspector;
+		EntityBatcher batcher;
+		List<List<EntityContainer>> batches;
+
+		inspector = new SinkBatchInspector();
+		batcher = new EntityBatcher(inspector, 3);
+
+		for (int i = 1; i <= 7; i++) {
+			batcher.add(createNode(i));
+		}
+		Assert.assertEquals("Only full batches should have been sent.", 2, inspector.getBatches().size());
+
+		batcher.flush();
+		batcher.flush();
+
+		batches = inspector.getBatches();
+		Assert.assertEquals("Incorrect batch count.", 3, batches.size());
+		Assert.assertEquals("Incorrect first batch.", Arrays.asList(1L, 2L, 3L), getIds(batches.get(0)));
+		Assert.assertEquals("Incorrect second batch.", Arrays.asList(4L, 5L, 6L), getIds(batches.get(1)));
+		Assert.assertEquals("Incorrect final batch.", Arrays.asList(7L), getIds(batches.get(2)));
+	}
+
+
+	/**
+	 * Verifies that a sink only supporting per-entity processing receives all
+	 * entities in order.
+	 */
+	@Test
+	public void testPerEntitySink() {
+		SinkEntityInspector inspector;
+		EntityBatcher batcher;
+
+		inspector = new SinkEntityInspector();
+		batcher = new EntityBatcher(inspector, 2);
+
+		for (int i = 1; i <= 5; i++) {
+			batcher.add(createNode(i));
+		}
+		batcher.flush();
+
+		Assert.assertEquals("Incorrect entities.", Arrays.asList(1L, 2L, 3L, 4L, 5L),
+				getIds(inspector.getProcessedEntities()));
+	}
+
+
+	/**
+	 * Verifies that all batches reach the sink before it is completed when the
+	 * batcher is flushed ahead of completion.
+	 */
+	@Test
+	public void testFlushBeforeComplete() {
+		final List<String> events;
+		Sink sink;
+		EntityBatcher batcher;
+
+		events = new ArrayList<String>();
+		sink = new BatchSink() {
+			@Override
+			public void initialize(Map<String, Object> metaData) {
+				events.add("initialize");
+			}
+
+
+			@Override
+			public void process(EntityContainer entityContainer) {
+				events.add("process " + entityContainer.getEntity().getId());
+			}
+
+
+			@Override
+			public void processBatch(List<EntityContainer> entityContainers) {
+				events.add("batch " + getIds(entityContainers));
+			}
+
+
+			@Override
+			public void complete() {
+				events.add("complete");
+			}
+
+
+			@Override
+			public void close() {
+				events.add("close");
+			}
+		};
+
+		batcher = new EntityBatcher(sink, 2);
+		sink.initialize(null);
+		batcher.add(createNode(1));
+		batcher.add(createNode(2));
+		batcher.add(createNode(3));
+		batcher.flush();
+		sink.complete();
+		sink.close();
+
+		Assert.assertEquals("Incorrect call order.",
+				Arrays.asList("initialize", "batch [1, 2]", "batch [3]", "complete", "close"), events);
+	}
+
+
+	/**
+	 * Verifies that recycled entities are only released once the sink has
+	 * processed the batch holding them.
+	 */
+	@Test
+	public void testRecyclerRelease() {
+		final EntityRecycler recycler;
+		final TimestampContainer timestamp;
+		final List<EntityContainer> seen;
+		EntityBatcher batcher;
+		NodeContainer first;
+
+		recycler = new EntityRecycler(true);
+		timestamp = new SimpleTimestampContainer(new Date(0));
+		seen = new ArrayList<EntityContainer>();
+		batcher = new EntityBatcher(new SinkBatchInspector() {
+			@Override
+			public void processBatch(List<EntityContainer> entityContainers) {
+				// Entities must not be recycled while the batch is in progress.
+				seen.addAll(entityContainers);
+				Assert.assertNotSame("Entity was re-used within a batch.", seen.get(0),
+						recycler.nextNode(99, 1, timestamp, OsmUser.NONE, 1, 0, 0));
+			}
+		}, 2, recycler);
+
+		first = recycler.nextNode(1, 1, timestamp, OsmUser.NONE, 1, 0, 0);
+		batcher.add(first);
+		batcher.add(recycler.nextNode(2, 1, timestamp, OsmUser.NONE, 1, 0, 0));
+
+		Assert.assertEquals("Batch was not sent.", 2, seen.size());
+		Assert.assertSame("Entities were not released after the batch.", first,
+				recycler.nextNode(3, 1, timestamp, OsmUser.NONE, 1, 0, 0));
+	}
+}
@@ -0,0 +1,98 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.v0_6;
+
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.common.SimpleTimestampContainer;
+import org.openstreetmap.osmosis.core.domain.common.TimestampContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.misc.v0_6.NullWriter;
+import org.openstreetmap.osmosis.core.pipeline.common.PipeMetrics;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkEntityInspector;
+
+
+/**
+ * Tests the entity recycler.
+ */
+public class EntityRecyclerTest {
+
+	/**
+	 * Verifies that released entities are re-used with their state reset.
+	 */
+	@Test
+	public void testReuse() {
+		EntityRecycler recycler;
+		TimestampContainer timestamp;
+		NodeContainer first;
+		NodeContainer second;
+		WayContainer way;
+
+		recycler = new EntityRecycler(true);
+		timestamp = new SimpleTimestampContainer(new Date(1000));
+
+		first = recycler.nextNode(1, 1, timestamp, OsmUser.NONE, 1, 1.5, 2.5);
+		first.getEntity().getTags().add(new Tag("key", "value"));
+		way = recycler.nextWay(2, 1, timestamp, OsmUser.NONE, 1);
+		way.getEntity().getWayNodes().add(new WayNode(1));
+		recycler.release();
+
+		second = recycler.nextNode(3, 2, timestamp, OsmUser.NONE, 4, 5.5, 6.5);
+		Assert.assertSame("Node was not re-used.", first, second);
+		Assert.assertEquals("Incorrect id.", 3, second.getEntity().getId());
+		Assert.assertEquals("Incorrect version.", 2, second.getEntity().getVersion());
+		Assert.assertEquals("Incorrect changeset.", 4, second.getEntity().getChangesetId());
+		Assert.assertEquals("Incorrect latitude.", 5.5, second.getEntity().getLatitude(), 0);
+		Assert.assertEquals("Incorrect longitude.", 6.5, second.getEntity().getLongitude(), 0);
+		Assert.assertTrue("Tags were not cleared.", second.getEntity().getTags().isEmpty());
+
+		Assert.assertSame("Way was not re-used.", way, recycler.nextWay(5, 1, timestamp, OsmUser.NONE, 1));
+		Assert.assertTrue("Way nodes were not cleared.", way.getEntity().getWayNodes().isEmpty());
+
+		Assert.assertNotSame("Unreleased node was re-used.", second,
+				recycler.nextNode(6, 1, timestamp, OsmUser.NONE, 1, 0, 0));
+	}
+
+
+	/**
+	 * Verifies that new entities are always created when re-use is disabled.
+	 */
+	@Test
+	public void testDisabled() {
+		EntityRecycler recycler;
+		TimestampContainer timestamp;
+		NodeContainer first;
+
+		recycler = new EntityRecycler(false);
+		timestamp = new SimpleTimestampContainer(new Date(1000));
+
+		first = recycler.nextNode(1, 1, timestamp, OsmUser.NONE, 1, 0, 0);
+		recycler.release();
+
+		Assert.assertNotSame("Node was re-used.", first, recycler.nextNode(1, 1, timestamp, OsmUser.NONE, 1, 0, 0));
+	}
+
+
+	/**
+	 * Verifies that re-use is only supported by sinks declaring it.
+	 */
+	@Test
+	public void testSupport() {
+		Sink retainingSink;
+
+		retainingSink = new SinkEntityInspector();
+
+		Assert.assertTrue("Null writer should support re-use.", EntityReuse.isSupported(new NullWriter()));
+		Assert.assertFalse("Plain sink should not support re-use.", EntityReuse.isSupported(retainingSink));
+		Assert.assertFalse("Metered retaining sink should not support re-use.",
+				EntityReuse.isSupported(new MeteredSink(retainingSink, new PipeMetrics())));
+		Assert.assertTrue("Metered null writer should support re-use.",
+				EntityReuse.isSupported(new MeteredSink(new NullWriter(), new PipeMetrics())));
+	}
+}
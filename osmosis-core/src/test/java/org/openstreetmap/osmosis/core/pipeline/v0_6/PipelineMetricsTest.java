@@ -0,0 +1,158 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.pipeline.v0_6;
+
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.misc.v0_6.NullWriter;
+import org.openstreetmap.osmosis.core.pipeline.common.PipeTasks;
+import org.openstreetmap.osmosis.core.pipeline.common.PipelineMetrics;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskProfile;
+import org.openstreetmap.osmosis.core.task.v0_6.RunnableSource;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+
+/**
+ * Tests the collection of pipeline metrics by the task managers.
+ */
+public class PipelineMetricsTest {
+	
+	/**
+	 * A source sending a fixed number of nodes.
+	 */
+	private static class NodeSource implements RunnableSource {
+		private Sink sink;
+		private int count;
+		
+		
+		NodeSource(int count) {
+			this.count = count;
+		}
+		
+		
+		@Override
+		public void setSink(Sink sink) {
+			this.sink = sink;
+		}
+		
+		
+		@Override
+		public void run() {
+			sink.initialize(Collections.<String, Object>emptyMap());
+			for (int i = 0; i < count; i++) {
+				sink.process(new NodeContainer(
+						new Node(new CommonEntityData(i, 1, new Date(), OsmUser.NONE, 1), 1, 1)));
+			}
+			sink.complete();
+			sink.close();
+		}
+	}
+	
+	
+	/**
+	 * Verifies that entities passing between tasks are counted against both
+	 * the producing and consuming task.
+	 */
+	@Test
+	public void testEntityCounts() {
+		NodeSource source;
+		RunnableSourceManager sourceManager;
+		SinkManager sinkManager;
+		PipelineMetrics metrics;
+		String prometheus;
+		
+		source = new NodeSource(5);
+		sourceManager = new RunnableSourceManager("1-source", source, Collections.<String, String>emptyMap());
+		sinkManager = new SinkManager("2-sink", new NullWriter(), Collections.<String, String>emptyMap());
+		
+		PipeTasks pipeTasks = new PipeTasks(true);
+		sourceManager.connect(pipeTasks);
+		sinkManager.connect(pipeTasks);
+		
+		source.run();
+		
+		Assert.assertEquals("Incorrect source output.", 5, sourceManager.getMetrics().getEntitiesOut());
+		Assert.assertEquals("Incorrect sink input.", 5, sinkManager.getMetrics().getEntitiesIn());
+		Assert.assertEquals("Incorrect sink output.", 0, sinkManager.getMetrics().getEntitiesOut());
+		
+		metrics = new PipelineMetrics(null, 0);
+		metrics.register(sourceManager.getMetrics());
+		metrics.register(sinkManager.getMetrics());
+		prometheus = metrics.formatPrometheus();
+		
+		Assert.assertTrue("Missing source output.",
+				prometheus.contains("osmosis_task_entities_out_total{task=\"1-source\"} 5\n"));
+		Assert.assertTrue("Missing sink input.",
+				prometheus.contains("osmosis_task_entities_in_total{task=\"2-sink\"} 5\n"));
+	}
+	
+	
+	/**
+	 * Verifies that no metering occurs when metrics are disabled.
+	 */
+	@Test
+	public void testMetricsDisabled() {
+		NodeSource source;
+		SinkManager sinkManager;
+		
+		source = new NodeSource(5);
+		sinkManager = new SinkManager("2-sink", new NullWriter(), Collections.<String, String>emptyMap());
+		
+		PipeTasks pipeTasks = new PipeTasks();
+		new RunnableSourceManager("1-source", source, Collections.<String, String>emptyMap()).connect(pipeTasks);
+		sinkManager.connect(pipeTasks);
+		
+		source.run();
+		
+		Assert.assertEquals("Metrics should not be collected.", 0, sinkManager.getMetrics().getEntitiesIn());
+	}
+	
+	
+	/**
+	 * Verifies that work performed by a passive task is charged to that task
+	 * rather than the task calling it.
+	 */
+	@Test
+	public void testProfiling() {
+		NodeSource source;
+		RunnableSourceManager sourceManager;
+		SinkManager sinkManager;
+		PipelineMetrics metrics;
+		TaskProfile sourceProfile;
+		TaskProfile previous;
+		
+		source = new NodeSource(100000);
+		sourceManager = new RunnableSourceManager("1-source", source, Collections.<String, String>emptyMap());
+		sinkManager = new SinkManager("2-sink", new NullWriter(), Collections.<String, String>emptyMap());
+		
+		metrics = new PipelineMetrics(null, 0, true, null);
+		metrics.register(sourceManager.getMetrics());
+		metrics.register(sinkManager.getMetrics());
+		
+		PipeTasks pipeTasks = new PipeTasks(true);
+		sourceManager.connect(pipeTasks);
+		sinkManager.connect(pipeTasks);
+		
+		sourceProfile = sourceManager.getMetrics().getProfile();
+		previous = sourceProfile.enter();
+		try {
+			source.run();
+		} finally {
+			sourceProfile.exit(previous);
+		}
+		
+		if (TaskProfile.isAllocationSupported()) {
+			// Only the source creates new objects.
+			Assert.assertTrue("Source allocations missing.", sourceProfile.getAllocatedBytes() > 0);
+			Assert.assertTrue("Allocations charged to sink.", sinkManager.getMetrics().getProfile().getAllocatedBytes()
+					< sourceProfile.getAllocatedBytes());
+		}
+		Assert.assertTrue("Missing sink profile.", metrics.formatProfileJson().contains("\"taskId\": \"2-sink\""));
+	}
+}
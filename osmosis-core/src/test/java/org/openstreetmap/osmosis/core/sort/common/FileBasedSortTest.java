@@ -8,6 +8,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
 import org.openstreetmap.osmosis.core.store.SingleClassObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.store.StoreCompression;
 
 
 /**
@@ -21,8 +22,8 @@ public class FileBasedSortTest {
 	 * sorting limit, but doesn't trigger additional persistence at sub-levels
 	 * in the merge sort to minimise file handles as this would take too much
 	 * time for a unit test. The item count must be greater than
-	 * (MAX_MEMORY_SORT_COUNT * (MAX_MERGE_SOURCE_COUNT ^
-	 * MAX_MEMORY_SORT_DEPTH)) to trigger intermediate persistence.
+	 * (MAX_MEMORY_SORT_COUNT * MAX_MERGE_SOURCE_COUNT) to trigger
+	 * intermediate persistence.
 	 */
 	@Test
 	public void test() {
@@ -67,4 +68,127 @@ public class FileBasedSortTest {
 			}
 		}
 	}
+
+
+	/**
+	 * Verifies that items with equal sort keys are returned in the order they
+	 * were added when they span multiple chunks sorted in parallel.
+	 */
+	@Test
+	public void testStability() {
+		final int itemCount = 100000;
+		final int keyDivisor = 1000000;
+
+		SingleClassObjectSerializationFactory objectFactory = new SingleClassObjectSerializationFactory(
+				SampleStoreable.class);
+		Comparator<SampleStoreable> comparator = new Comparator<SampleStoreable>() {
+			@Override
+			public int compare(SampleStoreable o1, SampleStoreable o2) {
+				return Integer.compare(o1.getValue() / keyDivisor, o2.getValue() / keyDivisor);
+			}
+		};
+
+		try (FileBasedSort<SampleStoreable> fileBasedSort =
+				new FileBasedSort<SampleStoreable>(objectFactory, comparator, false)) {
+			// Each value consists of a random key followed by an increasing
+			// sequence number.
+			Random random = new Random();
+			for (int i = 0; i < itemCount; i++) {
+				fileBasedSort.add(new SampleStoreable(random.nextInt(100) * keyDivisor + i));
+			}
+
+			try (ReleasableIterator<SampleStoreable> resultIterator = fileBasedSort.iterate()) {
+				int count = 0;
+				int lastValue = -1;
+				while (resultIterator.hasNext()) {
+					int currentValue = resultIterator.next().getValue();
+					Assert.assertTrue("Items were not sorted in order.", currentValue > lastValue);
+					lastValue = currentValue;
+					count++;
+				}
+				Assert.assertEquals("Incorrect number of items.", itemCount, count);
+			}
+		}
+	}
+
+
+	/**
+	 * Verifies that small data sets are sorted in memory and that a memory
+	 * budget controls the number of runs written to file.
+	 */
+	@Test
+	public void testMemoryBudget() {
+		final int itemCount = 3000;
+		final long itemSize = 100;
+
+		SingleClassObjectSerializationFactory objectFactory = new SingleClassObjectSerializationFactory(
+				SampleStoreable.class);
+		Comparator<SampleStoreable> comparator = new Comparator<SampleStoreable>() {
+			@Override
+			public int compare(SampleStoreable o1, SampleStoreable o2) {
+				return Integer.compare(o1.getValue(), o2.getValue());
+			}
+		};
+
+		// The default chunk size holds all items so nothing is written to file.
+		try (FileBasedSort<SampleStoreable> fileBasedSort =
+				new FileBasedSort<SampleStoreable>(objectFactory, comparator, false)) {
+			for (int i = itemCount; i > 0; i--) {
+				fileBasedSort.add(new SampleStoreable(i));
+			}
+
+			try (ReleasableIterator<SampleStoreable> resultIterator = fileBasedSort.iterate()) {
+				Assert.assertEquals("Incorrect first item.", 1, resultIterator.next().getValue());
+			}
+			Assert.assertEquals("Data should not have been written to file.", 0, fileBasedSort.getRunCount());
+			Assert.assertEquals("No merge should be required.", 0, fileBasedSort.getMergePassCount());
+		}
+
+		// A budget holding all items sorts them in memory.
+		try (FileBasedSort<SampleStoreable> fileBasedSort = new FileBasedSort<SampleStoreable>(
+				objectFactory, comparator, StoreCompression.None, itemSize * itemCount + 1, item -> itemSize)) {
+			for (int i = itemCount; i > 0; i--) {
+				fileBasedSort.add(new SampleStoreable(i));
+			}
+
+			try (ReleasableIterator<SampleStoreable> resultIterator = fileBasedSort.iterate()) {
+				Assert.assertEquals("Incorrect first item.", 1, resultIterator.next().getValue());
+			}
+			Assert.assertEquals("Data should not have been written to file.", 0, fileBasedSort.getRunCount());
+		}
+
+		// A budget slightly too small divides the buffered items into several runs.
+		try (FileBasedSort<SampleStoreable> fileBasedSort = new FileBasedSort<SampleStoreable>(
+				objectFactory, comparator, StoreCompression.None, itemSize * (itemCount - 1), item -> itemSize)) {
+			for (int i = itemCount; i > 0; i--) {
+				fileBasedSort.add(new SampleStoreable(i));
+			}
+
+			try (ReleasableIterator<SampleStoreable> resultIterator = fileBasedSort.iterate()) {
+				for (int i = 1; i <= itemCount; i++) {
+					Assert.assertEquals("Incorrect item.", i, resultIterator.next().getValue());
+				}
+				Assert.assertFalse("Too many items were returned.", resultIterator.hasNext());
+			}
+			Assert.assertTrue("Data should have been written to multiple runs.", fileBasedSort.getRunCount() > 2);
+		}
+
+		// A budget of a few items forces more runs than can be merged at once.
+		try (FileBasedSort<SampleStoreable> fileBasedSort = new FileBasedSort<SampleStoreable>(
+				objectFactory, comparator, StoreCompression.None, itemSize * 5, item -> itemSize)) {
+			for (int i = itemCount; i > 0; i--) {
+				fileBasedSort.add(new SampleStoreable(i));
+			}
+
+			try (ReleasableIterator<SampleStoreable> resultIterator = fileBasedSort.iterate()) {
+				for (int i = 1; i <= itemCount; i++) {
+					Assert.assertEquals("Incorrect item.", i, resultIterator.next().getValue());
+				}
+				Assert.assertFalse("Too many items were returned.", resultIterator.hasNext());
+			}
+			Assert.assertTrue("Data should have been written to multiple runs.", fileBasedSort.getRunCount() > 256);
+			Assert.assertTrue("Run data should have been written.", fileBasedSort.getSpilledByteCount() > 0);
+			Assert.assertEquals("Incorrect merge pass count.", 2, fileBasedSort.getMergePassCount());
+		}
+	}
 }
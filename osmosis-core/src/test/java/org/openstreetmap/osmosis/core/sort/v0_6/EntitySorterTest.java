@@ -0,0 +1,158 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.sort.v0_6;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkEntityInspector;
+
+
+/**
+ * Tests the entity sorter.
+ */
+public class EntitySorterTest {
+	private Comparator<EntityContainer> comparator = new EntityContainerComparator(new EntityByTypeThenIdComparator());
+
+
+	private NodeContainer createNode(long id) {
+		return new NodeContainer(new Node(new CommonEntityData(id, 1, new Date(0), OsmUser.NONE, 1), 0, 0));
+	}
+
+
+	private List<Long> run(EntitySorter sorter, Map<String, Object> metaData, long... ids) {
+		SinkEntityInspector inspector;
+		List<Long> result;
+
+		inspector = new SinkEntityInspector();
+		sorter.setSink(inspector);
+		sorter.initialize(metaData);
+		for (long id : ids) {
+			sorter.process(createNode(id));
+		}
+		sorter.complete();
+		sorter.close();
+
+		result = new ArrayList<Long>();
+		for (EntityContainer entityContainer : inspector.getProcessedEntities()) {
+			result.add(entityContainer.getEntity().getId());
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Verifies that mostly sorted input with out of order entities is sorted
+	 * correctly.
+	 */
+	@Test
+	public void testPartiallySorted() {
+		List<Long> expected;
+		long[] ids;
+
+		ids = new long[20000];
+		expected = new ArrayList<Long>();
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = i;
+		}
+		// Move a few entities out of order.
+		ids[10] = 15000;
+		ids[15000] = 10;
+		ids[19999] = 5;
+		for (long id : ids) {
+			expected.add(id);
+		}
+		Collections.sort(expected);
+
+		Assert.assertEquals("Entities are not sorted.", expected,
+				run(new EntitySorter(comparator, false), new HashMap<String, Object>(), ids));
+	}
+
+
+	/**
+	 * Verifies that an out of order first entity doesn't prevent the
+	 * remaining sorted input from forming the ordered run.
+	 */
+	@Test
+	public void testOutlierFirst() {
+		EntitySorter sorter;
+		List<Long> expected;
+		long[] ids;
+
+		ids = new long[20000];
+		expected = new ArrayList<Long>();
+		ids[0] = 1000000;
+		for (int i = 1; i < ids.length; i++) {
+			ids[i] = i;
+		}
+		for (long id : ids) {
+			expected.add(id);
+		}
+		Collections.sort(expected);
+
+		sorter = new EntitySorter(comparator, false);
+		Assert.assertEquals("Entities are not sorted.", expected, run(sorter, new HashMap<String, Object>(), ids));
+		Assert.assertEquals("Only the outlier should have been sorted.", 1, sorter.getUnorderedCount());
+	}
+
+
+	/**
+	 * Verifies that the ordered run is held in memory up to the memory budget
+	 * rather than a fixed entity count.
+	 */
+	@Test
+	public void testOrderedRunMemoryBudget() {
+		EntitySorter sorter;
+		List<Long> expected;
+		long[] ids;
+
+		ids = new long[20000];
+		expected = new ArrayList<Long>();
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = i;
+			expected.add((long) i);
+		}
+
+		sorter = new EntitySorter(comparator, false, 64L * 1024 * 1024);
+		Assert.assertEquals("Entities are not sorted.", expected, run(sorter, new HashMap<String, Object>(), ids));
+		Assert.assertFalse("The ordered run fits within the budget.", sorter.isOrderedRunSpilled());
+
+		sorter = new EntitySorter(comparator, false, 1024);
+		Assert.assertEquals("Entities are not sorted.", expected, run(sorter, new HashMap<String, Object>(), ids));
+		Assert.assertTrue("The ordered run exceeds the budget.", sorter.isOrderedRunSpilled());
+
+		sorter = new EntitySorter(comparator, false);
+		Assert.assertEquals("Entities are not sorted.", expected, run(sorter, new HashMap<String, Object>(), ids));
+		Assert.assertTrue("The ordered run exceeds the default count.", sorter.isOrderedRunSpilled());
+	}
+
+
+	/**
+	 * Verifies that input declared to be in the sort order is passed through
+	 * unchanged.
+	 */
+	@Test
+	public void testPassThrough() {
+		Map<String, Object> metaData;
+
+		metaData = new HashMap<String, Object>();
+		metaData.put(EntitySorter.SORT_ORDER_META_DATA_KEY, comparator);
+
+		Assert.assertEquals("Declared sorted input should not be sorted again.", List.of(2L, 1L),
+				run(new EntitySorter(comparator, false), metaData, 2, 1));
+		Assert.assertEquals("Undeclared input should be sorted.", List.of(1L, 2L),
+				run(new EntitySorter(comparator, false), new HashMap<String, Object>(), 2, 1));
+	}
+}
@@ -0,0 +1,250 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.task.common.ChangeAction;
+
+
+/**
+ * Tests the compact store format written by {@link CompactStoreWriter}.
+ */
+public class CompactStoreTest {
+
+	private CommonEntityData createEntityData(long id) {
+		return new CommonEntityData(id, 2, new Date(1500000000000L + id * 1000), new OsmUser(12, "user" + (id % 3)),
+				34, Arrays.asList(new Tag("highway", "residential"), new Tag("name", "Street " + id)));
+	}
+
+
+	private List<Storeable> createObjects() {
+		List<Storeable> objects;
+
+		// Coordinates are exactly representable at fixed precision so that
+		// they compare equal after being stored.
+		objects = new ArrayList<Storeable>();
+		for (int i = 0; i < 100; i++) {
+			objects.add(new NodeContainer(new Node(createEntityData(1000 + i), -33.5 + i / 64.0, 151.25 - i / 64.0)));
+		}
+
+		// Extreme values exercise the overflow of delta and zig-zag coding.
+		objects.add(new NodeContainer(new Node(createEntityData(Long.MIN_VALUE), -90, -180)));
+		objects.add(new NodeContainer(new Node(createEntityData(Long.MAX_VALUE), 90, 180)));
+		objects.add(new NodeContainer(new Node(createEntityData(-5), 0, 0)));
+
+		for (int i = 0; i < 10; i++) {
+			List<WayNode> wayNodes;
+
+			wayNodes = new ArrayList<WayNode>();
+			for (int j = 0; j < 10; j++) {
+				wayNodes.add(new WayNode(1000 + i * 5 + j));
+			}
+			objects.add(new WayContainer(new Way(createEntityData(500 + i), wayNodes)));
+		}
+
+		objects.add(new RelationContainer(new Relation(createEntityData(7), Arrays.asList(
+				new RelationMember(500, EntityType.Way, "outer"),
+				new RelationMember(1000, EntityType.Node, ""),
+				new RelationMember(-3, EntityType.Relation, "outer")))));
+
+		objects.add(new ChangeContainer(
+				new NodeContainer(new Node(createEntityData(2000), 1, 2)), ChangeAction.Modify));
+
+		return objects;
+	}
+
+
+	private void assertStoredEquals(Storeable expected, Storeable actual) {
+		if (expected instanceof ChangeContainer) {
+			Assert.assertEquals("Incorrect change action.", ((ChangeContainer) expected).getAction(),
+					((ChangeContainer) actual).getAction());
+			Assert.assertEquals("Incorrect change entity.",
+					((ChangeContainer) expected).getEntityContainer().getEntity(),
+					((ChangeContainer) actual).getEntityContainer().getEntity());
+		} else {
+			Assert.assertEquals("Incorrect entity.", ((EntityContainer) expected).getEntity(),
+					((EntityContainer) actual).getEntity());
+		}
+	}
+
+
+	private byte[] write(List<Storeable> objects, boolean compact) throws Exception {
+		ByteArrayOutputStream out;
+		StoreWriter storeWriter;
+		ObjectWriter objectWriter;
+
+		out = new ByteArrayOutputStream();
+		try (DataOutputStream dataOut = new DataOutputStream(out)) {
+			storeWriter = new DataOutputStoreWriter(dataOut);
+			if (compact) {
+				storeWriter = new CompactStoreWriter(storeWriter);
+			}
+
+			objectWriter = new GenericObjectWriter(storeWriter, new DynamicStoreClassRegister());
+			for (Storeable object : objects) {
+				objectWriter.writeObject(object);
+			}
+		}
+
+		return out.toByteArray();
+	}
+
+
+	/**
+	 * Verifies that entities are read back unchanged, and that the compact
+	 * format is smaller than the original format.
+	 *
+	 * @throws Exception
+	 *             if the data cannot be read or written.
+	 */
+	@Test
+	public void testRoundTrip() throws Exception {
+		List<Storeable> objects;
+		byte[] data;
+		ObjectReader objectReader;
+		StoreClassRegister classRegister;
+
+		objects = createObjects();
+
+		// The class register must be shared between the writer and reader.
+		classRegister = new DynamicStoreClassRegister();
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream();
+				DataOutputStream dataOut = new DataOutputStream(out)) {
+			ObjectWriter objectWriter;
+
+			objectWriter = new CompactObjectSerializationFactory(new GenericObjectSerializationFactory())
+					.createObjectWriter(new DataOutputStoreWriter(dataOut), classRegister);
+			for (Storeable object : objects) {
+				objectWriter.writeObject(object);
+			}
+			dataOut.flush();
+
+			data = out.toByteArray();
+		}
+
+		objectReader = new CompactObjectSerializationFactory(new GenericObjectSerializationFactory())
+				.createObjectReader(
+						new DataInputStoreReader(new DataInputStream(new ByteArrayInputStream(data))), classRegister);
+		for (Storeable object : objects) {
+			Storeable result;
+
+			result = objectReader.readObject();
+
+			assertStoredEquals(object, result);
+		}
+
+		Assert.assertTrue("Compact data should be less than half the original size.",
+				data.length * 2 < write(objects, false).length);
+		Assert.assertEquals("Compact data size changed.", write(objects, true).length, data.length);
+	}
+
+
+	/**
+	 * Verifies that a segmented store using the compact format can be read
+	 * both by chunk and in full, where each chunk was written independently.
+	 */
+	@Test
+	public void testSegmentedStore() {
+		List<Storeable> objects;
+
+		objects = createObjects();
+
+		for (StoreCompression compression : StoreCompression.values()) {
+			SegmentedObjectStore<Storeable> store;
+			List<Long> chunkOffsets;
+
+			store = new SegmentedObjectStore<Storeable>(
+					new CompactObjectSerializationFactory(new GenericObjectSerializationFactory()), "cst", compression);
+			try {
+				chunkOffsets = new ArrayList<Long>();
+				chunkOffsets.add(0L);
+				for (int i = 0; i < objects.size(); i++) {
+					store.add(objects.get(i));
+					if (i % 10 == 9) {
+						chunkOffsets.add(store.closeChunk());
+					}
+				}
+
+				try (ReleasableIterator<Storeable> iterator = store.iterate()) {
+					for (Storeable object : objects) {
+						Assert.assertTrue("Missing object using " + compression + ".", iterator.hasNext());
+						assertStoredEquals(object, iterator.next());
+					}
+					Assert.assertFalse("Too many objects using " + compression + ".", iterator.hasNext());
+				}
+
+				for (int i = 0; i < chunkOffsets.size(); i++) {
+					try (ReleasableIterator<Storeable> iterator = store.iterate(chunkOffsets.get(i), 10)) {
+						for (Storeable object : objects.subList(i * 10, Math.min(objects.size(), i * 10 + 10))) {
+							assertStoredEquals(object, iterator.next());
+						}
+					}
+				}
+			} finally {
+				store.close();
+			}
+		}
+	}
+
+
+	/**
+	 * Verifies that strings beyond the string table limits round trip.
+	 */
+	@Test
+	public void testStringTableLimits() {
+		ByteArrayOutputStream out;
+		CompactStoreWriter writer;
+		CompactStoreReader reader;
+		StringBuilder longString;
+
+		longString = new StringBuilder();
+		for (int i = 0; i <= CompactStoreWriter.MAX_TABLE_STRING_LENGTH; i++) {
+			longString.append('x');
+		}
+
+		out = new ByteArrayOutputStream();
+		writer = new CompactStoreWriter(new DataOutputStoreWriter(new DataOutputStream(out)));
+		for (int i = 0; i < CompactStoreWriter.STRING_TABLE_SIZE + 10; i++) {
+			writer.writeString(Integer.toString(i));
+		}
+		writer.writeString(longString.toString());
+		writer.writeString(longString.toString());
+		writer.writeString("5");
+		writer.writeString(Integer.toString(CompactStoreWriter.STRING_TABLE_SIZE + 5));
+
+		reader = new CompactStoreReader(
+				new DataInputStoreReader(new DataInputStream(new ByteArrayInputStream(out.toByteArray()))));
+		for (int i = 0; i < CompactStoreWriter.STRING_TABLE_SIZE + 10; i++) {
+			Assert.assertEquals("Incorrect string.", Integer.toString(i), reader.readString());
+		}
+		Assert.assertEquals("Incorrect long string.", longString.toString(), reader.readString());
+		Assert.assertEquals("Incorrect long string.", longString.toString(), reader.readString());
+		Assert.assertEquals("Incorrect table string.", "5", reader.readString());
+		Assert.assertEquals("Incorrect string.", Integer.toString(CompactStoreWriter.STRING_TABLE_SIZE + 5),
+				reader.readString());
+	}
+}
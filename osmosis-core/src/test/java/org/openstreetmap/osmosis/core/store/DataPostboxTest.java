@@ -0,0 +1,72 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link DataPostbox} class.
+ */
+public class DataPostboxTest {
+
+	/**
+	 * Verifies that a memory sized postbox delivers all items in order, and
+	 * that items larger than the whole budget don't block forever.
+	 *
+	 * @throws InterruptedException
+	 *             if the producer thread is interrupted.
+	 */
+	@Test(timeout = 60000)
+	public void testMemorySizedDelivery() throws InterruptedException {
+		final int itemCount = 100000;
+		final DataPostbox<Integer> postbox = new DataPostbox<Integer>(1000, new ObjectSizeEstimator<Integer>() {
+			@Override
+			public long estimateSize(Integer object) {
+				// Every thousandth item is larger than the entire budget.
+				if (object % 1000 == 0) {
+					return 5000;
+				}
+				return 10;
+			}
+		});
+		Thread producer;
+		int expected;
+
+		producer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					postbox.initialize(Collections.<String, Object>emptyMap());
+					for (int i = 0; i < itemCount; i++) {
+						postbox.put(i);
+					}
+					postbox.complete();
+				} finally {
+					postbox.close();
+				}
+			}
+		};
+		producer.start();
+
+		try {
+			postbox.outputInitialize();
+
+			expected = 0;
+			while (postbox.hasNext()) {
+				Assert.assertEquals("Incorrect item received.", expected++, postbox.getNext().intValue());
+			}
+			Assert.assertEquals("Incorrect item count.", itemCount, expected);
+
+			postbox.outputComplete();
+		} finally {
+			postbox.outputRelease();
+		}
+
+		producer.join();
+
+		Assert.assertTrue("Capacity exceeds the budget.", postbox.getCapacity() <= 1000);
+	}
+}
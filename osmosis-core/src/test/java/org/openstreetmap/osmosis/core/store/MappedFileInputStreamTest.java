@@ -0,0 +1,65 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link MappedFileInputStream} class.
+ */
+public class MappedFileInputStreamTest {
+
+	/**
+	 * Verifies that data spanning multiple mapped segments is read correctly
+	 * both sequentially and by position.
+	 *
+	 * @throws IOException
+	 *             if the test file cannot be written or read.
+	 */
+	@Test
+	public void testSegmentedReads() throws IOException {
+		File file;
+
+		file = File.createTempFile("mappedtest", null);
+		try {
+			try (DataOutputStream output = new DataOutputStream(new FileOutputStream(file))) {
+				output.writeByte(1);
+				for (long i = 0; i < 100; i++) {
+					output.writeLong(i * 1000);
+				}
+			}
+
+			// Use a segment size that doesn't align with the longs so that
+			// values span segment boundaries.
+			try (MappedFileInputStream input = new MappedFileInputStream(file, 12)) {
+				DataInputStream dataInput;
+
+				Assert.assertEquals("Incorrect length.", 801, input.length());
+
+				dataInput = new DataInputStream(input);
+				Assert.assertEquals("Incorrect first byte.", 1, dataInput.readByte());
+				for (long i = 0; i < 100; i++) {
+					Assert.assertEquals("Incorrect sequential value.", i * 1000, dataInput.readLong());
+				}
+				Assert.assertEquals("Expected end of file.", -1, input.read());
+
+				for (int i = 99; i >= 0; i--) {
+					Assert.assertEquals("Incorrect positioned value.", i * 1000L, input.readLong(1 + i * 8));
+					Assert.assertEquals("Incorrect position.", 9 + i * 8, input.position());
+				}
+
+				input.seek(793);
+				Assert.assertEquals("Incorrect value after seek.", 99000, dataInput.readLong());
+			}
+		} finally {
+			Assert.assertTrue("Unable to delete test file.", file.delete());
+		}
+	}
+}
@@ -0,0 +1,127 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+
+/**
+ * Tests the {@link RingBufferPostbox} class.
+ */
+public class RingBufferPostboxTest {
+
+	private static Thread startProducer(final Postbox<Integer> postbox, final int itemCount, final boolean fail) {
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					postbox.initialize(Collections.<String, Object>singletonMap("key", "value"));
+					for (int i = 0; i < itemCount; i++) {
+						postbox.put(i);
+					}
+					if (!fail) {
+						postbox.complete();
+					}
+				} catch (OsmosisRuntimeException e) {
+					// Expected when the consumer fails.
+				} finally {
+					postbox.close();
+				}
+			}
+		};
+		producer.start();
+
+		return producer;
+	}
+
+
+	/**
+	 * Passes a large number of items through the postbox several times and
+	 * verifies that they arrive complete and in order.
+	 *
+	 * @throws InterruptedException
+	 *             if the producer thread is interrupted.
+	 */
+	@Test(timeout = 60000)
+	public void testOrderedDelivery() throws InterruptedException {
+		final int itemCount = 100000;
+		Postbox<Integer> postbox = new RingBufferPostbox<Integer>(7);
+
+		// Re-use the postbox to verify that the release handshake resets it.
+		for (int iteration = 0; iteration < 3; iteration++) {
+			Thread producer = startProducer(postbox, itemCount, false);
+
+			try {
+				Map<String, Object> metaData = postbox.outputInitialize();
+				Assert.assertEquals("Incorrect metadata.", "value", metaData.get("key"));
+
+				int expected = 0;
+				while (postbox.hasNext()) {
+					Assert.assertEquals("Incorrect item received.", expected++, postbox.getNext().intValue());
+				}
+				Assert.assertEquals("Incorrect item count.", itemCount, expected);
+
+				postbox.outputComplete();
+			} finally {
+				postbox.outputRelease();
+			}
+
+			producer.join();
+		}
+	}
+
+
+	/**
+	 * Verifies that an input failure is reported to the output thread.
+	 *
+	 * @throws InterruptedException
+	 *             if the producer thread is interrupted.
+	 */
+	@Test(timeout = 60000)
+	public void testInputError() throws InterruptedException {
+		Postbox<Integer> postbox = new RingBufferPostbox<Integer>(10);
+		Thread producer = startProducer(postbox, 5, true);
+		boolean failed = false;
+
+		try {
+			postbox.outputInitialize();
+			while (postbox.hasNext()) {
+				postbox.getNext();
+			}
+		} catch (OsmosisRuntimeException e) {
+			failed = true;
+		} finally {
+			postbox.outputRelease();
+		}
+
+		producer.join();
+		Assert.assertTrue("Input error was not reported.", failed);
+	}
+
+
+	/**
+	 * Verifies that an output failure releases an input thread blocked on a
+	 * full buffer.
+	 *
+	 * @throws InterruptedException
+	 *             if the producer thread is interrupted.
+	 */
+	@Test(timeout = 60000)
+	public void testOutputError() throws InterruptedException {
+		Postbox<Integer> postbox = new RingBufferPostbox<Integer>(10);
+		Thread producer = startProducer(postbox, 100000, false);
+
+		try {
+			postbox.outputInitialize();
+			postbox.getNext();
+		} finally {
+			postbox.outputRelease();
+		}
+
+		producer.join();
+	}
+}
@@ -0,0 +1,198 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+
+/**
+ * Tests the {@link StoreCompression} methods and the block streams they use.
+ */
+public class StoreCompressionTest {
+
+	private byte[] createData() {
+		byte[] data;
+		Random random;
+
+		// Mix compressible text-like data with incompressible random data, and
+		// span several blocks.
+		data = new byte[3 * BlockOutputStream.BLOCK_SIZE + 1000];
+		random = new Random(1);
+		for (int i = 0; i < data.length; i++) {
+			if ((i / 10000) % 3 == 2) {
+				data[i] = (byte) random.nextInt();
+			} else {
+				data[i] = (byte) ('a' + (i % 7) + random.nextInt(2));
+			}
+		}
+
+		return data;
+	}
+
+
+	private byte[] roundTrip(StoreCompression compression, byte[] data) throws IOException {
+		ByteArrayOutputStream compressed;
+		ByteArrayOutputStream result;
+		byte[] buffer;
+		int count;
+
+		compressed = new ByteArrayOutputStream();
+		try (OutputStream out = compression.createOutputStream(compressed)) {
+			int split;
+
+			// Write single bytes and arrays to exercise both write paths.
+			split = Math.min(100, data.length);
+			for (int i = 0; i < split; i++) {
+				out.write(data[i]);
+			}
+			out.write(data, split, data.length - split);
+		}
+
+		if (data.length > 0 && !StoreCompression.None.equals(compression)) {
+			Assert.assertTrue("Data was not compressed.", compressed.size() < data.length);
+		}
+
+		result = new ByteArrayOutputStream();
+		buffer = new byte[1000];
+		try (InputStream in = compression.createInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+			while ((count = in.read(buffer)) >= 0) {
+				result.write(buffer, 0, count);
+			}
+		}
+
+		return result.toByteArray();
+	}
+
+
+	/**
+	 * Verifies that data is read back unchanged using each compression method.
+	 *
+	 * @throws IOException
+	 *             if the data cannot be read or written.
+	 */
+	@Test
+	public void testRoundTrip() throws IOException {
+		byte[] data;
+
+		data = createData();
+
+		for (StoreCompression compression : StoreCompression.values()) {
+			Assert.assertArrayEquals("Data was changed by " + compression + ".", data, roundTrip(compression, data));
+			Assert.assertArrayEquals("Empty data was changed by " + compression + ".", new byte[0],
+					roundTrip(compression, new byte[0]));
+		}
+	}
+
+
+	/**
+	 * Verifies that the LZ codec round trips small and highly repetitive
+	 * blocks, and reports incompressible blocks.
+	 *
+	 * @throws IOException
+	 *             if a block cannot be decompressed.
+	 */
+	@Test
+	public void testLzCodec() throws IOException {
+		LzBlockCodec codec;
+		byte[] repetitive;
+		byte[] compressed;
+		byte[] result;
+		byte[] random;
+		int length;
+
+		codec = new LzBlockCodec();
+
+		repetitive = new byte[100000];
+		compressed = new byte[repetitive.length];
+		result = new byte[repetitive.length];
+		length = codec.compress(repetitive, repetitive.length, compressed);
+		Assert.assertTrue("Repetitive data should compress well.", length > 0 && length < 1000);
+		codec.decompress(compressed, length, result, repetitive.length);
+		Assert.assertArrayEquals("Repetitive data was changed.", repetitive, result);
+
+		for (int size = 0; size < 20; size++) {
+			byte[] small;
+
+			small = new byte[size];
+			for (int i = 0; i < size; i++) {
+				small[i] = (byte) (i % 3);
+			}
+
+			compressed = new byte[size + 10];
+			result = new byte[size];
+			length = codec.compress(small, size, compressed);
+			codec.decompress(compressed, length, result, size);
+			Assert.assertArrayEquals("Small data was changed.", small, result);
+		}
+
+		random = new byte[1000];
+		new Random(2).nextBytes(random);
+		Assert.assertEquals("Incompressible data should not fit.", -1,
+				codec.compress(random, random.length, new byte[random.length]));
+	}
+
+
+	/**
+	 * Verifies that the block streams release their codec when closed.
+	 *
+	 * @throws IOException
+	 *             if the data cannot be read or written.
+	 */
+	@Test
+	public void testStreamsCloseCodec() throws IOException {
+		final int[] closeCount;
+		BlockCodec codec;
+		ByteArrayOutputStream compressed;
+
+		closeCount = new int[1];
+		codec = new DeflateBlockCodec() {
+			@Override
+			public void close() {
+				closeCount[0]++;
+				super.close();
+			}
+		};
+
+		compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new BlockOutputStream(compressed, codec)) {
+			out.write(createData());
+		}
+		Assert.assertEquals("The output stream didn't close the codec.", 1, closeCount[0]);
+
+		try (InputStream in = new BlockInputStream(new ByteArrayInputStream(compressed.toByteArray()), codec)) {
+			while (in.read() >= 0) {
+				// Read all data.
+			}
+		}
+		Assert.assertEquals("The input stream didn't close the codec.", 2, closeCount[0]);
+	}
+
+
+	/**
+	 * Verifies that compression method names are parsed without regard to
+	 * case.
+	 */
+	@Test
+	public void testParse() {
+		Assert.assertEquals("Incorrect method.", StoreCompression.Lz, StoreCompression.parse("lz"));
+		Assert.assertEquals("Incorrect method.", StoreCompression.Deflate, StoreCompression.parse("DEFLATE"));
+		Assert.assertEquals("Incorrect method.", StoreCompression.None, StoreCompression.parse("None"));
+	}
+
+
+	/**
+	 * Verifies that unknown compression method names are rejected.
+	 */
+	@Test(expected = OsmosisRuntimeException.class)
+	public void testParseUnknown() {
+		StoreCompression.parse("gzip");
+	}
+}
@@ -0,0 +1,160 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.tee.v0_6;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.store.PostboxType;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkBatchInspector;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkEntityInspector;
+
+
+/**
+ * Tests the entity tee.
+ */
+public class EntityTeeTest {
+	
+	private EntityContainer createNode(long id) {
+		return new NodeContainer(new Node(new CommonEntityData(id, 1, new Date(), OsmUser.NONE, 1), 1, 1));
+	}
+	
+	
+	/**
+	 * Sends entities to both outputs of a tee, either one at a time or in
+	 * batches sharing a single re-used list. The first output supports batches
+	 * and the second only supports per-entity processing.
+	 * 
+	 * @param tee
+	 *            The tee to be tested.
+	 * @param batchSize
+	 *            The size of each batch, or 0 to send entities individually.
+	 * @return The entity ids received by each output.
+	 */
+	private List<List<Long>> runTee(EntityTee tee, int batchSize) {
+		SinkBatchInspector first;
+		SinkEntityInspector second;
+		List<EntityContainer> batch;
+		List<List<Long>> result;
+		
+		first = new SinkBatchInspector();
+		second = new SinkEntityInspector();
+		tee.getSource(0).setSink(first);
+		tee.getSource(1).setSink(second);
+		
+		batch = new ArrayList<EntityContainer>();
+		tee.initialize(Collections.<String, Object>emptyMap());
+		for (int i = 0; i < 100; i++) {
+			if (batchSize > 0) {
+				batch.add(createNode(i));
+				if (batch.size() == batchSize) {
+					tee.processBatch(batch);
+					batch.clear();
+				}
+			} else {
+				tee.process(createNode(i));
+			}
+		}
+		if (!batch.isEmpty()) {
+			tee.processBatch(batch);
+		}
+		tee.complete();
+		tee.close();
+		
+		result = new ArrayList<List<Long>>();
+		for (SinkEntityInspector inspector : new SinkEntityInspector[] {first, second}) {
+			List<Long> ids = new ArrayList<Long>();
+			
+			for (EntityContainer entityContainer : inspector.getProcessedEntities()) {
+				Assert.assertTrue("Entity should be read-only.", entityContainer.getEntity().isReadOnly());
+				ids.add(entityContainer.getEntity().getId());
+			}
+			result.add(ids);
+		}
+		
+		return result;
+	}
+	
+	
+	/**
+	 * Verifies that batches produce the same output as per-entity processing.
+	 */
+	@Test
+	public void testBatchEquivalence() {
+		List<List<Long>> expected;
+		
+		expected = runTee(new EntityTee(2), 0);
+		Assert.assertEquals("Incorrect entity count.", 100, expected.get(0).size());
+		Assert.assertEquals("Outputs don't match.", expected.get(0), expected.get(1));
+		
+		Assert.assertEquals("Batches don't match per-entity output.", expected, runTee(new EntityTee(2), 7));
+	}
+	
+	
+	/**
+	 * Verifies that batches sent to buffered outputs produce the same output as
+	 * per-entity processing.
+	 */
+	@Test
+	public void testBufferedBatchEquivalence() {
+		List<List<Long>> expected;
+		
+		expected = runTee(new EntityTee(2), 0);
+		
+		Assert.assertEquals("Batches don't match per-entity output.", expected,
+				runTee(new EntityTee(2, "tee", 5, PostboxType.Locking), 7));
+		Assert.assertEquals("Batches don't match per-entity output.", expected,
+				runTee(new EntityTee(2, "tee", 8, PostboxType.RingBuffer), 7));
+	}
+	
+	
+	/**
+	 * Verifies that buffered outputs each receive all entities in order, and
+	 * that entities are shared rather than copied.
+	 */
+	@Test
+	public void testBufferedOutputs() {
+		EntityTee tee;
+		SinkEntityInspector first;
+		SinkEntityInspector second;
+		Iterator<EntityContainer> firstIterator;
+		Iterator<EntityContainer> secondIterator;
+		long expectedId;
+		
+		tee = new EntityTee(2, "tee", 5, PostboxType.Locking);
+		first = new SinkEntityInspector();
+		second = new SinkEntityInspector();
+		tee.getSource(0).setSink(first);
+		tee.getSource(1).setSink(second);
+		
+		tee.initialize(Collections.<String, Object>emptyMap());
+		for (int i = 0; i < 100; i++) {
+			tee.process(new NodeContainer(new Node(new CommonEntityData(i, 1, new Date(), OsmUser.NONE, 1), 1, 1)));
+		}
+		tee.complete();
+		tee.close();
+		
+		firstIterator = first.getProcessedEntities().iterator();
+		secondIterator = second.getProcessedEntities().iterator();
+		expectedId = 0;
+		while (firstIterator.hasNext()) {
+			EntityContainer entityContainer = firstIterator.next();
+			
+			Assert.assertEquals("Incorrect entity order.", expectedId, entityContainer.getEntity().getId());
+			Assert.assertTrue("Entity should be read-only.", entityContainer.getEntity().isReadOnly());
+			Assert.assertSame("Entity should be shared.", entityContainer, secondIterator.next());
+			expectedId++;
+		}
+		Assert.assertEquals("Incorrect entity count.", 100, expectedId);
+		Assert.assertFalse("Too many entities in second output.", secondIterator.hasNext());
+	}
+}
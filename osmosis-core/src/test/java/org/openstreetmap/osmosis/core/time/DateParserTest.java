@@ -0,0 +1,65 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.time;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Tests the date parser and formatter.
+ */
+public class DateParserTest {
+
+	/**
+	 * Verifies that parsing and formatting match the JDK date classes across a
+	 * wide range of dates.
+	 */
+	@Test
+	public void testMatchesCalendar() {
+		SimpleDateFormat referenceFormat;
+		DateParser parser;
+		DateFormatter formatter;
+		Random random;
+
+		referenceFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+		referenceFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+		parser = new DateParser();
+		formatter = new DateFormatter();
+		random = new Random(1);
+
+		for (int i = 0; i < 10000; i++) {
+			Date date;
+			String expected;
+
+			// Cover 1970 to roughly 2100 including leap years.
+			date = new Date((random.nextLong() & Long.MAX_VALUE) % 4102444800000L / 1000 * 1000);
+			expected = referenceFormat.format(date);
+
+			Assert.assertEquals("Incorrect formatted date.", expected, formatter.format(date));
+			Assert.assertEquals("Incorrect parsed date for " + expected, date, parser.parse(expected));
+		}
+	}
+
+
+	/**
+	 * Verifies parsing of milliseconds and character ranges.
+	 */
+	@Test
+	public void testParseRanges() {
+		DateParser parser;
+
+		parser = new DateParser();
+
+		Assert.assertEquals("Incorrect millisecond timestamp.", 1204329599123L,
+				parser.parseMillis("2008-02-29T23:59:59.123Z", 0, 24));
+		Assert.assertEquals("Incorrect cached timestamp.", 1204329599000L,
+				parser.parseMillis("a2008-02-29T23:59:59Z", 1, 21));
+		Assert.assertEquals("Incorrect non-standard timestamp.", 1204329599000L,
+				parser.parse("2008-02-29T23:59:59+00:00").getTime());
+	}
+}
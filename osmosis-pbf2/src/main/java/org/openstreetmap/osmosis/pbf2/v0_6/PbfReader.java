@@ -14,7 +14,10 @@ import java.util.function.Supplier;
 import com.google.common.util.concurrent.MoreExecutors;
 import crosby.binary.Osmformat;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
+import org.openstreetmap.osmosis.core.pipeline.common.Metered;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskMetrics;
 import org.openstreetmap.osmosis.core.task.v0_6.RunnableSource;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.pbf2.v0_6.impl.HeaderBoundReader;
@@ -30,10 +33,12 @@ import org.openstreetmap.osmosis.pbf2.v0_6.impl.StreamSplitter;
  * 
  * @author Brett Henderson
  */
-public class PbfReader implements RunnableSource {
+public class PbfReader implements RunnableSource, Metered {
 	private final Supplier<InputStream> supplier;
 	private Sink sink;
 	private int workers;
+	private StringDictionary stringDictionary;
+	private TaskMetrics metrics;
 
 	/**
 	 * Creates a new instance.
@@ -44,6 +49,21 @@ public class PbfReader implements RunnableSource {
 	 *            The number of worker threads for decoding PBF blocks.
 	 */
 	public PbfReader(final File file, int workers) {
+		this(file, workers, new StringDictionary(StringDictionary.DEFAULT_CAPACITY));
+	}
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param file
+	 *            The file to read.
+	 * @param workers
+	 *            The number of worker threads for decoding PBF blocks.
+	 * @param stringDictionary
+	 *            The dictionary for sharing repeated strings with other tasks
+	 *            in the pipeline.
+	 */
+	public PbfReader(final File file, int workers, StringDictionary stringDictionary) {
 		this(() -> {
 			// make "-" an alias for /dev/stdin
 			if (file.getName().equals("-")) {
@@ -54,7 +74,7 @@ public class PbfReader implements RunnableSource {
 			} catch (IOException e) {
 				throw new OsmosisRuntimeException("Unable to read PBF file " + file + ".", e);
 			}
-		}, workers);
+		}, workers, stringDictionary);
 	}
 
 	/**
@@ -66,8 +86,24 @@ public class PbfReader implements RunnableSource {
 	 *            The number of worker threads for decoding PBF blocks.
 	 */
 	public PbfReader(Supplier<InputStream> supplier, int workers) {
+		this(supplier, workers, new StringDictionary(StringDictionary.DEFAULT_CAPACITY));
+	}
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param supplier
+	 *            The inputstream to read.
+	 * @param workers
+	 *            The number of worker threads for decoding PBF blocks.
+	 * @param stringDictionary
+	 *            The dictionary for sharing repeated strings with other tasks
+	 *            in the pipeline.
+	 */
+	public PbfReader(Supplier<InputStream> supplier, int workers, StringDictionary stringDictionary) {
 		this.supplier = supplier;
 		this.workers = workers;
+		this.stringDictionary = stringDictionary;
 	}
 
 	@Override
@@ -75,6 +111,11 @@ public class PbfReader implements RunnableSource {
 		this.sink = sink;
 	}
 
+	@Override
+	public void setTaskMetrics(TaskMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	@Override
 	public void run() {
 		StreamSplitter streamSplitter = null;
@@ -89,6 +130,9 @@ public class PbfReader implements RunnableSource {
 
 		try {
 			InputStream inputStream = supplier.get();
+			if (metrics != null) {
+				inputStream = metrics.meterInput(inputStream);
+			}
 
 			// Create a stream splitter to break the PBF stream into blobs.
 			streamSplitter = new StreamSplitter(new DataInputStream(inputStream));
@@ -111,7 +155,8 @@ public class PbfReader implements RunnableSource {
 			// immediately ready for processing when a worker thread completes.
 			// The main thread is responsible for splitting blobs from the
 			// request stream, and sending decoded entities to the sink.
-			PbfDecoder pbfDecoder = new PbfDecoder(streamSplitter, executorService, workers + 1, sink);
+			PbfDecoder pbfDecoder = new PbfDecoder(
+					streamSplitter, executorService, workers + 1, sink, stringDictionary);
 			pbfDecoder.run();
 
 			sink.complete();
@@ -97,7 +97,7 @@ public class PbfReaderFactory extends TaskManagerFactory {
         }
 
         // Build the task object.
-        task = new PbfReader(file, workers);
+        task = new PbfReader(file, workers, taskConfig.getStringDictionary());
 
         return new RunnableSourceManager(taskConfig.getId(), task, taskConfig.getPipeArgs());
     }
@@ -0,0 +1,157 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pbf2.v0_6.impl;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.TagCollection;
+import org.openstreetmap.osmosis.core.store.StoreClassRegister;
+import org.openstreetmap.osmosis.core.store.StoreWriter;
+import org.openstreetmap.osmosis.core.util.IntAsChar;
+
+
+/**
+ * A tag collection holding the decoded key and value strings of the tags. Tag
+ * objects are only created when the collection is first iterated or modified,
+ * tasks that only check the number of tags, build a tag map or store the
+ * entity never create them.
+ * <p>
+ * Only the strings used by the entity are held, these are shared with other
+ * entities through the string dictionary. No reference to the PBF block is
+ * kept so tasks retaining entities don't retain the string tables of the
+ * blocks they were decoded from.
+ */
+public class LazyTagCollection extends AbstractCollection<Tag> implements TagCollection {
+	private String[] keyValues;
+	private volatile List<Tag> tags;
+
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param keyValues
+	 *            The strings of the tags with each key followed by its value.
+	 */
+	public LazyTagCollection(String[] keyValues) {
+		this.keyValues = keyValues;
+	}
+
+
+	/**
+	 * Gets the tags, creating them if this is the first access. Concurrent
+	 * readers of a read-only entity may both create the tags, in which case
+	 * one of the equal lists is kept.
+	 *
+	 * @return The tags.
+	 */
+	private List<Tag> getTags() {
+		List<Tag> result;
+
+		result = tags;
+		if (result == null) {
+			result = new ArrayList<Tag>(keyValues.length / 2);
+			for (int i = 0; i < keyValues.length; i += 2) {
+				result.add(new Tag(keyValues[i], keyValues[i + 1]));
+			}
+
+			tags = result;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		List<Tag> current;
+
+		current = tags;
+		if (current != null) {
+			return current.size();
+		}
+
+		return keyValues.length / 2;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<Tag> iterator() {
+		return getTags().iterator();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean add(Tag tag) {
+		return getTags().add(tag);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clear() {
+		tags = new ArrayList<Tag>();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, String> buildMap() {
+		List<Tag> current;
+		Map<String, String> tagMap;
+
+		current = tags;
+		tagMap = new HashMap<String, String>(size());
+		if (current != null) {
+			for (Tag tag : current) {
+				tagMap.put(tag.getKey(), tag.getValue());
+			}
+		} else {
+			for (int i = 0; i < keyValues.length; i += 2) {
+				tagMap.put(keyValues[i], keyValues[i + 1]);
+			}
+		}
+
+		return tagMap;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void store(StoreWriter sw, StoreClassRegister scr) {
+		List<Tag> current;
+
+		// This matches the format written by TagCollectionImpl.
+		current = tags;
+		if (current != null) {
+			sw.writeCharacter(IntAsChar.intToChar(current.size()));
+			for (Tag tag : current) {
+				tag.store(sw, scr);
+			}
+		} else {
+			sw.writeCharacter(IntAsChar.intToChar(keyValues.length / 2));
+			for (int i = 0; i < keyValues.length; i++) {
+				sw.writeString(keyValues[i]);
+			}
+		}
+	}
+}
@@ -7,15 +7,18 @@ import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
-import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.common.EpochTimestampContainer;
+import org.openstreetmap.osmosis.core.domain.common.SimpleTimestampContainer;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
+import org.openstreetmap.osmosis.core.domain.common.TimestampContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
 import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
 import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
 import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
-import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityRecycler;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -34,13 +37,15 @@ public class PbfBlobDecoder implements Runnable {
 	private static Logger log = Logger.getLogger(PbfBlobDecoder.class.getName());
 
 	private static final int EMPTY_VERSION = -1;
-	private static final Date EMPTY_TIMESTAMP = new Date(0);
+	private static final TimestampContainer EMPTY_TIMESTAMP = new SimpleTimestampContainer(new Date(0));
 	private static final long EMPTY_CHANGESET = -1;
 
 	private BlobToBlockMapper blobToBlockMapper;
 
 	private RawBlob rawBlob;
 	private PbfBlobDecoderListener listener;
+	private StringDictionary stringDictionary;
+	private EntityRecycler recycler;
 	private List<EntityContainer> decodedEntities;
 
 	/**
@@ -52,85 +57,114 @@ public class PbfBlobDecoder implements Runnable {
 	 *            The listener for receiving decoding results.
 	 */
 	public PbfBlobDecoder(RawBlob rawBlob, PbfBlobDecoderListener listener) {
+		this(rawBlob, listener, new StringDictionary(StringDictionary.DEFAULT_CAPACITY));
+	}
+
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param rawBlob
+	 *            The raw data of the blob.
+	 * @param listener
+	 *            The listener for receiving decoding results.
+	 * @param stringDictionary
+	 *            The dictionary for sharing repeated strings with other blobs
+	 *            and tasks in the pipeline.
+	 */
+	public PbfBlobDecoder(RawBlob rawBlob, PbfBlobDecoderListener listener, StringDictionary stringDictionary) {
+		this(rawBlob, listener, stringDictionary, new EntityRecycler(false));
+	}
+
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param rawBlob
+	 *            The raw data of the blob.
+	 * @param listener
+	 *            The listener for receiving decoding results.
+	 * @param stringDictionary
+	 *            The dictionary for sharing repeated strings with other blobs
+	 *            and tasks in the pipeline.
+	 * @param recycler
+	 *            The recycler supplying the decoded entities. It must not be
+	 *            used by any other thread until decoding is complete.
+	 */
+	public PbfBlobDecoder(RawBlob rawBlob, PbfBlobDecoderListener listener, StringDictionary stringDictionary,
+			EntityRecycler recycler) {
 		this.blobToBlockMapper = new BlobToBlockMapper();
 
 		this.rawBlob = rawBlob;
 		this.listener = listener;
+		this.stringDictionary = stringDictionary;
+		this.recycler = recycler;
 	}
 
 
-	private void buildTags(CommonEntityData entityData, List<Integer> keys, List<Integer> values,
+	private void buildTags(Entity entity, List<Integer> keys, List<Integer> values,
 			PbfFieldDecoder fieldDecoder) {
-		Collection<Tag> tags = entityData.getTags();
-
 		// Ensure parallel lists are of equal size.
 		if (keys.size() != values.size()) {
 			throw new OsmosisRuntimeException("Number of tag keys (" + keys.size() + ") and tag values ("
 					+ values.size() + ") don't match");
 		}
 
+		if (keys.isEmpty()) {
+			return;
+		}
+
+		// Only the strings are kept, the tags are created on first use.
+		String[] keyValues = new String[keys.size() * 2];
 		Iterator<Integer> keyIterator = keys.iterator();
 		Iterator<Integer> valueIterator = values.iterator();
-		while (keyIterator.hasNext()) {
-			String key = fieldDecoder.decodeString(keyIterator.next());
-			String value = fieldDecoder.decodeString(valueIterator.next());
-			Tag tag = new Tag(key, value);
-			tags.add(tag);
+		for (int i = 0; keyIterator.hasNext(); i += 2) {
+			keyValues[i] = fieldDecoder.decodeString(keyIterator.next());
+			keyValues[i + 1] = fieldDecoder.decodeString(valueIterator.next());
 		}
+		entity.setTags(new LazyTagCollection(keyValues));
 	}
 
 
-	private CommonEntityData buildCommonEntityData(long entityId, List<Integer> keys, List<Integer> values,
-			Osmformat.Info info, PbfFieldDecoder fieldDecoder) {
-		OsmUser user;
-		CommonEntityData entityData;
-
+	private OsmUser buildUser(Osmformat.Info info, PbfFieldDecoder fieldDecoder) {
 		// Build the user, but only if one exists.
 		if (info.hasUid() && info.getUid() >= 0 && info.hasUserSid()) {
-			user = new OsmUser(info.getUid(), fieldDecoder.decodeString(info.getUserSid()));
+			return fieldDecoder.decodeUser(info.getUid(), info.getUserSid());
 		} else {
-			user = OsmUser.NONE;
+			return OsmUser.NONE;
 		}
-
-		entityData = new CommonEntityData(entityId, info.getVersion(),
-				fieldDecoder.decodeTimestamp(info.getTimestamp()), user, info.getChangeset());
-
-		buildTags(entityData, keys, values, fieldDecoder);
-
-		return entityData;
 	}
 
 
-	private CommonEntityData buildCommonEntityData(long entityId, List<Integer> keys, List<Integer> values,
-			PbfFieldDecoder fieldDecoder) {
-		CommonEntityData entityData;
-
-		entityData = new CommonEntityData(entityId, EMPTY_VERSION, EMPTY_TIMESTAMP, OsmUser.NONE, EMPTY_CHANGESET);
-
-		buildTags(entityData, keys, values, fieldDecoder);
-
-		return entityData;
+	private TimestampContainer buildTimestamp(Osmformat.Info info, PbfFieldDecoder fieldDecoder) {
+		return new EpochTimestampContainer(fieldDecoder.decodeTimestampMillis(info.getTimestamp()));
 	}
 
 
 	private void processNodes(List<Osmformat.Node> nodes, PbfFieldDecoder fieldDecoder) {
 		for (Osmformat.Node node : nodes) {
-			org.openstreetmap.osmosis.core.domain.v0_6.Node osmNode;
-			CommonEntityData entityData;
+			NodeContainer container;
+			double latitude;
+			double longitude;
+
+			latitude = fieldDecoder.decodeLatitude(node.getLat());
+			longitude = fieldDecoder.decodeLongitude(node.getLon());
 
 			if (node.hasInfo()) {
-				entityData = buildCommonEntityData(node.getId(), node.getKeysList(), node.getValsList(),
-						node.getInfo(), fieldDecoder);
+				Osmformat.Info info = node.getInfo();
+
+				container = recycler.nextNode(node.getId(), info.getVersion(), buildTimestamp(info, fieldDecoder),
+						buildUser(info, fieldDecoder), info.getChangeset(), latitude, longitude);
 
 			} else {
-				entityData = buildCommonEntityData(node.getId(), node.getKeysList(), node.getValsList(), fieldDecoder);
+				container = recycler.nextNode(node.getId(), EMPTY_VERSION, EMPTY_TIMESTAMP, OsmUser.NONE,
+						EMPTY_CHANGESET, latitude, longitude);
 			}
 
-			osmNode = new org.openstreetmap.osmosis.core.domain.v0_6.Node(entityData, fieldDecoder.decodeLatitude(node
-					.getLat()), fieldDecoder.decodeLongitude(node.getLon()));
+			buildTags(container.getEntity(), node.getKeysList(), node.getValsList(), fieldDecoder);
 
 			// Add the bound object to the results.
-			decodedEntities.add(new NodeContainer(osmNode));
+			decodedEntities.add(container);
 		}
 	}
 
@@ -146,7 +180,8 @@ public class PbfBlobDecoder implements Runnable {
 					+ "), and longitudes (" + lonList.size() + ") don't match");
 		}
 
-		Iterator<Integer> keysValuesIterator = nodes.getKeysValsList().iterator();
+		int keysValuesIndex = 0;
+		int keysValuesCount = nodes.getKeysValsCount();
 
 		Osmformat.DenseInfo denseInfo;
 		if (nodes.hasDenseinfo()) {
@@ -163,13 +198,16 @@ public class PbfBlobDecoder implements Runnable {
 		long timestamp = 0;
 		long changesetId = 0;
 		for (int i = 0; i < idList.size(); i++) {
-			CommonEntityData entityData;
-			org.openstreetmap.osmosis.core.domain.v0_6.Node node;
+			NodeContainer container;
+			double decodedLatitude;
+			double decodedLongitude;
 
 			// Delta decode node fields.
 			nodeId += idList.get(i);
 			latitude += latList.get(i);
 			longitude += lonList.get(i);
+			decodedLatitude = fieldDecoder.decodeLatitude(latitude);
+			decodedLongitude = fieldDecoder.decodeLongitude(longitude);
 
 			if (denseInfo != null) {
 				// Delta decode dense info fields.
@@ -181,60 +219,67 @@ public class PbfBlobDecoder implements Runnable {
 				// Build the user, but only if one exists.
 				OsmUser user;
 				if (userId >= 0) {
-					user = new OsmUser(userId, fieldDecoder.decodeString(userSid));
+					user = fieldDecoder.decodeUser(userId, userSid);
 				} else {
 					user = OsmUser.NONE;
 				}
 
-				entityData = new CommonEntityData(nodeId, denseInfo.getVersion(i),
-						fieldDecoder.decodeTimestamp(timestamp), user, changesetId);
+				container = recycler.nextNode(nodeId, denseInfo.getVersion(i),
+						new EpochTimestampContainer(fieldDecoder.decodeTimestampMillis(timestamp)), user, changesetId,
+						decodedLatitude, decodedLongitude);
 			} else {
-				entityData = new CommonEntityData(nodeId, EMPTY_VERSION, EMPTY_TIMESTAMP, OsmUser.NONE,
-						EMPTY_CHANGESET);
+				container = recycler.nextNode(nodeId, EMPTY_VERSION, EMPTY_TIMESTAMP, OsmUser.NONE,
+						EMPTY_CHANGESET, decodedLatitude, decodedLongitude);
 			}
 
 			// Build the tags. The key and value string indexes are sequential
 			// in the same PBF array. Each set of tags is delimited by an index
-			// with a value of 0.
-			Collection<Tag> tags = entityData.getTags();
-			while (keysValuesIterator.hasNext()) {
-				int keyIndex = keysValuesIterator.next();
+			// with a value of 0. Only the strings are kept, the tags are
+			// created on first use.
+			int tagStart = keysValuesIndex;
+			while (keysValuesIndex < keysValuesCount) {
+				int keyIndex = nodes.getKeysVals(keysValuesIndex);
 				if (keyIndex == 0) {
 					break;
 				}
-				if (!keysValuesIterator.hasNext()) {
+				if (keysValuesIndex + 1 >= keysValuesCount) {
 					throw new OsmosisRuntimeException(
 							"The PBF DenseInfo keys/values list contains a key with no corresponding value.");
 				}
-				int valueIndex = keysValuesIterator.next();
-
-				Tag tag = new Tag(fieldDecoder.decodeString(keyIndex), fieldDecoder.decodeString(valueIndex));
-				tags.add(tag);
+				keysValuesIndex += 2;
 			}
-
-			node = new org.openstreetmap.osmosis.core.domain.v0_6.Node(entityData,
-					fieldDecoder.decodeLatitude(latitude), fieldDecoder.decodeLongitude(longitude));
+			if (keysValuesIndex > tagStart) {
+				String[] keyValues = new String[keysValuesIndex - tagStart];
+				for (int j = 0; j < keyValues.length; j++) {
+					keyValues[j] = fieldDecoder.decodeString(nodes.getKeysVals(tagStart + j));
+				}
+				container.getEntity().setTags(new LazyTagCollection(keyValues));
+			}
+			// Skip the delimiter.
+			keysValuesIndex++;
 
 			// Add the bound object to the results.
-			decodedEntities.add(new NodeContainer(node));
+			decodedEntities.add(container);
 		}
 	}
 
 
 	private void processWays(List<Osmformat.Way> ways, PbfFieldDecoder fieldDecoder) {
 		for (Osmformat.Way way : ways) {
-			org.openstreetmap.osmosis.core.domain.v0_6.Way osmWay;
-			CommonEntityData entityData;
+			WayContainer container;
 
 			if (way.hasInfo()) {
-				entityData = buildCommonEntityData(way.getId(), way.getKeysList(), way.getValsList(), way.getInfo(),
-						fieldDecoder);
+				Osmformat.Info info = way.getInfo();
+
+				container = recycler.nextWay(way.getId(), info.getVersion(), buildTimestamp(info, fieldDecoder),
+						buildUser(info, fieldDecoder), info.getChangeset());
 
 			} else {
-				entityData = buildCommonEntityData(way.getId(), way.getKeysList(), way.getValsList(), fieldDecoder);
+				container = recycler.nextWay(way.getId(), EMPTY_VERSION, EMPTY_TIMESTAMP, OsmUser.NONE,
+						EMPTY_CHANGESET);
 			}
 
-			osmWay = new org.openstreetmap.osmosis.core.domain.v0_6.Way(entityData);
+			buildTags(container.getEntity(), way.getKeysList(), way.getValsList(), fieldDecoder);
 
 			// Build up the list of way nodes for the way. The node ids are
 			// delta encoded meaning that each id is stored as a delta against
@@ -242,7 +287,7 @@ public class PbfBlobDecoder implements Runnable {
 			long nodeId = 0;
 			long latitude = 0;
 			long longitude = 0;
-			List<WayNode> wayNodes = osmWay.getWayNodes();
+			List<WayNode> wayNodes = container.getEntity().getWayNodes();
 
 			for (int i = 0; i < way.getRefsCount(); i++) {
 				nodeId += way.getRefs(i);
@@ -260,7 +305,7 @@ public class PbfBlobDecoder implements Runnable {
 				}
 			}
 
-			decodedEntities.add(new WayContainer(osmWay));
+			decodedEntities.add(container);
 		}
 	}
 
@@ -309,31 +354,31 @@ public class PbfBlobDecoder implements Runnable {
 
 	private void processRelations(List<Osmformat.Relation> relations, PbfFieldDecoder fieldDecoder) {
 		for (Osmformat.Relation relation : relations) {
-			org.openstreetmap.osmosis.core.domain.v0_6.Relation osmRelation;
-			CommonEntityData entityData;
+			RelationContainer container;
 
 			if (relation.hasInfo()) {
-				entityData = buildCommonEntityData(relation.getId(), relation.getKeysList(), relation.getValsList(),
-						relation.getInfo(), fieldDecoder);
+				Osmformat.Info info = relation.getInfo();
+
+				container = recycler.nextRelation(relation.getId(), info.getVersion(),
+						buildTimestamp(info, fieldDecoder), buildUser(info, fieldDecoder), info.getChangeset());
 
 			} else {
-				entityData = buildCommonEntityData(relation.getId(), relation.getKeysList(), relation.getValsList(),
-						fieldDecoder);
+				container = recycler.nextRelation(relation.getId(), EMPTY_VERSION, EMPTY_TIMESTAMP, OsmUser.NONE,
+						EMPTY_CHANGESET);
 			}
 
-			osmRelation = new org.openstreetmap.osmosis.core.domain.v0_6.Relation(entityData);
-
-			buildRelationMembers(osmRelation, relation.getMemidsList(), relation.getRolesSidList(),
+			buildTags(container.getEntity(), relation.getKeysList(), relation.getValsList(), fieldDecoder);
+			buildRelationMembers(container.getEntity(), relation.getMemidsList(), relation.getRolesSidList(),
 					relation.getTypesList(), fieldDecoder);
 
 			// Add the bound object to the results.
-			decodedEntities.add(new RelationContainer(osmRelation));
+			decodedEntities.add(container);
 		}
 	}
 
 
 	private void processOsmPrimitives(Osmformat.PrimitiveBlock block) {
-		PbfFieldDecoder fieldDecoder = new PbfFieldDecoder(block);
+		PbfFieldDecoder fieldDecoder = new PbfFieldDecoder(block, stringDictionary);
 
 		for (Osmformat.PrimitiveGroup primitiveGroup : block.getPrimitivegroupList()) {
 			log.finer("Processing OSM primitive group.");
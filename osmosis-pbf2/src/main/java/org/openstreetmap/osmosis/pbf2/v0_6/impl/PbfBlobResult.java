@@ -4,6 +4,7 @@ package org.openstreetmap.osmosis.pbf2.v0_6.impl;
 import java.util.List;
 
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityRecycler;
 
 
 /**
@@ -12,6 +13,7 @@ import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
  * @author Brett Henderson
  */
 public class PbfBlobResult {
+	private EntityRecycler recycler;
 	private List<EntityContainer> entities;
 	private boolean complete;
 	private boolean success;
@@ -21,11 +23,35 @@ public class PbfBlobResult {
 	 * Creates a new instance.
 	 */
 	public PbfBlobResult() {
+		this(new EntityRecycler(false));
+	}
+
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param recycler
+	 *            The recycler supplying the entities decoded from the blob.
+	 */
+	public PbfBlobResult(EntityRecycler recycler) {
+		this.recycler = recycler;
+
 		complete = false;
 		success = false;
 	}
 
 
+	/**
+	 * Gets the recycler supplying the entities decoded from the blob. It may be
+	 * released once the entities have been processed.
+	 * 
+	 * @return The recycler.
+	 */
+	public EntityRecycler getRecycler() {
+		return recycler;
+	}
+
+
 	/**
 	 * Stores the results of a successful blob decoding operation.
 	 * 
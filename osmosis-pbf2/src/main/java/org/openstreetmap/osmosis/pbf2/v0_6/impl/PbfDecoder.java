@@ -1,6 +1,7 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.pbf2.v0_6.impl;
 
+import java.util.ArrayDeque;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
@@ -11,12 +12,20 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.BatchSinkAdapter;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityRecycler;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityReuse;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 
 
 /**
  * Decodes all blocks from a PBF stream using worker threads, and passes the
- * results to the downstream sink.
+ * results to the downstream sink. The entities decoded from each blob are sent
+ * to the sink as a single batch. If the sink supports entity re-use, the
+ * entities of each blob are re-used for a later blob once the sink has
+ * processed them.
  * 
  * @author Brett Henderson
  */
@@ -25,6 +34,10 @@ public class PbfDecoder implements Runnable {
 	private Executor executor;
 	private int maxPendingBlobs;
 	private Sink sink;
+	private BatchSink batchSink;
+	private StringDictionary stringDictionary;
+	private boolean reuseEntities;
+	private Queue<EntityRecycler> recyclers;
 	private Lock lock;
 	private Condition dataWaitCondition;
 	private Queue<PbfBlobResult> blobResults;
@@ -43,13 +56,22 @@ public class PbfDecoder implements Runnable {
 	 *            in time.
 	 * @param sink
 	 *            The sink to send all decoded entities to.
+	 * @param stringDictionary
+	 *            The dictionary for sharing repeated strings with other tasks
+	 *            in the pipeline.
 	 */
 	public PbfDecoder(StreamSplitter streamSplitter, Executor executor, int maxPendingBlobs,
-					  Sink sink) {
+					  Sink sink, StringDictionary stringDictionary) {
 		this.streamSplitter = streamSplitter;
 		this.executor = executor;
 		this.maxPendingBlobs = maxPendingBlobs;
 		this.sink = sink;
+		this.batchSink = BatchSinkAdapter.adapt(sink);
+		this.stringDictionary = stringDictionary;
+
+		// Each blob in progress has its own recycler, these are only accessed
+		// by the decoding thread between blobs.
+		recyclers = new ArrayDeque<>();
 
 		// Create the thread synchronisation primitives.
 		lock = new ReentrantLock();
@@ -102,12 +124,14 @@ public class PbfDecoder implements Runnable {
 			// their results.
 			lock.unlock();
 			try {
-				for (EntityContainer entity : blobResult.getEntities()) {
-					sink.process(entity);
-				}
+				batchSink.processBatch(blobResult.getEntities());
 			} finally {
 				lock.lock();
 			}
+
+			// The sink has finished with the entities so they can be re-used.
+			blobResult.getRecycler().release();
+			recyclers.add(blobResult.getRecycler());
 		}
 	}
 
@@ -118,9 +142,15 @@ public class PbfDecoder implements Runnable {
 			// Obtain the next raw blob from the PBF stream.
 			RawBlob rawBlob = streamSplitter.next();
 
+			// Obtain a recycler to supply the entities for this blob.
+			EntityRecycler recycler = recyclers.poll();
+			if (recycler == null) {
+				recycler = new EntityRecycler(reuseEntities);
+			}
+
 			// Create the result object to capture the results of the decoded
 			// blob and add it to the blob results queue.
-			final PbfBlobResult blobResult = new PbfBlobResult();
+			final PbfBlobResult blobResult = new PbfBlobResult(recycler);
 			blobResults.add(blobResult);
 
 			// Create the listener object that will update the blob results
@@ -154,7 +184,7 @@ public class PbfDecoder implements Runnable {
 			};
 
 			// Create the blob decoder itself and execute it on a worker thread.
-			PbfBlobDecoder blobDecoder = new PbfBlobDecoder(rawBlob, decoderListener);
+			PbfBlobDecoder blobDecoder = new PbfBlobDecoder(rawBlob, decoderListener, stringDictionary, recycler);
 			executor.execute(blobDecoder);
 
 			// If the number of pending blobs has reached capacity we must begin
@@ -170,6 +200,10 @@ public class PbfDecoder implements Runnable {
 
 	@Override
 	public void run() {
+		// Support for re-use can only be queried once the pipeline is
+		// connected.
+		reuseEntities = EntityReuse.isSupported(sink);
+
 		lock.lock();
 		try {
 			processBlobs();
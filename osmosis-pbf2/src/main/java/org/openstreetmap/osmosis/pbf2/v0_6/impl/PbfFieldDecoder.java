@@ -4,6 +4,11 @@ package org.openstreetmap.osmosis.pbf2.v0_6.impl;
 import crosby.binary.Osmformat;
 
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
 
 /**
  * Manages decoding of the lower level PBF data structures.
@@ -14,7 +19,10 @@ import java.util.Date;
 public class PbfFieldDecoder {
 	private static final double COORDINATE_SCALING_FACTOR = 0.000000001;
 
+	private Osmformat.StringTable stringTable;
 	private String[] strings;
+	private StringDictionary dictionary;
+	private Map<Integer, OsmUser> users;
 	private int coordGranularity;
 	private long coordLatitudeOffset;
 	private long coordLongitudeOffset;
@@ -28,16 +36,30 @@ public class PbfFieldDecoder {
 	 *            The primitive block containing the fields to be decoded.
 	 */
 	public PbfFieldDecoder(Osmformat.PrimitiveBlock primitiveBlock) {
+		this(primitiveBlock, new StringDictionary(StringDictionary.DEFAULT_CAPACITY));
+	}
+
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param primitiveBlock
+	 *            The primitive block containing the fields to be decoded.
+	 * @param dictionary
+	 *            The dictionary for sharing repeated strings with other blocks
+	 *            and tasks in the pipeline.
+	 */
+	public PbfFieldDecoder(Osmformat.PrimitiveBlock primitiveBlock, StringDictionary dictionary) {
 		this.coordGranularity = primitiveBlock.getGranularity();
 		this.coordLatitudeOffset = primitiveBlock.getLatOffset();
 		this.coordLongitudeOffset = primitiveBlock.getLonOffset();
 		this.dateGranularity = primitiveBlock.getDateGranularity();
 
-		Osmformat.StringTable stringTable = primitiveBlock.getStringtable();
+		// Strings are only decoded when first used by an entity of the block.
+		stringTable = primitiveBlock.getStringtable();
 		strings = new String[stringTable.getSCount()];
-		for (int i = 0; i < strings.length; i++) {
-			strings[i] = stringTable.getS(i).toStringUtf8();
-		}
+		this.dictionary = dictionary;
+		users = new HashMap<Integer, OsmUser>();
 	}
 
 
@@ -73,18 +95,68 @@ public class PbfFieldDecoder {
 	 * @return The timestamp as a Date.
 	 */
 	public Date decodeTimestamp(long rawTimestamp) {
-		return new Date(dateGranularity * rawTimestamp);
+		return new Date(decodeTimestampMillis(rawTimestamp));
 	}
 
 
 	/**
-	 * Decodes a raw string into a String.
+	 * Decodes a raw timestamp value into milliseconds since the epoch.
+	 * 
+	 * @param rawTimestamp
+	 *            The PBF encoded timestamp.
+	 * @return The number of milliseconds since the epoch.
+	 */
+	public long decodeTimestampMillis(long rawTimestamp) {
+		return dateGranularity * rawTimestamp;
+	}
+
+
+	/**
+	 * Decodes a raw string into a String. Each string is only decoded once per
+	 * block. This must only be called by the thread decoding the block.
 	 * 
 	 * @param rawString
 	 *            The PBF encoding string.
 	 * @return The string as a String.
 	 */
 	public String decodeString(int rawString) {
-		return strings[rawString];
+		String result;
+		
+		result = strings[rawString];
+		if (result == null) {
+			// Each block has its own string table, sharing the strings through
+			// the dictionary avoids holding a copy per block.
+			result = dictionary.intern(stringTable.getS(rawString).toStringUtf8());
+			strings[rawString] = result;
+		}
+		
+		return result;
+	}
+
+
+	/**
+	 * Decodes a user. Users repeat frequently within a block so a single
+	 * instance is shared by all entities of a user. This must only be called
+	 * by the thread decoding the block.
+	 * 
+	 * @param userId
+	 *            The user id.
+	 * @param rawUserName
+	 *            The PBF encoded user name.
+	 * @return The user.
+	 */
+	public OsmUser decodeUser(int userId, int rawUserName) {
+		OsmUser user;
+		String userName;
+		
+		userName = decodeString(rawUserName);
+		
+		user = users.get(userId);
+		if (user == null || !user.getName().equals(userName)) {
+			user = new OsmUser(userId, userName);
+			users.put(userId, user);
+		}
+		
+		return user;
 	}
 }
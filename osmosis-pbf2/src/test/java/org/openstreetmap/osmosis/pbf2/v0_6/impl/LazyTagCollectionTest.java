@@ -0,0 +1,189 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pbf2.v0_6.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.TagCollection;
+import org.openstreetmap.osmosis.core.domain.v0_6.TagCollectionImpl;
+import org.openstreetmap.osmosis.core.store.DataOutputStoreWriter;
+import org.openstreetmap.osmosis.core.store.DynamicStoreClassRegister;
+
+
+/**
+ * Tests the lazy tag collection.
+ */
+public class LazyTagCollectionTest {
+
+	private static final List<Tag> TAGS = Arrays.asList(
+			new Tag("highway", "residential"), new Tag("name", "Main Street"));
+
+
+	private LazyTagCollection createCollection() {
+		return new LazyTagCollection(new String[] {"highway", "residential", "name", "Main Street"});
+	}
+
+
+	private List<String> format(Collection<Tag> tags) {
+		List<String> result;
+
+		// Tags don't implement equals so they are compared by their text.
+		result = new ArrayList<String>();
+		for (Tag tag : tags) {
+			result.add(tag.getKey() + "=" + tag.getValue());
+		}
+
+		return result;
+	}
+
+
+	private byte[] store(TagCollection tags) {
+		ByteArrayOutputStream out;
+
+		out = new ByteArrayOutputStream();
+		tags.store(new DataOutputStoreWriter(new DataOutputStream(out)), new DynamicStoreClassRegister());
+
+		return out.toByteArray();
+	}
+
+
+	/**
+	 * Verifies the collection can be queried without creating the tags.
+	 */
+	@Test
+	public void testUnbuiltAccess() {
+		LazyTagCollection tags;
+		Map<String, String> expectedMap;
+
+		tags = createCollection();
+		expectedMap = new HashMap<String, String>();
+		expectedMap.put("highway", "residential");
+		expectedMap.put("name", "Main Street");
+
+		Assert.assertEquals("Incorrect size.", 2, tags.size());
+		Assert.assertFalse("The collection should not be empty.", tags.isEmpty());
+		Assert.assertEquals("Incorrect tag map.", expectedMap, tags.buildMap());
+		Assert.assertArrayEquals("Stored data doesn't match a standard tag collection.",
+				store(new TagCollectionImpl(TAGS)), store(tags));
+	}
+
+
+	/**
+	 * Verifies the collection produces the same results once the tags have
+	 * been created.
+	 */
+	@Test
+	public void testBuiltAccess() {
+		LazyTagCollection tags;
+
+		tags = createCollection();
+		Assert.assertEquals("Incorrect tags.", format(TAGS), format(tags));
+
+		Assert.assertEquals("Incorrect size.", 2, tags.size());
+		Assert.assertEquals("Incorrect tag map.", new TagCollectionImpl(TAGS).buildMap(), tags.buildMap());
+		Assert.assertArrayEquals("Stored data doesn't match a standard tag collection.",
+				store(new TagCollectionImpl(TAGS)), store(tags));
+	}
+
+
+	/**
+	 * Verifies the collection can be modified.
+	 */
+	@Test
+	public void testModification() {
+		LazyTagCollection tags;
+		Iterator<Tag> iterator;
+		List<Tag> expected;
+
+		tags = createCollection();
+		tags.add(new Tag("oneway", "yes"));
+		expected = new ArrayList<Tag>(TAGS);
+		expected.add(new Tag("oneway", "yes"));
+		Assert.assertEquals("Tag was not added.", format(expected), format(tags));
+		Assert.assertEquals("Incorrect size after add.", 3, tags.size());
+		Assert.assertEquals("Added tag was not stored.",
+				new TagCollectionImpl(expected).buildMap(), tags.buildMap());
+
+		iterator = tags.iterator();
+		iterator.next();
+		iterator.remove();
+		expected.remove(0);
+		Assert.assertEquals("Tag was not removed.", format(expected), format(tags));
+		Assert.assertArrayEquals("Stored data doesn't reflect the removal.",
+				store(new TagCollectionImpl(expected)), store(tags));
+
+		tags = createCollection();
+		tags.clear();
+		Assert.assertEquals("Collection was not cleared.", 0, tags.size());
+		Assert.assertTrue("Cleared map should be empty.", tags.buildMap().isEmpty());
+		tags.add(new Tag("oneway", "yes"));
+		Assert.assertEquals("Incorrect tags after clear.", Arrays.asList("oneway=yes"), format(tags));
+	}
+
+
+	/**
+	 * Verifies that multiple threads iterating a read-only entity for the
+	 * first time all see the complete set of tags.
+	 *
+	 * @throws Exception
+	 *             if a thread fails.
+	 */
+	@Test
+	public void testConcurrentFirstIteration() throws Exception {
+		final int threadCount = 8;
+		ExecutorService executor;
+
+		executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			for (int attempt = 0; attempt < 100; attempt++) {
+				CommonEntityData entityData;
+				final Node node;
+				final CountDownLatch startLatch;
+				List<Future<List<String>>> results;
+
+				entityData = new CommonEntityData(1, 1, new Date(0), OsmUser.NONE, 1);
+				entityData.setTags(createCollection());
+				node = new Node(entityData, 0, 0);
+				node.makeReadOnly();
+
+				startLatch = new CountDownLatch(1);
+				results = new ArrayList<Future<List<String>>>();
+				for (int i = 0; i < threadCount; i++) {
+					results.add(executor.submit(new Callable<List<String>>() {
+						@Override
+						public List<String> call() throws Exception {
+							startLatch.await();
+							return format(node.getTags());
+						}
+					}));
+				}
+				startLatch.countDown();
+
+				for (Future<List<String>> result : results) {
+					Assert.assertEquals("Incorrect tags seen by thread.", format(TAGS), result.get());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,265 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pbf2.v0_6.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityReuseSink;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkBatchInspector;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkEntityInspector;
+
+import com.google.protobuf.ByteString;
+
+import crosby.binary.Fileformat;
+import crosby.binary.Osmformat;
+
+
+/**
+ * Tests the delivery of decoded PBF blobs to the downstream sink.
+ */
+public class PbfDecoderTest {
+
+	private byte[] createBlob(long firstNodeId, int nodeCount) {
+		Osmformat.PrimitiveGroup.Builder group;
+		Osmformat.PrimitiveBlock block;
+
+		group = Osmformat.PrimitiveGroup.newBuilder();
+		for (int i = 0; i < nodeCount; i++) {
+			group.addNodes(Osmformat.Node.newBuilder().setId(firstNodeId + i).setLat(0).setLon(0));
+		}
+		block = Osmformat.PrimitiveBlock.newBuilder()
+				.setStringtable(Osmformat.StringTable.newBuilder().addS(ByteString.EMPTY))
+				.addPrimitivegroup(group)
+				.build();
+
+		return Fileformat.Blob.newBuilder()
+				.setRaw(block.toByteString())
+				.setRawSize(block.getSerializedSize())
+				.build()
+				.toByteArray();
+	}
+
+
+	/**
+	 * Builds a PBF stream holding one data blob per entry in blobSizes, with
+	 * node ids numbered consecutively across all blobs.
+	 *
+	 * @param blobSizes
+	 *            The number of nodes in each blob.
+	 * @return The stream splitter reading the blobs.
+	 * @throws IOException
+	 *             if the stream can't be written.
+	 */
+	private StreamSplitter createStream(int... blobSizes) throws IOException {
+		ByteArrayOutputStream buffer;
+		DataOutputStream out;
+		long nextNodeId;
+
+		buffer = new ByteArrayOutputStream();
+		out = new DataOutputStream(buffer);
+		nextNodeId = 1;
+		for (int blobSize : blobSizes) {
+			byte[] blob;
+			byte[] header;
+
+			blob = createBlob(nextNodeId, blobSize);
+			header = Fileformat.BlobHeader.newBuilder()
+					.setType("OSMData")
+					.setDatasize(blob.length)
+					.build()
+					.toByteArray();
+
+			out.writeInt(header.length);
+			out.write(header);
+			out.write(blob);
+			nextNodeId += blobSize;
+		}
+		out.flush();
+
+		return new StreamSplitter(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+	}
+
+
+	private List<Long> getIds(Iterable<EntityContainer> entityContainers) {
+		List<Long> ids;
+
+		ids = new ArrayList<Long>();
+		for (EntityContainer entityContainer : entityContainers) {
+			ids.add(entityContainer.getEntity().getId());
+		}
+
+		return ids;
+	}
+
+
+	/**
+	 * Verifies that the entities decoded from each blob are sent as a single
+	 * batch.
+	 *
+	 * @throws IOException
+	 *             if the stream can't be created.
+	 */
+	@Test
+	public void testBatchPerBlob() throws IOException {
+		SinkBatchInspector inspector;
+		List<List<EntityContainer>> batches;
+
+		inspector = new SinkBatchInspector();
+		new PbfDecoder(createStream(3, 2), Runnable::run, 1, inspector, new StringDictionary(16)).run();
+
+		batches = inspector.getBatches();
+		Assert.assertEquals("Incorrect batch count.", 2, batches.size());
+		Assert.assertEquals("Incorrect first batch.", Arrays.asList(1L, 2L, 3L), getIds(batches.get(0)));
+		Assert.assertEquals("Incorrect second batch.", Arrays.asList(4L, 5L), getIds(batches.get(1)));
+	}
+
+
+	/**
+	 * Verifies that blobs decoded concurrently are delivered in stream order.
+	 *
+	 * @throws IOException
+	 *             if the stream can't be created.
+	 */
+	@Test(timeout = 60000)
+	public void testConcurrentBlobOrder() throws IOException {
+		ExecutorService executor;
+		SinkBatchInspector inspector;
+		List<Long> expectedIds;
+
+		inspector = new SinkBatchInspector();
+		executor = Executors.newFixedThreadPool(4);
+		try {
+			new PbfDecoder(createStream(50, 1, 200, 7, 30, 90, 2, 64), executor, 4, inspector,
+					new StringDictionary(16)).run();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		expectedIds = new ArrayList<Long>();
+		for (long id = 1; id <= 444; id++) {
+			expectedIds.add(id);
+		}
+		Assert.assertEquals("Incorrect batch count.", 8, inspector.getBatches().size());
+		Assert.assertEquals("Entities were not delivered in order.", expectedIds,
+				getIds(inspector.getProcessedEntities()));
+	}
+
+
+	/**
+	 * Verifies that sinks only supporting per-entity processing receive every
+	 * decoded entity.
+	 *
+	 * @throws IOException
+	 *             if the stream can't be created.
+	 */
+	@Test
+	public void testPerEntitySink() throws IOException {
+		SinkEntityInspector inspector;
+
+		inspector = new SinkEntityInspector();
+		new PbfDecoder(createStream(3, 2), Runnable::run, 1, inspector, new StringDictionary(16)).run();
+
+		Assert.assertEquals("Incorrect entities.", Arrays.asList(1L, 2L, 3L, 4L, 5L),
+				getIds(inspector.getProcessedEntities()));
+	}
+
+
+	/**
+	 * Records the entities of each batch as they are received, entities may be
+	 * re-used once processing returns so only their ids are retained.
+	 */
+	private static class ReuseSink extends SinkBatchInspector implements EntityReuseSink {
+		private boolean reuseSupported;
+		private List<EntityContainer> containers;
+		private List<Long> ids;
+
+
+		/**
+		 * Creates a new instance.
+		 *
+		 * @param reuseSupported
+		 *            True if the sink allows entities to be re-used.
+		 */
+		ReuseSink(boolean reuseSupported) {
+			this.reuseSupported = reuseSupported;
+
+			containers = new ArrayList<EntityContainer>();
+			ids = new ArrayList<Long>();
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void processBatch(List<EntityContainer> entityContainers) {
+			for (EntityContainer entityContainer : entityContainers) {
+				containers.add(entityContainer);
+				ids.add(entityContainer.getEntity().getId());
+			}
+		}
+
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean supportsEntityReuse() {
+			return reuseSupported;
+		}
+	}
+
+
+	/**
+	 * Verifies that entities are re-used between blobs if the sink supports it.
+	 *
+	 * @throws IOException
+	 *             if the stream can't be created.
+	 */
+	@Test
+	public void testEntityReuse() throws IOException {
+		ReuseSink sink;
+
+		sink = new ReuseSink(true);
+		new PbfDecoder(createStream(3, 3), Runnable::run, 1, sink, new StringDictionary(16)).run();
+
+		Assert.assertEquals("Incorrect entities.", Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L), sink.ids);
+		for (int i = 0; i < 3; i++) {
+			Assert.assertSame("Entity was not re-used.", sink.containers.get(i), sink.containers.get(i + 3));
+		}
+		Assert.assertEquals("Re-used entity has incorrect id.", 6, sink.containers.get(2).getEntity().getId());
+	}
+
+
+	/**
+	 * Verifies that entities are not re-used if the sink doesn't support it.
+	 *
+	 * @throws IOException
+	 *             if the stream can't be created.
+	 */
+	@Test
+	public void testNoEntityReuse() throws IOException {
+		ReuseSink sink;
+
+		sink = new ReuseSink(false);
+		new PbfDecoder(createStream(3, 3), Runnable::run, 1, sink, new StringDictionary(16)).run();
+
+		Assert.assertEquals("Incorrect entities.", Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L), sink.ids);
+		for (int i = 0; i < 3; i++) {
+			Assert.assertNotSame("Entity was re-used.", sink.containers.get(i), sink.containers.get(i + 3));
+			Assert.assertEquals("Entity was modified.", i + 1, sink.containers.get(i).getEntity().getId());
+		}
+	}
+}
@@ -0,0 +1,123 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pbf2.v0_6.impl;
+
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.util.FixedPrecisionCoordinateConvertor;
+
+import com.google.protobuf.ByteString;
+
+import crosby.binary.Osmformat;
+
+
+/**
+ * Tests the on demand decoding of PBF strings and users.
+ */
+public class PbfFieldDecoderTest {
+
+	private Osmformat.PrimitiveBlock createBlock(String... strings) {
+		Osmformat.StringTable.Builder stringTable;
+
+		stringTable = Osmformat.StringTable.newBuilder();
+		for (String string : strings) {
+			stringTable.addS(ByteString.copyFromUtf8(string));
+		}
+
+		return Osmformat.PrimitiveBlock.newBuilder().setStringtable(stringTable).build();
+	}
+
+
+	/**
+	 * Verifies that strings are decoded correctly and that each string is
+	 * only decoded once per block.
+	 */
+	@Test
+	public void testDecodeString() {
+		PbfFieldDecoder decoder;
+		String first;
+
+		decoder = new PbfFieldDecoder(createBlock("", "highway", "residential", "Straße"));
+
+		first = decoder.decodeString(1);
+		Assert.assertEquals("Incorrect string.", "highway", first);
+		Assert.assertEquals("Incorrect string.", "residential", decoder.decodeString(2));
+		Assert.assertEquals("Incorrect UTF-8 string.", "Straße", decoder.decodeString(3));
+		Assert.assertSame("String was decoded twice.", first, decoder.decodeString(1));
+	}
+
+
+	/**
+	 * Verifies that blocks decoded with the same dictionary share their
+	 * strings.
+	 */
+	@Test
+	public void testDecodeStringSharedBetweenBlocks() {
+		StringDictionary dictionary;
+		PbfFieldDecoder decoder1;
+		PbfFieldDecoder decoder2;
+
+		dictionary = new StringDictionary(16);
+		decoder1 = new PbfFieldDecoder(createBlock("", "highway"), dictionary);
+		decoder2 = new PbfFieldDecoder(createBlock("", "name", "highway"), dictionary);
+
+		Assert.assertSame("Blocks should share the string.", decoder1.decodeString(1), decoder2.decodeString(2));
+	}
+
+
+	/**
+	 * Verifies that users are shared within a block and replaced if their name
+	 * changes.
+	 */
+	@Test
+	public void testDecodeUser() {
+		PbfFieldDecoder decoder;
+		OsmUser user;
+
+		decoder = new PbfFieldDecoder(createBlock("", "alice", "bob", "alice2"));
+
+		user = decoder.decodeUser(7, 1);
+		Assert.assertEquals("Incorrect user id.", 7, user.getId());
+		Assert.assertEquals("Incorrect user name.", "alice", user.getName());
+		Assert.assertSame("User should be shared.", user, decoder.decodeUser(7, 1));
+
+		Assert.assertEquals("Incorrect second user.", "bob", decoder.decodeUser(8, 2).getName());
+
+		user = decoder.decodeUser(7, 3);
+		Assert.assertEquals("Renamed user should have the new name.", "alice2", user.getName());
+		Assert.assertSame("Renamed user should be shared.", user, decoder.decodeUser(7, 3));
+	}
+
+
+	/**
+	 * Verifies that nodes built from decoded coordinates hold them in fixed
+	 * precision form only.
+	 */
+	@Test
+	public void testDecodedNodeCoordinates() {
+		PbfFieldDecoder decoder;
+
+		decoder = new PbfFieldDecoder(Osmformat.PrimitiveBlock.newBuilder()
+				.setStringtable(Osmformat.StringTable.newBuilder().addS(ByteString.EMPTY))
+				.setLatOffset(300)
+				.setLonOffset(-500)
+				.build());
+
+		for (long raw = -9000000; raw <= 9000000; raw += 12345) {
+			Node node;
+
+			node = new Node(new CommonEntityData(1, 1, new Date(0), OsmUser.NONE, 1),
+					decoder.decodeLatitude(raw), decoder.decodeLongitude(raw * 2));
+
+			Assert.assertEquals("Latitude was not held in fixed form.",
+					FixedPrecisionCoordinateConvertor.convertToDouble((int) (raw + 3)), node.getLatitude(), 0);
+			Assert.assertEquals("Longitude was not held in fixed form.",
+					FixedPrecisionCoordinateConvertor.convertToDouble((int) (raw * 2 - 5)), node.getLongitude(), 0);
+		}
+	}
+}
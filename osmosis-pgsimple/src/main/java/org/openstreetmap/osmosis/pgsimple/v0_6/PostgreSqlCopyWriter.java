@@ -7,8 +7,8 @@ import java.util.logging.Logger;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.database.DatabaseLoginCredentials;
 import org.openstreetmap.osmosis.core.database.DatabasePreferences;
+import org.openstreetmap.osmosis.core.location.NodeLocationStoreType;
 import org.openstreetmap.osmosis.pgsimple.common.DatabaseContext;
-import org.openstreetmap.osmosis.pgsimple.common.NodeLocationStoreType;
 import org.openstreetmap.osmosis.pgsimple.v0_6.impl.CopyFilesetLoader;
 import org.openstreetmap.osmosis.pgsimple.v0_6.impl.DatabaseCapabilityChecker;
 import org.openstreetmap.osmosis.pgsimple.v0_6.impl.CopyFilesetBuilder;
@@ -4,7 +4,7 @@ package org.openstreetmap.osmosis.pgsimple.v0_6;
 import org.openstreetmap.osmosis.core.database.DatabaseLoginCredentials;
 import org.openstreetmap.osmosis.core.database.DatabasePreferences;
 import org.openstreetmap.osmosis.core.database.DatabaseTaskManagerFactory;
-import org.openstreetmap.osmosis.pgsimple.common.NodeLocationStoreType;
+import org.openstreetmap.osmosis.core.location.NodeLocationStoreType;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
 import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkManager;
@@ -17,7 +17,7 @@ import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkManager;
  */
 public class PostgreSqlCopyWriterFactory extends DatabaseTaskManagerFactory {
 	private static final String ARG_NODE_LOCATION_STORE_TYPE = "nodeLocationStoreType";
-	private static final String DEFAULT_NODE_LOCATION_STORE_TYPE = "CompactTempFile";
+	private static final String DEFAULT_NODE_LOCATION_STORE_TYPE = "Auto";
 	private static final String ARG_ENABLE_KEEP_PARTIAL_LIENSTRING = "enableKeepPartialLinestring";
 	private static final boolean DEFAULT_ENABLE_KEEP_PARTIAL_LIENSTRING = false;
 	
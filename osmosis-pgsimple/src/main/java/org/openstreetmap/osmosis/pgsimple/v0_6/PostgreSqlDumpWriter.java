@@ -5,7 +5,7 @@ import java.io.File;
 import java.util.Map;
 
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
-import org.openstreetmap.osmosis.pgsimple.common.NodeLocationStoreType;
+import org.openstreetmap.osmosis.core.location.NodeLocationStoreType;
 import org.openstreetmap.osmosis.pgsimple.v0_6.impl.DirectoryCopyFileset;
 import org.openstreetmap.osmosis.pgsimple.v0_6.impl.CopyFilesetBuilder;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
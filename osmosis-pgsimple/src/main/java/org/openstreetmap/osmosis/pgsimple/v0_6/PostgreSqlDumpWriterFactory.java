@@ -3,7 +3,7 @@ package org.openstreetmap.osmosis.pgsimple.v0_6;
 
 import java.io.File;
 
-import org.openstreetmap.osmosis.pgsimple.common.NodeLocationStoreType;
+import org.openstreetmap.osmosis.core.location.NodeLocationStoreType;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
@@ -25,7 +25,7 @@ public class PostgreSqlDumpWriterFactory extends TaskManagerFactory {
 	private static final boolean DEFAULT_ENABLE_LINESTRING_BUILDER = false;
 	private static final boolean DEFAULT_ENABLE_KEEP_PARTIAL_LINESTRING = false;
 	private static final String DEFAULT_FILE_PREFIX = "pgimport";
-	private static final String DEFAULT_NODE_LOCATION_STORE_TYPE = "CompactTempFile";
+	private static final String DEFAULT_NODE_LOCATION_STORE_TYPE = "Auto";
 	
 	
 	/**
@@ -29,9 +29,9 @@ import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.location.NodeLocationStoreType;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.pgsimple.common.DatabaseContext;
-import org.openstreetmap.osmosis.pgsimple.common.NodeLocationStoreType;
 import org.openstreetmap.osmosis.pgsimple.common.SchemaVersionValidator;
 import org.openstreetmap.osmosis.pgsimple.v0_6.impl.ActionDao;
 import org.openstreetmap.osmosis.pgsimple.v0_6.impl.IndexManager;
@@ -790,7 +790,9 @@ public class PostgreSqlWriter implements Sink, EntityProcessor {
 	 */
 	@Override
 	public void process(BoundContainer bound) {
-		// Do nothing.
+		if (enableBboxBuilder || enableLinestringBuilder) {
+			wayGeometryBuilder.setBound(bound.getEntity());
+		}
 	}
 	
 	
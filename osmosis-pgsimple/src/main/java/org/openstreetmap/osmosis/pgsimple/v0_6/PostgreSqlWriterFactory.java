@@ -4,7 +4,7 @@ package org.openstreetmap.osmosis.pgsimple.v0_6;
 import org.openstreetmap.osmosis.core.database.DatabaseLoginCredentials;
 import org.openstreetmap.osmosis.core.database.DatabasePreferences;
 import org.openstreetmap.osmosis.core.database.DatabaseTaskManagerFactory;
-import org.openstreetmap.osmosis.pgsimple.common.NodeLocationStoreType;
+import org.openstreetmap.osmosis.core.location.NodeLocationStoreType;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
 import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkManager;
@@ -23,7 +23,7 @@ public class PostgreSqlWriterFactory extends DatabaseTaskManagerFactory {
 	private static final boolean DEFAULT_ENABLE_BBOX_BUILDER = false;
 	private static final boolean DEFAULT_ENABLE_LINESTRING_BUILDER = false;
 	private static final boolean DEFAULT_ENABLE_KEEP_PARTIAL_LINESTRING = false;
-	private static final String DEFAULT_NODE_LOCATION_STORE_TYPE = "CompactTempFile";
+	private static final String DEFAULT_NODE_LOCATION_STORE_TYPE = "Auto";
 	
 	/**
 	 * {@inheritDoc}
@@ -19,8 +19,8 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
 import org.openstreetmap.osmosis.core.lifecycle.CompletableContainer;
+import org.openstreetmap.osmosis.core.location.NodeLocationStoreType;
 import org.openstreetmap.osmosis.pgsimple.common.CopyFileWriter;
-import org.openstreetmap.osmosis.pgsimple.common.NodeLocationStoreType;
 import org.openstreetmap.osmosis.pgsimple.common.PointBuilder;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 
@@ -137,7 +137,9 @@ public class CopyFilesetBuilder implements Sink, EntityProcessor {
 	 * {@inheritDoc}
 	 */
 	public void process(BoundContainer boundContainer) {
-		// Do nothing.
+		if (enableBboxBuilder || enableLinestringBuilder) {
+			wayGeometryBuilder.setBound(boundContainer.getEntity());
+		}
 	}
 	
 	
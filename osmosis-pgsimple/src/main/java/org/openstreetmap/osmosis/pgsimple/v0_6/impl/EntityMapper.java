@@ -8,6 +8,7 @@ import java.sql.Timestamp;
 import java.util.Arrays;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
 import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
 
@@ -21,6 +22,17 @@ import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
  */
 public abstract class EntityMapper<T extends Entity> {
 	
+	private StringDictionary dictionary;
+	
+	
+	/**
+	 * Creates a new instance.
+	 */
+	public EntityMapper() {
+		dictionary = new StringDictionary(StringDictionary.DEFAULT_CAPACITY);
+	}
+	
+	
 	/**
 	 * Returns the name of the entity to substitute into SQL statements. This is
 	 * a low-tech way of making the queries type independent.
@@ -220,7 +232,7 @@ public abstract class EntityMapper<T extends Entity> {
 			} else {
 				user = new OsmUser(
 					userId,
-					resultSet.getString("user_name")
+					dictionary.intern(resultSet.getString("user_name"))
 				);
 			}
 			
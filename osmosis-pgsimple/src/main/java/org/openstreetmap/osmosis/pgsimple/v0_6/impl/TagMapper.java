@@ -7,6 +7,7 @@ import java.sql.SQLException;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.database.DbFeature;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 
 
@@ -17,6 +18,7 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
  */
 public class TagMapper extends EntityFeatureMapper<DbFeature<Tag>> {
 	private String parentEntityName;
+	private StringDictionary dictionary;
 	
 	
 	/**
@@ -28,6 +30,8 @@ public class TagMapper extends EntityFeatureMapper<DbFeature<Tag>> {
 	 */
 	public TagMapper(String parentEntityName) {
 		this.parentEntityName = parentEntityName;
+		
+		dictionary = new StringDictionary(StringDictionary.DEFAULT_CAPACITY);
 	}
 	
 	
@@ -117,8 +121,8 @@ public class TagMapper extends EntityFeatureMapper<DbFeature<Tag>> {
 			return new DbFeature<Tag>(
 				resultSet.getLong("entity_id"),
 				new Tag(
-					resultSet.getString("k"),
-					resultSet.getString("v")
+					dictionary.intern(resultSet.getString("k")),
+					dictionary.intern(resultSet.getString("v"))
 				)
 			);
 			
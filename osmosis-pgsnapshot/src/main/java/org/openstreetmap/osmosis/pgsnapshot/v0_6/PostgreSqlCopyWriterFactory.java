@@ -2,7 +2,7 @@
 package org.openstreetmap.osmosis.pgsnapshot.v0_6;
 
 import org.openstreetmap.osmosis.core.database.DatabaseTaskManagerFactory;
-import org.openstreetmap.osmosis.pgsnapshot.common.NodeLocationStoreType;
+import org.openstreetmap.osmosis.core.location.NodeLocationStoreType;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
 import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkManager;
@@ -15,7 +15,7 @@ import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkManager;
  */
 public class PostgreSqlCopyWriterFactory extends DatabaseTaskManagerFactory {
 	private static final String ARG_NODE_LOCATION_STORE_TYPE = "nodeLocationStoreType";
-	private static final String DEFAULT_NODE_LOCATION_STORE_TYPE = "CompactTempFile";
+	private static final String DEFAULT_NODE_LOCATION_STORE_TYPE = "Auto";
 	private static final String ARG_ENABLE_KEEP_PARTIAL_LIENSTRING = "enableKeepPartialLinestring";
 	private static final boolean DEFAULT_ENABLE_KEEP_PARTIAL_LIENSTRING = false;
 	private static final String ARG_KEEP_INVALID_WAYS = "keepInvalidWays";
@@ -22,8 +22,8 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
 import org.openstreetmap.osmosis.core.lifecycle.CompletableContainer;
+import org.openstreetmap.osmosis.core.location.NodeLocationStoreType;
 import org.openstreetmap.osmosis.pgsnapshot.common.CopyFileWriter;
-import org.openstreetmap.osmosis.pgsnapshot.common.NodeLocationStoreType;
 import org.openstreetmap.osmosis.pgsnapshot.common.PointBuilder;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.hstore.PGHStore;
@@ -141,7 +141,9 @@ public class CopyFilesetBuilder implements Sink, EntityProcessor {
 	 * {@inheritDoc}
 	 */
 	public void process(BoundContainer boundContainer) {
-		// Do nothing.
+		if (enableBboxBuilder || enableLinestringBuilder) {
+			wayGeometryBuilder.setBound(boundContainer.getEntity());
+		}
 	}
 	
 	
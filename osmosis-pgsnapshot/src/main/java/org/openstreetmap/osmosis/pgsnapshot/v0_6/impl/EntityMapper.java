@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.springframework.jdbc.core.RowMapper;
@@ -21,6 +22,28 @@ import org.springframework.jdbc.core.RowMapper;
  */
 public abstract class EntityMapper<T extends Entity> {
 	
+	private StringDictionary stringDictionary;
+	
+	
+	/**
+	 * Creates a new instance.
+	 */
+	public EntityMapper() {
+		stringDictionary = new StringDictionary(StringDictionary.DEFAULT_CAPACITY);
+	}
+	
+	
+	/**
+	 * Returns the dictionary used by row mappers to share repeated strings
+	 * between the entities they create.
+	 * 
+	 * @return The dictionary.
+	 */
+	protected StringDictionary getStringDictionary() {
+		return stringDictionary;
+	}
+	
+	
 	/**
 	 * Returns the name of the entity to substitute into SQL statements. This is
 	 * a low-tech way of making the queries type independent.
@@ -9,6 +9,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
 import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
 import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
@@ -25,6 +26,20 @@ import org.springframework.jdbc.core.RowMapper;
  */
 public abstract class EntityRowMapper<T extends Entity> implements RowMapper<T> {
 	
+	private StringDictionary dictionary;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param dictionary
+	 *            The dictionary for sharing repeated strings.
+	 */
+	public EntityRowMapper(StringDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+	
+	
 	/**
 	 * Creates a new user record based upon the current result set row.
 	 * 
@@ -43,7 +58,7 @@ public abstract class EntityRowMapper<T extends Entity> implements RowMapper<T>
 			} else {
 				user = new OsmUser(
 					userId,
-					resultSet.getString("user_name")
+					dictionary.intern(resultSet.getString("user_name"))
 				);
 			}
 			
@@ -82,7 +97,7 @@ public abstract class EntityRowMapper<T extends Entity> implements RowMapper<T>
 		if (dbTags != null) {
 			tags = entityData.getTags();
 			for (Entry<String, String> tagEntry : dbTags.entrySet()) {
-				tags.add(new Tag(tagEntry.getKey(), tagEntry.getValue()));
+				tags.add(new Tag(dictionary.intern(tagEntry.getKey()), dictionary.intern(tagEntry.getValue())));
 			}
 		}
 		
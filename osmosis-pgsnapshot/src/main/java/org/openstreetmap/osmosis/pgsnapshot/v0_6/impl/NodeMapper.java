@@ -79,6 +79,6 @@ public class NodeMapper extends EntityMapper<Node> {
 	 */
 	@Override
 	public RowMapper<Node> getRowMapper() {
-		return new NodeRowMapper();
+		return new NodeRowMapper(getStringDictionary());
 	}
 }
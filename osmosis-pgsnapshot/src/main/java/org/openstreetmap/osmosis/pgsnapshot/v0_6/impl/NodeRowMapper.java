@@ -6,6 +6,7 @@ import java.sql.SQLException;
 
 import net.postgis.jdbc.PGgeometry;
 import net.postgis.jdbc.geometry.Point;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 import org.openstreetmap.osmosis.core.domain.v0_6.Node;
 
 
@@ -16,6 +17,17 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Node;
  */
 public class NodeRowMapper extends EntityRowMapper<Node> {
 
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param stringDictionary
+	 *            The dictionary for sharing repeated strings.
+	 */
+	public NodeRowMapper(StringDictionary stringDictionary) {
+		super(stringDictionary);
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
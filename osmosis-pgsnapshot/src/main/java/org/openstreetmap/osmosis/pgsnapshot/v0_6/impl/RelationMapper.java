@@ -64,6 +64,6 @@ public class RelationMapper extends EntityMapper<Relation> {
 	 */
 	@Override
 	public RowMapper<Relation> getRowMapper() {
-		return new RelationRowMapper();
+		return new RelationRowMapper(getStringDictionary());
 	}
 }
@@ -4,6 +4,7 @@ package org.openstreetmap.osmosis.pgsnapshot.v0_6.impl;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
 
 
@@ -14,6 +15,17 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
  */
 public class RelationRowMapper extends EntityRowMapper<Relation> {
 
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param stringDictionary
+	 *            The dictionary for sharing repeated strings.
+	 */
+	public RelationRowMapper(StringDictionary stringDictionary) {
+		super(stringDictionary);
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -8,17 +8,15 @@ import net.postgis.jdbc.geometry.LineString;
 import net.postgis.jdbc.geometry.LinearRing;
 import net.postgis.jdbc.geometry.Point;
 import net.postgis.jdbc.geometry.Polygon;
-import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
 import org.openstreetmap.osmosis.core.domain.v0_6.Node;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
 import org.openstreetmap.osmosis.core.lifecycle.Closeable;
-import org.openstreetmap.osmosis.pgsnapshot.common.CompactPersistentNodeLocationStore;
-import org.openstreetmap.osmosis.pgsnapshot.common.InMemoryNodeLocationStore;
-import org.openstreetmap.osmosis.pgsnapshot.common.NodeLocation;
-import org.openstreetmap.osmosis.pgsnapshot.common.NodeLocationStore;
-import org.openstreetmap.osmosis.pgsnapshot.common.NodeLocationStoreType;
-import org.openstreetmap.osmosis.pgsnapshot.common.PersistentNodeLocationStore;
+import org.openstreetmap.osmosis.core.location.NodeLocation;
+import org.openstreetmap.osmosis.core.location.NodeLocationStore;
+import org.openstreetmap.osmosis.core.location.NodeLocationStoreFactory;
+import org.openstreetmap.osmosis.core.location.NodeLocationStoreType;
 
 /**
  * Caches a set of node latitudes and longitudes and uses these to calculate the
@@ -42,15 +40,19 @@ public class WayGeometryBuilder implements Closeable {
 	 *            The type of storage to use for holding node locations.
 	 */
 	public WayGeometryBuilder(NodeLocationStoreType storeType) {
-		if (NodeLocationStoreType.InMemory.equals(storeType)) {
-			locationStore = new InMemoryNodeLocationStore();
-		} else if (NodeLocationStoreType.TempFile.equals(storeType)) {
-			locationStore = new PersistentNodeLocationStore();
-		} else if (NodeLocationStoreType.CompactTempFile.equals(storeType)) {
-			locationStore = new CompactPersistentNodeLocationStore();
-		} else {
-			throw new OsmosisRuntimeException("The store type " + storeType + " is not recognized.");
-		}
+		locationStore = NodeLocationStoreFactory.createInstance(storeType);
+	}
+	
+	
+	/**
+	 * Provides the bounding box of the input to the internal store, allowing
+	 * it to select a storage strategy suited to the data volume.
+	 * 
+	 * @param bound
+	 *            The bounding box of the input.
+	 */
+	public void setBound(Bound bound) {
+		locationStore.setBound(bound);
 	}
 	
 	
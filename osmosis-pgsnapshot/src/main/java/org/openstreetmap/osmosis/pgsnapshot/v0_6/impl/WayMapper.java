@@ -117,6 +117,6 @@ public class WayMapper extends EntityMapper<Way> {
 	 */
 	@Override
 	public RowMapper<Way> getRowMapper() {
-		return new WayRowMapper();
+		return new WayRowMapper(getStringDictionary());
 	}
 }
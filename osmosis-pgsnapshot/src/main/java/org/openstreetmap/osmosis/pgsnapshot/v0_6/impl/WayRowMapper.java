@@ -6,6 +6,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
 
@@ -17,6 +18,17 @@ import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
  */
 public class WayRowMapper extends EntityRowMapper<Way> {
 
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param stringDictionary
+	 *            The dictionary for sharing repeated strings.
+	 */
+	public WayRowMapper(StringDictionary stringDictionary) {
+		super(stringDictionary);
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -314,6 +314,8 @@ public class IntervalDownloader implements RunnableChangeSource {
 					LOG.log(Level.WARNING, "The wait for task completion was interrupted.", e);
 				}
 				
+				LOG.fine("Changeset worker " + i + " " + taskRunner.getUsageSummary() + ".");
+				
 				if (!taskRunner.isSuccessful()) {
 					LOG.log(Level.SEVERE, "Changeset worker " + i + " failed", taskRunner.getException());
 					
@@ -2,6 +2,7 @@
 package org.openstreetmap.osmosis.tagfilter.v0_6;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
@@ -12,6 +13,10 @@ import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityBatcher;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityReuse;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityReuseSink;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 
@@ -21,8 +26,9 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
  *
  * @author Aurelien Jacobs
  */
-public class NodeKeyFilter implements SinkSource, EntityProcessor {
+public class NodeKeyFilter implements SinkSource, BatchSink, EntityReuseSink, EntityProcessor {
 	private Sink sink;
+	private EntityBatcher batcher;
 	private HashSet<String> allowedKeys;
 
 	/**
@@ -43,6 +49,17 @@ public class NodeKeyFilter implements SinkSource, EntityProcessor {
 	}
     
     
+	private boolean matches(Node node) {
+		for (Tag tag : node.getTags()) {
+			if (allowedKeys.contains(tag.getKey())) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+
     /**
      * {@inheritDoc}
      */
@@ -61,6 +78,23 @@ public class NodeKeyFilter implements SinkSource, EntityProcessor {
 	}
 
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public void processBatch(List<EntityContainer> entityContainers) {
+		for (EntityContainer entityContainer : entityContainers) {
+			if (entityContainer instanceof NodeContainer) {
+				if (matches(((NodeContainer) entityContainer).getEntity())) {
+					batcher.add(entityContainer);
+				}
+			} else if (entityContainer instanceof BoundContainer) {
+				batcher.add(entityContainer);
+			}
+		}
+		batcher.flush();
+	}
+
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -74,17 +108,7 @@ public class NodeKeyFilter implements SinkSource, EntityProcessor {
 	 * {@inheritDoc}
 	 */
 	public void process(NodeContainer container) {
-		Node node = container.getEntity();
-
-		boolean matchesFilter = false;
-		for (Tag tag : node.getTags()) {
-			if (allowedKeys.contains(tag.getKey())) {
-				matchesFilter = true;
-				break;
-			}
-		}
-
-		if (matchesFilter) {
+		if (matches(container.getEntity())) {
 			sink.process(container);
 		}
 	}
@@ -122,10 +146,20 @@ public class NodeKeyFilter implements SinkSource, EntityProcessor {
 	}
 
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsEntityReuse() {
+		return EntityReuse.isSupported(sink);
+	}
+
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public void setSink(Sink sink) {
 		this.sink = sink;
+		batcher = new EntityBatcher(sink);
 	}
 }
@@ -28,4 +28,12 @@ public class NodeKeyFilterFactory extends TaskManagerFactory {
 		);
 	}
 
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsParallelExecution(TaskConfiguration taskConfig) {
+		return true;
+	}
 }
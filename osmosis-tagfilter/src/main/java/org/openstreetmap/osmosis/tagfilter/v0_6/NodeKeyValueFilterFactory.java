@@ -41,4 +41,12 @@ public class NodeKeyValueFilterFactory extends TaskManagerFactory {
 		);
 	}
 
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsParallelExecution(TaskConfiguration taskConfig) {
+		return true;
+	}
 }
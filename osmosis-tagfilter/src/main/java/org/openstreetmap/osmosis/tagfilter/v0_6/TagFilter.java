@@ -1,6 +1,7 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.tagfilter.v0_6;
 
+import java.util.List;
 import java.util.Set;
 import java.util.Map;
 import java.util.logging.Logger;
@@ -11,6 +12,10 @@ import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityBatcher;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityReuse;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityReuseSink;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 
@@ -19,8 +24,9 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
  * 
  * @author Andrew Byrd
  */
-public class TagFilter implements SinkSource {
+public class TagFilter implements SinkSource, BatchSink, EntityReuseSink {
     private Sink sink;
+    private EntityBatcher batcher;
     private Set<String> tagKeys;
     private Map<String, Set<String>> tagKeyValues;
     private Class<? extends EntityContainer> filterClass;
@@ -121,6 +127,21 @@ public class TagFilter implements SinkSource {
     }
     
     
+    /**
+     * Checks whether a container should be passed downstream.
+     *
+     * @param container
+     *      The container to be checked.
+     */
+    private boolean accepts(EntityContainer container) {
+        if (filterClass.isInstance(container)) {
+            return reject ^ (matchesEverything || matches(container));
+        } else {
+            return true;
+        }
+    }
+    
+    
     /**
      * {@inheritDoc}
      */
@@ -133,14 +154,23 @@ public class TagFilter implements SinkSource {
      * {@inheritDoc}
      */
     public void process(EntityContainer container) {
-        if (filterClass.isInstance(container)) {
-            if (reject ^ (matchesEverything || matches(container))) {
-                sink.process(container);
-            }
-        } else {
+        if (accepts(container)) {
             sink.process(container);
         }
     }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void processBatch(List<EntityContainer> containers) {
+        for (EntityContainer container : containers) {
+            if (accepts(container)) {
+                batcher.add(container);
+            }
+        }
+        batcher.flush();
+    }
         
 
     /**
@@ -159,10 +189,20 @@ public class TagFilter implements SinkSource {
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsEntityReuse() {
+        return EntityReuse.isSupported(sink);
+    }
+
+
     /**
      * {@inheritDoc}
      */
     public void setSink(Sink sink) {
         this.sink = sink;
+        batcher = new EntityBatcher(sink);
     }
 }
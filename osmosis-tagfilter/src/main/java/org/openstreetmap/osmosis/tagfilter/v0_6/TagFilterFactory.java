@@ -80,4 +80,12 @@ public class TagFilterFactory extends TaskManagerFactory {
         );
     }
 
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsParallelExecution(TaskConfiguration taskConfig) {
+        return true;
+    }
 }
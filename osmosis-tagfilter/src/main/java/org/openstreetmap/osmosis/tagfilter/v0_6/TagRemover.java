@@ -3,11 +3,14 @@ package org.openstreetmap.osmosis.tagfilter.v0_6;
 
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityBatcher;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 
@@ -19,8 +22,9 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
  * @author Jochen Topf
  * @author Brett Henderson
  */
-public class TagRemover implements SinkSource {
+public class TagRemover implements SinkSource, BatchSink {
 	private Sink sink;
+	private EntityBatcher batcher;
 	private HashSet<String> keysToDrop;
 	private String[] keyPrefixesToDrop;
 	
@@ -51,6 +55,7 @@ public class TagRemover implements SinkSource {
 	 */
 	public void setSink(Sink sink) {
 		this.sink = sink;
+		batcher = new EntityBatcher(sink);
 	}
     
     
@@ -62,11 +67,7 @@ public class TagRemover implements SinkSource {
 	}
 
 
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public void process(EntityContainer entityContainer) {
+	private EntityContainer removeTags(EntityContainer entityContainer) {
 		EntityContainer writeableContainer;
 		Entity entity;
 		
@@ -90,7 +91,28 @@ public class TagRemover implements SinkSource {
 			}
 		}
 		
-		sink.process(writeableContainer);
+		return writeableContainer;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void process(EntityContainer entityContainer) {
+		sink.process(removeTags(entityContainer));
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void processBatch(List<EntityContainer> entityContainers) {
+		for (EntityContainer entityContainer : entityContainers) {
+			batcher.add(removeTags(entityContainer));
+		}
+		batcher.flush();
 	}
 
 
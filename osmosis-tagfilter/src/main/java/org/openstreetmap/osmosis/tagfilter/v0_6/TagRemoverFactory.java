@@ -40,4 +40,13 @@ public class TagRemoverFactory extends TaskManagerFactory {
 			taskConfig.getPipeArgs()
 		);
 	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsParallelExecution(TaskConfiguration taskConfig) {
+		return true;
+	}
 }
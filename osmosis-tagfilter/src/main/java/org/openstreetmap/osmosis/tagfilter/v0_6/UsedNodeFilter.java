@@ -182,6 +182,7 @@ public class UsedNodeFilter implements SinkSource, EntityProcessor {
 		if (allRelations != null) {
 			allRelations.close();
 		}
+		requiredNodes.close();
 		sink.close();
 	}
 	
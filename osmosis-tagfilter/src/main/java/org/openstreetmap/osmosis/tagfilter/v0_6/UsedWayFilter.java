@@ -169,6 +169,7 @@ public class UsedWayFilter implements SinkSource, EntityProcessor {
 		if (allRelations != null) {
 			allRelations.close();
 		}
+		requiredWays.close();
 		sink.close();
 	}
 	
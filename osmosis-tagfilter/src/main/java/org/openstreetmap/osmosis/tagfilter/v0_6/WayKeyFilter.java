@@ -2,6 +2,7 @@
 package org.openstreetmap.osmosis.tagfilter.v0_6;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
@@ -12,6 +13,10 @@ import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityBatcher;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityReuse;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityReuseSink;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 
@@ -22,8 +27,9 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
  * 
  * @author Andrew Byrd
  */
-public class WayKeyFilter implements SinkSource, EntityProcessor {
+public class WayKeyFilter implements SinkSource, BatchSink, EntityReuseSink, EntityProcessor {
 	private Sink sink;
+	private EntityBatcher batcher;
 	private HashSet<String> allowedKeys;
 
 	/**
@@ -44,6 +50,17 @@ public class WayKeyFilter implements SinkSource, EntityProcessor {
 	}
     
     
+	private boolean matches(Way way) {
+		for (Tag tag : way.getTags()) {
+			if (allowedKeys.contains(tag.getKey())) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+
     /**
      * {@inheritDoc}
      */
@@ -62,6 +79,23 @@ public class WayKeyFilter implements SinkSource, EntityProcessor {
 	}
 
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public void processBatch(List<EntityContainer> entityContainers) {
+		for (EntityContainer entityContainer : entityContainers) {
+			if (entityContainer instanceof WayContainer) {
+				if (matches(((WayContainer) entityContainer).getEntity())) {
+					batcher.add(entityContainer);
+				}
+			} else {
+				batcher.add(entityContainer);
+			}
+		}
+		batcher.flush();
+	}
+
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -83,17 +117,7 @@ public class WayKeyFilter implements SinkSource, EntityProcessor {
 	 * {@inheritDoc}
 	 */
 	public void process(WayContainer container) {
-		Way way = container.getEntity();
-
-		boolean matchesFilter = false;
-		for (Tag tag : way.getTags()) {
-			if (allowedKeys.contains(tag.getKey())) {
-				matchesFilter = true;
-				break;
-			}
-		}
-
-		if (matchesFilter) {
+		if (matches(container.getEntity())) {
 			sink.process(container);
 		}
 	}
@@ -123,10 +147,20 @@ public class WayKeyFilter implements SinkSource, EntityProcessor {
 	}
 
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsEntityReuse() {
+		return EntityReuse.isSupported(sink);
+	}
+
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public void setSink(Sink sink) {
 		this.sink = sink;
+		batcher = new EntityBatcher(sink);
 	}
 }
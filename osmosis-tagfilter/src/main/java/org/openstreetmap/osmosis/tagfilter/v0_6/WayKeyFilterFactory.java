@@ -28,4 +28,12 @@ public class WayKeyFilterFactory extends TaskManagerFactory {
 		);
 	}
 
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsParallelExecution(TaskConfiguration taskConfig) {
+		return true;
+	}
 }
@@ -5,6 +5,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
@@ -16,6 +17,10 @@ import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityBatcher;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityReuse;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityReuseSink;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 import org.openstreetmap.osmosis.tagfilter.common.KeyValueFileReader;
@@ -28,8 +33,9 @@ import org.openstreetmap.osmosis.tagfilter.common.KeyValueFileReader;
  * @author Karl Newman
  * @author Christoph Sommer 
  */
-public class WayKeyValueFilter implements SinkSource, EntityProcessor {
+public class WayKeyValueFilter implements SinkSource, BatchSink, EntityReuseSink, EntityProcessor {
 	private Sink sink;
+	private EntityBatcher batcher;
 	private HashSet<String> allowedKeyValues;
 	
 	/**
@@ -78,6 +84,18 @@ public class WayKeyValueFilter implements SinkSource, EntityProcessor {
 	}
     
     
+	private boolean matches(Way way) {
+		for (Tag tag : way.getTags()) {
+			String keyValue = tag.getKey() + "." + tag.getValue();
+			if (allowedKeyValues.contains(keyValue)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+
     /**
      * {@inheritDoc}
      */
@@ -94,6 +112,23 @@ public class WayKeyValueFilter implements SinkSource, EntityProcessor {
 		// for the entity type.
 		entityContainer.process(this);
 	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void processBatch(List<EntityContainer> entityContainers) {
+		for (EntityContainer entityContainer : entityContainers) {
+			if (entityContainer instanceof WayContainer) {
+				if (matches(((WayContainer) entityContainer).getEntity())) {
+					batcher.add(entityContainer);
+				}
+			} else {
+				batcher.add(entityContainer);
+			}
+		}
+		batcher.flush();
+	}
 	
 	
 	/**
@@ -117,18 +152,7 @@ public class WayKeyValueFilter implements SinkSource, EntityProcessor {
 	 * {@inheritDoc}
 	 */
 	public void process(WayContainer container) {
-		Way way = container.getEntity();
-
-		boolean matchesFilter = false;
-		for (Tag tag : way.getTags()) {
-			String keyValue = tag.getKey() + "." + tag.getValue();
-			if (allowedKeyValues.contains(keyValue)) {
-				matchesFilter = true;
-				break;
-			}
-		}
-
-		if (matchesFilter) {
+		if (matches(container.getEntity())) {
 			sink.process(container);
 		}
 	}
@@ -158,10 +182,20 @@ public class WayKeyValueFilter implements SinkSource, EntityProcessor {
 	}
 	
 	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsEntityReuse() {
+		return EntityReuse.isSupported(sink);
+	}
+
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public void setSink(Sink sink) {
 		this.sink = sink;
+		batcher = new EntityBatcher(sink);
 	}
 }
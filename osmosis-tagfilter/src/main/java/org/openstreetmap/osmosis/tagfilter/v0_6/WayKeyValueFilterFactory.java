@@ -47,4 +47,12 @@ public class WayKeyValueFilterFactory extends TaskManagerFactory {
 		);
 	}
 
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsParallelExecution(TaskConfiguration taskConfig) {
+		return true;
+	}
 }
@@ -0,0 +1,269 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.tagfilter.v0_6;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
+import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkBatchInspector;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkEntityInspector;
+
+
+/**
+ * Verifies that the tag filtering tasks produce the same results whether
+ * entities are received one at a time or in batches.
+ */
+public class BatchProcessingTest {
+
+	/**
+	 * Creates a task instance for each test run.
+	 */
+	private interface TaskFactory {
+		/**
+		 * Creates a new task.
+		 * 
+		 * @return The task.
+		 */
+		SinkSource create();
+	}
+
+
+	private CommonEntityData createEntityData(long id, String... keyValues) {
+		List<Tag> tags;
+
+		tags = new ArrayList<Tag>();
+		for (int i = 0; i < keyValues.length; i += 2) {
+			tags.add(new Tag(keyValues[i], keyValues[i + 1]));
+		}
+
+		return new CommonEntityData(id, 1, new Date(0), OsmUser.NONE, 1, tags);
+	}
+
+
+	private List<EntityContainer> createInput() {
+		List<EntityContainer> input;
+
+		input = new ArrayList<EntityContainer>();
+		input.add(new BoundContainer(new Bound("test")));
+		input.add(new NodeContainer(new Node(createEntityData(1, "amenity", "pub", "created_by", "me"), 1, 1)));
+		input.add(new NodeContainer(new Node(createEntityData(2), 1, 1)));
+		input.add(new NodeContainer(new Node(createEntityData(3, "place", "city", "name", "A"), 1, 1)));
+		input.add(new NodeContainer(new Node(createEntityData(4, "place", "village", "note:en", "x"), 1, 1)));
+		input.add(new NodeContainer(new Node(createEntityData(5, "shop", "bakery"), 1, 1)));
+		input.add(new WayContainer(new Way(createEntityData(10, "highway", "primary", "created_by", "me"),
+				Arrays.asList(new WayNode(1), new WayNode(2)))));
+		input.add(new WayContainer(new Way(createEntityData(11, "highway", "residential"),
+				Arrays.asList(new WayNode(3), new WayNode(4)))));
+		input.add(new WayContainer(new Way(createEntityData(12, "building", "yes"),
+				Arrays.asList(new WayNode(4), new WayNode(5)))));
+		input.add(new RelationContainer(new Relation(createEntityData(20, "type", "route", "route", "bus"),
+				Collections.<RelationMember>emptyList())));
+		input.add(new RelationContainer(new Relation(createEntityData(21, "type", "multipolygon"),
+				Collections.<RelationMember>emptyList())));
+
+		return input;
+	}
+
+
+	private List<String> format(Iterable<EntityContainer> entityContainers) {
+		List<String> result;
+
+		// Entities don't implement equals and may be copied by the task so are
+		// compared by their content.
+		result = new ArrayList<String>();
+		for (EntityContainer entityContainer : entityContainers) {
+			Entity entity;
+			StringBuilder builder;
+
+			entity = entityContainer.getEntity();
+			builder = new StringBuilder();
+			builder.append(entity.getType()).append(' ').append(entity.getId());
+			for (Tag tag : entity.getTags()) {
+				builder.append(' ').append(tag.getKey()).append('=').append(tag.getValue());
+			}
+			result.add(builder.toString());
+		}
+
+		return result;
+	}
+
+
+	private List<String> runPerEntity(SinkSource task) {
+		SinkEntityInspector inspector;
+
+		inspector = new SinkEntityInspector();
+		task.setSink(inspector);
+
+		task.initialize(Collections.<String, Object>emptyMap());
+		for (EntityContainer entityContainer : createInput()) {
+			task.process(entityContainer);
+		}
+		task.complete();
+		task.close();
+
+		return format(inspector.getProcessedEntities());
+	}
+
+
+	private List<String> runBatches(SinkSource task, SinkEntityInspector inspector, int batchSize) {
+		BatchSink batchTask;
+		List<EntityContainer> batch;
+
+		batchTask = (BatchSink) task;
+		task.setSink(inspector);
+
+		// A single list is re-used for all batches to verify that the task
+		// doesn't retain it.
+		batch = new ArrayList<EntityContainer>();
+		task.initialize(Collections.<String, Object>emptyMap());
+		for (EntityContainer entityContainer : createInput()) {
+			batch.add(entityContainer);
+			if (batch.size() == batchSize) {
+				batchTask.processBatch(batch);
+				batch.clear();
+			}
+		}
+		batchTask.processBatch(batch);
+		batch.clear();
+		task.complete();
+		task.close();
+
+		return format(inspector.getProcessedEntities());
+	}
+
+
+	private void checkEquivalence(TaskFactory factory, int expectedCount) {
+		List<String> expected;
+		SinkBatchInspector batchInspector;
+
+		expected = runPerEntity(factory.create());
+		Assert.assertEquals("Incorrect number of entities passed by the task.", expectedCount, expected.size());
+
+		for (int batchSize : new int[] {1, 3, 100}) {
+			batchInspector = new SinkBatchInspector();
+			Assert.assertEquals("Batches of " + batchSize + " sent to a batch sink don't match.",
+					expected, runBatches(factory.create(), batchInspector, batchSize));
+			for (List<EntityContainer> batch : batchInspector.getBatches()) {
+				Assert.assertFalse("Empty batches should not be sent downstream.", batch.isEmpty());
+			}
+
+			Assert.assertEquals("Batches of " + batchSize + " sent to a per-entity sink don't match.",
+					expected, runBatches(factory.create(), new SinkEntityInspector(), batchSize));
+		}
+	}
+
+
+	/**
+	 * Tests the tag filter.
+	 */
+	@Test
+	public void testTagFilter() {
+		checkEquivalence(new TaskFactory() {
+			@Override
+			public SinkSource create() {
+				Map<String, Set<String>> keyValues;
+
+				keyValues = new HashMap<String, Set<String>>();
+				keyValues.put("place", Collections.singleton("city"));
+
+				return new TagFilter("reject-nodes", Collections.singleton("amenity"), keyValues);
+			}
+		}, 9);
+	}
+
+
+	/**
+	 * Tests the node key filter.
+	 */
+	@Test
+	public void testNodeKeyFilter() {
+		checkEquivalence(new TaskFactory() {
+			@Override
+			public SinkSource create() {
+				return new NodeKeyFilter("amenity,shop");
+			}
+		}, 3);
+	}
+
+
+	/**
+	 * Tests the node key value filter.
+	 */
+	@Test
+	public void testNodeKeyValueFilter() {
+		checkEquivalence(new TaskFactory() {
+			@Override
+			public SinkSource create() {
+				return new NodeKeyValueFilter("place.city,amenity.pub");
+			}
+		}, 3);
+	}
+
+
+	/**
+	 * Tests the way key filter.
+	 */
+	@Test
+	public void testWayKeyFilter() {
+		checkEquivalence(new TaskFactory() {
+			@Override
+			public SinkSource create() {
+				return new WayKeyFilter("highway");
+			}
+		}, 10);
+	}
+
+
+	/**
+	 * Tests the way key value filter.
+	 */
+	@Test
+	public void testWayKeyValueFilter() {
+		checkEquivalence(new TaskFactory() {
+			@Override
+			public SinkSource create() {
+				return new WayKeyValueFilter("highway.residential,building.yes");
+			}
+		}, 10);
+	}
+
+
+	/**
+	 * Tests the tag remover.
+	 */
+	@Test
+	public void testTagRemover() {
+		checkEquivalence(new TaskFactory() {
+			@Override
+			public SinkSource create() {
+				return new TagRemover("created_by", "note");
+			}
+		}, 11);
+		Assert.assertFalse("Tags were not removed.",
+				runPerEntity(new TagRemover("created_by", "note")).toString().contains("created_by"));
+	}
+}
@@ -19,4 +19,11 @@ public class TransformTaskFactory extends TaskManagerFactory {
 				taskConfig.getPipeArgs());
 	}
 
+
+	@Override
+	public boolean supportsParallelExecution(TaskConfiguration taskConfig) {
+		// Each instance would only collect statistics for part of the data.
+		return !doesArgumentExist(taskConfig, "stats");
+	}
+
 }
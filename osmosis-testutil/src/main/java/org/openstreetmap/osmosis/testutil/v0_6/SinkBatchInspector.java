@@ -0,0 +1,54 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.testutil.v0_6;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.BatchSink;
+
+/**
+ * Mock object for inspecting the batches received after passing through a
+ * pipeline task. Entities received in batches are also available as processed
+ * entities so they can be compared against per-entity output.
+ */
+public class SinkBatchInspector extends SinkEntityInspector implements BatchSink {
+
+	private List<List<EntityContainer>> batches;
+
+
+	/**
+	 * Creates a new instance.
+	 */
+	public SinkBatchInspector() {
+		batches = new ArrayList<List<EntityContainer>>();
+	}
+
+
+	/**
+	 * Catch all entities in the batch and save them for later inspection. The
+	 * batch is copied because the caller may re-use the list.
+	 *
+	 * @param entityContainers
+	 *            The entities to be processed.
+	 */
+	@Override
+	public void processBatch(List<EntityContainer> entityContainers) {
+		batches.add(new ArrayList<EntityContainer>(entityContainers));
+
+		for (EntityContainer entityContainer : entityContainers) {
+			process(entityContainer);
+		}
+	}
+
+
+	/**
+	 * Retrieve the batches received so far.
+	 *
+	 * @return the batches
+	 */
+	public List<List<EntityContainer>> getBatches() {
+		return Collections.unmodifiableList(batches);
+	}
+}
@@ -12,6 +12,8 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.pipeline.common.Metered;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskMetrics;
 
 
 /**
@@ -19,7 +21,7 @@ import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
  * 
  * @author Brett Henderson
  */
-public abstract class BaseXmlWriter {
+public abstract class BaseXmlWriter implements Metered {
 	
 	private static Logger log = Logger.getLogger(BaseXmlWriter.class.getName());
 	
@@ -30,6 +32,7 @@ public abstract class BaseXmlWriter {
 	private boolean initialized;
 	private BufferedWriter writer;
 	private CompressionMethod compressionMethod;
+	private TaskMetrics metrics;
 	
 	
 	/**
@@ -62,6 +65,15 @@ public abstract class BaseXmlWriter {
 	}
 	
 	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setTaskMetrics(TaskMetrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	
 	/**
 	 * Sets the writer on the element writer used for this implementation.
 	 * 
@@ -148,6 +160,10 @@ public abstract class BaseXmlWriter {
 						outStream = new FileOutputStream(file);
 					}
 					
+					if (metrics != null) {
+						outStream = metrics.meterOutput(outStream);
+					}
+					
 					outStream =
 						new CompressionActivator(compressionMethod).createCompressionOutputStream(outStream);
 					
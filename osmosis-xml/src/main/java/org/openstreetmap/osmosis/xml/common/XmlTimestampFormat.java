@@ -34,6 +34,38 @@ public class XmlTimestampFormat extends TimestampFormat {
 	 */
 	@Override
 	public String formatTimestamp(Date timestamp) {
+		return getDateFormatter().format(timestamp);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String formatTimestamp(long epochMillis) {
+		return getDateFormatter().format(epochMillis);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Date parseTimestamp(String timestamp) {
+		return getDateParser().parse(timestamp);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long parseTimestampMillis(String timestamp) {
+		return getDateParser().parseMillis(timestamp, 0, timestamp.length());
+	}
+	
+	
+	private DateFormatter getDateFormatter() {
 		DateFormatter dateFormatter;
 		
 		dateFormatter = dateFormatterStore.get();
@@ -42,15 +74,11 @@ public class XmlTimestampFormat extends TimestampFormat {
 			dateFormatterStore.set(dateFormatter);
 		}
 		
-		return dateFormatter.format(timestamp);
+		return dateFormatter;
 	}
 	
 	
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public Date parseTimestamp(String timestamp) {
+	private DateParser getDateParser() {
 		DateParser dateParser;
 		
 		dateParser = dateParserStore.get();
@@ -59,6 +87,6 @@ public class XmlTimestampFormat extends TimestampFormat {
 			dateParserStore.set(dateParser);
 		}
 		
-		return dateParser.parse(timestamp);
+		return dateParser;
 	}
 }
@@ -10,6 +10,7 @@ import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 import org.openstreetmap.osmosis.core.task.v0_6.RunnableSource;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 
@@ -28,6 +29,7 @@ import org.xml.sax.helpers.DefaultHandler;
  */
 public class FastXmlReader extends BaseXMLReader implements RunnableSource {
 	private Sink sink;
+	private StringDictionary stringDictionary;
 		
 	/**
      * Creates a new instance.
@@ -41,7 +43,27 @@ public class FastXmlReader extends BaseXMLReader implements RunnableSource {
 	 *            Specifies the compression method to employ.
 	 */
 	public FastXmlReader(File file, boolean enableDateParsing, CompressionMethod compressionMethod) {
+        this(file, enableDateParsing, compressionMethod, new StringDictionary(StringDictionary.DEFAULT_CAPACITY));
+	}
+		
+	/**
+     * Creates a new instance.
+	 * 
+	 * @param file
+	 *            The file to read.
+	 * @param enableDateParsing
+	 *            If true, dates will be parsed from xml data, else the current
+     *            date will be used thus saving parsing time.
+     * @param compressionMethod
+	 *            Specifies the compression method to employ.
+	 * @param stringDictionary
+	 *            The dictionary for sharing repeated strings with other tasks
+	 *            in the pipeline.
+	 */
+	public FastXmlReader(File file, boolean enableDateParsing, CompressionMethod compressionMethod,
+			StringDictionary stringDictionary) {
         super(file, enableDateParsing, compressionMethod);
+        this.stringDictionary = stringDictionary;
 	}
 		
 	/**
@@ -74,7 +96,8 @@ public class FastXmlReader extends BaseXMLReader implements RunnableSource {
             factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
             final XMLStreamReader xpp = factory.createXMLStreamReader(stream);
 
-            final FastXmlParser parser = new FastXmlParser(this.sink, xpp, this.isEnableDateParsing());
+            final FastXmlParser parser = new FastXmlParser(
+                    this.sink, xpp, this.isEnableDateParsing(), this.stringDictionary);
             parser.readOsm();
         } catch (final XMLStreamException e) {
             throw new SAXException(e);
@@ -47,7 +47,8 @@ public class FastXmlReaderFactory extends XmlTaskManagerFactory {
 			file = new File(fileName);
 			
 			// Build the task object.
-			task = new FastXmlReader(file, enableDateParsing, compressionMethod);
+			task = new FastXmlReader(
+				file, enableDateParsing, compressionMethod, taskConfig.getStringDictionary());
 			
 			return new RunnableSourceManager(taskConfig.getId(), task, taskConfig.getPipeArgs());
 		}
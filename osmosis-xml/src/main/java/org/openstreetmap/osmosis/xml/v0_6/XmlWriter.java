@@ -5,7 +5,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
-import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityReuseSink;
 import org.openstreetmap.osmosis.xml.common.BaseXmlWriter;
 import org.openstreetmap.osmosis.xml.common.CompressionMethod;
 import org.openstreetmap.osmosis.xml.v0_6.impl.OsmWriter;
@@ -16,7 +16,7 @@ import org.openstreetmap.osmosis.xml.v0_6.impl.OsmWriter;
  * 
  * @author Brett Henderson
  */
-public class XmlWriter extends BaseXmlWriter implements Sink {
+public class XmlWriter extends BaseXmlWriter implements EntityReuseSink {
 	
 	private OsmWriter osmWriter;
 	
@@ -76,6 +76,15 @@ public class XmlWriter extends BaseXmlWriter implements Sink {
 	}
 	
 	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsEntityReuse() {
+		return true;
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -12,6 +12,8 @@ import java.util.zip.GZIPInputStream;
 import javax.xml.parsers.SAXParser;
 
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.pipeline.common.Metered;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskMetrics;
 import org.openstreetmap.osmosis.xml.common.CompressionActivator;
 import org.openstreetmap.osmosis.xml.common.CompressionMethod;
 import org.openstreetmap.osmosis.xml.common.SaxParserFactory;
@@ -24,10 +26,11 @@ import org.xml.sax.helpers.DefaultHandler;
  *
  * @author mcuthbert
  */
-public abstract class BaseXMLReader {
+public abstract class BaseXMLReader implements Metered {
     private final File file;
     private final boolean enableDateParsing;
     private final CompressionMethod method;
+    private TaskMetrics metrics;
 
      /**
      * Default Constructor.
@@ -51,6 +54,14 @@ public abstract class BaseXMLReader {
         return this.enableDateParsing;
     }
 
+     /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTaskMetrics(final TaskMetrics metrics) {
+        this.metrics = metrics;
+    }
+
      /**
      * Function to parse xml, this default function just uses the SAXParser.
      *
@@ -127,11 +138,19 @@ public abstract class BaseXMLReader {
     }
 
      private InputStream getInputStream() throws FileNotFoundException {
+        InputStream stream;
+
         if (this.file.getName().equals("-")) {
-            return System.in;
+            stream = System.in;
         } else {
-            return new FileInputStream(this.file);
+            stream = new FileInputStream(this.file);
+        }
+
+        if (this.metrics != null) {
+            stream = this.metrics.meterInput(stream);
         }
+
+        return stream;
     }
 
      private String getTempFilePrefix() {
@@ -14,11 +14,11 @@ import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
 import org.openstreetmap.osmosis.core.domain.common.SimpleTimestampContainer;
+import org.openstreetmap.osmosis.core.domain.common.StringDictionary;
 import org.openstreetmap.osmosis.core.domain.common.TimestampContainer;
 import org.openstreetmap.osmosis.core.domain.common.TimestampFormat;
 import org.openstreetmap.osmosis.core.domain.common.UnparsedTimestampContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
-import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
 import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
 import org.openstreetmap.osmosis.core.domain.v0_6.Node;
 import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
@@ -27,6 +27,9 @@ import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityBatcher;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityRecycler;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.EntityReuse;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.xml.common.XmlTimestampFormat;
 
@@ -80,6 +83,26 @@ public class FastXmlParser {
 	 *            otherwise the current system time will be used.
 	 */
 	public FastXmlParser(Sink sink, XMLStreamReader reader, boolean enableDateParsing) {
+		this(sink, reader, enableDateParsing, new StringDictionary(StringDictionary.DEFAULT_CAPACITY));
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param sink
+	 *            The sink receiving all output data.
+	 * @param reader
+	 *            The input xml reader.
+	 * @param enableDateParsing
+	 *            If true, parsing of dates in the xml will be enabled,
+	 *            otherwise the current system time will be used.
+	 * @param dictionary
+	 *            The dictionary for sharing repeated strings with other tasks
+	 *            in the pipeline.
+	 */
+	public FastXmlParser(
+			Sink sink, XMLStreamReader reader, boolean enableDateParsing, StringDictionary dictionary) {
 		this.sink = sink;
 		this.enableDateParsing = enableDateParsing;
 		this.reader = reader;
@@ -95,12 +118,16 @@ public class FastXmlParser {
 		}
 		
 		memberTypeParser = new MemberTypeParser();
+		this.dictionary = dictionary;
 	}
 	
 	private final XMLStreamReader reader;
 	private final Sink sink;
+	private EntityRecycler recycler;
+	private EntityBatcher batcher;
 	private final boolean enableDateParsing;
 	private final MemberTypeParser memberTypeParser;
+	private final StringDictionary dictionary;
 	private TimestampFormat timestampFormat;
 	private TimestampContainer dummyTimestampContainer;
 
@@ -148,7 +175,7 @@ public class FastXmlParser {
 			if (rawUserName == null) {
 				userName = "";
 			} else {
-				userName = rawUserName;
+				userName = dictionary.intern(rawUserName);
 			}
 			
 			return new OsmUser(userId, userName);
@@ -248,14 +275,14 @@ public class FastXmlParser {
 	}
 	
 	private Tag readTag() throws Exception {
-		Tag tag = new Tag(reader.getAttributeValue(null, ATTRIBUTE_NAME_KEY),
-				reader.getAttributeValue(null, ATTRIBUTE_NAME_VALUE));
+		Tag tag = new Tag(dictionary.intern(reader.getAttributeValue(null, ATTRIBUTE_NAME_KEY)),
+				dictionary.intern(reader.getAttributeValue(null, ATTRIBUTE_NAME_VALUE)));
 		reader.nextTag();
 		reader.nextTag();
 		return tag;
 	}
 	
-	private Node readNode() throws Exception {
+	private NodeContainer readNode() throws Exception {
 		long id;
 		int version;
 		TimestampContainer timestamp;
@@ -263,6 +290,7 @@ public class FastXmlParser {
 		long changesetId;
 		double latitude;
 		double longitude;
+		NodeContainer container;
 		Node node;
 		
 		id = Long.parseLong(reader.getAttributeValue(null, ATTRIBUTE_NAME_ID));
@@ -274,7 +302,8 @@ public class FastXmlParser {
 		latitude = Double.parseDouble(reader.getAttributeValue(null, ATTRIBUTE_NAME_LATITUDE));
 		longitude = Double.parseDouble(reader.getAttributeValue(null, ATTRIBUTE_NAME_LONGITUDE));
 		
-		node = new Node(new CommonEntityData(id, version, timestamp, user, changesetId), latitude, longitude);
+		container = recycler.nextNode(id, version, timestamp, user, changesetId, latitude, longitude);
+		node = container.getEntity();
 		
 		reader.nextTag();
 		while (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
@@ -287,7 +316,7 @@ public class FastXmlParser {
 		
 		reader.nextTag();
 		
-		return node;
+		return container;
 	}
 	
 	private WayNode readWayNode() throws Exception {
@@ -298,12 +327,13 @@ public class FastXmlParser {
 		return node;
 	}
 	
-	private Way readWay() throws Exception {
+	private WayContainer readWay() throws Exception {
 		long id;
 		int version;
 		TimestampContainer timestamp;
 		OsmUser user;
 		long changesetId;
+		WayContainer container;
 		Way way;
 		
 		id = Long.parseLong(reader.getAttributeValue(null, ATTRIBUTE_NAME_ID));
@@ -312,7 +342,8 @@ public class FastXmlParser {
 		user = readUser();
 		changesetId = readChangesetId();
 		
-		way = new Way(new CommonEntityData(id, version, timestamp, user, changesetId));
+		container = recycler.nextWay(id, version, timestamp, user, changesetId);
+		way = container.getEntity();
 		
 		reader.nextTag();
 		while (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
@@ -326,7 +357,7 @@ public class FastXmlParser {
 		}
 		reader.nextTag();
 
-		return way;
+		return container;
 	}
 	
 	private RelationMember readRelationMember() throws Exception {
@@ -336,7 +367,7 @@ public class FastXmlParser {
 		
 		id = Long.parseLong(reader.getAttributeValue(null, ATTRIBUTE_NAME_REF));
 		type = memberTypeParser.parse(reader.getAttributeValue(null, ATTRIBUTE_NAME_TYPE));
-		role = reader.getAttributeValue(null, ATTRIBUTE_NAME_ROLE);
+		role = dictionary.intern(reader.getAttributeValue(null, ATTRIBUTE_NAME_ROLE));
 		
 		RelationMember relationMember = new RelationMember(id, type, role);
 		
@@ -346,12 +377,13 @@ public class FastXmlParser {
 		return relationMember;
 	}
 	
-	private Relation readRelation() throws Exception {
+	private RelationContainer readRelation() throws Exception {
 		long id;
 		int version;
 		TimestampContainer timestamp;
 		OsmUser user;
 		long changesetId;
+		RelationContainer container;
 		Relation relation;
 		
 		id = Long.parseLong(reader.getAttributeValue(null, ATTRIBUTE_NAME_ID));
@@ -360,7 +392,8 @@ public class FastXmlParser {
 		user = readUser();
 		changesetId = readChangesetId();
 		
-		relation = new Relation(new CommonEntityData(id, version, timestamp, user, changesetId));
+		container = recycler.nextRelation(id, version, timestamp, user, changesetId);
+		relation = container.getEntity();
 		
 		reader.nextTag();
 		while (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
@@ -374,15 +407,21 @@ public class FastXmlParser {
 		}
 		reader.nextTag();
 		
-		return relation;
+		return container;
 	}
 
 	
 	/**
-	 * Parses the xml and sends all data to the sink.
+	 * Parses the xml and sends all data to the sink. Entities are sent to the
+	 * sink in batches.
 	 */
 	public void readOsm() {
 		
+		// Support for re-use can only be queried once the pipeline is
+		// connected.
+		recycler = new EntityRecycler(EntityReuse.isSupported(sink));
+		batcher = new EntityBatcher(sink, EntityBatcher.DEFAULT_BATCH_SIZE, recycler);
+		
 		try {
 		
 			String generator = null;
@@ -408,26 +447,28 @@ public class FastXmlParser {
 				if (reader.getEventType() == XMLStreamConstants.START_ELEMENT
 						&& reader.getLocalName().equals(ELEMENT_NAME_BOUND)) {
 					LOG.fine("Legacy <bound> element encountered.");
-					sink.process(new BoundContainer(readBound()));
+					batcher.add(new BoundContainer(readBound()));
 				}
 				
 				if (reader.getEventType() == XMLStreamConstants.START_ELEMENT
 						&& reader.getLocalName().equals(ELEMENT_NAME_BOUNDS)) {
-					sink.process(new BoundContainer(readBounds(generator)));
+					batcher.add(new BoundContainer(readBounds(generator)));
 				}
 
 				while (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {			
 					// Node, way, relation
 					if (reader.getLocalName().equals(ELEMENT_NAME_NODE)) {
-						sink.process(new NodeContainer(readNode()));
+						batcher.add(readNode());
 					} else if (reader.getLocalName().equals(ELEMENT_NAME_WAY)) {
-						sink.process(new WayContainer(readWay()));
+						batcher.add(readWay());
 					} else if (reader.getLocalName().equals(ELEMENT_NAME_RELATION)) {
-						sink.process(new RelationContainer(readRelation()));
+						batcher.add(readRelation());
 					} else {
 						readUnknownElement();
 					}
 				}
+				
+				batcher.flush();
 
 			} else {
 				throw new XMLStreamException();